@@ -13,12 +13,27 @@
  *******************************************************************************/
 package org.eclipse.equinox.event.tests;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.equinox.compendium.tests.Activator;
+import org.eclipse.equinox.internal.event.EventAdminImpl;
+import org.eclipse.equinox.internal.event.EventDeliveryEngine;
 import org.junit.*;
 import org.osgi.framework.*;
 import org.osgi.service.event.*;
@@ -175,4 +190,188 @@ public class EventAdminTest {
 				handler.lastEvent());
 		handlerRegistration.unregister();
 	}
+
+	/*
+	 * Ensures the handlers of a topic are updated once a handler is registered,
+	 * modified or unregistered after events have been published to the topic.
+	 */
+	@Test
+	public void testEventDeliveryAfterHandlerChanges() {
+		BundleContext bundleContext = Activator.getBundleContext();
+		Event event = new Event("a/b/c", (Dictionary<String, Object>) null); //$NON-NLS-1$
+		eventAdmin.sendEvent(event);
+
+		Dictionary<String, Object> properties = new Hashtable<String, Object>();
+		properties.put(EventConstants.EVENT_TOPIC, "a/b/c"); //$NON-NLS-1$
+		EventHandlerHelper handler = new EventHandlerHelper();
+		ServiceRegistration<EventHandler> handlerRegistration = bundleContext.registerService(EventHandler.class,
+				handler, properties);
+		eventAdmin.sendEvent(event);
+		assertNotNull("Did not receive event published to topic 'a/b/c' while listening to 'a/b/c'", //$NON-NLS-1$
+				handler.clearLastEvent());
+
+		properties.put(EventConstants.EVENT_TOPIC, "a/b/*"); //$NON-NLS-1$
+		handlerRegistration.setProperties(properties);
+		eventAdmin.sendEvent(event);
+		assertNotNull("Did not receive event published to topic 'a/b/c' while listening to 'a/b/*'", //$NON-NLS-1$
+				handler.clearLastEvent());
+
+		properties.put(EventConstants.EVENT_TOPIC, "a/b/c/*"); //$NON-NLS-1$
+		handlerRegistration.setProperties(properties);
+		eventAdmin.sendEvent(event);
+		assertNull("Received event published to topic 'a/b/c' while listening to 'a/b/c/*'", //$NON-NLS-1$
+				handler.clearLastEvent());
+
+		properties.put(EventConstants.EVENT_TOPIC, "*"); //$NON-NLS-1$
+		handlerRegistration.setProperties(properties);
+		eventAdmin.sendEvent(event);
+		assertNotNull("Did not receive event published to topic 'a/b/c' while listening to '*'", //$NON-NLS-1$
+				handler.clearLastEvent());
+
+		handlerRegistration.unregister();
+		eventAdmin.sendEvent(event);
+		assertNull("Received event published to topic 'a/b/c' after unregistering", handler.clearLastEvent()); //$NON-NLS-1$
+	}
+
+	/*
+	 * Ensures EventAdmin delivers posted events in order to handlers which require
+	 * ordered delivery and delivers all posted events to handlers which allow
+	 * unordered delivery.
+	 */
+	@Test
+	public void testPostEventDelivery() throws InterruptedException {
+		final int eventCount = 100;
+		BundleContext bundleContext = Activator.getBundleContext();
+		List<Integer> ordered = Collections.synchronizedList(new ArrayList<>());
+		List<Integer> unordered = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(2 * eventCount);
+
+		Dictionary<String, Object> properties = new Hashtable<String, Object>();
+		properties.put(EventConstants.EVENT_TOPIC, "a/b/c"); //$NON-NLS-1$
+		ServiceRegistration<EventHandler> orderedRegistration = bundleContext.registerService(EventHandler.class,
+				event -> {
+					ordered.add((Integer) event.getProperty("n")); //$NON-NLS-1$
+					done.countDown();
+				}, properties);
+		properties.put(EventConstants.EVENT_DELIVERY, EventConstants.DELIVERY_ASYNC_UNORDERED);
+		ServiceRegistration<EventHandler> unorderedRegistration = bundleContext.registerService(EventHandler.class,
+				event -> {
+					unordered.add((Integer) event.getProperty("n")); //$NON-NLS-1$
+					done.countDown();
+				}, properties);
+		try {
+			for (int i = 0; i < eventCount; i++) {
+				eventAdmin.postEvent(new Event("a/b/c", Collections.singletonMap("n", Integer.valueOf(i)))); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			assertTrue("Posted events not delivered", done.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			for (int i = 0; i < eventCount; i++) {
+				assertEquals("Wrong event order", Integer.valueOf(i), ordered.get(i)); //$NON-NLS-1$
+			}
+			assertEquals("Wrong number of unordered events", eventCount, new HashSet<>(unordered).size()); //$NON-NLS-1$
+		} finally {
+			orderedRegistration.unregister();
+			unorderedRegistration.unregister();
+		}
+	}
+
+	/*
+	 * Ensures a handler which requires ordered delivery receives a burst of posted
+	 * events in order when the lane is full and the posting thread delivers the
+	 * events itself.
+	 */
+	@Test
+	public void testPostEventOrderWithCallerRuns() throws InterruptedException {
+		final int eventCount = 200;
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EventDeliveryEngine.PROP_CAPACITY, "2"); //$NON-NLS-1$
+		configuration.put(EventDeliveryEngine.PROP_OVERFLOW, "caller-runs"); //$NON-NLS-1$
+		EventAdminImpl configuredEventAdmin = startEventAdmin(configuration);
+		List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(eventCount);
+
+		Dictionary<String, Object> properties = new Hashtable<String, Object>();
+		properties.put(EventConstants.EVENT_TOPIC, "caller/runs"); //$NON-NLS-1$
+		ServiceRegistration<EventHandler> registration = Activator.getBundleContext()
+				.registerService(EventHandler.class, event -> {
+					received.add((Integer) event.getProperty("n")); //$NON-NLS-1$
+					try {
+						Thread.sleep(1); // let the lane fill up
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					done.countDown();
+				}, properties);
+		try {
+			for (int i = 0; i < eventCount; i++) {
+				configuredEventAdmin
+						.postEvent(new Event("caller/runs", Collections.singletonMap("n", Integer.valueOf(i)))); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			assertTrue("Posted events not delivered", done.await(30, TimeUnit.SECONDS)); //$NON-NLS-1$
+			for (int i = 0; i < eventCount; i++) {
+				assertEquals("Wrong event order", Integer.valueOf(i), received.get(i)); //$NON-NLS-1$
+			}
+		} finally {
+			registration.unregister();
+			configuredEventAdmin.stop();
+		}
+	}
+
+	/*
+	 * Ensures events posted by a handler are not lost when the lane is full and the
+	 * overflow policy blocks the posting thread.
+	 */
+	@Test
+	public void testPostEventFromHandlerWithFullLane() throws InterruptedException {
+		final int eventCount = 100;
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EventDeliveryEngine.PROP_CAPACITY, "1"); //$NON-NLS-1$
+		configuration.put(EventDeliveryEngine.PROP_OVERFLOW, "block"); //$NON-NLS-1$
+		EventAdminImpl configuredEventAdmin = startEventAdmin(configuration);
+		AtomicInteger reposted = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(eventCount);
+
+		Dictionary<String, Object> properties = new Hashtable<String, Object>();
+		properties.put(EventConstants.EVENT_TOPIC, "full/first"); //$NON-NLS-1$
+		ServiceRegistration<EventHandler> first = Activator.getBundleContext().registerService(EventHandler.class,
+				event -> configuredEventAdmin.postEvent(new Event("full/second", (Dictionary<String, Object>) null)), //$NON-NLS-1$
+				properties);
+		properties.put(EventConstants.EVENT_TOPIC, "full/second"); //$NON-NLS-1$
+		ServiceRegistration<EventHandler> second = Activator.getBundleContext().registerService(EventHandler.class,
+				event -> {
+					reposted.incrementAndGet();
+					done.countDown();
+				}, properties);
+		try {
+			for (int i = 0; i < eventCount; i++) {
+				configuredEventAdmin.postEvent(new Event("full/first", (Dictionary<String, Object>) null)); //$NON-NLS-1$
+			}
+			assertTrue("Events posted by the handler not delivered", done.await(30, TimeUnit.SECONDS)); //$NON-NLS-1$
+			assertEquals("Wrong number of events posted by the handler", eventCount, reposted.get()); //$NON-NLS-1$
+		} finally {
+			first.unregister();
+			second.unregister();
+			configuredEventAdmin.stop();
+		}
+	}
+
+	/*
+	 * Starts an EventAdmin which gets the specified framework properties.
+	 */
+	private static EventAdminImpl startEventAdmin(Map<String, String> configuration) {
+		BundleContext context = Activator.getBundleContext();
+		BundleContext configured = (BundleContext) Proxy.newProxyInstance(BundleContext.class.getClassLoader(),
+				new Class<?>[] { BundleContext.class }, (proxy, method, args) -> {
+					if ("getProperty".equals(method.getName()) && configuration.containsKey(args[0])) { //$NON-NLS-1$
+						return configuration.get(args[0]);
+					}
+					try {
+						return method.invoke(context, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		EventAdminImpl result = new EventAdminImpl(configured);
+		result.start();
+		return result;
+	}
 }
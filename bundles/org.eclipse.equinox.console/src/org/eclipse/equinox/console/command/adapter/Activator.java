@@ -35,6 +35,8 @@ import org.eclipse.equinox.console.commands.EquinoxCommandProvider;
 import org.eclipse.equinox.console.commands.ExportStateCommand;
 import org.eclipse.equinox.console.commands.HelpCommand;
 import org.eclipse.equinox.console.commands.ManCommand;
+import org.eclipse.equinox.console.commands.ResolverMetricsCommand;
+import org.eclipse.equinox.console.commands.ServiceMetricsCommand;
 import org.eclipse.equinox.console.commands.WireCommand;
 import org.eclipse.equinox.console.telnet.TelnetCommand;
 import org.eclipse.osgi.framework.console.CommandInterpreter;
@@ -48,8 +50,11 @@ import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.framework.startlevel.FrameworkStartLevel;
 import org.osgi.framework.wiring.BundleCapability;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
 import org.osgi.framework.wiring.FrameworkWiring;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
@@ -135,6 +140,7 @@ public class Activator implements BundleActivator {
 	@SuppressWarnings("deprecation")
 	private ServiceTracker<PackageAdmin, PackageAdmin> packageAdminTracker;
 	private static boolean isFirstProcessor = true;
+	private static final String METRICS_PACKAGE = "org.eclipse.osgi.service.metrics";
 	private static TelnetCommand telnetConnection = null;
 
 	private ServiceTracker<CommandProcessor, ServiceTracker<ConsoleSession, CommandSession>> commandProcessorTracker;
@@ -333,6 +339,15 @@ public class Activator implements BundleActivator {
 		ExportStateCommand exportResourcesCommand = new ExportStateCommand(context);
 		exportResourcesCommand.startService();
 
+		// the metrics package is imported optionally; older frameworks do not provide it
+		if (isPackageWired(context, METRICS_PACKAGE)) {
+			ServiceMetricsCommand serviceMetricsCommand = new ServiceMetricsCommand(context);
+			serviceMetricsCommand.startService();
+
+			ResolverMetricsCommand resolverMetricsCommand = new ResolverMetricsCommand(context);
+			resolverMetricsCommand.startService();
+		}
+
 		GOGO.RUNTIME.start(frameworkWiring);
 		GOGO.SHELL.start(frameworkWiring);
 		GOGO.COMMAND.start(frameworkWiring);
@@ -355,6 +370,19 @@ public class Activator implements BundleActivator {
 		return getServiceFromTracker(packageAdminTracker, PackageAdmin.class);
 	}
 
+	private static boolean isPackageWired(BundleContext context, String packageName) {
+		BundleWiring wiring = context.getBundle().adapt(BundleWiring.class);
+		if (wiring == null) {
+			return false;
+		}
+		for (BundleWire wire : wiring.getRequiredWires(PackageNamespace.PACKAGE_NAMESPACE)) {
+			if (packageName.equals(wire.getCapability().getAttributes().get(PackageNamespace.PACKAGE_NAMESPACE))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private static <T> T getServiceFromTracker(ServiceTracker<?, T> tracker, Class<T> serviceClass) {
 		if (tracker == null)
 			throw new IllegalStateException("Missing service: " + serviceClass);
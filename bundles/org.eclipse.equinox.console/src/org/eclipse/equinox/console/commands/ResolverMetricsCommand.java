@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.console.commands;
+
+import java.io.PrintStream;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.service.command.CommandProcessor;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Descriptor;
+import org.eclipse.osgi.service.metrics.ResolverMetrics;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Provides a "resolvermetrics" command to print the resolver metrics collected
+ * by the framework
+ */
+public class ResolverMetricsCommand {
+
+	private static final int DEFAULT_TOP = 10;
+
+	private BundleContext context;
+
+	public ResolverMetricsCommand(BundleContext context) {
+		this.context = context;
+	}
+
+	public void startService() {
+		Dictionary<String, Object> dict = new Hashtable<>();
+		dict.put(CommandProcessor.COMMAND_SCOPE, "equinox");
+		dict.put(CommandProcessor.COMMAND_FUNCTION, new String[] { "resolvermetrics" });
+		context.registerService(ResolverMetricsCommand.class, this, dict);
+	}
+
+	@Descriptor("Prints the resolver metrics with the 10 bundles whose uses constraints took the longest to check")
+	public void resolvermetrics(CommandSession session) {
+		resolvermetrics(session, Integer.toString(DEFAULT_TOP));
+	}
+
+	@Descriptor("Prints the resolver metrics with the given number of bundles whose uses constraints took the longest to check, or resets the metrics")
+	public void resolvermetrics(CommandSession session,
+			@Descriptor("the number of bundles to print, or \"reset\" to reset the metrics") String argument) {
+		PrintStream console = session.getConsole();
+		int top;
+		if ("reset".equals(argument)) {
+			top = -1;
+		} else {
+			try {
+				top = Integer.parseInt(argument);
+			} catch (NumberFormatException e) {
+				console.println("Invalid argument: " + argument);
+				return;
+			}
+		}
+		ServiceReference<ResolverMetrics> reference = context.getServiceReference(ResolverMetrics.class);
+		ResolverMetrics metrics = reference == null ? null : context.getService(reference);
+		if (metrics == null) {
+			console.println("Resolver metrics are not available!");
+			return;
+		}
+		try {
+			if (top < 0) {
+				metrics.reset();
+				console.println("Resolver metrics reset");
+			} else {
+				printMetrics(console, metrics.getMetrics(), top);
+			}
+		} finally {
+			context.ungetService(reference);
+		}
+	}
+
+	private void printMetrics(PrintStream console, ResolverMetricsDTO dto, int top) {
+		if (!dto.enabled) {
+			console.println("Resolver metrics are disabled; launch the framework with equinox.resolver.metrics=true");
+			return;
+		}
+		console.println("Resolve operations: " + dto.operations + " in " + millis(dto.resolveTime) + " ms");
+		console.println("  Find providers:       " + millis(dto.findProvidersTime) + " ms for "
+				+ dto.findProvidersCalls + " requirements");
+		console.println("  Populate candidates:  " + millis(dto.candidatesTime) + " ms");
+		console.println("  Package spaces:       " + millis(dto.packageSpacesTime) + " ms");
+		console.println("  Uses constraints:     " + millis(dto.usesConstraintsTime) + " ms");
+		console.println("  Permutations:         " + millis(dto.permutationsTime) + " ms");
+		console.println(String.format("Permutations: total=%d processed=%d uses=%d import=%d substitution=%d",
+				dto.permutations, dto.processedPermutations, dto.usesPermutations, dto.importPermutations,
+				dto.substitutionPermutations));
+		console.println("Batch timeouts: " + dto.batchTimeouts);
+		console.println("Fallbacks to individual resolves: " + dto.individualResolves);
+		console.println("Top bundles by uses constraint time (ms, permutations):");
+		dto.usesConstraintsTimeByBundle.entrySet().stream()
+				.sorted(Map.Entry.<Long, Long>comparingByValue().reversed()).limit(top)
+				.forEach(e -> console.println(String.format("  %10d %6d %s", millis(e.getValue().longValue()),
+						dto.permutationsByBundle.getOrDefault(e.getKey(), Long.valueOf(0)), getBundleName(e.getKey()))));
+	}
+
+	private String getBundleName(Long id) {
+		Bundle bundle = context.getBundle(id.longValue());
+		if (bundle == null) {
+			return "[" + id + "]";
+		}
+		return bundle.getSymbolicName() + " [" + id + "]";
+	}
+
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
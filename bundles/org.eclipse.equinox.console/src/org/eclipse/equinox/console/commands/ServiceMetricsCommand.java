@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.equinox.console.commands;
+
+import java.io.PrintStream;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.service.command.CommandProcessor;
+import org.apache.felix.service.command.CommandSession;
+import org.apache.felix.service.command.Descriptor;
+import org.eclipse.osgi.service.metrics.HistogramDTO;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetrics;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetricsDTO;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Provides a "servicemetrics" command to print the service registry metrics
+ * collected by the framework
+ */
+public class ServiceMetricsCommand {
+
+	private static final int DEFAULT_TOP = 10;
+
+	private BundleContext context;
+
+	public ServiceMetricsCommand(BundleContext context) {
+		this.context = context;
+	}
+
+	public void startService() {
+		Dictionary<String, Object> dict = new Hashtable<>();
+		dict.put(CommandProcessor.COMMAND_SCOPE, "equinox");
+		dict.put(CommandProcessor.COMMAND_FUNCTION, new String[] { "servicemetrics" });
+		context.registerService(ServiceMetricsCommand.class, this, dict);
+	}
+
+	@Descriptor("Prints the service registry metrics with the 10 most used classes and bundles")
+	public void servicemetrics(CommandSession session) {
+		servicemetrics(session, Integer.toString(DEFAULT_TOP));
+	}
+
+	@Descriptor("Prints the service registry metrics with the given number of most used classes and bundles, or resets the metrics")
+	public void servicemetrics(CommandSession session,
+			@Descriptor("the number of most used classes and bundles to print, or \"reset\" to reset the metrics") String argument) {
+		PrintStream console = session.getConsole();
+		int top;
+		if ("reset".equals(argument)) {
+			top = -1;
+		} else {
+			try {
+				top = Integer.parseInt(argument);
+			} catch (NumberFormatException e) {
+				console.println("Invalid argument: " + argument);
+				return;
+			}
+		}
+		ServiceReference<ServiceRegistryMetrics> reference = context.getServiceReference(ServiceRegistryMetrics.class);
+		ServiceRegistryMetrics metrics = reference == null ? null : context.getService(reference);
+		if (metrics == null) {
+			console.println("Service registry metrics are not available!");
+			return;
+		}
+		try {
+			if (top < 0) {
+				metrics.reset();
+				console.println("Service registry metrics reset");
+			} else {
+				printMetrics(console, metrics.getMetrics(), top);
+			}
+		} finally {
+			context.ungetService(reference);
+		}
+	}
+
+	private void printMetrics(PrintStream console, ServiceRegistryMetricsDTO dto, int top) {
+		if (!dto.enabled) {
+			console.println(
+					"Service registry metrics are disabled; launch the framework with equinox.serviceregistry.metrics=true");
+			return;
+		}
+		console.println("Service lookups: " + dto.lookups);
+		console.println("  Top classes:");
+		dto.lookupsByClass.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(top).forEach(e -> console.println(String.format("    %10d %s", e.getValue(), e.getKey())));
+		console.println("  Top bundles:");
+		dto.lookupsByBundle.entrySet().stream().sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+				.limit(top)
+				.forEach(e -> console.println(String.format("    %10d %s", e.getValue(), getBundleName(e.getKey()))));
+		printHistogram(console, "Filter evaluations per lookup", dto.filterEvaluationsPerLookup, false);
+		printHistogram(console, "Listener fan-out per event", dto.listenerFanOut, false);
+		printHistogram(console, "getService time (us)", dto.getServiceTime, true);
+		printHistogram(console, "Factory getService time (us)", dto.factoryGetServiceTime, true);
+		printHistogram(console, "Hook time (us)", dto.hookTime, true);
+		printHistogram(console, "Service use lock wait time (us)", dto.useLockWaitTime, true);
+		console.println(String.format("Filter cache: size=%d hits=%d misses=%d", dto.filterCacheSize,
+				dto.filterCacheHits, dto.filterCacheMisses));
+	}
+
+	private String getBundleName(Long id) {
+		Bundle bundle = context.getBundle(id.longValue());
+		if (bundle == null) {
+			return "[" + id + "]";
+		}
+		return bundle.getSymbolicName() + " [" + id + "]";
+	}
+
+	private static void printHistogram(PrintStream console, String name, HistogramDTO histogram, boolean nanos) {
+		if (histogram.count == 0) {
+			console.println(name + ": none");
+			return;
+		}
+		console.println(String.format("%s: count=%d mean=%s max=%s p50<=%s p90<=%s p99<=%s", name, histogram.count,
+				format(histogram.sum / histogram.count, nanos), format(histogram.max, nanos),
+				format(percentile(histogram, 50), nanos), format(percentile(histogram, 90), nanos),
+				format(percentile(histogram, 99), nanos)));
+	}
+
+	private static long percentile(HistogramDTO histogram, int percent) {
+		long rank = (histogram.count * percent + 99) / 100;
+		long seen = 0;
+		for (int i = 0; i < histogram.counts.length; i++) {
+			seen += histogram.counts[i];
+			if (seen >= rank) {
+				return Math.min(histogram.upperBounds[i], histogram.max);
+			}
+		}
+		return histogram.max;
+	}
+
+	private static String format(long value, boolean nanos) {
+		return nanos ? Long.toString(TimeUnit.NANOSECONDS.toMicros(value)) : Long.toString(value);
+	}
+}
@@ -26,19 +26,23 @@ import org.osgi.service.event.*;
  * Implementation of org.osgi.service.event.EventAdmin. EventAdminImpl uses
  * org.eclipse.osgi.framework.eventmgr.EventManager. It is assumed
  * org.eclipse.osgi.framework.eventmgr package is exported by some other bundle.
+ * Posted events are delivered by an EventDeliveryEngine.
  */
 public class EventAdminImpl implements EventAdmin {
 	private final LogTracker log;
 	private final EventHandlerTracker handlers;
 	private volatile EventManager eventManager;
+	private volatile EventDeliveryEngine deliveryEngine;
+	private final BundleContext context;
 
 	/**
 	 * Constructor for EventAdminImpl.
 	 * 
 	 * @param context BundleContext
 	 */
-	EventAdminImpl(BundleContext context) {
+	public EventAdminImpl(BundleContext context) {
 		super();
+		this.context = context;
 		log = new LogTracker(context, System.out);
 		handlers = new EventHandlerTracker(context, log);
 	}
@@ -46,20 +50,24 @@ public class EventAdminImpl implements EventAdmin {
 	/**
 	 * This method should be called before registering EventAdmin service
 	 */
-	void start() {
+	public void start() {
 		log.open();
 		ThreadGroup eventGroup = new ThreadGroup("Equinox Event Admin"); //$NON-NLS-1$
 		eventManager = new EventManager(EventAdminMsg.EVENT_ASYNC_THREAD_NAME, eventGroup);
+		deliveryEngine = EventDeliveryEngine.newInstance(EventAdminMsg.EVENT_ASYNC_THREAD_NAME, eventGroup, context,
+				log);
 		handlers.open();
 	}
 
 	/**
 	 * This method should be called after unregistering EventAdmin service
 	 */
-	void stop() {
+	public void stop() {
 		handlers.close();
 		eventManager.close();
 		eventManager = null; // signify we have stopped
+		deliveryEngine.close();
+		deliveryEngine = null;
 		log.close();
 	}
 
@@ -84,7 +92,8 @@ public class EventAdminImpl implements EventAdmin {
 	private void dispatchEvent(Event event, boolean isAsync) {
 		// keep a local copy in case we are stopped in the middle of dispatching
 		EventManager currentManager = eventManager;
-		if (currentManager == null) {
+		EventDeliveryEngine currentEngine = deliveryEngine;
+		if (currentManager == null || currentEngine == null) {
 			// EventAdmin is stopped
 			return;
 		}
@@ -106,30 +115,25 @@ public class EventAdminImpl implements EventAdmin {
 			throw e;
 		}
 
-		Set<EventHandlerWrapper> eventHandlers = handlers.getHandlers(topic);
+		Set<Map.Entry<EventHandlerWrapper, Permission>> listeners = handlers.getListeners(topic);
 		// If there are no handlers, then we are done
-		if (eventHandlers.isEmpty()) {
+		if (listeners.isEmpty()) {
 			return;
 		}
 
-		SecurityManager sm = System.getSecurityManager();
-		Permission perm = (sm == null) ? null : new TopicPermission(topic, TopicPermission.SUBSCRIBE);
-
-		Map<EventHandlerWrapper, Permission> listeners = new CopyOnWriteIdentityMap<>();
-		for (EventHandlerWrapper wrapper : eventHandlers)
-			listeners.put(wrapper, perm);
+		if (isAsync) {
+			// Deliver the event to the listeners by the bounded delivery lanes.
+			currentEngine.postEvent(listeners, event);
+			return;
+		}
 
 		// Create the listener queue for this event delivery
 		ListenerQueue<EventHandlerWrapper, Permission, Event> listenerQueue = new ListenerQueue<>(currentManager);
 		// Add the listeners to the queue and associate them with the event
 		// dispatcher
-		listenerQueue.queueListeners(listeners.entrySet(), handlers);
+		listenerQueue.queueListeners(listeners, handlers);
 		// Deliver the event to the listeners.
-		if (isAsync) {
-			listenerQueue.dispatchEventAsynchronous(0, event);
-		} else {
-			listenerQueue.dispatchEventSynchronous(0, event);
-		}
+		listenerQueue.dispatchEventSynchronous(0, event);
 	}
 
 	/**
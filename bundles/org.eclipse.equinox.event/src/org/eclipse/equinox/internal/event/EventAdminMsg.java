@@ -25,6 +25,9 @@ public class EventAdminMsg extends NLS {
 	public static String EVENT_DISPATCH_HANDLER_EXCEPTION;
 	public static String EVENT_INVALID_HANDLER_FILTER;
 	public static String EVENT_INVALID_HANDLER_TOPICS;
+	public static String EVENT_INVALID_CONFIGURATION;
+	public static String EVENT_ASYNC_EVENT_DROPPED;
+	public static String EVENT_SLOW_HANDLER_ISOLATED;
 
 	static {
 		// initialize resource bundles
@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.equinox.internal.event;
+
+import java.security.Permission;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.event.Event;
+
+/**
+ * Asynchronous delivery of posted events. Events are delivered by a number of
+ * delivery lanes, each with its own thread and bounded queue. The handlers
+ * which require ordered delivery (the default {@code event.delivery} of
+ * {@code async.ordered}) are always delivered by the same lane so that a
+ * handler receives the events in the order they were posted. Handlers which
+ * allow {@code async.unordered} delivery are delivered by the least loaded
+ * lane.
+ * <p>
+ * When the queue of a lane is full the configured overflow policy applies: the
+ * posting thread blocks until there is room in the queue, the oldest queued
+ * event of the lane is dropped or the posting thread delivers the queued events
+ * of the lane up to and including the posted event itself, so that handlers
+ * still receive the events in the order they were posted. A handler which
+ * posts an event from a delivery thread never waits for a full lane to avoid
+ * deadlocks between lanes; unless the oldest event is dropped, the event is
+ * queued even though the lane is full.
+ * <p>
+ * The thread of a lane is started when the first event is queued to the lane.
+ * <p>
+ * If a slow handler threshold is configured, handlers whose average delivery
+ * time exceeds the threshold are moved to a separate lane once all their
+ * pending events have been delivered so they no longer delay the other
+ * handlers.
+ */
+public class EventDeliveryEngine {
+	/** The number of delivery lanes; default is 1. */
+	public static final String PROP_THREADS = "org.eclipse.equinox.event.async.threads"; //$NON-NLS-1$
+	/** The maximum number of queued events per lane; default is 10000. */
+	public static final String PROP_CAPACITY = "org.eclipse.equinox.event.async.capacity"; //$NON-NLS-1$
+	/** The overflow policy: block, drop-oldest or caller-runs; default is block. */
+	public static final String PROP_OVERFLOW = "org.eclipse.equinox.event.async.overflow"; //$NON-NLS-1$
+	/**
+	 * The average delivery time in milliseconds above which a handler is isolated;
+	 * default is 0 which disables the isolation of slow handlers.
+	 */
+	public static final String PROP_SLOW_HANDLER_THRESHOLD = "org.eclipse.equinox.event.async.slowHandlerThreshold"; //$NON-NLS-1$
+
+	/** the default maximum number of queued events per lane */
+	static final int DEFAULT_CAPACITY = 10000;
+	/** the minimum interval between two warnings about dropped events */
+	private static final long DROP_WARNING_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+	/** true while the current thread delivers events of a lane */
+	static final ThreadLocal<Boolean> delivering = new ThreadLocal<>();
+
+	enum OverflowPolicy {
+		BLOCK("block"), //$NON-NLS-1$
+		DROP_OLDEST("drop-oldest"), //$NON-NLS-1$
+		CALLER_RUNS("caller-runs"); //$NON-NLS-1$
+
+		final String value;
+
+		OverflowPolicy(String value) {
+			this.value = value;
+		}
+
+		static OverflowPolicy parse(String value) {
+			for (OverflowPolicy policy : values()) {
+				if (policy.value.equalsIgnoreCase(value)) {
+					return policy;
+				}
+			}
+			throw new IllegalArgumentException(value);
+		}
+	}
+
+	private final LogTracker log;
+	private final int capacity;
+	private final OverflowPolicy overflow;
+	private final long slowHandlerThreshold;
+	/** the lanes for handlers by identity hash */
+	private final int laneCount;
+	/** all lanes; followed by the lane for slow handlers if enabled */
+	private final Lane[] lanes;
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong lastDropWarning = new AtomicLong(System.nanoTime() - DROP_WARNING_INTERVAL);
+
+	/**
+	 * Create a delivery engine.
+	 *
+	 * @param threadName           the base name of the delivery threads
+	 * @param threadGroup          the thread group of the delivery threads
+	 * @param log                  LogTracker for logging
+	 * @param laneCount            the number of lanes
+	 * @param capacity             the maximum number of queued events per lane
+	 * @param overflow             the policy applied when a lane is full
+	 * @param slowHandlerThreshold the average delivery time in nanoseconds above
+	 *                             which a handler is isolated or 0
+	 */
+	EventDeliveryEngine(String threadName, ThreadGroup threadGroup, LogTracker log, int laneCount, int capacity,
+			OverflowPolicy overflow, long slowHandlerThreshold) {
+		if (laneCount < 1 || capacity < 1 || slowHandlerThreshold < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.log = log;
+		this.capacity = capacity;
+		this.overflow = overflow;
+		this.slowHandlerThreshold = slowHandlerThreshold;
+		this.laneCount = laneCount;
+		this.lanes = new Lane[slowHandlerThreshold > 0 ? laneCount + 1 : laneCount];
+		for (int i = 0; i < lanes.length; i++) {
+			String name = threadName;
+			if (i == laneCount) {
+				name += " (slow handlers)"; //$NON-NLS-1$
+			} else if (laneCount > 1) {
+				name += " #" + i; //$NON-NLS-1$
+			}
+			lanes[i] = new Lane(threadGroup, name);
+		}
+	}
+
+	/**
+	 * Create a delivery engine configured with the properties of the bundle
+	 * context. Invalid property values are logged and the default is used.
+	 *
+	 * @param threadName  the base name of the delivery threads
+	 * @param threadGroup the thread group of the delivery threads
+	 * @param context     the bundle context
+	 * @param log         LogTracker for logging
+	 * @return a new delivery engine
+	 */
+	static EventDeliveryEngine newInstance(String threadName, ThreadGroup threadGroup, BundleContext context,
+			LogTracker log) {
+		int threads = getIntProperty(context, log, PROP_THREADS, 1, 1);
+		int capacity = getIntProperty(context, log, PROP_CAPACITY, 1, DEFAULT_CAPACITY);
+		long slowHandlerThreshold = getIntProperty(context, log, PROP_SLOW_HANDLER_THRESHOLD, 0, 0);
+		OverflowPolicy overflow = OverflowPolicy.BLOCK;
+		String value = context.getProperty(PROP_OVERFLOW);
+		if (value != null) {
+			try {
+				overflow = OverflowPolicy.parse(value.trim());
+			} catch (IllegalArgumentException e) {
+				log.error(NLS.bind(EventAdminMsg.EVENT_INVALID_CONFIGURATION, PROP_OVERFLOW, value));
+			}
+		}
+		return new EventDeliveryEngine(threadName, threadGroup, log, threads, capacity, overflow,
+				TimeUnit.MILLISECONDS.toNanos(slowHandlerThreshold));
+	}
+
+	private static int getIntProperty(BundleContext context, LogTracker log, String key, int minValue,
+			int defaultValue) {
+		String value = context.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			int result = Integer.parseInt(value.trim());
+			if (result >= minValue) {
+				return result;
+			}
+		} catch (NumberFormatException e) {
+			// fall through to log the error
+		}
+		log.error(NLS.bind(EventAdminMsg.EVENT_INVALID_CONFIGURATION, key, value));
+		return defaultValue;
+	}
+
+	/**
+	 * Stop the delivery threads. Events which have not been delivered yet are
+	 * discarded.
+	 */
+	void close() {
+		for (Lane lane : lanes) {
+			lane.close();
+		}
+	}
+
+	/**
+	 * Queue the event for delivery to the listeners.
+	 *
+	 * @param listeners the handlers and their permissions; the set must not change
+	 * @param event     the event to deliver
+	 */
+	void postEvent(Set<Map.Entry<EventHandlerWrapper, Permission>> listeners, Event event) {
+		if (lanes.length == 1) {
+			enqueue(lanes[0], new Delivery(listeners, event));
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		List<Map.Entry<EventHandlerWrapper, Permission>>[] split = new List[lanes.length];
+		if (slowHandlerThreshold > 0) {
+			synchronized (this) {
+				for (Map.Entry<EventHandlerWrapper, Permission> listener : listeners) {
+					EventHandlerWrapper wrapper = listener.getKey();
+					add(split, selectLane(wrapper), listener);
+					wrapper.pendingDeliveries.incrementAndGet();
+				}
+			}
+		} else {
+			for (Map.Entry<EventHandlerWrapper, Permission> listener : listeners) {
+				add(split, selectLane(listener.getKey()), listener);
+			}
+		}
+		for (int i = 0; i < split.length; i++) {
+			if (split[i] != null) {
+				enqueue(lanes[i], new Delivery(split[i], event));
+			}
+		}
+	}
+
+	private static void add(List<Map.Entry<EventHandlerWrapper, Permission>>[] split, int lane,
+			Map.Entry<EventHandlerWrapper, Permission> listener) {
+		if (split[lane] == null) {
+			split[lane] = new ArrayList<>();
+		}
+		split[lane].add(listener);
+	}
+
+	/**
+	 * Select the lane to deliver an event to the handler. A slow handler moves to
+	 * the lane for slow handlers once all its pending events have been delivered.
+	 *
+	 * @GuardedBy this if slow handlers are isolated
+	 */
+	private int selectLane(EventHandlerWrapper wrapper) {
+		if (slowHandlerThreshold > 0) {
+			if (wrapper.lane == laneCount) {
+				return laneCount;
+			}
+			if (wrapper.slow && (!wrapper.isOrdered() || wrapper.pendingDeliveries.get() == 0)) {
+				wrapper.lane = laneCount;
+				return laneCount;
+			}
+		}
+		if (!wrapper.isOrdered()) {
+			return getLeastLoadedLane();
+		}
+		if (slowHandlerThreshold > 0) {
+			if (wrapper.lane < 0) {
+				wrapper.lane = getLane(wrapper);
+			}
+			return wrapper.lane;
+		}
+		return getLane(wrapper);
+	}
+
+	private int getLane(EventHandlerWrapper wrapper) {
+		return (System.identityHashCode(wrapper) & Integer.MAX_VALUE) % laneCount;
+	}
+
+	private int getLeastLoadedLane() {
+		int result = 0;
+		for (int i = 1; i < laneCount; i++) {
+			if (lanes[i].size < lanes[result].size) {
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	private void enqueue(Lane lane, Delivery delivery) {
+		// never wait for a lane in a delivery thread to avoid deadlocks between lanes
+		boolean reentrant = delivering.get() != null;
+		Delivery oldest = null;
+		boolean callerRuns = false;
+		synchronized (lane) {
+			while (lane.running && lane.queue.size() >= capacity) {
+				if (overflow == OverflowPolicy.DROP_OLDEST) {
+					oldest = lane.queue.poll();
+					break;
+				}
+				if (reentrant) {
+					// queue the event beyond the capacity instead of losing it
+					break;
+				}
+				if (overflow == OverflowPolicy.CALLER_RUNS) {
+					callerRuns = true;
+					break;
+				}
+				try {
+					lane.wait();
+				} catch (InterruptedException e) {
+					// queue the event anyway instead of losing it
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (!lane.running) {
+				return;
+			}
+			lane.queue.add(delivery);
+			lane.size = lane.queue.size();
+			if (!lane.started) {
+				lane.started = true;
+				lane.start();
+			}
+			lane.notifyAll();
+		}
+		if (oldest != null) {
+			drop(oldest);
+		}
+		if (callerRuns) {
+			lane.deliverInCaller(delivery);
+		}
+	}
+
+	private void drop(Delivery delivery) {
+		delivery.done();
+		long count = dropped.incrementAndGet();
+		long now = System.nanoTime();
+		long last = lastDropWarning.get();
+		if (now - last >= DROP_WARNING_INTERVAL && lastDropWarning.compareAndSet(last, now)) {
+			log.warning(NLS.bind(EventAdminMsg.EVENT_ASYNC_EVENT_DROPPED, delivery.event, Long.valueOf(count)));
+		}
+	}
+
+	/**
+	 * Returns the number of events which have been dropped because a lane was
+	 * full.
+	 *
+	 * @return the number of dropped events
+	 */
+	long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Deliver the event to the listeners and isolate the handlers which have
+	 * become slow.
+	 */
+	void deliver(Delivery delivery) {
+		for (Map.Entry<EventHandlerWrapper, Permission> listener : delivery.listeners) {
+			EventHandlerWrapper wrapper = listener.getKey();
+			try {
+				wrapper.handleEvent(delivery.event, listener.getValue());
+			} finally {
+				if (slowHandlerThreshold > 0) {
+					wrapper.pendingDeliveries.decrementAndGet();
+					if (!wrapper.slow && wrapper.isSlow(slowHandlerThreshold)) {
+						wrapper.slow = true;
+						log.warning(NLS.bind(EventAdminMsg.EVENT_SLOW_HANDLER_ISOLATED, wrapper.reference,
+								Long.valueOf(TimeUnit.NANOSECONDS.toMillis(wrapper.getAverageDeliveryTime()))));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * An event queued for delivery to the listeners of a lane.
+	 */
+	final class Delivery {
+		final Collection<Map.Entry<EventHandlerWrapper, Permission>> listeners;
+		final Event event;
+		/** true once the delivery has been taken from the queue of its lane */
+		/* @GuardedBy("lane") */
+		boolean taken;
+
+		Delivery(Collection<Map.Entry<EventHandlerWrapper, Permission>> listeners, Event event) {
+			this.listeners = listeners;
+			this.event = event;
+		}
+
+		/**
+		 * Called if the delivery is discarded.
+		 */
+		void done() {
+			if (slowHandlerThreshold > 0) {
+				for (Map.Entry<EventHandlerWrapper, Permission> listener : listeners) {
+					listener.getKey().pendingDeliveries.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * A delivery lane. The queue is guarded by the monitor of the lane; the
+	 * delivery lock is held while delivering an event so that a caller delivering
+	 * the queued events does not interleave with the lane thread.
+	 */
+	final class Lane extends Thread {
+		/* @GuardedBy("this") */
+		final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+		/** the number of queued events for lane selection */
+		volatile int size;
+		volatile boolean running = true;
+		/* @GuardedBy("this") */
+		boolean started;
+		private final ReentrantLock deliveryLock = new ReentrantLock();
+
+		Lane(ThreadGroup threadGroup, String name) {
+			super(threadGroup, name);
+			setDaemon(true);
+		}
+
+		void close() {
+			synchronized (this) {
+				running = false;
+				for (Delivery delivery : queue) {
+					delivery.done();
+				}
+				queue.clear();
+				size = 0;
+				notifyAll();
+			}
+			interrupt();
+		}
+
+		@Override
+		public void run() {
+			delivering.set(Boolean.TRUE);
+			while (true) {
+				synchronized (this) {
+					while (running && queue.isEmpty()) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							// If interrupted, we will loop back up and check running
+						}
+					}
+					if (!running) {
+						return;
+					}
+				}
+				deliveryLock.lock();
+				try {
+					Delivery delivery = poll();
+					if (delivery != null) {
+						deliver(delivery);
+					}
+				} finally {
+					deliveryLock.unlock();
+				}
+			}
+		}
+
+		private synchronized Delivery poll() {
+			Delivery delivery = queue.poll();
+			if (delivery != null) {
+				delivery.taken = true;
+				size = queue.size();
+				notifyAll(); // wake up blocked posters
+			}
+			return delivery;
+		}
+
+		/**
+		 * Deliver the queued deliveries of this lane in the calling thread until the
+		 * specified queued delivery has been delivered. The deliveries queued before
+		 * it are delivered first so that the handlers receive the events in order.
+		 *
+		 * @param delivery the queued delivery of the calling thread
+		 */
+		void deliverInCaller(Delivery delivery) {
+			deliveryLock.lock();
+			try {
+				delivering.set(Boolean.TRUE);
+				while (!isTaken(delivery)) {
+					Delivery next = poll();
+					if (next == null) {
+						return; // the lane has been closed
+					}
+					deliver(next);
+				}
+			} finally {
+				delivering.remove();
+				deliveryLock.unlock();
+			}
+		}
+
+		private synchronized boolean isTaken(Delivery delivery) {
+			return delivery.taken;
+		}
+	}
+}
@@ -16,30 +16,36 @@ package org.eclipse.equinox.internal.event;
 
 import java.security.Permission;
 import java.util.*;
-import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.osgi.framework.eventmgr.*;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
+import org.osgi.service.event.TopicPermission;
 import org.osgi.util.tracker.ServiceTracker;
 
 public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandlerWrapper>
 		implements EventDispatcher<EventHandlerWrapper, Permission, Event> {
+	/** the maximum number of topics for which the resolved handlers are cached */
+	static final int MAX_CACHED_TOPICS = 1024;
+	static final EventHandlerWrapper[] EMPTY_HANDLERS = new EventHandlerWrapper[0];
 
 	private final LogTracker log;
-	// * List<EventHandlerWrapper> of all handlers with topic of "*"
-	private final List<EventHandlerWrapper> globalWildcard;
-	// Map<String,List<EventHandlerWrapper>> key is topic prefix of partial wildcard
-	private final Map<String, List<EventHandlerWrapper>> partialWildcard;
-	// Map<String,List<EventHandlerWrapper>> key is topic name
-	private final Map<String, List<EventHandlerWrapper>> topicName;
+	// Trie of topic segments. The root holds the handlers with topic of "*"; each
+	// node holds the handlers of the topic name leading to it and the handlers of
+	// the partial wildcard "<topic name>/*".
+	private final TopicNode root;
+	// Map<String,TopicHandlers> key is topic name of a published event. The map is
+	// replaced with an empty map when the handlers change.
+	private volatile ConcurrentMap<String, TopicHandlers> topicHandlers;
 
 	public EventHandlerTracker(BundleContext context, LogTracker log) {
 		super(context, EventHandler.class.getName(), null);
 		this.log = log;
-		globalWildcard = new ArrayList<>();
-		partialWildcard = new HashMap<>();
-		topicName = new HashMap<>();
+		root = new TopicNode();
+		topicHandlers = new ConcurrentHashMap<>();
 	}
 
 	@Override
@@ -48,6 +54,7 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 		synchronized (this) {
 			if (wrapper.init()) {
 				bucket(wrapper);
+				invalidate();
 			}
 		}
 		return wrapper;
@@ -57,8 +64,12 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 	public void modifiedService(ServiceReference<EventHandler> reference, EventHandlerWrapper service) {
 		synchronized (this) {
 			unbucket(service);
-			if (service.init()) {
+			boolean valid = service.init();
+			if (valid) {
 				bucket(service);
+			}
+			invalidate();
+			if (valid) {
 				return;
 			}
 		}
@@ -70,15 +81,26 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 	public void removedService(ServiceReference<EventHandler> reference, EventHandlerWrapper service) {
 		synchronized (this) {
 			unbucket(service);
+			invalidate();
 		}
 		service.flush(); // needs to be called outside sync region
 	}
 
 	/**
-	 * Place the wrapper into the appropriate buckets. This is a performance
-	 * optimization for event delivery.
+	 * Discard the cached handlers of all topics. Readers which are computing the
+	 * handlers of a topic concurrently store their result in the discarded map.
 	 * 
-	 * @param wrapper The wrapper to place in buckets.
+	 * @GuardedBy this
+	 */
+	private void invalidate() {
+		topicHandlers = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Place the wrapper into the appropriate nodes of the topic trie. This is a
+	 * performance optimization for event delivery.
+	 * 
+	 * @param wrapper The wrapper to place in the topic trie.
 	 * @GuardedBy this
 	 */
 	private void bucket(EventHandlerWrapper wrapper) {
@@ -88,34 +110,25 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 			String topic = topics[i];
 			// global wildcard
 			if (topic.equals("*")) { //$NON-NLS-1$
-				globalWildcard.add(wrapper);
+				root.wildcardHandlers = add(root.wildcardHandlers, wrapper);
 			}
 			// partial wildcard
 			else if (topic.endsWith("/*")) { //$NON-NLS-1$
-				String key = topic.substring(0, topic.length() - 2); // Strip off "/*" from the end
-				List<EventHandlerWrapper> wrappers = partialWildcard.get(key);
-				if (wrappers == null) {
-					wrappers = new ArrayList<>();
-					partialWildcard.put(key, wrappers);
-				}
-				wrappers.add(wrapper);
+				TopicNode node = root.getOrCreate(topic, topic.length() - 2); // Strip off "/*" from the end
+				node.wildcardHandlers = add(node.wildcardHandlers, wrapper);
 			}
 			// simple topic name
 			else {
-				List<EventHandlerWrapper> wrappers = topicName.get(topic);
-				if (wrappers == null) {
-					wrappers = new ArrayList<>();
-					topicName.put(topic, wrappers);
-				}
-				wrappers.add(wrapper);
+				TopicNode node = root.getOrCreate(topic, topic.length());
+				node.topicHandlers = add(node.topicHandlers, wrapper);
 			}
 		}
 	}
 
 	/**
-	 * Remove the wrapper from the buckets.
+	 * Remove the wrapper from the topic trie.
 	 * 
-	 * @param wrapper The wrapper to remove from the buckets.
+	 * @param wrapper The wrapper to remove from the topic trie.
 	 * @GuardedBy this
 	 */
 	private void unbucket(EventHandlerWrapper wrapper) {
@@ -125,68 +138,142 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 			String topic = topics[i];
 			// global wilcard
 			if (topic.equals("*")) { //$NON-NLS-1$
-				globalWildcard.remove(wrapper);
+				root.wildcardHandlers = remove(root.wildcardHandlers, wrapper);
 			}
 			// partial wildcard
 			else if (topic.endsWith("/*")) { //$NON-NLS-1$
-				String key = topic.substring(0, topic.length() - 2); // Strip off "/*" from the end
-				List<EventHandlerWrapper> wrappers = partialWildcard.get(key);
-				if (wrappers != null) {
-					wrappers.remove(wrapper);
-					if (wrappers.isEmpty()) {
-						partialWildcard.remove(key);
-					}
+				TopicNode node = root.get(topic, topic.length() - 2); // Strip off "/*" from the end
+				if (node != null) {
+					node.wildcardHandlers = remove(node.wildcardHandlers, wrapper);
+					root.prune(topic, topic.length() - 2);
 				}
 			}
 			// simple topic name
 			else {
-				List<EventHandlerWrapper> wrappers = topicName.get(topic);
-				if (wrappers != null) {
-					wrappers.remove(wrapper);
-					if (wrappers.isEmpty()) {
-						topicName.remove(topic);
-					}
+				TopicNode node = root.get(topic, topic.length());
+				if (node != null) {
+					node.topicHandlers = remove(node.topicHandlers, wrapper);
+					root.prune(topic, topic.length());
 				}
 			}
 		}
 	}
 
+	private static EventHandlerWrapper[] add(EventHandlerWrapper[] wrappers, EventHandlerWrapper wrapper) {
+		EventHandlerWrapper[] result = Arrays.copyOf(wrappers, wrappers.length + 1);
+		result[wrappers.length] = wrapper;
+		return result;
+	}
+
+	private static EventHandlerWrapper[] remove(EventHandlerWrapper[] wrappers, EventHandlerWrapper wrapper) {
+		for (int i = 0; i < wrappers.length; i++) {
+			if (wrappers[i] == wrapper) {
+				EventHandlerWrapper[] result = new EventHandlerWrapper[wrappers.length - 1];
+				System.arraycopy(wrappers, 0, result, 0, i);
+				System.arraycopy(wrappers, i + 1, result, i, result.length - i);
+				return result;
+			}
+		}
+		return wrappers;
+	}
+
 	/**
-	 * Return the set of handlers which subscribe to the event topic. A set is used
-	 * to ensure a handler is not called for an event more than once.
+	 * Return the handlers which subscribe to the event topic. A handler is only
+	 * included once to ensure it is not called for an event more than once.
+	 * <p>
+	 * The handlers are cached per topic until the handlers change so this method
+	 * does not lock and does not allocate for a topic which has been published
+	 * before.
 	 * 
-	 * @return a set of handlers
+	 * @param topic the event topic
+	 * @return an array of handlers which must not be modified
 	 */
-	public synchronized Set<EventHandlerWrapper> getHandlers(final String topic) {
+	public EventHandlerWrapper[] getHandlers(final String topic) {
+		return getTopicHandlers(topic).handlers;
+	}
+
+	/**
+	 * Return the handlers which subscribe to the event topic as listeners for a
+	 * {@link ListenerQueue}. Each handler is associated with the permission the
+	 * handler must have to receive events of the topic, or {@code null} if there is
+	 * no security manager.
+	 * 
+	 * @param topic the event topic
+	 * @return an unmodifiable set of listeners which is empty if there are no
+	 *         handlers for the topic
+	 */
+	public Set<Map.Entry<EventHandlerWrapper, Permission>> getListeners(final String topic) {
+		TopicHandlers result = getTopicHandlers(topic);
+		boolean secured = System.getSecurityManager() != null;
+		if (result.secured == secured) {
+			return result.listeners;
+		}
+		// the security manager has been set or removed since the handlers were cached
+		return new TopicHandlers(topic, result.handlers, secured).listeners;
+	}
+
+	private TopicHandlers getTopicHandlers(String topic) {
+		// keep a local copy in case the handlers change in the meantime
+		ConcurrentMap<String, TopicHandlers> cache = topicHandlers;
+		TopicHandlers result = cache.get(topic);
+		if (result == null) {
+			result = new TopicHandlers(topic, findHandlers(topic), System.getSecurityManager() != null);
+			if (cache.size() < MAX_CACHED_TOPICS) {
+				TopicHandlers existing = cache.putIfAbsent(topic, result);
+				if (existing != null) {
+					result = existing;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Walk the topic trie to find the handlers which subscribe to the event topic.
+	 * 
+	 * @param topic the event topic
+	 * @return an array of handlers without duplicates
+	 */
+	private EventHandlerWrapper[] findHandlers(String topic) {
 		// Use a set to remove duplicates
 		Set<EventHandlerWrapper> handlers = new LinkedHashSet<>();
 
 		// Add the "*" handlers
-		handlers.addAll(globalWildcard);
-
-		// Add the handlers with partial matches
-		if (partialWildcard.size() > 0) {
-			int index = topic.lastIndexOf('/');
-			while (index >= 0) {
-				String subTopic = topic.substring(0, index);
-				List<EventHandlerWrapper> wrappers = partialWildcard.get(subTopic);
-				if (wrappers != null) {
-					handlers.addAll(wrappers);
-				}
-				// Strip the last level from the topic. For example, org/osgi/framework becomes
-				// org/osgi.
-				// Wildcard topics are inserted into the map with the "/*" stripped off.
-				index = subTopic.lastIndexOf('/');
+		Collections.addAll(handlers, root.wildcardHandlers);
+
+		// Find the node of each level of the topic. For example, org/osgi/framework
+		// has the levels org, org/osgi and org/osgi/framework.
+		List<TopicNode> path = new ArrayList<>();
+		TopicNode exact = null;
+		TopicNode node = root;
+		int start = 0;
+		while (true) {
+			int index = topic.indexOf('/', start);
+			int end = index < 0 ? topic.length() : index;
+			node = node.children.get(topic.substring(start, end));
+			if (node == null) {
+				break;
 			}
+			if (index < 0) {
+				exact = node;
+				break;
+			}
+			path.add(node);
+			start = index + 1;
+		}
+
+		// Add the handlers with partial matches, longest match first. A partial
+		// wildcard only matches topics with more levels than its prefix.
+		for (int i = path.size() - 1; i >= 0; i--) {
+			Collections.addAll(handlers, path.get(i).wildcardHandlers);
 		}
 
 		// Add the handlers for matching topic names
-		List<EventHandlerWrapper> wrappers = topicName.get(topic);
-		if (wrappers != null) {
-			handlers.addAll(wrappers);
+		if (exact != null) {
+			Collections.addAll(handlers, exact.topicHandlers);
 		}
 
-		return handlers;
+		return handlers.isEmpty() ? EMPTY_HANDLERS : handlers.toArray(EMPTY_HANDLERS);
 	}
 
 	/**
@@ -200,4 +287,113 @@ public class EventHandlerTracker extends ServiceTracker<EventHandler, EventHandl
 			Event eventObject) {
 		eventListener.handleEvent(eventObject, listenerObject);
 	}
+
+	/**
+	 * A node of the topic trie. The children and handlers of a node are modified
+	 * while holding the monitor of the tracker and read without locking; the
+	 * handler arrays are replaced, never modified.
+	 */
+	private static final class TopicNode {
+		// Map<String,TopicNode> key is the next level of the topic
+		final ConcurrentMap<String, TopicNode> children = new ConcurrentHashMap<>();
+		// handlers with the topic name of this node
+		volatile EventHandlerWrapper[] topicHandlers = EMPTY_HANDLERS;
+		// handlers with the partial wildcard of this node or "*" for the root
+		volatile EventHandlerWrapper[] wildcardHandlers = EMPTY_HANDLERS;
+
+		/**
+		 * Return the node for the first length characters of the topic.
+		 * 
+		 * @GuardedBy tracker
+		 */
+		TopicNode getOrCreate(String topic, int length) {
+			TopicNode node = this;
+			int start = 0;
+			while (true) {
+				int index = topic.indexOf('/', start);
+				int end = (index < 0 || index > length) ? length : index;
+				String level = topic.substring(start, end);
+				TopicNode child = node.children.get(level);
+				if (child == null) {
+					child = new TopicNode();
+					node.children.put(level, child);
+				}
+				node = child;
+				if (end == length) {
+					return node;
+				}
+				start = end + 1;
+			}
+		}
+
+		/**
+		 * Return the node for the first length characters of the topic or
+		 * {@code null} if there is no such node.
+		 */
+		TopicNode get(String topic, int length) {
+			TopicNode node = this;
+			int start = 0;
+			while (node != null) {
+				int index = topic.indexOf('/', start);
+				int end = (index < 0 || index > length) ? length : index;
+				node = node.children.get(topic.substring(start, end));
+				if (end == length) {
+					break;
+				}
+				start = end + 1;
+			}
+			return node;
+		}
+
+		/**
+		 * Remove the nodes without handlers and children along the path of the first
+		 * length characters of the topic.
+		 * 
+		 * @GuardedBy tracker
+		 */
+		void prune(String topic, int length) {
+			int index = topic.indexOf('/');
+			int end = (index < 0 || index > length) ? length : index;
+			String level = topic.substring(0, end);
+			TopicNode child = children.get(level);
+			if (child == null) {
+				return;
+			}
+			if (end < length) {
+				child.prune(topic.substring(end + 1), length - end - 1);
+			}
+			if (child.isEmpty()) {
+				children.remove(level);
+			}
+		}
+
+		private boolean isEmpty() {
+			return topicHandlers.length == 0 && wildcardHandlers.length == 0 && children.isEmpty();
+		}
+	}
+
+	/**
+	 * The resolved handlers of a topic.
+	 */
+	private static final class TopicHandlers {
+		final EventHandlerWrapper[] handlers;
+		final Set<Map.Entry<EventHandlerWrapper, Permission>> listeners;
+		// true if the listeners are associated with the subscribe permission
+		final boolean secured;
+
+		TopicHandlers(String topic, EventHandlerWrapper[] handlers, boolean secured) {
+			this.handlers = handlers;
+			this.secured = secured;
+			CopyOnWriteIdentityMap<EventHandlerWrapper, Permission> map = new CopyOnWriteIdentityMap<>();
+			if (secured) {
+				Permission perm = new TopicPermission(topic, TopicPermission.SUBSCRIBE);
+				for (EventHandlerWrapper wrapper : handlers) {
+					map.put(wrapper, perm);
+				}
+			} else {
+				map.putAll(handlers);
+			}
+			this.listeners = map.entrySet();
+		}
+	}
 }
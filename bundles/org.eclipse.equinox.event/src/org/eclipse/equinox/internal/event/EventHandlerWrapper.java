@@ -15,22 +15,42 @@
 package org.eclipse.equinox.internal.event;
 
 import java.security.*;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.*;
 import org.osgi.service.event.*;
 
 /**
  * A wrapper for EventHandlers. This class caches property values and performs
- * final checks before calling the wrapped handler.
+ * final checks before calling the wrapped handler. It also keeps the delivery
+ * statistics of the handler.
  */
 public class EventHandlerWrapper {
+	/** the number of deliveries before a handler can be considered slow */
+	private static final int MIN_DELIVERIES = 8;
 	final ServiceReference<EventHandler> reference;
 	private final LogTracker log;
 	final BundleContext context;
 	private EventHandler handler;
 	private String[] topics;
 	private Filter filter;
+	private volatile boolean ordered = true;
+
+	private final LongAdder deliveryCount = new LongAdder();
+	private final LongAdder deliveryTime = new LongAdder();
+	private final AtomicLong maxDeliveryTime = new AtomicLong();
+	// exponentially weighted moving average of the delivery time in nanoseconds
+	private volatile long averageDeliveryTime;
+
+	// asynchronous delivery state maintained by the EventDeliveryEngine
+	/* @GuardedBy("EventDeliveryEngine") */
+	int lane = -1;
+	final AtomicInteger pendingDeliveries = new AtomicInteger();
+	volatile boolean slow;
 
 	/**
 	 * Create an EventHandlerWrapper.
@@ -54,6 +74,7 @@ public class EventHandlerWrapper {
 	public synchronized boolean init() {
 		topics = null;
 		filter = null;
+		ordered = true;
 
 		// Get topic names
 		Object o = reference.getProperty(EventConstants.EVENT_TOPIC);
@@ -75,6 +96,17 @@ public class EventHandlerWrapper {
 			return false;
 		}
 
+		// get delivery ordering; ordered unless only unordered delivery is requested
+		o = reference.getProperty(EventConstants.EVENT_DELIVERY);
+		if (o instanceof String) {
+			ordered = !EventConstants.DELIVERY_ASYNC_UNORDERED.equals(o);
+		} else if (o instanceof String[]) {
+			ordered = !Arrays.asList((String[]) o).equals(Arrays.asList(EventConstants.DELIVERY_ASYNC_UNORDERED));
+		} else if (o instanceof Collection) {
+			Collection<?> c = (Collection<?>) o;
+			ordered = !(c.size() == 1 && c.contains(EventConstants.DELIVERY_ASYNC_UNORDERED));
+		}
+
 		// get filter
 		o = reference.getProperty(EventConstants.EVENT_FILTER);
 		if (o instanceof String) {
@@ -115,6 +147,73 @@ public class EventHandlerWrapper {
 		return topics;
 	}
 
+	/**
+	 * Returns whether the wrapped handler requires asynchronous events to be
+	 * delivered in the order they were posted.
+	 * 
+	 * @return false if the handler only requested unordered delivery
+	 */
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	/**
+	 * Returns the number of events delivered to the wrapped handler.
+	 * 
+	 * @return The number of deliveries.
+	 */
+	public long getDeliveryCount() {
+		return deliveryCount.sum();
+	}
+
+	/**
+	 * Returns the total time the wrapped handler spent handling events.
+	 * 
+	 * @return The total delivery time in nanoseconds.
+	 */
+	public long getDeliveryTime() {
+		return deliveryTime.sum();
+	}
+
+	/**
+	 * Returns the longest time the wrapped handler spent handling an event.
+	 * 
+	 * @return The maximum delivery time in nanoseconds.
+	 */
+	public long getMaxDeliveryTime() {
+		return maxDeliveryTime.get();
+	}
+
+	/**
+	 * Returns the moving average of the time the wrapped handler spent handling
+	 * the recent events.
+	 * 
+	 * @return The average delivery time in nanoseconds.
+	 */
+	public long getAverageDeliveryTime() {
+		return averageDeliveryTime;
+	}
+
+	/**
+	 * Returns whether the wrapped handler is chronically slow.
+	 * 
+	 * @param threshold the average delivery time in nanoseconds
+	 * @return true if the handler has handled enough events and the average
+	 *         delivery time exceeds the threshold.
+	 */
+	boolean isSlow(long threshold) {
+		return deliveryCount.sum() >= MIN_DELIVERIES && averageDeliveryTime > threshold;
+	}
+
+	private void recordDelivery(long time) {
+		deliveryCount.increment();
+		deliveryTime.add(time);
+		maxDeliveryTime.accumulateAndGet(time, Math::max);
+		long average = averageDeliveryTime;
+		// races between concurrent deliveries only lose a sample
+		averageDeliveryTime = (average == 0) ? time : average + (time - average) / MIN_DELIVERIES;
+	}
+
 	/**
 	 * Return the wrapped handler.
 	 * 
@@ -202,6 +301,7 @@ public class EventHandlerWrapper {
 			return;
 		}
 
+		long start = System.nanoTime();
 		try {
 			handlerService.handleEvent(event);
 		} catch (Throwable t) {
@@ -214,6 +314,8 @@ public class EventHandlerWrapper {
 			}
 			// log/handle any Throwable thrown by the listener
 			log.error(NLS.bind(EventAdminMsg.EVENT_DISPATCH_HANDLER_EXCEPTION, event, handlerService), t);
+		} finally {
+			recordDelivery(System.nanoTime() - start);
 		}
 	}
 
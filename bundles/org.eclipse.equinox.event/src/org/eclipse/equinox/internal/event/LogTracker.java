@@ -59,6 +59,10 @@ public class LogTracker extends ServiceTracker<LogService, LogService> {
 		log(null, LogService.LOG_ERROR, message, exception);
 	}
 
+	public void warning(String message) {
+		log(null, LogService.LOG_WARNING, message, null);
+	}
+
 	private synchronized void log(ServiceReference<?> reference, int level, String message, Throwable exception) {
 		ServiceReference<LogService>[] references = getServiceReferences();
 
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.eclipse.osgi.benchmarks.exported.ExportedClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.wiring.FrameworkWiring;
+
+/**
+ * Class and resource loading through the bundle loader. An exporting bundle
+ * contains {@link ExportedClass}; one bundle imports its package with
+ * Import-Package and another one requires the exporting bundle with
+ * Require-Bundle. Both of them also wire to {@code packageCount - 1} other
+ * bundles which export empty packages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BundleLoaderBenchmark {
+	private static final String EXPORTED_PACKAGE = ExportedClass.class.getPackage().getName();
+	private static final String EXPORTED_CLASS = ExportedClass.class.getName();
+	private static final String MISSING_CLASS = "bench.missing.Missing";
+	private static final String MISSING_EXPORTED_CLASS = EXPORTED_PACKAGE + ".Missing";
+	private static final String MISSING_RESOURCE = "bench/missing/missing.txt";
+
+	@Param({ "1", "50" })
+	public int packageCount;
+
+	private Framework framework;
+	private Path bundles;
+	private Bundle importer;
+	private Bundle requirer;
+
+	@Setup
+	public void setup() throws BundleException, IOException, ClassNotFoundException {
+		framework = Frameworks.start("bundleLoaderBenchmark");
+		bundles = Files.createTempDirectory("bundleLoaderBenchmarkBundles");
+		BundleContext context = framework.getBundleContext();
+
+		List<String> packages = new ArrayList<>();
+		List<String> symbolicNames = new ArrayList<>();
+		for (int i = 1; i < packageCount; i++) {
+			String name = "bench.filler" + i;
+			install(context, name, Constants.EXPORT_PACKAGE, name);
+			packages.add(name);
+			symbolicNames.add(name);
+		}
+		Bundle exporter = install(context, "bench.exporter", Constants.EXPORT_PACKAGE, EXPORTED_PACKAGE);
+		packages.add(EXPORTED_PACKAGE);
+		symbolicNames.add(exporter.getSymbolicName());
+		importer = install(context, "bench.importer", Constants.IMPORT_PACKAGE, String.join(",", packages));
+		requirer = install(context, "bench.requirer", Constants.REQUIRE_BUNDLE, String.join(",", symbolicNames));
+
+		if (!framework.adapt(FrameworkWiring.class).resolveBundles(null)) {
+			throw new BundleException("Could not resolve the benchmark bundles.");
+		}
+		if (importer.loadClass(EXPORTED_CLASS).getClassLoader() != requirer.loadClass(EXPORTED_CLASS)
+				.getClassLoader()) {
+			throw new IllegalStateException("The exported class is not loaded from the exporting bundle.");
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws BundleException, InterruptedException, IOException {
+		Frameworks.stop(framework);
+		Frameworks.delete(bundles);
+	}
+
+	private Bundle install(BundleContext context, String symbolicName, String header, String value)
+			throws BundleException, IOException {
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+		attributes.putValue(Constants.BUNDLE_VERSION, "1.0.0");
+		attributes.putValue(header, value);
+		Path jar = bundles.resolve(symbolicName + ".jar");
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+			if (Constants.EXPORT_PACKAGE.equals(header) && EXPORTED_PACKAGE.equals(value)) {
+				String entry = EXPORTED_CLASS.replace('.', '/') + ".class";
+				out.putNextEntry(new JarEntry(entry));
+				try (InputStream in = ExportedClass.class.getClassLoader().getResourceAsStream(entry)) {
+					copy(in, out);
+				}
+				out.closeEntry();
+			}
+		}
+		return context.installBundle(jar.toUri().toString());
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+	}
+
+	@Benchmark
+	public Class<?> loadImportedClass() throws ClassNotFoundException {
+		return importer.loadClass(EXPORTED_CLASS);
+	}
+
+	@Benchmark
+	public Class<?> loadRequiredClass() throws ClassNotFoundException {
+		return requirer.loadClass(EXPORTED_CLASS);
+	}
+
+	@Benchmark
+	public Class<?> loadBootClass() throws ClassNotFoundException {
+		return importer.loadClass("java.lang.String");
+	}
+
+	@Benchmark
+	public Object loadMissingClass() {
+		return loadMissing(importer, MISSING_CLASS);
+	}
+
+	@Benchmark
+	public Object loadMissingImportedClass() {
+		return loadMissing(importer, MISSING_EXPORTED_CLASS);
+	}
+
+	@Benchmark
+	public Object loadMissingRequiredClass() {
+		return loadMissing(requirer, MISSING_EXPORTED_CLASS);
+	}
+
+	@Benchmark
+	public URL getMissingResource() {
+		return requirer.getResource(MISSING_RESOURCE);
+	}
+
+	private static Object loadMissing(Bundle bundle, String name) {
+		try {
+			return bundle.loadClass(name);
+		} catch (ClassNotFoundException e) {
+			return e;
+		}
+	}
+}
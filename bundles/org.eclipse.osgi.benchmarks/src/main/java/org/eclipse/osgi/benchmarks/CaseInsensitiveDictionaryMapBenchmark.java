@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.osgi.framework.util.CaseInsensitiveDictionaryMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Access to a {@link CaseInsensitiveDictionaryMap} as used for bundle headers
+ * and service properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseInsensitiveDictionaryMapBenchmark {
+	@Param({ "5", "20", "100" })
+	public int size;
+
+	private String[] keys;
+	private String[] otherCaseKeys;
+	private Map<String, Object> source;
+	private CaseInsensitiveDictionaryMap<String, Object> map;
+
+	@Setup
+	public void setup() {
+		keys = new String[size];
+		otherCaseKeys = new String[size];
+		source = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = "Header-" + i + "-Key";
+			otherCaseKeys[i] = keys[i].toLowerCase(Locale.ROOT);
+			source.put(keys[i], Integer.valueOf(i));
+		}
+		map = new CaseInsensitiveDictionaryMap<>(source);
+	}
+
+	@Benchmark
+	public void get(Blackhole blackhole) {
+		for (String key : keys) {
+			blackhole.consume(map.get(key));
+		}
+	}
+
+	@Benchmark
+	public void getOtherCase(Blackhole blackhole) {
+		for (String key : otherCaseKeys) {
+			blackhole.consume(map.get(key));
+		}
+	}
+
+	@Benchmark
+	public CaseInsensitiveDictionaryMap<String, Object> put() {
+		CaseInsensitiveDictionaryMap<String, Object> result = new CaseInsensitiveDictionaryMap<>(size);
+		for (String key : keys) {
+			result.put(key, key);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public CaseInsensitiveDictionaryMap<String, Object> copy() {
+		return new CaseInsensitiveDictionaryMap<>(source);
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.osgi.internal.framework.FilterCache;
+import org.eclipse.osgi.internal.framework.FilterImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Version;
+
+/**
+ * Parsing and matching of LDAP filters with {@link FilterImpl}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+	private static final Map<String, String> FILTERS = new HashMap<>();
+	static {
+		FILTERS.put("objectClass", "(objectClass=org.example.api.Service)");
+		FILTERS.put("and", "(&(objectClass=org.example.api.Service)(service.ranking>=10)(name=example))");
+		FILTERS.put("requirement",
+				"(&(osgi.wiring.package=org.example.api)(version>=1.2.0)(!(version>=2.0.0))(|(vendor=Eclipse*)(vendor=*Foundation)))");
+	}
+
+	@Param({ "objectClass", "and", "requirement" })
+	public String filter;
+
+	private String filterString;
+	private FilterCache cache;
+	private FilterImpl parsed;
+	private Map<String, Object> map;
+	private Dictionary<String, Object> dictionary;
+
+	@Setup
+	public void setup() throws InvalidSyntaxException {
+		filterString = FILTERS.get(filter);
+		cache = new FilterCache(FILTERS.size() * 2);
+		parsed = FilterImpl.newInstance(filterString);
+		map = new HashMap<>();
+		map.put(Constants.OBJECTCLASS, new String[] { "org.example.api.Service" });
+		map.put(Constants.SERVICE_RANKING, Integer.valueOf(20));
+		map.put("name", "example");
+		map.put("osgi.wiring.package", "org.example.api");
+		map.put("version", Version.parseVersion("1.5.0"));
+		map.put("vendor", "Eclipse Foundation");
+		dictionary = new Hashtable<>(map);
+	}
+
+	/**
+	 * Parses the filter string without using the filter cache.
+	 */
+	@Benchmark
+	public FilterImpl parse() throws InvalidSyntaxException {
+		return FilterImpl.newInstance(filterString);
+	}
+
+	/**
+	 * Creates the filter through the filter cache as the framework does.
+	 */
+	@Benchmark
+	public FilterImpl parseCached() throws InvalidSyntaxException {
+		return FilterImpl.newInstance(filterString, cache, false);
+	}
+
+	@Benchmark
+	public boolean matchMap() {
+		return parsed.matches(map);
+	}
+
+	@Benchmark
+	public boolean matchDictionary() {
+		return parsed.match(dictionary);
+	}
+}
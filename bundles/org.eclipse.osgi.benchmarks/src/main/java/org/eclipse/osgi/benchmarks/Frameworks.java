@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.eclipse.osgi.launch.Equinox;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+/**
+ * Launches the embedded frameworks used by the benchmarks.
+ */
+final class Frameworks {
+	private Frameworks() {
+		// utility class
+	}
+
+	/**
+	 * Starts a framework which stores its data in a new temporary directory.
+	 *
+	 * @param name the prefix of the temporary directory
+	 * @return the started framework
+	 */
+	static Framework start(String name) throws BundleException, IOException {
+		Path storage = Files.createTempDirectory(name);
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, storage.toString());
+		configuration.put(Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT);
+		Framework framework = new Equinox(configuration);
+		framework.start();
+		return framework;
+	}
+
+	/**
+	 * Stops a framework and deletes its temporary directory.
+	 *
+	 * @param framework the framework to stop
+	 */
+	static void stop(Framework framework) throws BundleException, InterruptedException, IOException {
+		Path storage = Path.of(framework.getBundleContext().getProperty(Constants.FRAMEWORK_STORAGE));
+		framework.stop();
+		framework.waitForStop(10000);
+		delete(storage);
+	}
+
+	static void delete(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(path)) {
+			for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(p);
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleException;
+
+/**
+ * Storing and loading the persistent form of a module database with resolved
+ * synthetic modules, see {@link SyntheticContainer#installRepository(int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ModuleDatabaseBenchmark {
+	@Param({ "1000", "10000" })
+	public int moduleCount;
+
+	@Param({ "true", "false" })
+	public boolean persistWirings;
+
+	private SyntheticContainer container;
+	private byte[] stored;
+
+	@Setup
+	public void setup() throws BundleException, IOException {
+		container = SyntheticContainer.create(moduleCount);
+		container.getContainer().resolve(null, false);
+		stored = container.store(persistWirings);
+	}
+
+	@Benchmark
+	public byte[] store() throws IOException {
+		return container.store(persistWirings);
+	}
+
+	@Benchmark
+	public SyntheticContainer load() throws BundleException, IOException {
+		return SyntheticContainer.load(stored);
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.osgi.report.resolution.ResolutionReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleException;
+
+/**
+ * Resolution of synthetic repositories with the module resolver. Each
+ * measurement resolves all modules of a freshly installed repository, see
+ * {@link SyntheticContainer#installRepository(int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ModuleResolverBenchmark {
+	@Param({ "1000", "5000", "10000" })
+	public int moduleCount;
+
+	private SyntheticContainer container;
+
+	@Setup(Level.Iteration)
+	public void install() throws BundleException {
+		container = SyntheticContainer.create(moduleCount);
+	}
+
+	@Benchmark
+	public ResolutionReport resolveAll() {
+		ResolutionReport report = container.getContainer().resolve(null, false);
+		if (report.getResolutionException() != null) {
+			throw new IllegalStateException(report.getResolutionException());
+		}
+		return report;
+	}
+}
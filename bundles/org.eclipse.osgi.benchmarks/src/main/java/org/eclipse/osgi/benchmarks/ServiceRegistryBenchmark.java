@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.launch.Framework;
+
+/**
+ * Registration, lookup and event delivery of the service registry of a running
+ * framework. The registry contains {@code serviceCount} services spread over
+ * four service interfaces; {@code listenerCount} filtered service listeners are
+ * registered, each of them matching a few of the services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceRegistryBenchmark {
+	private static final String[][] CLASSES = { //
+			{ Runnable.class.getName() }, //
+			{ Callable.class.getName() }, //
+			{ Supplier.class.getName(), Runnable.class.getName() }, //
+			{ AutoCloseable.class.getName() } };
+	private static final int NAMES = 100;
+
+	@Param({ "100", "1000", "10000" })
+	public int serviceCount;
+
+	@Param({ "0", "100" })
+	public int listenerCount;
+
+	private Framework framework;
+	private BundleContext context;
+	private ServiceRegistration<?> modified;
+	private Dictionary<String, Object> modifiedProperties;
+	private String lookupFilter;
+	private String objectClassFilter;
+
+	@Setup
+	public void setup() throws BundleException, IOException, InvalidSyntaxException {
+		framework = Frameworks.start("serviceRegistryBenchmark");
+		context = framework.getBundleContext();
+		for (int i = 0; i < serviceCount; i++) {
+			ServiceRegistration<?> registration = context.registerService(CLASSES[i % CLASSES.length],
+					new BenchmarkService(), properties(i));
+			if (i == serviceCount / 2) {
+				modified = registration;
+				modifiedProperties = properties(i);
+			}
+		}
+		ServiceListener listener = event -> {
+			// nothing
+		};
+		for (int i = 0; i < listenerCount; i++) {
+			String filter = (i % 2 == 0) ? "(name=service-" + (i % NAMES) + ")"
+					: "(&(objectClass=" + CLASSES[i % CLASSES.length][0] + ")(name=service-" + (i % NAMES) + "))";
+			context.addServiceListener(listener, filter);
+		}
+		lookupFilter = "(name=service-" + (NAMES / 2) + ")";
+		objectClassFilter = "(&(objectClass=" + Runnable.class.getName() + ")" + lookupFilter + ")";
+	}
+
+	@TearDown
+	public void tearDown() throws BundleException, InterruptedException, IOException {
+		Frameworks.stop(framework);
+	}
+
+	private static Dictionary<String, Object> properties(int i) {
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put("name", "service-" + (i % NAMES));
+		properties.put("id", Integer.valueOf(i));
+		properties.put(Constants.SERVICE_RANKING, Integer.valueOf(i % 7));
+		return properties;
+	}
+
+	@Benchmark
+	public ServiceReference<?> getServiceReference() {
+		return context.getServiceReference(Runnable.class.getName());
+	}
+
+	@Benchmark
+	public ServiceReference<?>[] getServiceReferencesByClass() throws InvalidSyntaxException {
+		return context.getServiceReferences(Runnable.class.getName(), null);
+	}
+
+	@Benchmark
+	public ServiceReference<?>[] getServiceReferencesByClassAndFilter() throws InvalidSyntaxException {
+		return context.getServiceReferences(Runnable.class.getName(), lookupFilter);
+	}
+
+	@Benchmark
+	public ServiceReference<?>[] getServiceReferencesByFilter() throws InvalidSyntaxException {
+		return context.getServiceReferences((String) null, objectClassFilter);
+	}
+
+	@Benchmark
+	public Object getAndUngetService() {
+		ServiceReference<?> reference = modified.getReference();
+		Object service = context.getService(reference);
+		context.ungetService(reference);
+		return service;
+	}
+
+	/**
+	 * Registers and unregisters a service, which publishes two service events.
+	 */
+	@Benchmark
+	public void registerUnregister() {
+		context.registerService(CLASSES[0], new BenchmarkService(), properties(serviceCount)).unregister();
+	}
+
+	/**
+	 * Modifies the properties of a service, which publishes a service event.
+	 */
+	@Benchmark
+	public void setProperties() {
+		modified.setProperties(modifiedProperties);
+	}
+
+	/**
+	 * The service object of all services, it implements all of the service
+	 * interfaces used by the benchmark.
+	 */
+	static final class BenchmarkService implements Runnable, Callable<Object>, Supplier<Object>, AutoCloseable {
+		@Override
+		public void run() {
+			// nothing
+		}
+
+		@Override
+		public Object call() {
+			return this;
+		}
+
+		@Override
+		public Object get() {
+			return this;
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.eclipse.osgi.container.Module;
+import org.eclipse.osgi.container.Module.Settings;
+import org.eclipse.osgi.container.ModuleCollisionHook;
+import org.eclipse.osgi.container.ModuleContainer;
+import org.eclipse.osgi.container.ModuleContainerAdaptor;
+import org.eclipse.osgi.container.ModuleDatabase;
+import org.eclipse.osgi.container.ModuleRevision;
+import org.eclipse.osgi.container.ModuleRevisionBuilder;
+import org.eclipse.osgi.container.SystemModule;
+import org.eclipse.osgi.container.builders.OSGiManifestBuilderFactory;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkListener;
+import org.osgi.framework.hooks.resolver.ResolverHook;
+import org.osgi.framework.hooks.resolver.ResolverHookFactory;
+import org.osgi.framework.wiring.BundleCapability;
+import org.osgi.framework.wiring.BundleRequirement;
+import org.osgi.framework.wiring.BundleRevision;
+
+/**
+ * A module container without a framework. The modules of the container have no
+ * content; they only have the capabilities and requirements of their manifest.
+ * This allows the resolver and the module database to be measured in isolation
+ * on repositories of arbitrary size.
+ */
+final class SyntheticContainer extends ModuleContainerAdaptor {
+	/** the number of packages imported by each synthetic module */
+	private static final int IMPORTS = 5;
+	/** the maximum length of a chain of uses constraints */
+	private static final int USES_CHAIN = 10;
+
+	private final ModuleDatabase database;
+	private final ModuleContainer container;
+
+	private SyntheticContainer() {
+		this.database = new ModuleDatabase(this);
+		this.container = new ModuleContainer(this, database);
+	}
+
+	/**
+	 * Installs the system module.
+	 */
+	private void installSystemModule() throws BundleException {
+		Map<String, String> systemManifest = new HashMap<>();
+		systemManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		systemManifest.put(Constants.BUNDLE_SYMBOLICNAME, Constants.SYSTEM_BUNDLE_SYMBOLICNAME);
+		systemManifest.put(Constants.BUNDLE_VERSION, "1.0.0");
+		systemManifest.put(Constants.EXPORT_PACKAGE, "org.osgi.framework; version=1.10");
+		container.install(null, Constants.SYSTEM_BUNDLE_LOCATION,
+				OSGiManifestBuilderFactory.createBuilder(systemManifest), null);
+	}
+
+	/**
+	 * Creates a container with the modules of a synthetic repository installed.
+	 *
+	 * @param moduleCount the number of modules of the repository
+	 * @return the container
+	 */
+	static SyntheticContainer create(int moduleCount) throws BundleException {
+		SyntheticContainer result = new SyntheticContainer();
+		result.installSystemModule();
+		result.installRepository(moduleCount);
+		return result;
+	}
+
+	/**
+	 * Creates a container from the persistent form of a module database.
+	 *
+	 * @param bytes the module database as written by {@link #store(boolean)}
+	 * @return the container
+	 */
+	static SyntheticContainer load(byte[] bytes) throws BundleException, IOException {
+		SyntheticContainer result = new SyntheticContainer();
+		result.database.load(new DataInputStream(new ByteArrayInputStream(bytes)));
+		return result;
+	}
+
+	/**
+	 * Installs a repository of synthetic modules. Module {@code i} exports the
+	 * package {@code pkg.i} and imports the packages of up to five modules with a
+	 * lower index. The exported packages use the package of the previous module,
+	 * forming chains of uses constraints of up to ten packages. The repository is
+	 * the same for the same number of modules.
+	 *
+	 * @param moduleCount the number of modules to install
+	 */
+	void installRepository(int moduleCount) throws BundleException {
+		Random random = new Random(moduleCount);
+		Module system = container.getModule(0);
+		for (int i = 0; i < moduleCount; i++) {
+			Set<Integer> imports = new LinkedHashSet<>();
+			if (i > 0) {
+				imports.add(Integer.valueOf(i - 1));
+				while (imports.size() < Math.min(IMPORTS, i)) {
+					imports.add(Integer.valueOf(random.nextInt(i)));
+				}
+			}
+			Map<String, String> manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "synthetic." + i);
+			manifest.put(Constants.BUNDLE_VERSION, "1.0." + (i % 10));
+			StringBuilder exports = new StringBuilder("pkg.").append(i).append("; version=1.").append(i % 10);
+			StringBuilder importPackage = new StringBuilder("org.osgi.framework; version=\"[1.6,2)\"");
+			for (Integer imported : imports) {
+				if (imported.intValue() == i - 1 && i % USES_CHAIN != 0) {
+					exports.append("; uses:=\"pkg.").append(imported).append('"');
+				}
+				importPackage.append(", pkg.").append(imported).append("; version=\"[1.0,2)\"");
+			}
+			manifest.put(Constants.EXPORT_PACKAGE, exports.toString());
+			manifest.put(Constants.IMPORT_PACKAGE, importPackage.toString());
+			ModuleRevisionBuilder builder = OSGiManifestBuilderFactory.createBuilder(manifest);
+			container.install(system, "synthetic:" + i, builder, null);
+		}
+	}
+
+	ModuleContainer getContainer() {
+		return container;
+	}
+
+	/**
+	 * Writes the module database to a byte array.
+	 *
+	 * @param persistWirings whether the wirings are written
+	 * @return the module database
+	 */
+	byte[] store(boolean persistWirings) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			database.store(out, persistWirings);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public ModuleCollisionHook getModuleCollisionHook() {
+		return (operationType, target, collisionCandidates) -> {
+			// allow all collisions
+		};
+	}
+
+	@Override
+	public ResolverHookFactory getResolverHookFactory() {
+		return triggers -> NoopResolverHook.INSTANCE;
+	}
+
+	@Override
+	public void publishContainerEvent(ContainerEvent type, Module module, Throwable error,
+			FrameworkListener... listeners) {
+		// no listeners
+	}
+
+	@Override
+	public void publishModuleEvent(ModuleEvent type, Module module, Module origin) {
+		// no listeners
+	}
+
+	@Override
+	public Module createModule(String location, long id, EnumSet<Settings> settings, int startlevel) {
+		return new SyntheticModule(Long.valueOf(id), location, container, settings, startlevel);
+	}
+
+	@Override
+	public SystemModule createSystemModule() {
+		return new SystemModule(container) {
+			@Override
+			public Bundle getBundle() {
+				return null;
+			}
+
+			@Override
+			protected void cleanup(ModuleRevision revision) {
+				// nothing to clean up
+			}
+		};
+	}
+
+	static final class SyntheticModule extends Module {
+		SyntheticModule(Long id, String location, ModuleContainer container, EnumSet<Settings> settings,
+				int startlevel) {
+			super(id, location, container, settings, startlevel);
+		}
+
+		@Override
+		public Bundle getBundle() {
+			return null;
+		}
+
+		@Override
+		protected void cleanup(ModuleRevision revision) {
+			// nothing to clean up
+		}
+	}
+
+	static final class NoopResolverHook implements ResolverHook {
+		static final NoopResolverHook INSTANCE = new NoopResolverHook();
+
+		@Override
+		public void filterResolvable(Collection<BundleRevision> candidates) {
+			// nothing
+		}
+
+		@Override
+		public void filterSingletonCollisions(BundleCapability singleton, Collection<BundleCapability> collisionCandidates) {
+			// nothing
+		}
+
+		@Override
+		public void filterMatches(BundleRequirement requirement, Collection<BundleCapability> candidates) {
+			// nothing
+		}
+
+		@Override
+		public void end() {
+			// nothing
+		}
+	}
+}
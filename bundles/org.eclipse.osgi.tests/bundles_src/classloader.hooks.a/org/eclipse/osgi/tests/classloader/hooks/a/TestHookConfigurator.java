@@ -16,12 +16,14 @@ package org.eclipse.osgi.tests.classloader.hooks.a;
 import java.net.URL;
 import java.util.NoSuchElementException;
 import org.eclipse.osgi.container.Module;
+import org.eclipse.osgi.internal.hookregistry.BundleFileWrapperFactoryHook;
 import org.eclipse.osgi.internal.hookregistry.ClassLoaderHook;
 import org.eclipse.osgi.internal.hookregistry.HookConfigurator;
 import org.eclipse.osgi.internal.hookregistry.HookRegistry;
 import org.eclipse.osgi.internal.loader.classpath.ClasspathEntry;
 import org.eclipse.osgi.internal.loader.classpath.ClasspathManager;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
+import org.eclipse.osgi.storage.bundlefile.BundleFileWrapper;
 
 public class TestHookConfigurator implements HookConfigurator {
 	private static final String REJECT_PROP = "classloader.hooks.a.reject";
@@ -31,6 +33,9 @@ public class TestHookConfigurator implements HookConfigurator {
 	private static final String FILTER_CLASS_PATHS = "classloader.hooks.a.filter.class.paths";
 	private static final String PREVENT_RESOURCE_LOAD_PRE = "classloader.hooks.a.fail.resource.load.pre";
 	private static final String PREVENT_RESOURCE_LOAD_POST = "classloader.hooks.a.fail.resource.load.post";
+	private static final String PROBE_RESOURCE = "classloader.hooks.a.probe.resource";
+	private static final String PROBE_RESOURCE_HIDDEN_IN = "classloader.hooks.a.probe.resource.hidden.in";
+	private static final String PROBE_RESOURCE_PROBES = "classloader.hooks.a.probe.resource.probes";
 	final ThreadLocal<Boolean> doingRecursionLoad = new ThreadLocal<>() {
 		@Override
 		protected Boolean initialValue() {
@@ -39,6 +44,7 @@ public class TestHookConfigurator implements HookConfigurator {
 	};
 
 	public void addHooks(HookRegistry hookRegistry) {
+		hookRegistry.addBundleFileWrapperFactoryHook(probeResource());
 		hookRegistry.addClassLoaderHook(new ClassLoaderHook() {
 
 			@Override
@@ -104,4 +110,34 @@ public class TestHookConfigurator implements HookConfigurator {
 			}
 		});
 	}
+
+	/**
+	 * Records the names of the bundle files which are searched for the resource
+	 * configured with PROBE_RESOURCE and hides the resource in the bundle file
+	 * configured with PROBE_RESOURCE_HIDDEN_IN.
+	 */
+	private static BundleFileWrapperFactoryHook probeResource() {
+		return (bundleFile, generation, base) -> {
+			final String resource = System.getProperty(PROBE_RESOURCE);
+			if (resource == null) {
+				return null;
+			}
+			final String name = bundleFile.getBaseFile().getName();
+			return new BundleFileWrapper(bundleFile) {
+				@Override
+				public BundleEntry getEntry(String path) {
+					if (resource.equals(path)) {
+						synchronized (TestHookConfigurator.class) {
+							String probes = System.getProperty(PROBE_RESOURCE_PROBES, "");
+							System.setProperty(PROBE_RESOURCE_PROBES, probes.isEmpty() ? name : probes + ',' + name);
+						}
+						if (name.equals(System.getProperty(PROBE_RESOURCE_HIDDEN_IN))) {
+							return null;
+						}
+					}
+					return super.getEntry(path);
+				}
+			};
+		};
+	}
 }
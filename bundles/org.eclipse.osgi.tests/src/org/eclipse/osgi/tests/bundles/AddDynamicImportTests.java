@@ -107,6 +107,36 @@ public class AddDynamicImportTests extends AbstractBundleTests {
 		});
 	}
 
+	@Test
+	public void testAddDynamicImportAfterWildcard() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+
+		Map<String, String> headers = new HashMap<>();
+		headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		headers.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		headers.put(Constants.DYNAMICIMPORT_PACKAGE, "*");
+		File bundleFile = SystemBundleTests.createBundle(config, getName(), headers);
+
+		Map<String, String> fwkConfig = new HashMap<>();
+		fwkConfig.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		Equinox equinox = new Equinox(fwkConfig);
+		try {
+			equinox.start();
+			Bundle bundle = equinox.getBundleContext().installBundle(bundleFile.toURI().toString());
+			bundle.start();
+			BundleLoader bl = ((ModuleClassLoader) bundle.adapt(BundleWiring.class).getClassLoader())
+					.getBundleLoader();
+
+			// adding a dynamic import, as weaving hooks do, must keep the wildcard
+			bl.addDynamicImportPackage(parseHeader(Constants.DYNAMICIMPORT_PACKAGE, "org.osgi.framework"));
+			bundle.loadClass("org.osgi.framework.Bundle");
+			bundle.loadClass("org.osgi.framework.wiring.BundleWiring");
+		} finally {
+			stopQuietly(equinox);
+		}
+	}
+
 	private void refresh(BundleLoader bl) {
 		Module module = bl.getWiring().getRevision().getRevisions().getModule();
 		module.getContainer().refresh(Collections.singletonList(module));
@@ -53,8 +53,11 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 import java.util.stream.Collectors;
 import junit.framework.AssertionFailedError;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.loader.BundleLoader;
 import org.eclipse.osgi.internal.loader.ModuleClassLoader;
+import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.storage.ClassLocationIndex;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -2513,6 +2516,250 @@ public class ClassLoadingBundleTests extends AbstractBundleTests {
 		}
 	}
 
+	@Test
+	public void testMissingResourceFoundAfterFragmentAttach() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		config.mkdirs();
+
+		Map<String, String> hostHeaders = new HashMap<>();
+		hostHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		hostHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".host");
+		File hostFile = SystemBundleTests.createBundle(config, getName() + "-host", hostHeaders);
+
+		Map<String, String> fragHeaders = new HashMap<>();
+		fragHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		fragHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".frag");
+		fragHeaders.put(Constants.FRAGMENT_HOST, getName() + ".host");
+		Map<String, String> fragContent = new HashMap<>();
+		fragContent.put("frag/", null);
+		fragContent.put("frag/resource.txt", "resource.txt");
+		File fragFile = SystemBundleTests.createBundle(config, getName() + "-frag", fragHeaders, fragContent);
+
+		Bundle host = getContext().installBundle(hostFile.toURI().toASCIIString());
+		Bundle frag = null;
+		try {
+			host.start();
+			ClassLoader hostCL = host.adapt(BundleWiring.class).getClassLoader();
+			// look up the missing names more than once to hit the miss cache
+			for (int i = 0; i < 2; i++) {
+				assertNull("Found resource.", hostCL.getResource("frag/resource.txt"));
+				assertThrows(ClassNotFoundException.class, () -> hostCL.loadClass("frag.SomeClass"));
+			}
+
+			frag = getContext().installBundle(fragFile.toURI().toASCIIString());
+			assertTrue("Fragment did not resolve.", getContext().getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+					.adapt(FrameworkWiring.class).resolveBundles(Collections.singleton(frag)));
+			assertEquals("Host wiring changed.", hostCL, host.adapt(BundleWiring.class).getClassLoader());
+			assertNotNull("Missing resource from attached fragment.", hostCL.getResource("frag/resource.txt"));
+		} finally {
+			host.uninstall();
+			if (frag != null) {
+				frag.uninstall();
+			}
+		}
+	}
+
+	@Test
+	public void testMissingResourceFoundAfterDynamicImport() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		config.mkdirs();
+
+		Map<String, String> importerHeaders = new HashMap<>();
+		importerHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		importerHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".importer");
+		importerHeaders.put(Constants.DYNAMICIMPORT_PACKAGE, "dynamic.*");
+		File importerFile = SystemBundleTests.createBundle(config, getName() + "-importer", importerHeaders);
+
+		Map<String, String> exporterHeaders = new HashMap<>();
+		exporterHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		exporterHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".exporter");
+		exporterHeaders.put(Constants.EXPORT_PACKAGE, "dynamic.export");
+		Map<String, String> exporterContent = new HashMap<>();
+		exporterContent.put("dynamic/", null);
+		exporterContent.put("dynamic/export/", null);
+		exporterContent.put("dynamic/export/resource.txt", "resource.txt");
+		File exporterFile = SystemBundleTests.createBundle(config, getName() + "-exporter", exporterHeaders,
+				exporterContent);
+
+		Bundle importer = getContext().installBundle(importerFile.toURI().toASCIIString());
+		Bundle exporter = null;
+		try {
+			importer.start();
+			ClassLoader importerCL = importer.adapt(BundleWiring.class).getClassLoader();
+			// look up the missing name more than once to hit the miss cache
+			for (int i = 0; i < 2; i++) {
+				assertNull("Found resource.", importerCL.getResource("dynamic/export/resource.txt"));
+			}
+
+			exporter = getContext().installBundle(exporterFile.toURI().toASCIIString());
+			exporter.start();
+			assertNotNull("Missing dynamically imported resource.",
+					importerCL.getResource("dynamic/export/resource.txt"));
+		} finally {
+			importer.uninstall();
+			if (exporter != null) {
+				exporter.uninstall();
+			}
+		}
+	}
+
+	@Test
+	public void testMissCacheCounts() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		config.mkdirs();
+
+		Map<String, String> headers = new HashMap<>();
+		headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		headers.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		File bundleFile = SystemBundleTests.createBundle(config, getName(), headers);
+
+		// the miss cache is disabled by default
+		BundleLoader defaultLoader = ((ModuleClassLoader) getContext().getBundle().adapt(BundleWiring.class)
+				.getClassLoader()).getBundleLoader();
+		assertEquals("Miss cache is enabled.", -1, defaultLoader.getMissCacheHitCount());
+
+		Map<String, Object> configuration = createConfiguration();
+		configuration.put(EquinoxConfiguration.PROP_CLASS_LOADER_MISS_CACHE_SIZE, "16");
+		Equinox equinox = new Equinox(configuration);
+		initAndStart(equinox);
+		try {
+			Bundle bundle = equinox.getBundleContext().installBundle(bundleFile.toURI().toASCIIString());
+			bundle.start();
+			ClassLoader bundleCL = bundle.adapt(BundleWiring.class).getClassLoader();
+			BundleLoader loader = ((ModuleClassLoader) bundleCL).getBundleLoader();
+			assertEquals("Wrong hit count.", 0, loader.getMissCacheHitCount());
+			for (int i = 0; i < 3; i++) {
+				assertThrows(ClassNotFoundException.class, () -> bundleCL.loadClass("missing.SomeClass"));
+				assertNull("Found resource.", bundleCL.getResource("missing/resource.txt"));
+			}
+			// the first lookups of each name miss the cache and the others hit it
+			assertEquals("Wrong hit count.", 4, loader.getMissCacheHitCount());
+			assertEquals("Wrong miss count.", 2, loader.getMissCacheMissCount());
+		} finally {
+			stop(equinox);
+		}
+	}
+
+	@Test
+	public void testClasspathEntriesWithFragment() throws Exception {
+		File outputDir = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		outputDir.mkdirs();
+
+		Map<String, String> hostHeaders = new HashMap<>();
+		hostHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		hostHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".host");
+		hostHeaders.put(Constants.BUNDLE_CLASSPATH, "., lib/a.jar, lib/b.jar");
+		Map<String, byte[]> hostEntries = new HashMap<>();
+		hostEntries.put("root.txt", "root".getBytes());
+		hostEntries.put("lib/", null);
+		hostEntries.put("lib/a.jar", createJar("shared/resource.txt", "a", "a/resource.txt", "a"));
+		hostEntries.put("lib/b.jar", createJar("shared/resource.txt", "b", "b/nested/resource.txt", "b"));
+		File hostFile = SystemBundleTests.createBundleWithBytes(outputDir, "host", hostHeaders, hostEntries);
+
+		Map<String, String> fragHeaders = new HashMap<>();
+		fragHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		fragHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".frag");
+		fragHeaders.put(Constants.BUNDLE_CLASSPATH, "lib/frag.jar");
+		fragHeaders.put(Constants.FRAGMENT_HOST, getName() + ".host");
+		Map<String, byte[]> fragEntries = new HashMap<>();
+		fragEntries.put("lib/", null);
+		fragEntries.put("lib/frag.jar", createJar("shared/resource.txt", "frag", "frag/resource.txt", "frag"));
+		File fragFile = SystemBundleTests.createBundleWithBytes(outputDir, "frag", fragHeaders, fragEntries);
+
+		Bundle host = getContext().installBundle(hostFile.toURI().toASCIIString());
+		Bundle frag = null;
+		try {
+			host.start();
+			ClassLoader hostCL = host.adapt(BundleWiring.class).getClassLoader();
+			assertEquals("Wrong content.", "root", readURL(hostCL.getResource("root.txt")));
+			assertEquals("Wrong content.", "a", readURL(hostCL.getResource("a/resource.txt")));
+			assertEquals("Wrong content.", "b", readURL(hostCL.getResource("b/nested/resource.txt")));
+			assertEquals("Wrong content.", "a", readURL(hostCL.getResource("shared/resource.txt")));
+			assertEquals("Wrong number of resources.", 2,
+					Collections.list(hostCL.getResources("shared/resource.txt")).size());
+			assertNull("Found resource.", hostCL.getResource("frag/resource.txt"));
+
+			frag = getContext().installBundle(fragFile.toURI().toASCIIString());
+			assertTrue("Fragment did not resolve.", getContext().getBundle(Constants.SYSTEM_BUNDLE_LOCATION)
+					.adapt(FrameworkWiring.class).resolveBundles(Collections.singleton(frag)));
+			assertEquals("Wrong content.", "frag", readURL(hostCL.getResource("frag/resource.txt")));
+			List<URL> shared = Collections.list(hostCL.getResources("shared/resource.txt"));
+			assertEquals("Wrong number of resources.", 3, shared.size());
+			assertEquals("Wrong content.", "a", readURL(shared.get(0)));
+			assertEquals("Wrong content.", "b", readURL(shared.get(1)));
+			assertEquals("Wrong content.", "frag", readURL(shared.get(2)));
+		} finally {
+			host.uninstall();
+			if (frag != null) {
+				frag.uninstall();
+			}
+		}
+	}
+
+	@Test
+	public void testClassLocationIndexWarmStart() throws Exception {
+		File outputDir = OSGiTestsActivator.getContext().getDataFile(getName() + "-bundles"); // $NON-NLS-1$
+		outputDir.mkdirs();
+
+		Map<String, String> hostHeaders = new HashMap<>();
+		hostHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		hostHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		hostHeaders.put(Constants.BUNDLE_CLASSPATH, "., lib/a.jar, lib/b.jar");
+		Map<String, byte[]> hostEntries = new HashMap<>();
+		hostEntries.put("lib/", null);
+		hostEntries.put("lib/a.jar", createJar("shared/resource.txt", "a", "a/resource.txt", "a"));
+		hostEntries.put("lib/b.jar", createJar("shared/resource.txt", "b", "b/resource.txt", "b"));
+		File hostFile = SystemBundleTests.createBundleWithBytes(outputDir, "host", hostHeaders, hostEntries);
+
+		Map<String, Object> configuration = createConfiguration();
+		configuration.put(EquinoxConfiguration.PROP_CLASS_LOCATION_INDEX, "true");
+		Equinox equinox = new Equinox(configuration);
+		initAndStart(equinox);
+		try {
+			Bundle host = equinox.getBundleContext().installBundle(hostFile.toURI().toASCIIString());
+			assertClassLocationResources(host);
+		} finally {
+			stop(equinox);
+		}
+		File indexFile = new File((String) configuration.get(Constants.FRAMEWORK_STORAGE),
+				"org.eclipse.osgi/" + ClassLocationIndex.CLASS_LOCATION_INDEX);
+		assertTrue("Missing class location index.", indexFile.isFile());
+
+		// the recorded locations are used after a restart
+		equinox = new Equinox(configuration);
+		initAndStart(equinox);
+		try {
+			Bundle host = equinox.getBundleContext().getBundle(hostFile.toURI().toASCIIString());
+			assertNotNull("Missing bundle.", host);
+			assertClassLocationResources(host);
+		} finally {
+			stop(equinox);
+		}
+	}
+
+	private void assertClassLocationResources(Bundle host) throws IOException {
+		ClassLoader hostCL = host.adapt(BundleWiring.class).getClassLoader();
+		assertNotNull("No class loader.", hostCL);
+		assertEquals("Wrong content.", "a", readURL(hostCL.getResource("a/resource.txt")));
+		assertEquals("Wrong content.", "b", readURL(hostCL.getResource("b/resource.txt")));
+		assertEquals("Wrong content.", "a", readURL(hostCL.getResource("shared/resource.txt")));
+		assertEquals("Wrong number of resources.", 2,
+				Collections.list(hostCL.getResources("shared/resource.txt")).size());
+		assertNull("Found resource.", hostCL.getResource("c/resource.txt"));
+	}
+
+	private static byte[] createJar(String... pathsAndContents) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (JarOutputStream jar = new JarOutputStream(bytes)) {
+			for (int i = 0; i < pathsAndContents.length; i += 2) {
+				jar.putNextEntry(new JarEntry(pathsAndContents[i]));
+				jar.write(pathsAndContents[i + 1].getBytes());
+				jar.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
 	void refreshBundles(Collection<Bundle> bundles) throws InterruptedException {
 		final CountDownLatch refreshSignal = new CountDownLatch(1);
 		getContext().getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class).refreshBundles(bundles,
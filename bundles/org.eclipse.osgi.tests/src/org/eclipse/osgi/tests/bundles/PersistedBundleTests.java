@@ -13,12 +13,24 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.bundles;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.util.Map;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.launch.Equinox;
 import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.startlevel.BundleStartLevel;
 
 /*
  * The framework must persist data according to the value of the
@@ -140,4 +152,112 @@ public class PersistedBundleTests extends AbstractBundleTests {
 		}
 	}
 
+	/*
+	 * Test that the changes saved to the journal are loaded by another framework
+	 * instance before they have been compacted into the framework info.
+	 */
+	@Test
+	public void testJournalPersistence() throws Exception {
+		Map<String, Object> configuration = createConfiguration();
+		configuration.put(ECLIPSE_STATESAVEDELAYINTERVAL, IMMEDIATE_PERSISTENCE);
+		configuration.put(EquinoxConfiguration.PROP_STORAGE_JOURNAL, "true");
+		Equinox equinox1 = new Equinox(configuration);
+		initAndStart(equinox1);
+		try {
+			equinox1.getBundleContext().installBundle(getName() + ".updated",
+					new BundleBuilder().symbolicName(getName() + ".v1").build());
+		} finally {
+			stopQuietly(equinox1);
+		}
+
+		equinox1 = new Equinox(configuration);
+		initAndStart(equinox1);
+		try {
+			BundleContext context1 = equinox1.getBundleContext();
+			Bundle bundle = context1.installBundle(getName(), new BundleBuilder().symbolicName(getName()).build());
+			bundle.adapt(BundleStartLevel.class).setStartLevel(5);
+			context1.getBundle(getName() + ".updated")
+					.update(new BundleBuilder().symbolicName(getName() + ".v2").build());
+			context1.installBundle(getName() + ".uninstalled",
+					new BundleBuilder().symbolicName(getName() + ".uninstalled").build()).uninstall();
+
+			Equinox equinox2 = new Equinox(configuration);
+			initAndStart(equinox2);
+			try {
+				BundleContext context2 = equinox2.getBundleContext();
+				Bundle installed = context2.getBundle(getName());
+				assertNotNull("Bundle does not exist", installed);
+				assertEquals("Wrong start level", 5, installed.adapt(BundleStartLevel.class).getStartLevel());
+				Bundle updated = context2.getBundle(getName() + ".updated");
+				assertNotNull("Bundle does not exist", updated);
+				assertEquals("Wrong symbolic name", getName() + ".v2", updated.getSymbolicName());
+				assertNull("Bundle exists", context2.getBundle(getName() + ".uninstalled"));
+			} finally {
+				stopQuietly(equinox2);
+			}
+		} finally {
+			stopQuietly(equinox1);
+		}
+	}
+
+	/*
+	 * Test that a journal record which does not apply to the framework info does
+	 * not discard the bundles saved in the framework info.
+	 */
+	@Test
+	public void testMismatchedJournalRecord() throws Exception {
+		Map<String, Object> configuration = createConfiguration();
+		configuration.put(ECLIPSE_STATESAVEDELAYINTERVAL, IMMEDIATE_PERSISTENCE);
+		configuration.put(EquinoxConfiguration.PROP_STORAGE_JOURNAL, "true");
+		Equinox equinox1 = new Equinox(configuration);
+		initAndStart(equinox1);
+		try {
+			equinox1.getBundleContext().installBundle(getName() + ".saved",
+					new BundleBuilder().symbolicName(getName() + ".saved").build());
+		} finally {
+			stopQuietly(equinox1);
+		}
+
+		File journal = new File((String) configuration.get(Constants.FRAMEWORK_STORAGE),
+				"org.eclipse.osgi/framework.journal");
+		equinox1 = new Equinox(configuration);
+		initAndStart(equinox1);
+		try {
+			Bundle bundle = equinox1.getBundleContext().installBundle(getName(),
+					new BundleBuilder().symbolicName(getName()).build());
+			bundle.adapt(BundleStartLevel.class).setStartLevel(5);
+			// drop the first record; the second one no longer applies
+			removeFirstJournalRecord(journal);
+
+			Equinox equinox2 = new Equinox(configuration);
+			initAndStart(equinox2);
+			try {
+				BundleContext context2 = equinox2.getBundleContext();
+				assertNotNull("Bundle does not exist", context2.getBundle(getName() + ".saved"));
+				assertNull("Bundle exists", context2.getBundle(getName()));
+			} finally {
+				stopQuietly(equinox2);
+			}
+		} finally {
+			stopQuietly(equinox1);
+		}
+	}
+
+	private static void removeFirstJournalRecord(File journal) throws Exception {
+		byte[] header = new byte[4 + 8 + 8 + 8];
+		byte[] rest;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(journal))) {
+			in.readFully(header);
+			int recordLength = in.readInt();
+			in.readLong(); // checksum
+			in.readFully(new byte[recordLength]);
+			rest = in.readAllBytes();
+		}
+		assertFalse("No second record", rest.length == 0);
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journal))) {
+			out.write(header);
+			out.write(rest);
+		}
+	}
+
 }
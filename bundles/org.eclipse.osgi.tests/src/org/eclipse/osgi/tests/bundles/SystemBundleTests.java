@@ -29,6 +29,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
@@ -37,6 +38,7 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -87,12 +89,17 @@ import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.location.EquinoxLocations;
 import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.service.datalocation.Location;
+import org.eclipse.osgi.service.debug.DebugOptions;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
 import org.eclipse.osgi.service.urlconversion.URLConverter;
+import org.eclipse.osgi.storage.bundlefile.BundleEntry;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+import org.eclipse.osgi.storage.bundlefile.MRUBundleFileList;
 import org.eclipse.osgi.storage.url.reference.Handler;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.security.BaseSecurityTest;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
@@ -741,6 +748,78 @@ public class SystemBundleTests extends AbstractBundleTests {
 		}
 	}
 
+	@Test
+	public void testMRUBundleFileListKeepsUsedBundleFile() throws Exception {
+		// the debug options are all disabled
+		DebugOptions debugOptions = (DebugOptions) java.lang.reflect.Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { DebugOptions.class }, (proxy, method, args) -> args[1]);
+		int limit = 10;
+		int numBundleFiles = 100;
+		MRUBundleFileList mruList = new MRUBundleFileList(limit, new Debug(debugOptions));
+		// all but the used bundle file and the last opened bundle files get closed
+		CountDownLatch closed = new CountDownLatch(numBundleFiles - (limit - 1));
+		try {
+			TestBundleFile used = new TestBundleFile(closed);
+			mruList.add(used);
+			List<TestBundleFile> unused = new ArrayList<>();
+			for (int i = 0; i < numBundleFiles; i++) {
+				TestBundleFile bundleFile = new TestBundleFile(closed);
+				unused.add(bundleFile);
+				mruList.add(bundleFile);
+				mruList.use(used);
+			}
+			assertTrue("Bundle files not closed.", closed.await(30, TimeUnit.SECONDS));
+			assertFalse("Used bundle file closed.", used.closed);
+			for (int i = 0; i < numBundleFiles; i++) {
+				assertEquals("Wrong closed state for bundle file: " + i, i < numBundleFiles - (limit - 1),
+						unused.get(i).closed);
+			}
+		} finally {
+			mruList.shutdown();
+		}
+	}
+
+	static class TestBundleFile extends BundleFile {
+		private final CountDownLatch closedLatch;
+		volatile boolean closed;
+
+		TestBundleFile(CountDownLatch closedLatch) {
+			super(new File("test"));
+			this.closedLatch = closedLatch;
+		}
+
+		@Override
+		public File getFile(String path, boolean nativeCode) {
+			return null;
+		}
+
+		@Override
+		public BundleEntry getEntry(String path) {
+			return null;
+		}
+
+		@Override
+		public Enumeration<String> getEntryPaths(String path, boolean recurse) {
+			return Collections.emptyEnumeration();
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+			closedLatch.countDown();
+		}
+
+		@Override
+		public void open() {
+			// nothing
+		}
+
+		@Override
+		public boolean containsDir(String dir) {
+			return false;
+		}
+	}
+
 	@Test
 	public void testURLExternalFormat01() throws BundleException {
 		// create multiple instances test
@@ -3034,6 +3113,118 @@ public class SystemBundleTests extends AbstractBundleTests {
 		}
 	}
 
+	@Test
+	public void testMappedZipBundleFile() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		config.mkdirs();
+
+		Map<String, String> bundleHeaders = new HashMap<>();
+		bundleHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		bundleHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		Map<String, String> bundleEntries = new LinkedHashMap<>();
+		bundleEntries.put("dirA/", null);
+		bundleEntries.put("dirA/fileA", "fileA");
+		bundleEntries.put("dirA/dirB/", null);
+		bundleEntries.put("dirA/dirB/fileB", "fileB");
+		// file in a directory with no directory entry
+		bundleEntries.put("dirA/dirC/fileC", "fileC");
+		File testBundleFile = SystemBundleTests.createBundle(config, getName(), bundleHeaders, bundleEntries);
+
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_BUNDLE_FILE_MAPPED, "true");
+		configuration.put(EquinoxConfiguration.PROP_FILE_LIMIT, "10");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		BundleContext systemContext = equinox.getBundleContext();
+		Bundle testBundle = systemContext.installBundle("file:///" + testBundleFile.getAbsolutePath());
+		checkMappedZipBundleFile(testBundle);
+		stop(equinox);
+
+		// check again with the stored index
+		equinox = new Equinox(configuration);
+		equinox.start();
+		systemContext = equinox.getBundleContext();
+		testBundle = systemContext.getBundle(testBundle.getBundleId());
+		checkMappedZipBundleFile(testBundle);
+		stop(equinox);
+	}
+
+	private void checkMappedZipBundleFile(Bundle testBundle) throws IOException {
+		assertNull("Unexpected entry.", testBundle.getEntry("does/not/exist"));
+		try (InputStream in = testBundle.getEntry("dirA/fileA").openStream()) {
+			assertEquals("Wrong content.", "fileA", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		try (InputStream in = testBundle.getEntry("dirA/dirC/fileC").openStream()) {
+			assertEquals("Wrong content.", "fileC", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		assertNotNull("Entry not found.", testBundle.getEntry("dirA/dirB/"));
+		assertNotNull("Entry not found.", testBundle.getEntry("dirA/dirC/"));
+		assertEquals("Wrong entry paths.", Arrays.asList("dirA/fileA", "dirA/dirB/", "dirA/dirC/"),
+				Collections.list(testBundle.getEntryPaths("dirA/")));
+		List<URL> allEntries = testBundle.adapt(BundleWiring.class).findEntries("/", "*",
+				BundleWiring.FINDENTRIES_RECURSE);
+		assertEquals("Wrong number of entries: " + allEntries, 8, allEntries.size());
+	}
+
+	@Test
+	public void testCDSClassList() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
+		config.mkdirs();
+		File classList = new File(config, "bundles.classlist");
+
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put("equinox.cds.classlist", classList.getAbsolutePath());
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			Bundle test = equinox.getBundleContext().installBundle(installer.getBundleLocation("substitutes.a")); //$NON-NLS-1$
+			test.loadClass("substitutes.x.Ax"); //$NON-NLS-1$
+		} finally {
+			stop(equinox);
+		}
+
+		// the ids of the framework class list start at 1000000 by default
+		int objectId = 1000000;
+		List<String> lines = Files.readAllLines(classList.toPath());
+		assertTrue("Missing java/lang/Object: " + lines, lines.contains("java/lang/Object id: " + objectId));
+		String ax = lines.stream().filter(l -> l.startsWith("substitutes/x/Ax ")).findFirst().orElse(null);
+		assertNotNull("Missing substitutes/x/Ax: " + lines, ax);
+		assertTrue("Wrong class list entry: " + ax,
+				ax.matches("substitutes/x/Ax id: \\d+ super: " + objectId + " source: .+"));
+		File source = new File(ax.substring(ax.indexOf(" source: ") + " source: ".length()));
+		assertTrue("Source does not exist: " + source, source.exists());
+
+		// the list is appended to a class list dumped by the VM, which numbers its
+		// classes from 0; the VM must accept the combined list
+		Assume.assumeTrue("Not a HotSpot VM", System.getProperty("java.vm.name", "").contains("HotSpot")); //$NON-NLS-1$ //$NON-NLS-2$
+		File combined = new File(config, "combined.classlist");
+		List<String> combinedLines = new ArrayList<>();
+		combinedLines.add("java/lang/Object id: 0");
+		combinedLines.add("java/lang/String id: 1");
+		combinedLines.addAll(lines);
+		Files.write(combined.toPath(), combinedLines);
+		File archive = new File(config, "combined.jsa");
+		File java = new File(System.getProperty("java.home"), "bin/java");
+		Process dump = new ProcessBuilder(java.getAbsolutePath(), "-Xshare:dump",
+				"-XX:SharedClassListFile=" + combined.getAbsolutePath(),
+				"-XX:SharedArchiveFile=" + archive.getAbsolutePath()).redirectErrorStream(true).start();
+		String output = new String(dump.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertTrue("Dump did not finish.", dump.waitFor(5, TimeUnit.MINUTES));
+		assertEquals("Dump failed: " + output, 0, dump.exitValue());
+		assertTrue("Archive not created: " + archive, archive.isFile());
+
+		// the bundle class must be archived for the unregistered class loaders
+		Process print = new ProcessBuilder(java.getAbsolutePath(), "-XX:SharedArchiveFile=" + archive.getAbsolutePath(),
+				"-XX:+PrintSharedArchiveAndExit", "-XX:+PrintSharedDictionary").redirectErrorStream(true).start();
+		output = new String(print.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+		assertTrue("Print did not finish.", print.waitFor(5, TimeUnit.MINUTES));
+		assertTrue("Class not archived: " + output, output.contains("substitutes.x.Ax unregistered_loader"));
+	}
+
 	@Test
 	public void testContextFinderGetResource() throws Exception {
 		File config = OSGiTestsActivator.getContext().getDataFile(getName()); // $NON-NLS-1$
@@ -71,6 +71,7 @@ import org.eclipse.osgi.container.Module.StartOptions;
 import org.eclipse.osgi.container.Module.State;
 import org.eclipse.osgi.container.ModuleCapability;
 import org.eclipse.osgi.container.ModuleContainer;
+import org.eclipse.osgi.container.ModuleContainer.InstallEntry;
 import org.eclipse.osgi.container.ModuleContainerAdaptor.ContainerEvent;
 import org.eclipse.osgi.container.ModuleContainerAdaptor.ModuleEvent;
 import org.eclipse.osgi.container.ModuleRequirement;
@@ -85,6 +86,8 @@ import org.eclipse.osgi.framework.util.ThreadInfoReport;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
+import org.eclipse.osgi.service.metrics.ResolverMetrics;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
 import org.eclipse.osgi.tests.container.dummys.DummyCollisionHook;
 import org.eclipse.osgi.tests.container.dummys.DummyContainerAdaptor;
 import org.eclipse.osgi.tests.container.dummys.DummyDebugOptions;
@@ -2840,6 +2843,633 @@ public class TestModuleContainer extends AbstractTest {
 		assertEquals("Wrong requirer attrs", attrs, requirerAttrs);
 	}
 
+	@Test
+	public void testStoreChangesWiringsOnly() throws IOException, BundleException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		installDummyModule("c7_v1.MF", "c7", container);
+		installDummyModule("c6_v1.MF", "c6", container);
+		Module c4 = installDummyModule("c4_v1.MF", "c4", container);
+		ResolutionReport report = container.resolve(null, true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+
+		ByteArrayOutputStream info = new ByteArrayOutputStream();
+		adaptor.getDatabase().store(new DataOutputStream(info), true);
+
+		// refreshing replaces the wirings but none of the revisions
+		container.refresh(Collections.singleton(c4));
+		ByteArrayOutputStream changes = new ByteArrayOutputStream();
+		adaptor.getDatabase().storeChanges(new DataOutputStream(changes));
+
+		DummyContainerAdaptor loadedAdaptor = createDummyAdaptor();
+		ModuleContainer loadedContainer = loadedAdaptor.getContainer();
+		loadedAdaptor.getDatabase().load(new DataInputStream(new ByteArrayInputStream(info.toByteArray())));
+		assertEquals("Wrong state.", State.RESOLVED, loadedContainer.getModule("c4").getState());
+		loadedAdaptor.getDatabase().loadChanges(new DataInputStream(new ByteArrayInputStream(changes.toByteArray())));
+
+		// the persisted wirings no longer apply and must not be used
+		for (Module module : loadedContainer.getModules()) {
+			assertEquals("Wrong state: " + module, State.INSTALLED, module.getState());
+			assertNull("Unexpected wiring: " + module, module.getCurrentRevision().getWiring());
+		}
+		report = loadedContainer.resolve(null, true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, loadedContainer.getModule("c7").getState());
+	}
+
+	@Test
+	public void testLazyLoadWirings() throws IOException, BundleException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		installDummyModule("c7_v1.MF", "c7", container);
+		installDummyModule("c6_v1.MF", "c6", container);
+		installDummyModule("c4_v1.MF", "c4", container);
+		ResolutionReport report = container.resolve(null, true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		adaptor.getDatabase().store(new DataOutputStream(bytes), true);
+
+		// reload into a new container which decodes the wirings on first access
+		DummyContainerAdaptor lazyAdaptor = new DummyContainerAdaptor(new DummyCollisionHook(false),
+				Collections.singletonMap(EquinoxConfiguration.PROP_STORAGE_LAZY_LOAD, "true"));
+		ModuleContainer lazyContainer = lazyAdaptor.getContainer();
+		lazyAdaptor.getDatabase().load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		for (Module module : container.getModules()) {
+			Module lazyModule = lazyContainer.getModule(module.getId());
+			assertEquals("Wrong state: " + module, State.RESOLVED, lazyModule.getState());
+			ModuleWiring wiring = module.getCurrentRevision().getWiring();
+			ModuleWiring lazyWiring = lazyModule.getCurrentRevision().getWiring();
+			assertEquals("Wrong capabilities: " + module, wiring.getCapabilities(null).size(),
+					lazyWiring.getCapabilities(null).size());
+			assertEquals("Wrong requirements: " + module, wiring.getRequirements(null).size(),
+					lazyWiring.getRequirements(null).size());
+			assertEquals("Wrong provided wires: " + module, wiring.getProvidedWires(null).toString(),
+					lazyWiring.getProvidedWires(null).toString());
+			assertEquals("Wrong required wires: " + module, wiring.getRequiredWires(null).toString(),
+					lazyWiring.getRequiredWires(null).toString());
+		}
+
+		// the loaded wirings must be usable by the resolver
+		lazyContainer.refresh(Collections.singleton(lazyContainer.getModule("c4")));
+		report = lazyContainer.resolve(null, true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, lazyContainer.getModule("c7").getState());
+		assertNotNull("No system wiring.", lazyContainer.getModule(systemBundle.getId()).getCurrentRevision().getWiring());
+	}
+
+	@Test
+	public void testBatchInstall() throws BundleException, IOException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+		DummyModuleDatabase database = adaptor.getDatabase();
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		Module existing = installDummyModule("c3_v1.MF", "c3_v1", container);
+		database.getModuleEvents();
+		long timestamp = database.getTimestamp();
+
+		List<InstallEntry> entries = Arrays.asList(
+				new InstallEntry("c1_v1", OSGiManifestBuilderFactory.createBuilder(getManifest("c1_v1.MF")), null),
+				new InstallEntry("c2_v1", OSGiManifestBuilderFactory.createBuilder(getManifest("c2_v1.MF")), null),
+				new InstallEntry("c3_v1", OSGiManifestBuilderFactory.createBuilder(getManifest("c3_v1.MF")), null),
+				new InstallEntry("c1_v1", OSGiManifestBuilderFactory.createBuilder(getManifest("c1_v1.MF")), null),
+				new InstallEntry("c2_dup", OSGiManifestBuilderFactory.createBuilder(getManifest("c2_v1.MF")), null));
+		container.install(systemBundle, entries);
+
+		Module c1 = entries.get(0).getModule();
+		Module c2 = entries.get(1).getModule();
+		assertNotNull("c1 not installed.", c1);
+		assertNotNull("c2 not installed.", c2);
+		assertEquals("Wrong existing module.", existing, entries.get(2).getModule());
+		assertEquals("Wrong module for same location.", c1, entries.get(3).getModule());
+		assertNull("Duplicate installed.", entries.get(4).getModule());
+		assertEquals("Wrong exception type.", BundleException.DUPLICATE_BUNDLE_ERROR,
+				entries.get(4).getException().getType());
+		assertEquals("Wrong number of modules.", 4, container.getModules().size());
+		assertEquals("Timestamp not incremented once.", timestamp + 1, database.getTimestamp());
+
+		List<DummyModuleEvent> actual = database.getModuleEvents();
+		List<DummyModuleEvent> expected = Arrays.asList(
+				new DummyModuleEvent(c1, ModuleEvent.INSTALLED, State.INSTALLED),
+				new DummyModuleEvent(c2, ModuleEvent.INSTALLED, State.INSTALLED));
+		assertEquals("Wrong install events.", expected, actual);
+
+		ResolutionReport report = container.resolve(Arrays.asList(c1, c2), true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+	}
+
+	@Test
+	public void testPartitionedResolve() throws BundleException, IOException {
+		doPartitionedResolve(new HashMap<>());
+	}
+
+	@Test
+	public void testPartitionedResolveInBatches() throws BundleException, IOException {
+		// the partitions larger than a batch are resolved in batches
+		doPartitionedResolve(Collections.singletonMap(EquinoxConfiguration.PROP_RESOLVER_REVISION_BATCH_SIZE, "2"));
+	}
+
+	private void doPartitionedResolve(Map<String, String> config) throws BundleException, IOException {
+		// the partitions are resolved on the resolver executor which must not queue
+		// work, the same as the executor of the framework
+		ExecutorService executor = new ThreadPoolExecutor(0, 4, 5, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+		Map<String, String> configuration = new HashMap<>(config);
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_PARTITION, "true");
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		adaptor.setResolverExecutor(executor);
+		ModuleContainer container = adaptor.getContainer();
+		try {
+			Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+			container.resolve(Arrays.asList(systemBundle), true);
+
+			int groups = 10;
+			List<Module> exporters = new ArrayList<>();
+			List<Module> importers = new ArrayList<>();
+			for (int i = 0; i < groups; i++) {
+				Map<String, String> manifest = new HashMap<>();
+				manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				manifest.put(Constants.BUNDLE_SYMBOLICNAME, "exporter" + i);
+				manifest.put(Constants.EXPORT_PACKAGE, "pkg" + i + "; uses:=org.osgi.framework");
+				manifest.put(Constants.IMPORT_PACKAGE, "org.osgi.framework");
+				exporters.add(installDummyModule(manifest, "exporter" + i, container));
+
+				manifest = new HashMap<>();
+				manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				manifest.put(Constants.BUNDLE_SYMBOLICNAME, "importer" + i);
+				manifest.put(Constants.IMPORT_PACKAGE, "pkg" + i + ", org.osgi.framework");
+				importers.add(installDummyModule(manifest, "importer" + i, container));
+			}
+			// joins the partitions of exporter1 and exporter2
+			Map<String, String> manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "importer1and2");
+			manifest.put(Constants.IMPORT_PACKAGE, "pkg1, pkg2");
+			Module importer1and2 = installDummyModule(manifest, "importer1and2", container);
+			// attaches to exporter0 and provides a package to importer0
+			manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "fragment0");
+			manifest.put(Constants.FRAGMENT_HOST, "exporter0");
+			manifest.put(Constants.EXPORT_PACKAGE, "fragment.pkg0");
+			Module fragment0 = installDummyModule(manifest, "fragment0", container);
+			manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "fragmentImporter0");
+			manifest.put(Constants.IMPORT_PACKAGE, "fragment.pkg0");
+			Module fragmentImporter0 = installDummyModule(manifest, "fragmentImporter0", container);
+			// cannot resolve
+			manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "missing");
+			manifest.put(Constants.IMPORT_PACKAGE, "missing.pkg");
+			Module missing = installDummyModule(manifest, "missing", container);
+
+			ResolutionReport report = container.resolve(null, false);
+			assertNull("Unexpected resolution exception", report.getResolutionException());
+			for (int i = 0; i < groups; i++) {
+				assertEquals("Wrong state.", State.RESOLVED, importers.get(i).getState());
+				List<ModuleWire> wires = importers.get(i).getCurrentRevision().getWiring()
+						.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE);
+				assertEquals("Wrong number of wires.", 2, wires.size());
+				assertEquals("Wrong provider.", exporters.get(i).getCurrentRevision(), wires.get(0).getProvider());
+				assertEquals("Wrong provider.", systemBundle.getCurrentRevision(), wires.get(1).getProvider());
+			}
+			assertEquals("Wrong state.", State.RESOLVED, importer1and2.getState());
+			assertEquals("Wrong state.", State.RESOLVED, fragment0.getState());
+			assertEquals("Wrong state.", State.RESOLVED, fragmentImporter0.getState());
+			assertEquals("Wrong provider.", exporters.get(0).getCurrentRevision(),
+					fragmentImporter0.getCurrentRevision().getWiring()
+							.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE).get(0).getProvider());
+			assertEquals("Wrong state.", State.INSTALLED, missing.getState());
+			assertNotNull("No report entry for missing.",
+					report.getEntries().get(missing.getCurrentRevision()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testIncrementalRefresh() throws BundleException, IOException {
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_INCREMENTAL, "true");
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		ModuleContainer container = adaptor.getContainer();
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		container.resolve(Arrays.asList(systemBundle), true);
+
+		Map<String, String> exporterManifest = new HashMap<>();
+		exporterManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		exporterManifest.put(Constants.BUNDLE_SYMBOLICNAME, "exporter");
+		exporterManifest.put(Constants.EXPORT_PACKAGE, "pkg.a; uses:=org.osgi.framework");
+		exporterManifest.put(Constants.IMPORT_PACKAGE, "org.osgi.framework");
+		Module exporter = installDummyModule(exporterManifest, "exporter", container);
+		Map<String, String> manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "exporter2");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a");
+		Module exporter2 = installDummyModule(manifest, "exporter2", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "fragment");
+		manifest.put(Constants.FRAGMENT_HOST, "exporter");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.fragment");
+		Module fragment = installDummyModule(manifest, "fragment", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "importer");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.b; uses:=pkg.a");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a, pkg.fragment, pkg.optional; resolution:=optional");
+		Module importer = installDummyModule(manifest, "importer", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "transitive");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.b");
+		Module transitive = installDummyModule(manifest, "transitive", container);
+		ResolutionReport report = container.resolve(null, false);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		ModuleWiring previousImporterWiring = importer.getCurrentRevision().getWiring();
+
+		// an update which keeps the capabilities and requirements rebinds the wirings;
+		// the resolver would prefer the resolved exporter2 instead
+		container.update(exporter, OSGiManifestBuilderFactory.createBuilder(exporterManifest), null);
+		report = container.refresh(Arrays.asList(exporter));
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		for (Module module : Arrays.asList(exporter, fragment, importer, transitive)) {
+			assertEquals("Wrong state.", State.RESOLVED, module.getState());
+		}
+		assertFalse("Wiring not refreshed.", previousImporterWiring.isCurrent());
+		List<ModuleWire> importerWires = importer.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE);
+		assertEquals("Wrong number of wires.", 2, importerWires.size());
+		for (ModuleWire wire : importerWires) {
+			assertEquals("Wrong provider.", exporter.getCurrentRevision(), wire.getProvider());
+		}
+		assertEquals("Wrong host.", exporter.getCurrentRevision(), fragment.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(HostNamespace.HOST_NAMESPACE).get(0).getProvider());
+		assertEquals("Wrong provider.", importer.getCurrentRevision(), transitive.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE).get(0).getProvider());
+
+		// a new candidate for an optional import is wired by the resolver
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "optional");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.optional");
+		Module optional = installDummyModule(manifest, "optional", container);
+		report = container.refresh(Arrays.asList(importer));
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, optional.getState());
+		importerWires = importer.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE);
+		assertEquals("Wrong number of wires.", 3, importerWires.size());
+		assertEquals("Wrong provider.", optional.getCurrentRevision(), importerWires.get(2).getProvider());
+		assertEquals("Wrong state.", State.RESOLVED, transitive.getState());
+
+		// a new fragment attaches to its host
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "fragment2");
+		manifest.put(Constants.FRAGMENT_HOST, "exporter");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.fragment2");
+		Module fragment2 = installDummyModule(manifest, "fragment2", container);
+		report = container.refresh(Arrays.asList(exporter));
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, fragment2.getState());
+		assertEquals("Wrong number of fragments.", 2, exporter.getCurrentRevision().getWiring()
+				.getProvidedModuleWires(HostNamespace.HOST_NAMESPACE).size());
+
+		// an update which changes the capabilities is resolved by the resolver
+		exporterManifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=2; uses:=org.osgi.framework");
+		container.update(exporter, OSGiManifestBuilderFactory.createBuilder(exporterManifest), null);
+		report = container.refresh(Arrays.asList(exporter));
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		for (Module module : Arrays.asList(exporter, fragment, fragment2, importer, transitive)) {
+			assertEquals("Wrong state.", State.RESOLVED, module.getState());
+		}
+		importerWires = importer.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE);
+		assertEquals("Wrong provider.", exporter2.getCurrentRevision(), importerWires.get(0).getProvider());
+		assertEquals("Wrong provider.", exporter.getCurrentRevision(), importerWires.get(1).getProvider());
+	}
+
+	@Test
+	public void testPackageSpaceCache() throws BundleException, IOException {
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_PACKAGE_SPACE_CACHE, "true");
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		ModuleContainer container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+
+		Map<String, String> manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a1");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=1.0");
+		Module a1 = installDummyModule(manifest, "a1", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a2");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=2.0");
+		Module a2 = installDummyModule(manifest, "a2", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "b");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.b; uses:=pkg.a");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a; version=\"[1.0,2.0)\"");
+		installDummyModule(manifest, "b", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "d");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.d; uses:=pkg.a");
+		manifest.put(Constants.DYNAMICIMPORT_PACKAGE, "pkg.a");
+		Module d = installDummyModule(manifest, "d", container);
+		ResolutionReport report = container.resolve(null, false);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+
+		// the package spaces of the resolved b and d are reused by the second resolve
+		Map<String, String> importerManifest = new HashMap<>();
+		importerManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		importerManifest.put(Constants.IMPORT_PACKAGE, "pkg.a, pkg.b, pkg.d");
+		for (String name : Arrays.asList("c1", "c2")) {
+			importerManifest.put(Constants.BUNDLE_SYMBOLICNAME, name);
+			Module importer = installDummyModule(importerManifest, name, container);
+			report = container.resolve(Arrays.asList(importer), true);
+			assertNull("Unexpected resolution exception", report.getResolutionException());
+			assertEquals("Wrong provider.", a1.getCurrentRevision(), importer.getCurrentRevision().getWiring()
+					.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE).get(0).getProvider());
+		}
+
+		// the dynamic import changes the package space of d
+		ModuleWire dynamicWire = container.resolveDynamic("pkg.a", d.getCurrentRevision());
+		assertNotNull("No dynamic wire.", dynamicWire);
+		assertEquals("Wrong provider.", a2.getCurrentRevision(), dynamicWire.getProvider());
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "e");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a; version=\"[1.0,2.0)\", pkg.d");
+		Module e = installDummyModule(manifest, "e", container);
+		report = container.resolve(Arrays.asList(e), false);
+		assertEquals("Wrong state.", State.INSTALLED, e.getState());
+
+		// refreshing a2 removes the dynamic import of d
+		container.uninstall(a2);
+		report = container.refresh(Arrays.asList(a2));
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		report = container.resolve(Arrays.asList(e), true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, e.getState());
+	}
+
+	@Test
+	public void testPackageSpaceCacheInterleavedDynamicResolve() throws Exception {
+		// runs a task while the dynamic resolve is done with the wirings taken before
+		AtomicReference<Runnable> interleave = new AtomicReference<>();
+		DummyResolverHookFactory hookFactory = new DummyResolverHookFactory();
+		ResolverHookFactory resolverHookFactory = triggers -> {
+			Runnable task = interleave.getAndSet(null);
+			if (task != null) {
+				task.run();
+			}
+			return hookFactory.begin(triggers);
+		};
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_PACKAGE_SPACE_CACHE, "true");
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration,
+				resolverHookFactory);
+		ModuleContainer container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+
+		Map<String, String> manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a1");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=1.0");
+		Module a1 = installDummyModule(manifest, "a1", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a2");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=2.0");
+		Module a2 = installDummyModule(manifest, "a2", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "p");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.p; uses:=pkg.a");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a");
+		Module p = installDummyModule(manifest, "p", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "q");
+		manifest.put(Constants.DYNAMICIMPORT_PACKAGE, "pkg.p");
+		Module q = installDummyModule(manifest, "q", container);
+		ResolutionReport report = container.resolve(null, false);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong provider.", a2.getCurrentRevision(), p.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE).get(0).getProvider());
+
+		// unresolve p while the dynamic import of q is resolved with the wirings
+		// where p is still wired to a2
+		container.uninstall(a2);
+		AtomicReference<Throwable> refreshError = new AtomicReference<>();
+		Thread refresh = new Thread(() -> {
+			try {
+				container.refresh(Arrays.asList(a2));
+			} catch (Throwable t) {
+				refreshError.set(t);
+			}
+		}, "refresh");
+		interleave.set(() -> {
+			refresh.start();
+			long end = System.currentTimeMillis() + 10000;
+			while (p.getState() != State.INSTALLED && System.currentTimeMillis() < end) {
+				Thread.yield();
+			}
+		});
+		ModuleWire dynamicWire = container.resolveDynamic("pkg.p", q.getCurrentRevision());
+		refresh.join(60000);
+		assertNull("Unexpected refresh error.", refreshError.get());
+		assertNotNull("No dynamic wire.", dynamicWire);
+		assertEquals("Wrong provider.", a1.getCurrentRevision(), p.getCurrentRevision().getWiring()
+				.getRequiredModuleWires(PackageNamespace.PACKAGE_NAMESPACE).get(0).getProvider());
+
+		// the package space of p computed with the wirings taken before the refresh
+		// must not be cached
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "r");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a; version=\"[1.0,2.0)\", pkg.p");
+		Module r = installDummyModule(manifest, "r", container);
+		report = container.resolve(Arrays.asList(r), true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		assertEquals("Wrong state.", State.RESOLVED, r.getState());
+	}
+
+	@Test
+	public void testResolverMetrics() throws BundleException, IOException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		ResolutionReport report = container.resolve(null, false);
+		assertNull("Unexpected metrics.", report.getMetrics());
+		assertFalse("Metrics are enabled.", container.getResolverMetrics().isEnabled());
+
+		Map<String, String> configuration = new HashMap<>();
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_METRICS, "true");
+		adaptor = new DummyContainerAdaptor(new DummyCollisionHook(false), configuration);
+		container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		Map<String, String> manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a1");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=1.0");
+		installDummyModule(manifest, "a1", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "a2");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=2.0");
+		installDummyModule(manifest, "a2", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "b");
+		manifest.put(Constants.EXPORT_PACKAGE, "pkg.b; uses:=pkg.a");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a; version=\"[1.0,2.0)\"");
+		installDummyModule(manifest, "b", container);
+		// c prefers pkg.a from a2 which conflicts with the uses constraint of pkg.b
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "c");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a, pkg.b");
+		Module c = installDummyModule(manifest, "c", container);
+
+		report = container.resolve(Arrays.asList(c), true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		ResolverMetricsDTO metrics = report.getMetrics();
+		assertNotNull("No metrics.", metrics);
+		assertEquals("Wrong operations.", 1, metrics.operations);
+		assertTrue("No provider lookups.", metrics.findProvidersCalls > 0);
+		assertTrue("No uses permutations.", metrics.usesPermutations > 0);
+		assertEquals("Wrong total permutations.", report.getTotalPermutations(), metrics.permutations);
+		assertTrue("No processed permutations.", metrics.processedPermutations > 1);
+		assertTrue("No permutation time.", metrics.permutationsTime > 0);
+		assertTrue("No uses constraint time for c.", metrics.usesConstraintsTimeByBundle.containsKey(c.getId()));
+		assertTrue("No permutations for c.", metrics.permutationsByBundle.containsKey(c.getId()));
+		assertEquals("Wrong batch timeouts.", 0, metrics.batchTimeouts);
+		assertEquals("Wrong individual resolves.", 0, metrics.individualResolves);
+
+		// the metrics of the container include all resolve operations
+		report = container.resolve(null, false);
+		ResolverMetrics resolverMetrics = container.getResolverMetrics();
+		assertTrue("Metrics are disabled.", resolverMetrics.isEnabled());
+		ResolverMetricsDTO total = resolverMetrics.getMetrics();
+		assertEquals("Wrong operations.", 2, total.operations);
+		assertEquals("Wrong uses permutations.", metrics.usesPermutations + report.getMetrics().usesPermutations,
+				total.usesPermutations);
+		assertEquals("Wrong permutations for c.", metrics.permutationsByBundle.get(c.getId()),
+				total.permutationsByBundle.get(c.getId()));
+
+		resolverMetrics.reset();
+		total = resolverMetrics.getMetrics();
+		assertEquals("Wrong operations.", 0, total.operations);
+		assertTrue("Metrics not reset.", total.usesConstraintsTimeByBundle.isEmpty());
+	}
+
+	@Test
+	public void testFindProvidersVersionRange() throws BundleException, IOException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+		installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+
+		List<Module> exporters = new ArrayList<>();
+		for (String version : Arrays.asList("1.0", "1.5", "2.0", "3.0")) {
+			Map<String, String> manifest = new HashMap<>();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "exporter");
+			manifest.put(Constants.BUNDLE_VERSION, version);
+			manifest.put(Constants.EXPORT_PACKAGE, "pkg.a; version=" + version + ", pkg.b; version=" + version);
+			exporters.add(installDummyModule(manifest, "exporter" + version, container));
+		}
+		Map<String, String> manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "importer");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a; version=\"[1.5,3.0)\", pkg.b; version=\"(1.0,2.0]\"");
+		manifest.put(Constants.REQUIRE_BUNDLE, "exporter; bundle-version=\"[3.0,3.0]\"");
+		Module importer = installDummyModule(manifest, "importer", container);
+		manifest = new HashMap<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "importer2");
+		manifest.put(Constants.IMPORT_PACKAGE, "pkg.a, pkg.b; version=\"[4.0,5.0)\"");
+		Module importer2 = installDummyModule(manifest, "importer2", container);
+
+		List<ModuleRequirement> requirements = importer.getCurrentRevision()
+				.getModuleRequirements(PackageNamespace.PACKAGE_NAMESPACE);
+		assertProviders(container, requirements.get(0), exporters.get(1), exporters.get(2));
+		assertProviders(container, requirements.get(1), exporters.get(1), exporters.get(2));
+		assertProviders(container,
+				importer.getCurrentRevision().getModuleRequirements(BundleNamespace.BUNDLE_NAMESPACE).get(0),
+				exporters.get(3));
+		requirements = importer2.getCurrentRevision().getModuleRequirements(PackageNamespace.PACKAGE_NAMESPACE);
+		assertProviders(container, requirements.get(0), exporters.toArray(new Module[0]));
+		assertProviders(container, requirements.get(1));
+
+		// the index follows uninstalled modules
+		container.uninstall(exporters.get(2));
+		assertProviders(container, importer.getCurrentRevision()
+				.getModuleRequirements(PackageNamespace.PACKAGE_NAMESPACE).get(0), exporters.get(1));
+
+		ResolutionReport report = container.resolve(Arrays.asList(importer), true);
+		assertNull("Unexpected resolution exception", report.getResolutionException());
+		for (ModuleWire wire : importer.getCurrentRevision().getWiring().getRequiredModuleWires(null)) {
+			assertEquals("Wrong provider.",
+					BundleNamespace.BUNDLE_NAMESPACE.equals(wire.getRequirement().getNamespace())
+							? exporters.get(3).getCurrentRevision()
+							: exporters.get(1).getCurrentRevision(),
+					wire.getProvider());
+		}
+	}
+
+	private void assertProviders(ModuleContainer container, ModuleRequirement requirement, Module... expected) {
+		Set<Object> expectedProviders = new HashSet<>();
+		for (Module module : expected) {
+			expectedProviders.add(module.getCurrentRevision());
+		}
+		Set<Object> providers = new HashSet<>();
+		for (BundleCapability capability : container.getFrameworkWiring().findProviders(requirement)) {
+			assertTrue("Provider does not match: " + capability, requirement.matches(capability));
+			providers.add(capability.getRevision());
+		}
+		assertEquals("Wrong providers for " + requirement, expectedProviders, providers);
+	}
+
+	@Test
+	public void testBatchInstallCollisionHook() throws BundleException, IOException {
+		// the collision hook allows bundles with the same name and version
+		DummyContainerAdaptor adaptor = new DummyContainerAdaptor(new DummyCollisionHook(true),
+				Collections.emptyMap());
+		ModuleContainer container = adaptor.getContainer();
+		DummyModuleDatabase database = adaptor.getDatabase();
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		database.getModuleEvents();
+
+		List<InstallEntry> entries = Arrays.asList(
+				new InstallEntry("c2_v1", OSGiManifestBuilderFactory.createBuilder(getManifest("c2_v1.MF")), null),
+				new InstallEntry("c2_dup", OSGiManifestBuilderFactory.createBuilder(getManifest("c2_v1.MF")), null));
+		container.install(systemBundle, entries);
+
+		Module c2 = entries.get(0).getModule();
+		Module c2Dup = entries.get(1).getModule();
+		assertNotNull("c2 not installed.", c2);
+		assertNotNull("Duplicate not installed.", c2Dup);
+		assertNotEquals("Same module for different locations.", c2, c2Dup);
+		assertEquals("Wrong number of modules.", 3, container.getModules().size());
+
+		List<DummyModuleEvent> actual = database.getModuleEvents();
+		List<DummyModuleEvent> expected = Arrays.asList(
+				new DummyModuleEvent(c2, ModuleEvent.INSTALLED, State.INSTALLED),
+				new DummyModuleEvent(c2Dup, ModuleEvent.INSTALLED, State.INSTALLED));
+		assertEquals("Wrong install events.", expected, actual);
+	}
+
 	@Test
 	public void testInvalidAttributes() throws IOException, BundleException {
 		DummyContainerAdaptor adaptor = createDummyAdaptor();
@@ -19,14 +19,22 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.framework.eventmgr.CopyOnWriteIdentityMap;
+import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
+import org.eclipse.osgi.framework.eventmgr.EventManager;
+import org.eclipse.osgi.framework.eventmgr.ListenerQueue;
 import org.junit.Test;
 
 public class EventManagerTests {
@@ -435,4 +443,57 @@ public class EventManagerTests {
 		assertNull("value not null", el2.get(l3)); //$NON-NLS-1$
 
 	}
+
+	@Test
+	public void testAsynchronousLanes() throws InterruptedException {
+		final int listenerCount = 32;
+		final int eventCount = 100;
+		EventManager manager = new EventManager("testAsynchronousLanes", null, 4); //$NON-NLS-1$
+		try {
+			CountDownLatch slowListenerBlocked = new CountDownLatch(1);
+			CountDownLatch otherListenerDone = new CountDownLatch(1);
+			CountDownLatch allDone = new CountDownLatch(listenerCount);
+			Map<Object, List<Integer>> received = new ConcurrentHashMap<>();
+			CopyOnWriteIdentityMap<Object, Object> listeners = new CopyOnWriteIdentityMap<>();
+			Object slowListener = new Object();
+			listeners.put(slowListener, slowListener);
+			for (int i = 1; i < listenerCount; i++) {
+				Object listener = new Object();
+				listeners.put(listener, listener);
+			}
+			EventDispatcher<Object, Object, Integer> dispatcher = (listener, listenerObject, action, event) -> {
+				List<Integer> events = received.computeIfAbsent(listener, l -> new ArrayList<>());
+				if (listener == slowListener && event.intValue() == 0) {
+					slowListenerBlocked.countDown();
+					try {
+						// one slow listener must not block the listeners of other lanes
+						assertTrue("Other listeners blocked", otherListenerDone.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				events.add(event);
+				if (events.size() == eventCount) {
+					if (listener != slowListener) {
+						otherListenerDone.countDown();
+					}
+					allDone.countDown();
+				}
+			};
+			for (int i = 0; i < eventCount; i++) {
+				ListenerQueue<Object, Object, Integer> queue = new ListenerQueue<>(manager);
+				queue.queueListeners(listeners.entrySet(), dispatcher);
+				queue.dispatchEventAsynchronous(0, Integer.valueOf(i));
+			}
+			assertTrue("Slow listener not called", slowListenerBlocked.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			assertTrue("Events not delivered", allDone.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+			for (List<Integer> events : received.values()) {
+				for (int i = 0; i < eventCount; i++) {
+					assertEquals("Wrong event order", i, events.get(i).intValue()); //$NON-NLS-1$
+				}
+			}
+		} finally {
+			manager.close();
+		}
+	}
 }
@@ -16,6 +16,8 @@ package org.eclipse.osgi.tests.filter;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -24,11 +26,15 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Objects;
 import org.eclipse.osgi.framework.util.CaseInsensitiveDictionaryMap;
+import org.eclipse.osgi.internal.framework.BundleContextImpl;
+import org.eclipse.osgi.internal.framework.FilterCache;
+import org.eclipse.osgi.internal.framework.FilterImpl;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.util.MapDictionary;
 import org.junit.Test;
@@ -41,6 +47,8 @@ import org.osgi.framework.Filter;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+import org.osgi.framework.VersionRange;
 
 @RunWith(Parameterized.class)
 public class FilterTests {
@@ -50,10 +58,12 @@ public class FilterTests {
 		Filter createFilter(String filterString) throws InvalidSyntaxException;
 	}
 
+	private static final FilterFactory BUNDLE_CONTEXT_FILTERS = OSGiTestsActivator.getContext()::createFilter;
+
 	@Parameters(name = "{0}")
 	public static Collection<Object[]> allFilterFactories() {
 		return Arrays.asList(
-				new Object[] { "BundleContextFilter", (FilterFactory) OSGiTestsActivator.getContext()::createFilter },
+				new Object[] { "BundleContextFilter", BUNDLE_CONTEXT_FILTERS },
 				new Object[] { "FrameworkUtilFilter", (FilterFactory) FrameworkUtil::createFilter });
 	}
 
@@ -335,6 +345,97 @@ public class FilterTests {
 		assertFalse("does match filter", f1.match(new DictionaryServiceReference(hash)));
 	}
 
+	@Test
+	public void testMixedValueTypes() throws InvalidSyntaxException {
+		// the same filter is evaluated against values of different types to check the
+		// converted filter values are kept per type
+		Filter f1 = createFilter("(Value=42)");
+		Filter f2 = createFilter("(value>=1.5)");
+		Object[] matches = { "42", Long.valueOf(42), Integer.valueOf(42), Double.valueOf(42), new SampleComparable("42"),
+				new SampleObject("42"), Arrays.asList("1", Long.valueOf(42)), new long[] { 1, 42 } };
+		Object[] nonMatches = { "43", Long.valueOf(43), Boolean.TRUE, Character.valueOf('x'), Version.valueOf("43"),
+				new SampleComparable("43"), new SampleObject("43"), Arrays.asList("1", Long.valueOf(43)) };
+		for (int i = 0; i < 2; i++) {
+			for (Object value : matches) {
+				Dictionary<String, Object> hash = new Hashtable<>();
+				hash.put("vALUE", value);
+				assertTrue("does not match filter: " + value, f1.match(hash));
+				assertTrue("does not match filter: " + value, f1.match(new DictionaryServiceReference(hash)));
+				assertFalse("does match filter: " + value, f1.matchCase(hash));
+			}
+			for (Object value : nonMatches) {
+				Dictionary<String, Object> hash = new Hashtable<>();
+				hash.put("value", value);
+				assertFalse("does match filter: " + value, f1.match(hash));
+				assertFalse("does match filter: " + value, f1.match(new DictionaryServiceReference(hash)));
+			}
+			// a value which cannot be converted to the type of the property never matches
+			assertFalse(f2.matches(Collections.singletonMap("value", Long.valueOf(2))));
+			assertTrue(f2.matches(Collections.singletonMap("value", Double.valueOf(2))));
+			assertTrue(f2.matches(Collections.singletonMap("value", Version.valueOf("1.5.1"))));
+			assertFalse(f2.matches(Collections.singletonMap("value", Version.valueOf("1.4"))));
+		}
+	}
+
+	@Test
+	public void testFilterCache() throws InvalidSyntaxException {
+		FilterCache cache = ((BundleContextImpl) OSGiTestsActivator.getContext()).getContainer().getFilterCache();
+		String filterString = "(&(objectClass=" + name + ")(cache.test=" + System.nanoTime() + "))";
+		long misses = cache.getMissCount();
+		long hits = cache.getHitCount();
+		if (filterFactory != BUNDLE_CONTEXT_FILTERS) {
+			// only the filters of a framework are cached
+			assertNotSame("Expected a new filter", createFilter(filterString), createFilter(filterString));
+			assertEquals("Unexpected cache miss", misses, cache.getMissCount());
+			assertEquals("Unexpected cache hit", hits, cache.getHitCount());
+			return;
+		}
+		Filter f1 = createFilter(filterString);
+		assertTrue("Expected a cache miss", cache.getMissCount() > misses);
+		Filter f2 = createFilter(filterString);
+		assertTrue("Expected a cache hit", cache.getHitCount() > hits);
+		assertSame("Expected the same filter", f1, f2);
+
+		// equivalent filter strings share the same filter
+		Filter f3 = createFilter(" " + filterString.replace(")(", ") (") + " ");
+		assertSame("Expected the same filter", f1, f3);
+		assertEquals(filterString, f3.toString());
+
+		// invalid filter strings are not cached
+		assertThrows(InvalidSyntaxException.class, () -> createFilter(filterString + ")"));
+		assertThrows(InvalidSyntaxException.class, () -> createFilter(filterString + ")"));
+	}
+
+	@Test
+	public void testVersionRange() throws InvalidSyntaxException {
+		assertVersionRange("[1.0.0,2.0.0)", "(&(pkg=a)(version>=1.0)(!(version>=2.0)))");
+		assertVersionRange("(1.0.0,2.0.0]", "(&(pkg=a)(&(!(version<=1.0))(version<=2.0)))");
+		assertVersionRange("[1.5.0,1.5.0]", "(&(version=1.5)(!(version=1.6)))");
+		assertVersionRange("1.0.0", "(version>=1.0)");
+		assertVersionRange("[0.0.0,3.0.0)", "(!(version>=3.0))");
+		assertVersionRange("[2.0.0,3.0.0)", "(&(version>=1.0)(version>=2.0)(!(version>=3.0)))");
+		assertVersionRange("[3.0.0,2.0.0]", "(&(version>=3.0)(version<=2.0))");
+		assertVersionRange(null, "(|(version=1.0)(version=2.0))");
+		assertVersionRange(null, "(!(&(version>=1.0)(version<=2.0)))");
+		assertVersionRange(null, "(version~=1.0)");
+		assertVersionRange(null, "(bundle-version>=1.0)");
+		assertVersionRange(null, "(VERSION>=1.0)");
+		assertVersionRange(null, "(version>=not.a.version)");
+
+		// a version outside of the range never matches the filter
+		Filter f = createFilter("(&(version>=1.0)(!(version>=2.0)))");
+		VersionRange range = FilterImpl.newInstance(f.toString()).getVersionRange("version");
+		for (String version : Arrays.asList("0.9", "1.0", "1.5", "2.0", "2.1")) {
+			Version v = Version.valueOf(version);
+			assertEquals(version, range.includes(v), f.matches(Collections.singletonMap("version", v)));
+		}
+	}
+
+	private void assertVersionRange(String expected, String filterString) throws InvalidSyntaxException {
+		VersionRange range = FilterImpl.newInstance(filterString).getVersionRange("version");
+		assertEquals(filterString, expected, range == null ? null : range.toString());
+	}
+
 	@Test
 	public void testNullValueMatch() throws InvalidSyntaxException {
 		Dictionary<String, Object> nullProps = new MapDictionary<>();
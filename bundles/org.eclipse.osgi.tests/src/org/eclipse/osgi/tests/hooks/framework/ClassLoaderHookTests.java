@@ -19,16 +19,25 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.hookregistry.HookRegistry;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.eclipse.osgi.tests.bundles.SystemBundleTests;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Constants;
@@ -52,6 +61,9 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 	private static final String FILTER_CLASS_PATHS = "classloader.hooks.a.filter.class.paths";
 	private static final String PREVENT_RESOURCE_LOAD_PRE = "classloader.hooks.a.fail.resource.load.pre";
 	private static final String PREVENT_RESOURCE_LOAD_POST = "classloader.hooks.a.fail.resource.load.post";
+	private static final String PROBE_RESOURCE = "classloader.hooks.a.probe.resource";
+	private static final String PROBE_RESOURCE_HIDDEN_IN = "classloader.hooks.a.probe.resource.hidden.in";
+	private static final String PROBE_RESOURCE_PROBES = "classloader.hooks.a.probe.resource.probes";
 
 	private Map<String, String> configuration;
 	private Framework framework;
@@ -67,6 +79,7 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 		setFilterClassPaths(false);
 		setPreventResourceLoadPre(false);
 		setPreventResourceLoadPost(false);
+		setProbeResource(null, null);
 		String loc = bundleInstaller.getBundleLocation(HOOK_CONFIGURATOR_BUNDLE);
 		loc = loc.substring(loc.indexOf("file:"));
 		classLoader.addURL(new URL(loc));
@@ -120,6 +133,24 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 		System.setProperty(PREVENT_RESOURCE_LOAD_POST, Boolean.toString(value));
 	}
 
+	private void setProbeResource(String resource, String hiddenIn) {
+		if (resource == null) {
+			System.clearProperty(PROBE_RESOURCE);
+		} else {
+			System.setProperty(PROBE_RESOURCE, resource);
+		}
+		if (hiddenIn == null) {
+			System.clearProperty(PROBE_RESOURCE_HIDDEN_IN);
+		} else {
+			System.setProperty(PROBE_RESOURCE_HIDDEN_IN, hiddenIn);
+		}
+		System.clearProperty(PROBE_RESOURCE_PROBES);
+	}
+
+	private String[] getProbes() {
+		return System.getProperty(PROBE_RESOURCE_PROBES, "").split(",");
+	}
+
 	@Test
 	public void testRejectTransformationFromWeavingHook() throws Exception {
 		setRejectTransformation(true);
@@ -231,4 +262,70 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 		resource = b.getResource(TEST_CLASSNAME_RESOURCE);
 		assertNull("Could find resource.", resource);
 	}
+
+	@Test
+	public void testRecordedLocationMissSearchesOtherEntries() throws Exception {
+		final String resource = "shared/resource.txt";
+		File outputDir = OSGiTestsActivator.getContext().getDataFile(testName.getMethodName() + "-bundles");
+		outputDir.mkdirs();
+		Map<String, String> headers = new HashMap<>();
+		headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		headers.put(Constants.BUNDLE_SYMBOLICNAME, testName.getMethodName());
+		headers.put(Constants.BUNDLE_CLASSPATH, "., lib/a.jar, lib/b.jar");
+		Map<String, byte[]> entries = new HashMap<>();
+		entries.put("lib/", null);
+		entries.put("lib/a.jar", createJar(resource, "a"));
+		entries.put("lib/b.jar", createJar(resource, "b"));
+		String hostLocation = SystemBundleTests.createBundleWithBytes(outputDir, "host", headers, entries).toURI()
+				.toASCIIString();
+
+		// search the classpath entries in order after a miss of the recorded entry
+		configuration.put(EquinoxConfiguration.PROP_CLASS_LOCATION_INDEX, "true");
+		configuration.put(EquinoxConfiguration.PROP_CLASSPATH_INDEX, "false");
+		setProbeResource(resource, null);
+		framework = createFramework(configuration);
+		initAndStartFramework();
+		Bundle host = framework.getBundleContext().installBundle(hostLocation);
+		assertEquals("Wrong content.", "a", readURL(host.getResource(resource)));
+		assertEquals("Wrong number of a.jar probes.", 1, count(getProbes(), "a.jar"));
+		assertEquals("Wrong number of b.jar probes.", 0, count(getProbes(), "b.jar"));
+
+		// the recorded location of the resource is a.jar, which misses now
+		framework = restart(framework, configuration);
+		host = framework.getBundleContext().getBundle(hostLocation);
+		assertNotNull("Missing bundle.", host);
+		setProbeResource(resource, "a.jar");
+		assertEquals("Wrong content.", "b", readURL(host.getResource(resource)));
+		String[] probes = getProbes();
+		assertEquals("Wrong first probe: " + Arrays.toString(probes), "a.jar", probes[0]);
+		assertEquals("Recorded entry probed again: " + Arrays.toString(probes), 1, count(probes, "a.jar"));
+		assertEquals("Wrong number of b.jar probes: " + Arrays.toString(probes), 1, count(probes, "b.jar"));
+	}
+
+	private static int count(String[] probes, String name) {
+		int result = 0;
+		for (String probe : probes) {
+			if (name.equals(probe)) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	private static byte[] createJar(String path, String content) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (JarOutputStream jar = new JarOutputStream(bytes)) {
+			jar.putNextEntry(new JarEntry(path));
+			jar.write(content.getBytes());
+			jar.closeEntry();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String readURL(URL url) throws IOException {
+		assertNotNull("Could not find resource.", url);
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
+			return reader.readLine();
+		}
+	}
 }
@@ -20,18 +20,27 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.launch.Equinox;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetrics;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetricsDTO;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
 import org.eclipse.osgi.tests.util.MapDictionary;
@@ -672,6 +681,306 @@ public class ServiceRegistryTests extends AbstractBundleTests {
 		}
 	}
 
+	@Test
+	public void testFilterIndexedPropertyOptimization() throws InvalidSyntaxException {
+		final String PID = getName() + ".pid";
+		Collection<ServiceRegistration<?>> registrations = new ArrayList<>();
+		BundleContext bc = OSGiTestsActivator.getContext();
+		try {
+			ServiceRegistration<?> runnable_pid = registerFilteredService( //
+					bc, registrations, new TestObjectClassOptimizationService(), //
+					Collections.singletonMap(Constants.SERVICE_PID, PID), //
+					Runnable.class);
+			ServiceRegistration<?> callable_pid = registerFilteredService( //
+					bc, registrations, new TestObjectClassOptimizationService(), //
+					Collections.singletonMap(Constants.SERVICE_PID, new String[] { "other", PID }), //
+					Callable.class);
+			ServiceRegistration<?> callable_otherPid = registerFilteredService( //
+					bc, registrations, new TestObjectClassOptimizationService(), //
+					Collections.singletonMap(Constants.SERVICE_PID, PID + ".other"), //
+					Callable.class);
+			ServiceRegistration<?> callable_collectionPid = registerFilteredService( //
+					bc, registrations, new TestObjectClassOptimizationService(), //
+					Collections.singletonMap(Constants.SERVICE_PID, Arrays.asList(PID)), //
+					Callable.class);
+
+			// INDEXED
+			validateFoundServices(bc, "(" + Constants.SERVICE_PID + "=" + PID + ")", //
+					runnable_pid, callable_pid, callable_collectionPid);
+			// INDEXED and case insensitive key
+			validateFoundServices(bc, "(SERVICE.PID=" + PID + ")", //
+					runnable_pid, callable_pid, callable_collectionPid);
+			// INDEXED
+			validateFoundServices(bc,
+					"(&(objectClass=" + Callable.class.getName() + ")(" + Constants.SERVICE_PID + "=" + PID + "))", //
+					callable_pid, callable_collectionPid);
+			// INDEXED
+			validateFoundServices(bc, "(&(" + Constants.SERVICE_PID + "=" + PID + ")(!(objectClass="
+					+ Runnable.class.getName() + ")))", //
+					callable_pid, callable_collectionPid);
+			// NOT INDEXED
+			validateFoundServices(bc, "(" + Constants.SERVICE_PID + "=" + PID + "*)", //
+					runnable_pid, callable_pid, callable_otherPid, callable_collectionPid);
+
+			// INDEXED with clazz
+			ServiceReference<?>[] found = bc.getServiceReferences(Runnable.class.getName(),
+					"(" + Constants.SERVICE_PID + "=" + PID + ")");
+			assertNotNull("No services found", found);
+			assertEquals("Wrong number of services found", 1, found.length);
+			assertEquals("Wrong service found", runnable_pid.getReference(), found[0]);
+
+			// the index must follow property modifications
+			runnable_pid.setProperties(
+					FrameworkUtil.asDictionary(Collections.singletonMap(Constants.SERVICE_PID, PID + ".other")));
+			callable_otherPid
+					.setProperties(FrameworkUtil.asDictionary(Collections.singletonMap(Constants.SERVICE_PID, PID)));
+			validateFoundServices(bc, "(" + Constants.SERVICE_PID + "=" + PID + ")", //
+					callable_pid, callable_otherPid, callable_collectionPid);
+			validateFoundServices(bc, "(" + Constants.SERVICE_PID + "=" + PID + ".other)", //
+					runnable_pid);
+
+			// the index must keep the ranking order
+			Map<String, Object> ranked = new HashMap<>();
+			ranked.put(Constants.SERVICE_PID, PID);
+			ranked.put(Constants.SERVICE_RANKING, Integer.valueOf(Integer.MAX_VALUE));
+			callable_collectionPid.setProperties(FrameworkUtil.asDictionary(ranked));
+			found = bc.getServiceReferences(Callable.class.getName(), "(" + Constants.SERVICE_PID + "=" + PID + ")");
+			assertNotNull("No services found", found);
+			assertEquals("Wrong number of services found", 3, found.length);
+			assertEquals("Wrong highest ranked service", callable_collectionPid.getReference(), found[0]);
+
+			runnable_pid.unregister();
+			registrations.remove(runnable_pid);
+			validateFoundServices(bc, "(" + Constants.SERVICE_PID + "=" + PID + ".other)");
+		} finally {
+			registrations.forEach(ServiceRegistration::unregister);
+		}
+	}
+
+	@Test
+	public void testConcurrentLookupDuringModification() throws Exception {
+		final String PID = getName() + ".pid";
+		BundleContext bc = OSGiTestsActivator.getContext();
+		ServiceRegistration<?> stable = bc.registerService(Runnable.class, new TestObjectClassOptimizationService(),
+				FrameworkUtil.asDictionary(Collections.singletonMap(Constants.SERVICE_PID, PID)));
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			final int rank = i;
+			threads.add(new Thread(() -> {
+				Map<String, Object> props = new HashMap<>();
+				while (!stop.get()) {
+					props.put(Constants.SERVICE_PID, PID + ".other");
+					ServiceRegistration<?> reg = bc.registerService(Runnable.class,
+							new TestObjectClassOptimizationService(), FrameworkUtil.asDictionary(props));
+					props.put(Constants.SERVICE_PID, PID);
+					props.put(Constants.SERVICE_RANKING, Integer.valueOf(rank));
+					reg.setProperties(FrameworkUtil.asDictionary(props));
+					props.remove(Constants.SERVICE_RANKING);
+					reg.setProperties(FrameworkUtil.asDictionary(props));
+					reg.unregister();
+				}
+			}));
+		}
+		for (int i = 0; i < 2; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					while (!stop.get()) {
+						ServiceReference<?>[] found = bc.getServiceReferences(Runnable.class.getName(),
+								"(" + Constants.SERVICE_PID + "=" + PID + ")");
+						assertNotNull("Stable service not found", found);
+						assertTrue("Stable service not found",
+								Arrays.asList(found).contains(stable.getReference()));
+						assertNotNull("No Runnable service found", bc.getServiceReference(Runnable.class));
+					}
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		}
+		try {
+			threads.forEach(Thread::start);
+			Thread.sleep(1000);
+		} finally {
+			stop.set(true);
+			for (Thread thread : threads) {
+				thread.join(10000);
+			}
+			stable.unregister();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError("Failure during concurrent lookup", failure.get());
+		}
+	}
+
+	@Test
+	public void testServiceListenerObjectClassIndex() throws InvalidSyntaxException {
+		final String testProp = getName().toLowerCase();
+		BundleContext bc = OSGiTestsActivator.getContext();
+		Map<String, AtomicInteger> events = new HashMap<>();
+		List<ServiceListener> listeners = new ArrayList<>();
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("runnable", "(objectClass=" + Runnable.class.getName() + ")");
+		filters.put("callable", "(&(objectClass=" + Callable.class.getName() + ")(" + testProp + "=*))");
+		filters.put("unfiltered", null);
+		filters.put("property", "(" + testProp + "=true)");
+		filters.put("replaced", "(objectClass=" + Runnable.class.getName() + ")");
+		try {
+			for (Map.Entry<String, String> filter : filters.entrySet()) {
+				AtomicInteger count = new AtomicInteger();
+				events.put(filter.getKey(), count);
+				ServiceListener listener = event -> {
+					if (event.getServiceReference().getProperty(testProp) != null) {
+						count.incrementAndGet();
+					}
+				};
+				listeners.add(listener);
+				bc.addServiceListener(listener, filter.getValue());
+			}
+			// move the last listener to another objectClass
+			bc.addServiceListener(listeners.get(listeners.size() - 1),
+					"(objectClass=" + Callable.class.getName() + ")");
+
+			Map<String, Object> props = new HashMap<>();
+			props.put(testProp, Boolean.TRUE);
+			ServiceRegistration<?> reg = registerFilteredService(bc, new ArrayList<>(),
+					new TestObjectClassOptimizationService(), props, Runnable.class, Callable.class);
+			reg.unregister();
+			assertEquals("Wrong events for runnable", 2, events.get("runnable").get());
+			assertEquals("Wrong events for callable", 2, events.get("callable").get());
+			assertEquals("Wrong events for unfiltered", 2, events.get("unfiltered").get());
+			assertEquals("Wrong events for property", 2, events.get("property").get());
+			assertEquals("Wrong events for replaced", 2, events.get("replaced").get());
+
+			events.values().forEach(c -> c.set(0));
+			props.put(testProp, Boolean.FALSE);
+			reg = registerFilteredService(bc, new ArrayList<>(), new TestObjectClassOptimizationService(), props,
+					Callable.class);
+			reg.unregister();
+			assertEquals("Wrong events for runnable", 0, events.get("runnable").get());
+			assertEquals("Wrong events for callable", 2, events.get("callable").get());
+			assertEquals("Wrong events for unfiltered", 2, events.get("unfiltered").get());
+			assertEquals("Wrong events for property", 0, events.get("property").get());
+			assertEquals("Wrong events for replaced", 2, events.get("replaced").get());
+
+			events.values().forEach(c -> c.set(0));
+			bc.removeServiceListener(listeners.get(1));
+			reg = registerFilteredService(bc, new ArrayList<>(), new TestObjectClassOptimizationService(), props,
+					Callable.class);
+			reg.unregister();
+			assertEquals("Wrong events for callable", 0, events.get("callable").get());
+			assertEquals("Wrong events for replaced", 2, events.get("replaced").get());
+		} finally {
+			listeners.forEach(bc::removeServiceListener);
+		}
+	}
+
+	@Test
+	public void testServiceRegistryMetrics() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_SERVICE_REGISTRY_METRICS, "true");
+		Equinox equinox = new Equinox(configuration);
+		try {
+			initAndStart(equinox);
+			BundleContext bc = equinox.getBundleContext();
+			ServiceReference<ServiceRegistryMetrics> metricsRef = bc.getServiceReference(ServiceRegistryMetrics.class);
+			assertNotNull("No metrics service", metricsRef);
+			ServiceRegistryMetrics metrics = bc.getService(metricsRef);
+			assertTrue("Metrics not enabled", metrics.isEnabled());
+			metrics.reset();
+
+			ServiceRegistration<Runnable> reg = bc.registerService(Runnable.class, () -> {
+				// nothing
+			}, FrameworkUtil.asDictionary(Collections.singletonMap("name", getName())));
+			ServiceReference<Runnable> ref = bc.getServiceReference(Runnable.class);
+			assertNotNull("No service found", ref);
+			bc.getService(ref);
+			bc.ungetService(ref);
+			bc.getServiceReferences((String) null,
+					"(&(objectClass=" + Runnable.class.getName() + ")(name=" + getName() + "))");
+			reg.unregister();
+
+			ServiceRegistryMetricsDTO dto = metrics.getMetrics();
+			assertTrue("Wrong enabled state", dto.enabled);
+			assertEquals("Wrong number of lookups", 2, dto.lookups);
+			assertEquals("Wrong lookups for class", Long.valueOf(2), dto.lookupsByClass.get(Runnable.class.getName()));
+			assertEquals("Wrong lookups for bundle", Long.valueOf(2), dto.lookupsByBundle.get(Long.valueOf(0)));
+			assertEquals("Wrong number of getService calls", 1, dto.getServiceTime.count);
+			assertEquals("Wrong number of filtered lookups", 1, dto.filterEvaluationsPerLookup.count);
+			assertEquals("Wrong number of filter evaluations", 1, dto.filterEvaluationsPerLookup.sum);
+
+			metrics.reset();
+			dto = metrics.getMetrics();
+			assertEquals("Wrong number of lookups after reset", 0, dto.lookups);
+			assertTrue("Lookups by class not reset", dto.lookupsByClass.isEmpty());
+			assertEquals("Wrong number of getService calls after reset", 0, dto.getServiceTime.count);
+		} finally {
+			stop(equinox);
+		}
+	}
+
+	@Test
+	public void testServiceRegistryMetricsDisabled() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		Equinox equinox = new Equinox(configuration);
+		try {
+			initAndStart(equinox);
+			BundleContext bc = equinox.getBundleContext();
+			ServiceReference<ServiceRegistryMetrics> metricsRef = bc.getServiceReference(ServiceRegistryMetrics.class);
+			assertNotNull("No metrics service", metricsRef);
+			ServiceRegistryMetrics metrics = bc.getService(metricsRef);
+			assertFalse("Metrics enabled", metrics.isEnabled());
+			ServiceRegistryMetricsDTO dto = metrics.getMetrics();
+			assertFalse("Wrong enabled state", dto.enabled);
+			assertEquals("Wrong number of lookups", 0, dto.lookups);
+		} finally {
+			stop(equinox);
+		}
+	}
+
+	@Test
+	public void testServiceListenerOrder() throws InvalidSyntaxException {
+		final String testProp = getName().toLowerCase();
+		BundleContext bc = OSGiTestsActivator.getContext();
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		List<ServiceListener> listeners = new ArrayList<>();
+		Map<String, String> filters = new LinkedHashMap<>();
+		filters.put("callable", "(objectClass=" + Callable.class.getName() + ")");
+		filters.put("unfiltered", null);
+		filters.put("runnable", "(objectClass=" + Runnable.class.getName() + ")");
+		filters.put("property", "(" + testProp + "=true)");
+		filters.put("replaced", "(objectClass=" + Callable.class.getName() + ")");
+		filters.put("runnable2", "(&(objectClass=" + Runnable.class.getName() + ")(" + testProp + "=*))");
+		try {
+			for (Map.Entry<String, String> filter : filters.entrySet()) {
+				ServiceListener listener = event -> {
+					if (event.getType() == ServiceEvent.REGISTERED
+							&& event.getServiceReference().getProperty(testProp) != null) {
+						events.add(filter.getKey());
+					}
+				};
+				listeners.add(listener);
+				bc.addServiceListener(listener, filter.getValue());
+			}
+			// a listener added again with another filter keeps its position
+			bc.addServiceListener(listeners.get(4), "(objectClass=" + Runnable.class.getName() + ")");
+
+			Map<String, Object> props = new HashMap<>();
+			props.put(testProp, Boolean.TRUE);
+			ServiceRegistration<?> reg = registerFilteredService(bc, new ArrayList<>(),
+					new TestObjectClassOptimizationService(), props, Runnable.class, Callable.class);
+			reg.unregister();
+			assertEquals("Wrong listener order.", new ArrayList<>(filters.keySet()), events);
+		} finally {
+			listeners.forEach(bc::removeServiceListener);
+		}
+	}
+
 	private void validateFoundServices(BundleContext bc, String filter, ServiceRegistration<?>... expectedRegs)
 			throws InvalidSyntaxException {
 		ServiceReference<?>[] foundArray = bc.getServiceReferences((String) null, filter);
@@ -39,6 +39,8 @@ import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
+import org.eclipse.osgi.service.install.BundleInstaller;
+import org.eclipse.osgi.service.install.BundleInstaller.InstallResult;
 import org.eclipse.osgi.service.runnable.ApplicationLauncher;
 import org.eclipse.osgi.service.runnable.StartupMonitor;
 import org.eclipse.osgi.storage.url.reference.Handler;
@@ -1041,21 +1043,25 @@ public class EclipseStarter {
 
 	private static void installBundles(InitialBundle[] initialBundles, Bundle[] curInitBundles,
 			List<Bundle> startBundles, List<Bundle> lazyActivationBundles, List<Bundle> toRefresh) {
+		Map<String, InstallResult> installed = installNewBundles(initialBundles, curInitBundles);
 		for (InitialBundle initialBundle : initialBundles) {
 			Bundle osgiBundle = getBundleByLocation(initialBundle.locationString, curInitBundles);
 			try {
 				// don't need to install if it is already installed
 				if (osgiBundle == null) {
-					InputStream in = LocationHelper.getStream(initialBundle.location);
-					try {
-						osgiBundle = context.installBundle(initialBundle.locationString, in);
-					} catch (BundleException e) {
-						if (e.getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
+					InstallResult result = installed.get(initialBundle.locationString);
+					if (result == null) {
+						// failed to open the content; already logged
+						continue;
+					}
+					if (result.getException() != null) {
+						if (result.getException().getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
 							continue;
 							// TODO should attempt to lookup the existing bundle
 						}
-						throw e;
+						throw result.getException();
 					}
+					osgiBundle = result.getBundle();
 					// only check for lazy activation header if this is a newly installed bundle and
 					// is not marked for persistent start
 					if (!initialBundle.start && hasLazyActivationPolicy(osgiBundle)) {
@@ -1074,7 +1080,7 @@ public class EclipseStarter {
 				// include basic bundles in case they were not resolved before
 				if ((osgiBundle.getState() & Bundle.INSTALLED) != 0)
 					toRefresh.add(osgiBundle);
-			} catch (BundleException | IOException e) {
+			} catch (BundleException e) {
 				FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0,
 						NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundle.location), 0, e, null);
 				log.log(entry);
@@ -1082,6 +1088,43 @@ public class EclipseStarter {
 		}
 	}
 
+	/*
+	 * Installs all the initial bundles which are not installed yet with a single
+	 * batch install. The results are keyed by the location string of the bundles.
+	 */
+	private static Map<String, InstallResult> installNewBundles(InitialBundle[] initialBundles,
+			Bundle[] curInitBundles) {
+		Map<String, InputStream> toInstall = new LinkedHashMap<>();
+		for (InitialBundle initialBundle : initialBundles) {
+			if (getBundleByLocation(initialBundle.locationString, curInitBundles) != null
+					|| toInstall.containsKey(initialBundle.locationString)) {
+				continue;
+			}
+			try {
+				toInstall.put(initialBundle.locationString, LocationHelper.getStream(initialBundle.location));
+			} catch (IOException e) {
+				FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0,
+						NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundle.location), 0, e, null);
+				log.log(entry);
+			}
+		}
+		Map<String, InstallResult> installed = new HashMap<>();
+		if (toInstall.isEmpty()) {
+			return installed;
+		}
+		// the installer is always registered by the system bundle
+		ServiceReference<BundleInstaller> installerRef = context.getServiceReference(BundleInstaller.class);
+		BundleInstaller installer = context.getService(installerRef);
+		try {
+			for (InstallResult result : installer.installBundles(toInstall)) {
+				installed.put(result.getLocation(), result);
+			}
+		} finally {
+			context.ungetService(installerRef);
+		}
+		return installed;
+	}
+
 	@SuppressWarnings("deprecation")
 	private static boolean hasLazyActivationPolicy(Bundle target) {
 		// check the bundle manifest to see if it defines a lazy activation policy
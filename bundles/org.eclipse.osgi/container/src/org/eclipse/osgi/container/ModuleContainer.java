@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
@@ -63,6 +65,7 @@ import org.eclipse.osgi.report.resolution.ResolutionReport;
 import org.eclipse.osgi.report.resolution.ResolutionReport.Entry;
 import org.eclipse.osgi.service.debug.DebugOptions;
 import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.service.metrics.ResolverMetrics;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.AdminPermission;
 import org.osgi.framework.Bundle;
@@ -493,6 +496,288 @@ public final class ModuleContainer implements DebugOptionsListener {
 		}
 	}
 
+	/**
+	 * A module to install with a {@link ModuleContainer#install(Module, List)
+	 * batch install}. After the batch install the entry holds either the
+	 * installed module or the exception which prevented the module from being
+	 * installed.
+	 * 
+	 * @since 3.23
+	 */
+	public static final class InstallEntry {
+		final String location;
+		ModuleRevisionBuilder builder;
+		final Object revisionInfo;
+		private Module module;
+		private BundleException exception;
+
+		/**
+		 * Creates a new entry to install a module.
+		 * 
+		 * @param location     The location identifier of the module to install.
+		 * @param builder      the builder used to create the revision to install.
+		 * @param revisionInfo the revision info for the new revision, may be
+		 *                     {@code null}.
+		 */
+		public InstallEntry(String location, ModuleRevisionBuilder builder, Object revisionInfo) {
+			this.location = location;
+			this.builder = builder;
+			this.revisionInfo = revisionInfo;
+		}
+
+		/**
+		 * Returns the location identifier of the module to install.
+		 * 
+		 * @return the location identifier
+		 */
+		public String getLocation() {
+			return location;
+		}
+
+		/**
+		 * Returns the module installed for this entry, or the existing module if one
+		 * already existed at the location of this entry.
+		 * 
+		 * @return the module, or {@code null} if the module could not be installed
+		 */
+		public Module getModule() {
+			return module;
+		}
+
+		/**
+		 * Returns the exception which prevented the module from being installed.
+		 * 
+		 * @return the exception, or {@code null} if the module was installed
+		 */
+		public BundleException getException() {
+			return exception;
+		}
+
+		void installed(Module installed) {
+			this.module = installed;
+		}
+
+		void failed(BundleException e) {
+			this.exception = e;
+		}
+
+		void failed(RuntimeException e) {
+			if (e.getCause() instanceof BundleException) {
+				failed((BundleException) e.getCause());
+			} else {
+				failed(new BundleException("Error occurred installing a bundle.", //$NON-NLS-1$
+						e instanceof SecurityException ? BundleException.SECURITY_ERROR : BundleException.UNSPECIFIED,
+						e));
+			}
+		}
+
+		boolean isDone() {
+			return module != null || exception != null;
+		}
+	}
+
+	/**
+	 * Installs new modules for the specified entries as a single batch. This does
+	 * the same as calling {@link #install(Module, String, ModuleRevisionBuilder, Object)}
+	 * for each entry, except that all the new modules are added to the database
+	 * with a single write operation which increments the database timestamps once.
+	 * The installed events are published after all the modules are installed.
+	 * <p>
+	 * A failure to install one entry does not prevent the other entries from being
+	 * installed; the result of each entry is available from the entry itself. An
+	 * entry with the same location as a previous entry gets the module of the
+	 * previous entry. An entry with the same symbolic name and version as a
+	 * previous entry is installed with a later write operation so that the module
+	 * of the previous entry is one of its collision candidates, like it would be
+	 * if the entries were installed one by one.
+	 * 
+	 * @param origin  the module performing the install, may be {@code null}.
+	 * @param entries the entries to install
+	 * @since 3.23
+	 */
+	public void install(Module origin, List<InstallEntry> entries) {
+		Set<String> locations = new TreeSet<>();
+		Set<String> names = new TreeSet<>();
+		for (InstallEntry entry : entries) {
+			long id = entry.builder.getId();
+			ModuleRevisionBuilder adaptBuilder = getAdaptor().adaptModuleRevisionBuilder(ModuleEvent.INSTALLED, origin,
+					entry.builder, entry.revisionInfo);
+			if (adaptBuilder != null) {
+				// be sure to restore the id from the original builder
+				adaptBuilder.setInternalId(id);
+				entry.builder = adaptBuilder;
+			}
+			locations.add(entry.location);
+			if (entry.builder.getSymbolicName() != null) {
+				names.add(entry.builder.getSymbolicName());
+			}
+		}
+		// the locks are obtained in sorted order to avoid deadlocks with other batches
+		Set<String> lockedLocations = new HashSet<>();
+		Set<String> lockedNames = new HashSet<>();
+		try {
+			try {
+				for (String location : locations) {
+					if (locationLocks.tryLock(location, 5, TimeUnit.SECONDS)) {
+						lockedLocations.add(location);
+					}
+				}
+				for (String name : names) {
+					if (nameLocks.tryLock(name, 5, TimeUnit.SECONDS)) {
+						lockedNames.add(name);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for (InstallEntry entry : entries) {
+					entry.failed(new BundleException("Failed to obtain id locks for installation.", //$NON-NLS-1$
+							BundleException.STATECHANGE_ERROR, e));
+				}
+				return;
+			}
+			for (InstallEntry entry : entries) {
+				String name = entry.builder.getSymbolicName();
+				if (!lockedLocations.contains(entry.location)) {
+					entry.failed(new BundleException(
+							"Failed to obtain location lock for installation: " + entry.location, //$NON-NLS-1$
+							BundleException.STATECHANGE_ERROR,
+							new ThreadInfoReport(locationLocks.getLockInfo(entry.location))));
+				} else if (name != null && !lockedNames.contains(name)) {
+					entry.failed(new BundleException("Failed to obtain symbolic name lock for installation: " + name, //$NON-NLS-1$
+							BundleException.STATECHANGE_ERROR, new ThreadInfoReport(nameLocks.getLockInfo(name))));
+				}
+			}
+
+			Map<InstallEntry, Module> existingLocations = new HashMap<>();
+			Map<InstallEntry, Collection<Module>> collisions = new HashMap<>();
+			moduleDatabase.readLock();
+			try {
+				for (InstallEntry entry : entries) {
+					if (entry.isDone()) {
+						continue;
+					}
+					Module existingLocation = moduleDatabase.getModule(entry.location);
+					if (existingLocation != null) {
+						existingLocations.put(entry, existingLocation);
+						continue;
+					}
+					List<ModuleCapability> sameIdentity = moduleDatabase.findCapabilities(
+							getIdentityRequirement(entry.builder.getSymbolicName(), entry.builder.getVersion()));
+					Collection<Module> collisionCandidates = new ArrayList<>(1);
+					for (ModuleCapability identity : sameIdentity) {
+						ModuleRevision equinoxRevision = identity.getRevision();
+						if (equinoxRevision.isCurrent()
+								&& !collisionCandidates.contains(equinoxRevision.getRevisions().getModule())) {
+							collisionCandidates.add(equinoxRevision.getRevisions().getModule());
+						}
+					}
+					collisions.put(entry, collisionCandidates);
+				}
+			} finally {
+				moduleDatabase.readUnlock();
+			}
+
+			Map<String, InstallEntry> installingLocations = new HashMap<>();
+			Map<InstallEntry, InstallEntry> sameLocations = new HashMap<>();
+			List<InstallEntry> pending = new ArrayList<>(entries.size());
+			for (InstallEntry entry : entries) {
+				if (entry.isDone()) {
+					continue;
+				}
+				Module existingLocation = existingLocations.get(entry);
+				if (existingLocation != null) {
+					// Check that the existing location is visible from the origin module
+					Bundle bundle = origin == null ? null : origin.getBundle();
+					BundleContext context = bundle == null ? null : bundle.getBundleContext();
+					if (context != null && context.getBundle(existingLocation.getId()) == null) {
+						Bundle b = existingLocation.getBundle();
+						entry.failed(new BundleException(
+								NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation,
+										new Object[] { b.getSymbolicName(), b.getVersion(), entry.location }),
+								BundleException.REJECTED_BY_HOOK));
+					} else {
+						entry.installed(existingLocation);
+					}
+					continue;
+				}
+				InstallEntry sameLocation = installingLocations.putIfAbsent(entry.location, entry);
+				if (sameLocation != null) {
+					sameLocations.put(entry, sameLocation);
+					continue;
+				}
+				pending.add(entry);
+			}
+
+			// Entries with the same name and version as a previous entry are installed
+			// after it so that the collision hook sees the module of the previous entry
+			Map<List<Object>, Collection<Module>> batchIdentities = new HashMap<>();
+			List<InstallEntry> installed = new ArrayList<>(pending.size());
+			while (!pending.isEmpty()) {
+				Set<List<Object>> installingIdentities = new HashSet<>();
+				List<InstallEntry> installing = new ArrayList<>(pending.size());
+				List<InstallEntry> deferred = new ArrayList<>(0);
+				for (InstallEntry entry : pending) {
+					String name = entry.builder.getSymbolicName();
+					List<Object> identity = name == null ? null : Arrays.asList(name, entry.builder.getVersion());
+					if (identity != null && !installingIdentities.add(identity)) {
+						deferred.add(entry);
+						continue;
+					}
+					Collection<Module> collisionCandidates = collisions.get(entry);
+					Collection<Module> sameBatchIdentity = batchIdentities.get(identity);
+					if (sameBatchIdentity != null) {
+						collisionCandidates.addAll(sameBatchIdentity);
+					}
+					if (origin != null && !collisionCandidates.isEmpty()) {
+						adaptor.getModuleCollisionHook().filterCollisions(ModuleCollisionHook.INSTALLING, origin,
+								collisionCandidates);
+					}
+					if (!collisionCandidates.isEmpty()) {
+						entry.failed(new BundleException(
+								NLS.bind(Msg.ModuleContainer_NameCollision, name, entry.builder.getVersion()),
+								BundleException.DUPLICATE_BUNDLE_ERROR));
+						continue;
+					}
+					installing.add(entry);
+				}
+
+				moduleDatabase.install(installing);
+
+				for (InstallEntry entry : installing) {
+					Module module = entry.getModule();
+					String name = entry.builder.getSymbolicName();
+					if (module != null && name != null) {
+						batchIdentities.computeIfAbsent(Arrays.asList(name, entry.builder.getVersion()),
+								i -> new ArrayList<>(1)).add(module);
+					}
+				}
+				installed.addAll(installing);
+				pending = deferred;
+			}
+
+			for (Map.Entry<InstallEntry, InstallEntry> sameLocation : sameLocations.entrySet()) {
+				InstallEntry previous = sameLocation.getValue();
+				if (previous.getModule() != null) {
+					sameLocation.getKey().installed(previous.getModule());
+				} else {
+					sameLocation.getKey().failed(previous.getException());
+				}
+			}
+			for (InstallEntry entry : installed) {
+				if (entry.getModule() != null) {
+					adaptor.publishModuleEvent(ModuleEvent.INSTALLED, entry.getModule(), origin);
+				}
+			}
+		} finally {
+			for (String location : lockedLocations) {
+				locationLocks.unlock(location);
+			}
+			for (String name : lockedNames) {
+				nameLocks.unlock(name);
+			}
+		}
+	}
+
 	/**
 	 * Updates the specified module with a new revision. The specified builder is
 	 * used to create a new {@link ModuleRevision revision} which will become the
@@ -654,6 +939,16 @@ public final class ModuleContainer implements DebugOptionsListener {
 		return frameworkWiring;
 	}
 
+	/**
+	 * Returns the {@link ResolverMetrics} for this container
+	 * 
+	 * @return the resolver metrics for this container.
+	 * @since 3.23
+	 */
+	public ResolverMetrics getResolverMetrics() {
+		return moduleResolver.metrics;
+	}
+
 	/**
 	 * Returns the {@link FrameworkStartLevel} for this container
 	 * 
@@ -675,27 +970,29 @@ public final class ModuleContainer implements DebugOptionsListener {
 	 * @return A resolution report for the resolve operation
 	 */
 	public ResolutionReport resolve(Collection<Module> triggers, boolean triggersMandatory) {
-		return resolve(triggers, triggersMandatory, false);
+		return resolve(triggers, triggersMandatory, false, null);
 	}
 
-	private ResolutionReport resolve(Collection<Module> triggers, boolean triggersMandatory, boolean restartTriggers) {
+	private ResolutionReport resolve(Collection<Module> triggers, boolean triggersMandatory, boolean restartTriggers,
+			Map<Module, ModuleWiring> previousWirings) {
 		if (isRefreshingSystemModule()) {
 			return new ModuleResolutionReport(null, Collections.emptyMap(),
 					new ResolutionException("Unable to resolve while shutting down the framework."), -1, -1, -1, -1, //$NON-NLS-1$
-					-1);
+					-1, null);
 		}
 		ResolutionReport report = null;
 		try (ResolutionLock.Permits resolutionPermits = _resolutionLock.acquire(1)) {
 			do {
 				try {
-					report = resolveAndApply(triggers, triggersMandatory, restartTriggers, resolutionPermits);
+					report = resolveAndApply(triggers, triggersMandatory, restartTriggers, previousWirings,
+							resolutionPermits);
 				} catch (RuntimeException e) {
 					if (e.getCause() instanceof BundleException) {
 						BundleException be = (BundleException) e.getCause();
 						if (be.getType() == BundleException.REJECTED_BY_HOOK
 								|| be.getType() == BundleException.STATECHANGE_ERROR) {
 							return new ModuleResolutionReport(null, Collections.emptyMap(),
-									new ResolutionException(be), -1, -1, -1, -1, -1);
+									new ResolutionException(be), -1, -1, -1, -1, -1, null);
 						}
 					}
 					throw e;
@@ -704,13 +1001,14 @@ public final class ModuleContainer implements DebugOptionsListener {
 		} catch (ResolutionLockException e) {
 			return new ModuleResolutionReport(null, Collections.emptyMap(),
 					new ResolutionException("Timeout acquiring lock for resolution", e, Collections.emptyList()), -1, //$NON-NLS-1$
-					-1, -1, -1, -1);
+					-1, -1, -1, -1, null);
 		}
 		return report;
 	}
 
 	private ResolutionReport resolveAndApply(Collection<Module> triggers, boolean triggersMandatory,
-			boolean restartTriggers, ResolutionLock.Permits resolutionPermits) {
+			boolean restartTriggers, Map<Module, ModuleWiring> previousWirings,
+			ResolutionLock.Permits resolutionPermits) {
 		if (triggers == null) {
 			triggers = new ArrayList<>(0);
 		}
@@ -722,9 +1020,11 @@ public final class ModuleContainer implements DebugOptionsListener {
 		Collection<ModuleRevision> unresolved = new ArrayList<>();
 		Map<ModuleRevision, ModuleWiring> wiringClone;
 		long timestamp;
+		long packageSpaceGeneration;
 		moduleDatabase.readLock();
 		try {
 			timestamp = moduleDatabase.getRevisionsTimestamp();
+			packageSpaceGeneration = moduleResolver.getPackageSpaceGeneration();
 			wiringClone = moduleDatabase.getWiringsClone();
 			for (Module module : triggers) {
 				if (!State.UNINSTALLED.equals(module.getState())) {
@@ -744,7 +1044,7 @@ public final class ModuleContainer implements DebugOptionsListener {
 		}
 
 		ModuleResolutionReport report = moduleResolver.resolveDelta(triggerRevisions, triggersMandatory, unresolved,
-				wiringClone, moduleDatabase);
+				wiringClone, previousWirings, moduleDatabase, packageSpaceGeneration);
 		Map<Resource, List<Wire>> resolutionResult = report.getResolutionResult();
 		Map<ModuleRevision, ModuleWiring> deltaWiring = resolutionResult == null ? Collections.emptyMap()
 				: moduleResolver.generateDelta(resolutionResult, wiringClone);
@@ -781,6 +1081,7 @@ public final class ModuleContainer implements DebugOptionsListener {
 			do {
 				result = null;
 				Map<ModuleRevision, ModuleWiring> wiringClone = null;
+				long packageSpaceGeneration = 0;
 				List<DynamicModuleRequirement> dynamicReqs = null;
 				Collection<ModuleRevision> unresolved = new ArrayList<>();
 				moduleDatabase.readLock();
@@ -806,6 +1107,7 @@ public final class ModuleContainer implements DebugOptionsListener {
 						return null;
 					}
 					timestamp = moduleDatabase.getRevisionsTimestamp();
+					packageSpaceGeneration = moduleResolver.getPackageSpaceGeneration();
 					wiringClone = moduleDatabase.getWiringsClone();
 					Collection<Module> allModules = moduleDatabase.getModules();
 					for (Module module : allModules) {
@@ -821,7 +1123,7 @@ public final class ModuleContainer implements DebugOptionsListener {
 				boolean foundCandidates = false;
 				for (DynamicModuleRequirement dynamicReq : dynamicReqs) {
 					ModuleResolutionReport report = moduleResolver.resolveDynamicDelta(dynamicReq, unresolved,
-							wiringClone, moduleDatabase);
+							wiringClone, moduleDatabase, packageSpaceGeneration);
 					Map<Resource, List<Wire>> resolutionResult = report.getResolutionResult();
 					deltaWiring = resolutionResult == null ? Collections.emptyMap()
 							: moduleResolver.generateDelta(resolutionResult, wiringClone);
@@ -1018,9 +1320,22 @@ public final class ModuleContainer implements DebugOptionsListener {
 					return false; // need to try again
 
 				Map<ModuleRevision, ModuleWiring> wiringCopy = moduleDatabase.getWiringsCopy();
+				Collection<ModuleRevision> changedRevisions = new ArrayList<>(0);
+				boolean clearPackageSpaces = false;
 				for (Map.Entry<ModuleRevision, ModuleWiring> deltaEntry : deltaWiring.entrySet()) {
 					ModuleWiring current = wiringCopy.get(deltaEntry.getKey());
 					if (current != null) {
+						// resolved wirings only get more capabilities and required wires from
+						// attached fragments and dynamic imports; new capabilities and required
+						// bundles also change the package spaces of the wirings requiring them
+						ModuleWiring updated = deltaEntry.getValue();
+						if (current.getModuleCapabilities(null).size() != updated.getModuleCapabilities(null).size()
+								|| current.getRequiredModuleWires(BundleNamespace.BUNDLE_NAMESPACE).size() != updated
+										.getRequiredModuleWires(BundleNamespace.BUNDLE_NAMESPACE).size()) {
+							clearPackageSpaces = true;
+						} else if (current.getRequiredModuleWires(null).size() != updated.getRequiredModuleWires(null).size()) {
+							changedRevisions.add(current.getRevision());
+						}
 						// need to update the provided capabilities, provided and required wires for
 						// currently resolved
 						current.setCapabilities(deltaEntry.getValue().getCapabilities());
@@ -1048,6 +1363,11 @@ public final class ModuleContainer implements DebugOptionsListener {
 						}
 					}
 				}
+				if (clearPackageSpaces) {
+					moduleResolver.clearPackageSpaces();
+				} else {
+					moduleResolver.removePackageSpaces(changedRevisions);
+				}
 				moduleDatabase.mergeWiring(deltaWiring);
 				moduleDatabase.sortModules(modulesLocked, Sort.BY_DEPENDENCY, Sort.BY_START_LEVEL);
 			} finally {
@@ -1158,15 +1478,18 @@ public final class ModuleContainer implements DebugOptionsListener {
 		return result;
 	}
 
-	private Collection<Module> unresolve(Collection<Module> initial) {
+	private Collection<Module> unresolve(Collection<Module> initial, Map<Module, ModuleWiring> previousWirings) {
 		Collection<Module> refreshTriggers = null;
 		while (refreshTriggers == null) {
-			refreshTriggers = unresolve0(initial);
+			if (previousWirings != null) {
+				previousWirings.clear();
+			}
+			refreshTriggers = unresolve0(initial, previousWirings);
 		}
 		return refreshTriggers;
 	}
 
-	private Collection<Module> unresolve0(Collection<Module> initial) {
+	private Collection<Module> unresolve0(Collection<Module> initial, Map<Module, ModuleWiring> previousWirings) {
 		Map<ModuleRevision, ModuleWiring> wiringCopy;
 		List<Module> refreshTriggers;
 		Collection<ModuleRevision> toRemoveRevisions;
@@ -1189,6 +1512,10 @@ public final class ModuleContainer implements DebugOptionsListener {
 					ModuleWiring removedWiring = wiringCopy.remove(revision);
 					if (removedWiring != null) {
 						toRemoveWirings.add(removedWiring);
+						if (previousWirings != null) {
+							// keep the wiring of the most recent revision
+							previousWirings.putIfAbsent(module, removedWiring);
+						}
 						List<ModuleWire> removedWires = removedWiring.getRequiredModuleWires(null);
 						for (ModuleWire wire : removedWires) {
 							Collection<ModuleWire> providerWires = toRemoveWireLists.get(wire.getProviderWiring());
@@ -1206,6 +1533,9 @@ public final class ModuleContainer implements DebugOptionsListener {
 				}
 				if (module.getState().equals(State.UNINSTALLED)) {
 					iTriggers.remove();
+					if (previousWirings != null) {
+						previousWirings.remove(module);
+					}
 				}
 			}
 			moduleDatabase.sortModules(refreshTriggers, Sort.BY_START_LEVEL, Sort.BY_DEPENDENCY);
@@ -1295,9 +1625,12 @@ public final class ModuleContainer implements DebugOptionsListener {
 					moduleDatabase.removeCapabilities(removed);
 				}
 				// invalidate any removed wiring objects
+				Collection<ModuleRevision> unresolvedRevisions = new ArrayList<>(toRemoveWirings.size());
 				for (ModuleWiring moduleWiring : toRemoveWirings) {
 					moduleWiring.invalidate();
+					unresolvedRevisions.add(moduleWiring.getRevision());
 				}
+				moduleResolver.removePackageSpaces(unresolvedRevisions);
 				moduleDatabase.setWiring(wiringCopy);
 				// check for any removal pendings
 				moduleDatabase.cleanupRemovalPending();
@@ -1369,11 +1702,13 @@ public final class ModuleContainer implements DebugOptionsListener {
 	 */
 	public ResolutionReport refresh(Collection<Module> initial) {
 		initial = initial == null ? null : new ArrayList<>(initial);
-		Collection<Module> refreshTriggers = unresolve(initial);
+		// with incremental resolution the wirings which are still valid are rebound
+		Map<Module, ModuleWiring> previousWirings = moduleResolver.resolverIncremental ? new HashMap<>() : null;
+		Collection<Module> refreshTriggers = unresolve(initial, previousWirings);
 		if (!isRefreshingSystemModule()) {
-			return resolve(refreshTriggers, false, true);
+			return resolve(refreshTriggers, false, true, previousWirings);
 		}
-		return new ModuleResolutionReport(null, null, null, -1, -1, -1, -1, -1);
+		return new ModuleResolutionReport(null, null, null, -1, -1, -1, -1, -1, null);
 	}
 
 	/**
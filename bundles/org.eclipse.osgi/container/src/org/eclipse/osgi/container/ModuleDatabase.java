@@ -27,14 +27,17 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import org.eclipse.osgi.container.Module.Settings;
 import org.eclipse.osgi.container.Module.State;
+import org.eclipse.osgi.container.ModuleContainer.InstallEntry;
 import org.eclipse.osgi.container.ModuleContainerAdaptor.ContainerEvent;
 import org.eclipse.osgi.container.ModuleRevisionBuilder.GenericInfo;
 import org.eclipse.osgi.container.namespaces.EquinoxModuleDataNamespace;
@@ -77,8 +80,9 @@ import org.osgi.service.resolver.Resolver;
  * container associated with a database provides public API for manipulating the
  * modules and their wiring states. For example, installing, updating,
  * uninstalling, resolving and unresolving modules. Except for the
- * {@link #load(DataInputStream)}, all other methods that perform write
- * operations are intended to be used by the associated container.
+ * {@link #load(DataInputStream)} and {@link #loadChanges(DataInputStream)}, all
+ * other methods that perform write operations are intended to be used by the
+ * associated container.
  * 
  * @since 3.10
  */
@@ -138,6 +142,12 @@ public class ModuleDatabase {
 	 */
 	private int initialModuleStartLevel = 1;
 
+	/**
+	 * The state of the modules when this database was last loaded or stored. Used
+	 * to determine the changes to store with {@link #storeChanges(DataOutputStream)}.
+	 */
+	private volatile PersistedState persistedState;
+
 	/**
 	 * Monitors read and write access to this database
 	 */
@@ -250,6 +260,53 @@ public class ModuleDatabase {
 		}
 	}
 
+	/**
+	 * Installs new revisions for each of the specified entries. The result of each
+	 * entry is set on the entry. The timestamps are only incremented once for all
+	 * the entries.
+	 * <p>
+	 * A write operation protected by the {@link #writeLock() write} lock.
+	 * 
+	 * @param entries the entries to install
+	 */
+	final void install(List<InstallEntry> entries) {
+		if (entries.isEmpty()) {
+			return;
+		}
+		writeLock();
+		try {
+			long currentTime = System.currentTimeMillis();
+			boolean installed = false;
+			for (InstallEntry entry : entries) {
+				try {
+					int startlevel = Constants.SYSTEM_BUNDLE_LOCATION.equals(entry.location) ? 0
+							: getInitialModuleStartLevel();
+					long id = Constants.SYSTEM_BUNDLE_LOCATION.equals(entry.location) ? 0 : entry.builder.getId();
+					if (id == -1) {
+						// the id is not set by the builder; get and increment the next ID
+						id = getAndIncrementNextId();
+					}
+					if (getModule(id) != null) {
+						throw new IllegalStateException("Duplicate module id: " + id + " used by module: " + getModule(id)); //$NON-NLS-1$//$NON-NLS-2$
+					}
+					EnumSet<Settings> settings = getActivationPolicySettings(entry.builder);
+					Module module = load(entry.location, entry.builder, entry.revisionInfo, id, settings, startlevel);
+					module.setlastModified(currentTime);
+					entry.installed(module);
+					installed = true;
+				} catch (RuntimeException e) {
+					entry.failed(e);
+				}
+			}
+			if (installed) {
+				setSystemLastModified(currentTime);
+				incrementTimestamps(true);
+			}
+		} finally {
+			writeUnlock();
+		}
+	}
+
 	private EnumSet<Settings> getActivationPolicySettings(ModuleRevisionBuilder builder) {
 		// do not do this for fragment bundles
 		if ((builder.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
@@ -905,6 +962,9 @@ public class ModuleDatabase {
 	final List<ModuleCapability> findCapabilities(Requirement requirement) {
 		readLock();
 		try {
+			if (requirement instanceof ModuleRequirement) {
+				return capabilities.findCapabilities(requirement, ((ModuleRequirement) requirement).getFilter());
+			}
 			return capabilities.findCapabilities(requirement);
 		} finally {
 			readUnlock();
@@ -937,17 +997,90 @@ public class ModuleDatabase {
 		readLock();
 		try {
 			Persistence.store(this, out, persistWirings);
+			persistedState = new PersistedState(this);
 		} finally {
 			readUnlock();
 		}
 	}
 
+	/**
+	 * Writes the changes made to this database since it was last
+	 * {@link #load(DataInputStream) loaded} or {@link #store(DataOutputStream,
+	 * boolean) stored}, or since its changes were last stored with this method. The
+	 * changes include the modules which have been installed, updated or
+	 * uninstalled as well as changes to module settings and start levels. The
+	 * wirings themselves are not stored; if the wirings have changed, including
+	 * changes to the wirings only such as a refresh or a dynamic import, then the
+	 * changes mark the wirings as outdated and all wirings are discarded when the
+	 * changes are {@link #loadChanges(DataInputStream) loaded}.
+	 * <p>
+	 * The changes are only applicable to a database which has been loaded from
+	 * the same state, followed by all the changes stored before them.
+	 * <p>
+	 * This method acquires the {@link #readLock() read} lock while writing the
+	 * changes.
+	 * <p>
+	 * The specified stream remains open after this method returns.
+	 *
+	 * @param out the data output steam.
+	 * @throws IOException           if writing the changes to the specified output
+	 *                               stream throws an IOException
+	 * @throws IllegalStateException if this database has not been loaded or stored
+	 * @since 3.23
+	 */
+	public final void storeChanges(DataOutputStream out) throws IOException {
+		readLock();
+		try {
+			PersistedState persisted = persistedState;
+			if (persisted == null) {
+				throw new IllegalStateException("The database has not been loaded or stored."); //$NON-NLS-1$
+			}
+			Persistence.storeChanges(this, persisted, out);
+			persistedState = new PersistedState(this);
+		} finally {
+			readUnlock();
+		}
+	}
+
+	/**
+	 * Applies changes from the input data stream to this database. The changes
+	 * must have been written by {@link #storeChanges(DataOutputStream)} after this
+	 * database was {@link #load(DataInputStream) loaded} and all previously stored
+	 * changes were applied. If the changes mark the wirings as outdated then all
+	 * wirings of this database are discarded and the modules must be resolved
+	 * again.
+	 * <p>
+	 * Since this method modifies this database it is considered a write operation.
+	 * This method acquires the {@link #writeLock() write} lock while applying the
+	 * changes to this database.
+	 * <p>
+	 * The specified stream remains open after this method returns.
+	 *
+	 * @param in the data input stream.
+	 * @throws IOException              if an error occurred when reading from the
+	 *                                  input stream.
+	 * @throws IllegalArgumentException if the changes do not apply to the current
+	 *                                  state of this database.
+	 * @since 3.23
+	 */
+	public final void loadChanges(DataInputStream in) throws IOException {
+		writeLock();
+		try {
+			Persistence.loadChanges(this, in);
+			persistedState = new PersistedState(this);
+		} finally {
+			writeUnlock();
+		}
+	}
+
 	/**
 	 * Loads information into this database from the input data stream. This data
 	 * base must be empty and never been modified (the
 	 * {@link #getRevisionsTimestamp() timestamp} is zero). All stored modules are
 	 * loaded into this database. If the input stream contains wiring then it will
-	 * also be loaded into this database.
+	 * also be loaded into this database. When lazy loading is configured the
+	 * capabilities, requirements and wires of each loaded wiring are only decoded
+	 * when the wiring is first accessed.
 	 * <p>
 	 * Since this method modifies this database it is considered a write operation.
 	 * This method acquires the {@link #writeLock() write} lock while loading the
@@ -965,7 +1098,9 @@ public class ModuleDatabase {
 		try {
 			if (allTimeStamp.get() != constructionTime)
 				throw new IllegalStateException("Can only load into a empty database."); //$NON-NLS-1$
-			Persistence.load(this, in);
+			Persistence.load(this, in,
+					Boolean.parseBoolean(adaptor.getProperty(EquinoxConfiguration.PROP_STORAGE_LAZY_LOAD)));
+			persistedState = new PersistedState(this);
 		} finally {
 			writeUnlock();
 		}
@@ -1014,6 +1149,84 @@ public class ModuleDatabase {
 		}
 	}
 
+	/**
+	 * Removes the module with the specified id and its revisions from this
+	 * database without recording an uninstall. Used when applying stored changes.
+	 *
+	 * @param id the id of the module to remove
+	 */
+	private void unload(long id) {
+		// sanity check
+		checkWrite();
+		Module module = modulesById.remove(id);
+		if (module == null) {
+			return;
+		}
+		modulesByLocations.remove(module.getLocation());
+		moduleSettings.remove(id);
+		for (ModuleRevision revision : module.getRevisions().getModuleRevisions()) {
+			wirings.remove(revision);
+			removeCapabilities(revision);
+		}
+	}
+
+	/**
+	 * The state of the modules of a database at the time it was loaded or stored.
+	 */
+	private static final class PersistedState {
+		final long revisionsTimestamp;
+		final long timestamp;
+		final Map<Long, PersistedModule> modules;
+
+		PersistedState(ModuleDatabase moduleDatabase) {
+			// must be called while holding the read or write lock
+			revisionsTimestamp = moduleDatabase.revisionsTimeStamp.get();
+			timestamp = moduleDatabase.allTimeStamp.get();
+			modules = new HashMap<>();
+			for (Module module : moduleDatabase.modulesById.values()) {
+				ModuleRevision current = module.getCurrentRevision();
+				if (current != null) {
+					modules.put(module.getId(), new PersistedModule(current, module.getStartLevel(),
+							moduleDatabase.moduleSettings.get(module.getId()), module.getLastModified()));
+				}
+			}
+		}
+
+		/**
+		 * Returns true if the wirings of the specified database may have changed since
+		 * this state was taken. Each change to the wirings increments the revisions
+		 * timestamp, like each change to the revisions.
+		 */
+		boolean isWiringsChanged(ModuleDatabase moduleDatabase) {
+			// must be called while holding the read or write lock
+			return revisionsTimestamp != moduleDatabase.revisionsTimeStamp.get();
+		}
+	}
+
+	private static final class PersistedModule {
+		final ModuleRevision revision;
+		final int startLevel;
+		final EnumSet<Settings> settings;
+		final long lastModified;
+
+		PersistedModule(ModuleRevision revision, int startLevel, EnumSet<Settings> settings, long lastModified) {
+			this.revision = revision;
+			this.startLevel = startLevel;
+			this.settings = normalize(settings);
+			this.lastModified = lastModified;
+		}
+
+		boolean isChanged(int currentStartLevel, EnumSet<Settings> currentSettings, long currentLastModified) {
+			return startLevel != currentStartLevel || lastModified != currentLastModified
+					|| !Objects.equals(settings, normalize(currentSettings));
+		}
+
+		private static EnumSet<Settings> normalize(EnumSet<Settings> settings) {
+			// no settings are persisted the same as empty settings
+			return settings == null || settings.isEmpty() ? null : EnumSet.copyOf(settings);
+		}
+	}
+
 	private static class Persistence {
 		private static final int VERSION = 3;
 		private static final byte NULL = 0;
@@ -1083,26 +1296,8 @@ public class ModuleDatabase {
 				allStrings.addAll(substituted);
 			}
 
-			// Now persist all the Strings
 			Map<Object, Integer> objectTable = new HashMap<>();
-			allStrings.remove(null);
-			out.writeInt(allStrings.size());
-			for (String string : allStrings) {
-				writeString(string, out, objectTable);
-				out.writeInt(addToWriteTable(string, objectTable));
-			}
-			// Followed by versions which may reference strings with their qualifier
-			out.writeInt(allVersions.size());
-			for (Version version : allVersions) {
-				writeVersion(version, out, objectTable);
-				out.writeInt(addToWriteTable(version, objectTable));
-			}
-			// Followed by maps which may reference the strings and versions
-			out.writeInt(allMaps.size());
-			for (Map<String, ?> map : allMaps) {
-				writeMap(map, out, objectTable, moduleDatabase);
-				out.writeInt(addToWriteTable(map, objectTable));
-			}
+			writeObjectTable(allStrings, allVersions, allMaps, moduleDatabase, out, objectTable);
 
 			// Followed by modules which reference the strings, versions, and maps
 			out.writeInt(modules.size());
@@ -1138,6 +1333,182 @@ public class ModuleDatabase {
 			out.flush();
 		}
 
+		private static void writeObjectTable(Set<String> allStrings, Set<Version> allVersions,
+				Set<Map<String, ?>> allMaps, ModuleDatabase moduleDatabase, DataOutputStream out,
+				Map<Object, Integer> objectTable) throws IOException {
+			// Now persist all the Strings
+			allStrings.remove(null);
+			out.writeInt(allStrings.size());
+			for (String string : allStrings) {
+				writeString(string, out, objectTable);
+				out.writeInt(addToWriteTable(string, objectTable));
+			}
+			// Followed by versions which may reference strings with their qualifier
+			out.writeInt(allVersions.size());
+			for (Version version : allVersions) {
+				writeVersion(version, out, objectTable);
+				out.writeInt(addToWriteTable(version, objectTable));
+			}
+			// Followed by maps which may reference the strings and versions
+			out.writeInt(allMaps.size());
+			for (Map<String, ?> map : allMaps) {
+				writeMap(map, out, objectTable, moduleDatabase);
+				out.writeInt(addToWriteTable(map, objectTable));
+			}
+		}
+
+		private static void readObjectTable(DataInputStream in, List<Object> objectTable) throws IOException {
+			int numStrings = in.readInt();
+			for (int i = 0; i < numStrings; i++) {
+				readIndexedString(in, objectTable);
+			}
+			int numVersions = in.readInt();
+			for (int i = 0; i < numVersions; i++) {
+				readIndexedVersion(in, objectTable);
+			}
+			int numMaps = in.readInt();
+			for (int i = 0; i < numMaps; i++) {
+				readIndexedMap(in, objectTable);
+			}
+		}
+
+		public static void storeChanges(ModuleDatabase moduleDatabase, PersistedState persisted,
+				DataOutputStream out) throws IOException {
+			out.writeInt(VERSION);
+			// the changes only apply to the state they have been computed from
+			out.writeLong(persisted.timestamp);
+			out.writeLong(moduleDatabase.getRevisionsTimestamp());
+			out.writeLong(moduleDatabase.getTimestamp());
+			out.writeLong(moduleDatabase.getNextId());
+			out.writeInt(moduleDatabase.getInitialModuleStartLevel());
+			// wirings are not stored with the changes; mark them as outdated if they changed
+			out.writeBoolean(persisted.isWiringsChanged(moduleDatabase));
+
+			List<Long> removed = new ArrayList<>();
+			for (Long id : persisted.modules.keySet()) {
+				Module module = moduleDatabase.modulesById.get(id);
+				if (module == null || module.getCurrentRevision() == null) {
+					removed.add(id);
+				}
+			}
+			List<Module> changed = new ArrayList<>();
+			List<Module> stateChanged = new ArrayList<>();
+			for (Module module : moduleDatabase.getModules()) {
+				ModuleRevision current = module.getCurrentRevision();
+				if (current == null) {
+					continue;
+				}
+				PersistedModule persistedModule = persisted.modules.get(module.getId());
+				if (persistedModule == null || persistedModule.revision != current) {
+					changed.add(module);
+				} else if (persistedModule.isChanged(module.getStartLevel(),
+						moduleDatabase.moduleSettings.get(module.getId()), module.getLastModified())) {
+					stateChanged.add(module);
+				}
+			}
+
+			out.writeInt(removed.size());
+			for (Long id : removed) {
+				out.writeLong(id);
+			}
+
+			// each changed module is written with its own object table
+			out.writeInt(changed.size());
+			for (Module module : changed) {
+				out.writeLong(module.getId());
+				Set<String> allStrings = new HashSet<>();
+				Set<Version> allVersions = new HashSet<>();
+				Set<Map<String, ?>> allMaps = new HashSet<>();
+				getStringsVersionsAndMaps(module, moduleDatabase, allStrings, allVersions, allMaps);
+				Map<Object, Integer> objectTable = new HashMap<>();
+				writeObjectTable(allStrings, allVersions, allMaps, moduleDatabase, out, objectTable);
+				writeModule(module, moduleDatabase, out, objectTable);
+			}
+
+			out.writeInt(stateChanged.size());
+			for (Module module : stateChanged) {
+				out.writeLong(module.getId());
+				out.writeInt(module.getStartLevel());
+				EnumSet<Settings> settings = moduleDatabase.moduleSettings.get(module.getId());
+				out.writeInt(settings == null ? 0 : settings.size());
+				if (settings != null) {
+					for (Settings setting : settings) {
+						out.writeUTF(setting.name());
+					}
+				}
+				out.writeLong(module.getLastModified());
+			}
+
+			out.flush();
+		}
+
+		public static void loadChanges(ModuleDatabase moduleDatabase, DataInputStream in) throws IOException {
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IllegalArgumentException("The version of the persistent framework data is not compatible: " //$NON-NLS-1$
+						+ version + " expecting: " + VERSION); //$NON-NLS-1$
+			long baseTimestamp = in.readLong();
+			if (baseTimestamp != moduleDatabase.allTimeStamp.get())
+				throw new IllegalArgumentException("The changes do not apply to the database timestamp: " //$NON-NLS-1$
+						+ moduleDatabase.allTimeStamp.get() + " expecting: " + baseTimestamp); //$NON-NLS-1$
+			long revisionsTimeStamp = in.readLong();
+			long allTimeStamp = in.readLong();
+			long nextId = in.readLong();
+			int initialModuleStartLevel = in.readInt();
+
+			if (in.readBoolean()) {
+				// the wirings are outdated; the modules need to be resolved again
+				for (ModuleRevision revision : moduleDatabase.wirings.keySet()) {
+					revision.getRevisions().getModule().setState(State.INSTALLED);
+				}
+				moduleDatabase.wirings.clear();
+			}
+
+			int numRemoved = in.readInt();
+			for (int i = 0; i < numRemoved; i++) {
+				moduleDatabase.unload(in.readLong());
+			}
+
+			int numChanged = in.readInt();
+			ModuleRevisionBuilder builder = new ModuleRevisionBuilder();
+			for (int i = 0; i < numChanged; i++) {
+				moduleDatabase.unload(in.readLong());
+				List<Object> objectTable = new ArrayList<>();
+				readObjectTable(in, objectTable);
+				readModule(builder, moduleDatabase, in, objectTable, VERSION);
+			}
+
+			int numStateChanged = in.readInt();
+			for (int i = 0; i < numStateChanged; i++) {
+				long id = in.readLong();
+				Module module = moduleDatabase.modulesById.get(id);
+				if (module == null)
+					throw new IllegalArgumentException("Could not find module for changes: " + id); //$NON-NLS-1$
+				module.storeStartLevel(in.readInt());
+				EnumSet<Settings> settings = null;
+				int numSettings = in.readInt();
+				if (numSettings > 0) {
+					settings = EnumSet.noneOf(Settings.class);
+					for (int j = 0; j < numSettings; j++) {
+						settings.add(Settings.valueOf(in.readUTF()));
+					}
+					moduleDatabase.moduleSettings.put(id, settings);
+				} else {
+					moduleDatabase.moduleSettings.remove(id);
+				}
+				if (id != 0) {
+					// like load, the system module is not created with the persisted settings
+					module.storeSettings(settings);
+				}
+				module.setlastModified(in.readLong());
+			}
+
+			moduleDatabase.nextId.set(nextId);
+			moduleDatabase.initialModuleStartLevel = initialModuleStartLevel;
+			moduleDatabase.revisionsTimeStamp.set(revisionsTimeStamp);
+			moduleDatabase.allTimeStamp.set(allTimeStamp);
+		}
+
 		private static void getStringsVersionsAndMaps(Module module, ModuleDatabase moduleDatabase,
 				Set<String> allStrings, Set<Version> allVersions, Set<Map<String, ?>> allMaps) {
 			ModuleRevision current = module.getCurrentRevision();
@@ -1202,7 +1573,7 @@ public class ModuleDatabase {
 			}
 		}
 
-		public static void load(ModuleDatabase moduleDatabase, DataInputStream in) throws IOException {
+		public static void load(ModuleDatabase moduleDatabase, DataInputStream in, boolean lazy) throws IOException {
 			int version = in.readInt();
 			if (version > VERSION || VERSION / 1000 != version / 1000)
 				throw new IllegalArgumentException("The version of the persistent framework data is not compatible: " //$NON-NLS-1$
@@ -1215,18 +1586,7 @@ public class ModuleDatabase {
 			List<Object> objectTable = new ArrayList<>();
 
 			if (version >= 2) {
-				int numStrings = in.readInt();
-				for (int i = 0; i < numStrings; i++) {
-					readIndexedString(in, objectTable);
-				}
-				int numVersions = in.readInt();
-				for (int i = 0; i < numVersions; i++) {
-					readIndexedVersion(in, objectTable);
-				}
-				int numMaps = in.readInt();
-				for (int i = 0; i < numMaps; i++) {
-					readIndexedMap(in, objectTable);
-				}
+				readObjectTable(in, objectTable);
 			}
 			int numModules = in.readInt();
 			ModuleRevisionBuilder builder = new ModuleRevisionBuilder();
@@ -1251,7 +1611,7 @@ public class ModuleDatabase {
 			// now read all the info about each wiring using only indexes
 			Map<ModuleRevision, ModuleWiring> wirings = new HashMap<>();
 			for (int i = 0; i < numWirings; i++) {
-				ModuleWiring wiring = readWiring(in, objectTable);
+				ModuleWiring wiring = lazy ? readLazyWiring(in, objectTable) : readWiring(in, objectTable);
 				wirings.put(wiring.getRevision(), wiring);
 			}
 			// TODO need to do this without incrementing the timestamp
@@ -1493,6 +1853,83 @@ public class ModuleDatabase {
 					requiredWires.build(), substituted);
 		}
 
+		private static ModuleWiring readLazyWiring(DataInputStream in, List<Object> objectTable) throws IOException {
+			ModuleRevision revision = (ModuleRevision) objectTable.get(in.readInt());
+			if (revision == null)
+				throw new NullPointerException("Could not find revision for wiring."); //$NON-NLS-1$
+
+			PersistedWiringContent content = new PersistedWiringContent(readEntries(in, objectTable),
+					readEntries(in, objectTable), readEntries(in, objectTable), readEntries(in, objectTable));
+
+			int numSubstitutedNames = in.readInt();
+			Collection<String> substituted = new ArrayList<>(numSubstitutedNames);
+			for (int i = 0; i < numSubstitutedNames; i++) {
+				substituted.add(readString(in, objectTable));
+			}
+
+			return new ModuleWiring(revision, content, substituted);
+		}
+
+		private static Object[] readEntries(DataInputStream in, List<Object> objectTable) throws IOException {
+			Object[] entries = new Object[in.readInt()];
+			for (int i = 0; i < entries.length; i++) {
+				int index = in.readInt();
+				if (index < 0 || index >= objectTable.size())
+					throw new NullPointerException("Could not find the expected indexes"); //$NON-NLS-1$
+				entries[i] = objectTable.get(index);
+			}
+			return entries;
+		}
+
+		/**
+		 * The content of a wiring whose namespace lists are built when it is first
+		 * accessed. Only the entries of the wiring are kept so that the object
+		 * table can be collected once the database is loaded.
+		 */
+		private static final class PersistedWiringContent implements ModuleWiring.Content {
+			private final Object[] capabilities;
+			private final Object[] requirements;
+			private final Object[] providedWires;
+			private final Object[] requiredWires;
+
+			PersistedWiringContent(Object[] capabilities, Object[] requirements, Object[] providedWires,
+					Object[] requiredWires) {
+				this.capabilities = capabilities;
+				this.requirements = requirements;
+				this.providedWires = providedWires;
+				this.requiredWires = requiredWires;
+			}
+
+			@Override
+			public NamespaceList<ModuleCapability> getCapabilities() {
+				return build(capabilities, NamespaceList.CAPABILITY);
+			}
+
+			@Override
+			public NamespaceList<ModuleRequirement> getRequirements() {
+				return build(requirements, NamespaceList.REQUIREMENT);
+			}
+
+			@Override
+			public NamespaceList<ModuleWire> getProvidedWires() {
+				return build(providedWires, NamespaceList.WIRE);
+			}
+
+			@Override
+			public NamespaceList<ModuleWire> getRequiredWires() {
+				return build(requiredWires, NamespaceList.WIRE);
+			}
+
+			@SuppressWarnings("unchecked")
+			private <E> NamespaceList<E> build(Object[] entries, Function<E, String> getNamespace) {
+				NamespaceList.Builder<E> builder = Builder.create(getNamespace);
+				for (Object entry : entries) {
+					builder.add((E) entry);
+				}
+				return builder.build();
+			}
+		}
+
 		private static void writeGenericInfo(String namespace, Map<String, ?> attributes,
 				Map<String, String> directives, DataOutputStream out, Map<Object, Integer> objectTable)
 				throws IOException {
@@ -16,14 +16,12 @@ package org.eclipse.osgi.container;
 import java.util.HashMap;
 import java.util.Map;
 import org.eclipse.osgi.internal.container.Capabilities;
-import org.eclipse.osgi.internal.framework.FilterImpl;
-import org.osgi.framework.InvalidSyntaxException;
+import org.eclipse.osgi.internal.container.Capabilities.RequirementFilter;
 import org.osgi.framework.namespace.BundleNamespace;
 import org.osgi.framework.namespace.HostNamespace;
 import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.framework.wiring.BundleCapability;
 import org.osgi.framework.wiring.BundleRequirement;
-import org.osgi.resource.Namespace;
 
 /**
  * An implementation of {@link BundleRequirement}. This requirement implements
@@ -38,6 +36,8 @@ public class ModuleRequirement implements BundleRequirement {
 	private final Map<String, String> directives;
 	private final Map<String, Object> attributes;
 	private final ModuleRevision revision;
+	// the parsed filter directive; parsed lazily on first use
+	private volatile RequirementFilter filter;
 
 	ModuleRequirement(String namespace, Map<String, String> directives, Map<String, ?> attributes,
 			ModuleRevision revision) {
@@ -56,18 +56,18 @@ public class ModuleRequirement implements BundleRequirement {
 	public boolean matches(BundleCapability capability) {
 		if (!namespace.equals(capability.getNamespace()))
 			return false;
-		String filterSpec = directives.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE);
-		FilterImpl f = null;
-		if (filterSpec != null) {
-			try {
-				f = FilterImpl.newInstance(filterSpec);
-			} catch (InvalidSyntaxException e) {
-				return false;
-			}
-		}
 		boolean matchMandatory = PackageNamespace.PACKAGE_NAMESPACE.equals(namespace)
 				|| BundleNamespace.BUNDLE_NAMESPACE.equals(namespace) || HostNamespace.HOST_NAMESPACE.equals(namespace);
-		return Capabilities.matches(f, capability, matchMandatory);
+		return getFilter().matches(capability, matchMandatory);
+	}
+
+	RequirementFilter getFilter() {
+		RequirementFilter result = filter;
+		if (result == null) {
+			// racing threads parse the same filter
+			filter = result = Capabilities.parseFilter(this);
+		}
+		return result;
 	}
 
 	@Override
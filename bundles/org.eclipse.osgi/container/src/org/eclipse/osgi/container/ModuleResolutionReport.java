@@ -23,6 +23,7 @@ import java.util.Set;
 import org.eclipse.osgi.container.ModuleResolver.ResolveProcess.ResolveLogger;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.report.resolution.ResolutionReport;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
 import org.osgi.framework.wiring.BundleRevision;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
@@ -51,9 +52,9 @@ class ModuleResolutionReport implements ResolutionReport {
 		}
 
 		public ModuleResolutionReport build(Map<Resource, List<Wire>> resolutionResult, ResolutionException cause,
-				ResolveLogger logger) {
+				ResolveLogger logger, ResolverMetricsDTO metrics) {
 			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause, logger.totalPerm,
-					logger.processedPerm, logger.usesPerm, logger.subPerm, logger.importPerm);
+					logger.processedPerm, logger.usesPerm, logger.subPerm, logger.importPerm, metrics);
 		}
 
 	}
@@ -86,9 +87,11 @@ class ModuleResolutionReport implements ResolutionReport {
 	private int usesPerm;
 	private int subPerm;
 	private int importPerm;
+	private final ResolverMetricsDTO metrics;
 
 	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries,
-			ResolutionException cause, int totalPerm, int processedPerm, int usesPerm, int subPerm, int importPerm) {
+			ResolutionException cause, int totalPerm, int processedPerm, int usesPerm, int subPerm, int importPerm,
+			ResolverMetricsDTO metrics) {
 		this.totalPerm = totalPerm;
 		this.processedPerm = processedPerm;
 		this.usesPerm = usesPerm;
@@ -98,6 +101,7 @@ class ModuleResolutionReport implements ResolutionReport {
 		this.resolutionResult = resolutionResult == null ? Collections.emptyMap()
 				: Collections.unmodifiableMap(resolutionResult);
 		this.resolutionException = cause;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -215,4 +219,9 @@ class ModuleResolutionReport implements ResolutionReport {
 	public int getSubstitutionPermutations() {
 		return subPerm;
 	}
+
+	@Override
+	public ResolverMetricsDTO getMetrics() {
+		return metrics;
+	}
 }
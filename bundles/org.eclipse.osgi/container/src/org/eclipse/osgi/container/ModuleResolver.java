@@ -25,12 +25,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
@@ -43,6 +45,7 @@ import org.apache.felix.resolver.Logger;
 import org.apache.felix.resolver.PermutationType;
 import org.apache.felix.resolver.ResolutionError;
 import org.apache.felix.resolver.ResolverImpl;
+import org.apache.felix.resolver.ResolverImpl.PackageSpaceCache;
 import org.eclipse.osgi.container.ModuleRequirement.DynamicModuleRequirement;
 import org.eclipse.osgi.container.namespaces.EquinoxFragmentNamespace;
 import org.eclipse.osgi.internal.container.InternalUtils;
@@ -55,6 +58,7 @@ import org.eclipse.osgi.report.resolution.ResolutionReport;
 import org.eclipse.osgi.report.resolution.ResolutionReport.Entry;
 import org.eclipse.osgi.report.resolution.ResolutionReport.Entry.Type;
 import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.Version;
 import org.osgi.framework.hooks.resolver.ResolverHook;
@@ -107,6 +111,13 @@ final class ModuleResolver {
 	private static final int DEFAULT_BATCH_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(2);
 	final int resolverRevisionBatchSize;
 	final int resolverBatchTimeout;
+	final boolean resolverPartition;
+	final boolean resolverIncremental;
+	// the package spaces of resolved revisions reused by resolve operations; null
+	// if disabled
+	final PackageSpaceCache packageSpaceCache;
+	// the metrics of all resolve operations
+	final ResolverMetricsImpl metrics;
 
 	void setDebugOptions() {
 		DebugOptions options = adaptor.getDebugOptions();
@@ -147,7 +158,52 @@ final class ModuleResolver {
 		this.resolverRevisionBatchSize = parseInteger(batchSizeConfig, DEFAULT_BATCH_SIZE, 1);
 		String batchTimeoutConfig = this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_BATCH_TIMEOUT);
 		this.resolverBatchTimeout = parseInteger(batchTimeoutConfig, DEFAULT_BATCH_TIMEOUT, BATCH_MIN_TIMEOUT);
+		this.resolverPartition = "true" //$NON-NLS-1$
+				.equals(this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_PARTITION));
+		this.resolverIncremental = "true" //$NON-NLS-1$
+				.equals(this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_INCREMENTAL));
+		this.packageSpaceCache = "true" //$NON-NLS-1$
+				.equals(this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_PACKAGE_SPACE_CACHE))
+						? new PackageSpaceCache()
+						: null;
+		this.metrics = new ResolverMetricsImpl("true" //$NON-NLS-1$
+				.equals(this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_METRICS)));
+	}
+
+	/**
+	 * Removes the cached package spaces of the specified revisions. Must be called
+	 * when the wirings of revisions are removed or when the required wires of their
+	 * wirings change.
+	 * 
+	 * @param changed the revisions with removed or changed wirings
+	 */
+	void removePackageSpaces(Collection<ModuleRevision> changed) {
+		if (packageSpaceCache != null && !changed.isEmpty()) {
+			packageSpaceCache.remove(changed);
+		}
+	}
 
+	/**
+	 * Removes all cached package spaces. Must be called when the capabilities of
+	 * resolved wirings change since the package spaces of the wirings which
+	 * require them include their exported packages.
+	 */
+	void clearPackageSpaces() {
+		if (packageSpaceCache != null) {
+			packageSpaceCache.clear();
+		}
+	}
+
+	/**
+	 * Returns the generation of the package space cache. Must be called together
+	 * with taking the snapshot of the wirings used by a resolve operation while
+	 * holding the read lock of the database since the package spaces are
+	 * invalidated while holding the write lock.
+	 * 
+	 * @return the generation of the package space cache
+	 */
+	long getPackageSpaceGeneration() {
+		return packageSpaceCache == null ? 0 : packageSpaceCache.getGeneration();
 	}
 
 	private static int parseInteger(String sInteger, int defaultValue, int minValue) {
@@ -175,25 +231,104 @@ final class ModuleResolver {
 	 * @param unresolved        a snapshot of unresolved revisions
 	 * @param wiringCopy        the wirings snapshot of the currently resolved
 	 *                          revisions
+	 * @param previousWirings   the wirings the modules had before they got
+	 *                          refreshed which may be rebound, or {@code null}
 	 * @param moduleDatabase    the module database.
+	 * @param packageSpaceGeneration the generation of the package space cache
+	 *                          taken together with the wirings snapshot
 	 * @return a delta container the new wirings or modified wirings that should be
 	 *         merged into the moduleDatabase
 	 */
 	ModuleResolutionReport resolveDelta(Collection<ModuleRevision> triggers, boolean triggersMandatory,
 			Collection<ModuleRevision> unresolved, Map<ModuleRevision, ModuleWiring> wiringCopy,
-			ModuleDatabase moduleDatabase) {
+			Map<Module, ModuleWiring> previousWirings, ModuleDatabase moduleDatabase, long packageSpaceGeneration) {
+		if (packageSpaceCache != null) {
+			// drop the package spaces of revisions which are no longer resolved
+			packageSpaceCache.retainAll(wiringCopy.keySet());
+		}
 		ResolveProcess resolveProcess = new ResolveProcess(unresolved, triggers, triggersMandatory, wiringCopy,
-				moduleDatabase);
+				previousWirings, moduleDatabase, packageSpaceGeneration);
 		return resolveProcess.resolve();
 	}
 
 	ModuleResolutionReport resolveDynamicDelta(DynamicModuleRequirement dynamicReq,
 			Collection<ModuleRevision> unresolved, Map<ModuleRevision, ModuleWiring> wiringCopy,
-			ModuleDatabase moduleDatabase) {
-		ResolveProcess resolveProcess = new ResolveProcess(unresolved, dynamicReq, wiringCopy, moduleDatabase);
+			ModuleDatabase moduleDatabase, long packageSpaceGeneration) {
+		ResolveProcess resolveProcess = new ResolveProcess(unresolved, dynamicReq, wiringCopy, moduleDatabase,
+				packageSpaceGeneration);
 		return resolveProcess.resolve();
 	}
 
+	// returns the revision which replaces the previous revision of a rebound wire
+	private static ModuleRevision rebind(ModuleRevision previous, Map<ModuleRevision, ModuleRevision> current,
+			Map<ModuleRevision, ModuleWiring> wiringCopy) {
+		ModuleRevision revision = current.get(previous);
+		if (revision != null) {
+			return revision;
+		}
+		return wiringCopy.containsKey(previous) && previous.isCurrent() ? previous : null;
+	}
+
+	private static ModuleRequirement rebind(ModuleRequirement previous, Map<ModuleRevision, ModuleRevision> current,
+			Map<ModuleRevision, ModuleWiring> wiringCopy) {
+		ModuleRevision revision = rebind(previous.getRevision(), current, wiringCopy);
+		if (revision == null || revision == previous.getRevision()) {
+			return revision == null ? null : previous;
+		}
+		int index = previous.getRevision().getModuleRequirements(null).indexOf(previous);
+		return index < 0 ? null : revision.getModuleRequirements(null).get(index);
+	}
+
+	private static ModuleCapability rebind(ModuleCapability previous, Map<ModuleRevision, ModuleRevision> current,
+			Map<ModuleRevision, ModuleWiring> wiringCopy) {
+		ModuleRevision revision = rebind(previous.getRevision(), current, wiringCopy);
+		if (revision == null || revision == previous.getRevision()) {
+			return revision == null ? null : previous;
+		}
+		int index = previous.getRevision().getModuleCapabilities(null).indexOf(previous);
+		return index < 0 ? null : revision.getModuleCapabilities(null).get(index);
+	}
+
+	// true if the revisions declare the same capabilities and requirements in the
+	// same order
+	private static boolean isEquivalent(ModuleRevision previous, ModuleRevision revision) {
+		if (previous == revision) {
+			return true;
+		}
+		if (previous.getTypes() != revision.getTypes()) {
+			return false;
+		}
+		List<ModuleCapability> previousCapabilities = previous.getModuleCapabilities(null);
+		List<ModuleCapability> capabilities = revision.getModuleCapabilities(null);
+		if (previousCapabilities.size() != capabilities.size()) {
+			return false;
+		}
+		for (int i = 0; i < capabilities.size(); i++) {
+			ModuleCapability previousCapability = previousCapabilities.get(i);
+			ModuleCapability capability = capabilities.get(i);
+			if (!previousCapability.getNamespace().equals(capability.getNamespace())
+					|| !previousCapability.getAttributes().equals(capability.getAttributes())
+					|| !previousCapability.getDirectives().equals(capability.getDirectives())) {
+				return false;
+			}
+		}
+		List<ModuleRequirement> previousRequirements = previous.getModuleRequirements(null);
+		List<ModuleRequirement> requirements = revision.getModuleRequirements(null);
+		if (previousRequirements.size() != requirements.size()) {
+			return false;
+		}
+		for (int i = 0; i < requirements.size(); i++) {
+			ModuleRequirement previousRequirement = previousRequirements.get(i);
+			ModuleRequirement requirement = requirements.get(i);
+			if (!previousRequirement.getNamespace().equals(requirement.getNamespace())
+					|| !previousRequirement.getAttributes().equals(requirement.getAttributes())
+					|| !previousRequirement.getDirectives().equals(requirement.getDirectives())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	Map<ModuleRevision, ModuleWiring> generateDelta(Map<Resource, List<Wire>> result,
 			Map<ModuleRevision, ModuleWiring> wiringCopy) {
 		Map<ModuleRevision, Map<ModuleCapability, List<ModuleWire>>> provided = new HashMap<>();
@@ -574,6 +709,20 @@ final class ModuleResolver {
 				return result;
 			}
 
+			void merge(ResolveLogger other) {
+				if (other.errors != null) {
+					if (errors == null) {
+						errors = new HashMap<>();
+					}
+					errors.putAll(other.errors);
+				}
+				totalPerm += other.totalPerm;
+				processedPerm += other.processedPerm;
+				usesPerm += other.usesPerm;
+				importPerm += other.importPerm;
+				subPerm += other.subPerm;
+			}
+
 			Map<Resource, ResolutionException> getUsesConstraintViolations() {
 				return errors == null ? Collections.emptyMap() : errors;
 			}
@@ -611,6 +760,31 @@ final class ModuleResolver {
 				processedPerm++;
 			}
 
+			@Override
+			public boolean isMetricsEnabled() {
+				return operationMetrics != null;
+			}
+
+			@Override
+			public void logPopulateCandidates(long time) {
+				operationMetrics.populateCandidates(time);
+			}
+
+			@Override
+			public void logCalculatePackageSpaces(long time) {
+				operationMetrics.calculatePackageSpaces(time);
+			}
+
+			@Override
+			public void logCheckUsesConstraints(Resource resource, long time, int permutations) {
+				operationMetrics.checkUsesConstraints(resource, time, permutations);
+			}
+
+			@Override
+			public void logCheckPermutation(boolean initial, long time) {
+				operationMetrics.checkPermutation(initial, time);
+			}
+
 		}
 
 		private final ModuleResolutionReport.Builder reportBuilder = new ModuleResolutionReport.Builder();
@@ -636,6 +810,17 @@ final class ModuleResolver {
 		final Map<ModuleRevision, ModuleWiring> wirings;
 		private final Set<ModuleRevision> previouslyResolved;
 		private final DynamicModuleRequirement dynamicReq;
+		private final Map<Module, ModuleWiring> previousWirings;
+		/*
+		 * The cache of package spaces; null once the wirings of previously resolved
+		 * revisions are changed by this process since the cache is only valid for the
+		 * wirings of the database.
+		 */
+		private volatile PackageSpaceCache packageSpaces = packageSpaceCache;
+		// the generation of the package space cache the wirings were taken with
+		private final long packageSpaceGeneration;
+		// the metrics of this resolve operation; null if the metrics are disabled
+		final ResolverMetricsImpl operationMetrics = metrics.isEnabled() ? new ResolverMetricsImpl(true) : null;
 		private volatile ResolverHook hook = null;
 		private volatile Map<String, Collection<ModuleRevision>> byName = null;
 		private volatile List<Resource> currentlyResolving = null;
@@ -655,7 +840,9 @@ final class ModuleResolver {
 		private final Map<Resource, Map<Requirement, Set<Capability>>> unresolvedProviders = new HashMap<>();
 
 		ResolveProcess(Collection<ModuleRevision> unresolved, Collection<ModuleRevision> triggers,
-				boolean triggersMandatory, Map<ModuleRevision, ModuleWiring> wirings, ModuleDatabase moduleDatabase) {
+				boolean triggersMandatory, Map<ModuleRevision, ModuleWiring> wirings,
+				Map<Module, ModuleWiring> previousWirings, ModuleDatabase moduleDatabase,
+				long packageSpaceGeneration) {
 			this.unresolved = unresolved;
 			this.disabled = new HashSet<>(unresolved);
 			if (!triggersMandatory) {
@@ -670,10 +857,12 @@ final class ModuleResolver {
 			this.previouslyResolved = new HashSet<>(wirings.keySet());
 			this.moduleDatabase = moduleDatabase;
 			this.dynamicReq = null;
+			this.previousWirings = previousWirings;
+			this.packageSpaceGeneration = packageSpaceGeneration;
 		}
 
 		ResolveProcess(Collection<ModuleRevision> unresolved, DynamicModuleRequirement dynamicReq,
-				Map<ModuleRevision, ModuleWiring> wirings, ModuleDatabase moduleDatabase) {
+				Map<ModuleRevision, ModuleWiring> wirings, ModuleDatabase moduleDatabase, long packageSpaceGeneration) {
 			this.unresolved = unresolved;
 			this.disabled = new HashSet<>(unresolved);
 			ModuleRevision revision = dynamicReq.getRevision();
@@ -685,6 +874,8 @@ final class ModuleResolver {
 			this.previouslyResolved = new HashSet<>(wirings.keySet());
 			this.moduleDatabase = moduleDatabase;
 			this.dynamicReq = dynamicReq;
+			this.previousWirings = null;
+			this.packageSpaceGeneration = packageSpaceGeneration;
 		}
 
 		@Override
@@ -692,10 +883,11 @@ final class ModuleResolver {
 			Requirement origReq = requirement;
 			Requirement lookupReq = dynamicReq == null || dynamicReq.getOriginal() != requirement ? requirement
 					: dynamicReq;
-			return findProviders0(origReq, lookupReq);
+			return findProviders0(origReq, lookupReq, transitivelyResolveFailures);
 		}
 
-		private List<Capability> findProviders0(Requirement origReq, Requirement lookupReq) {
+		private List<Capability> findProviders0(Requirement origReq, Requirement lookupReq,
+				Set<Resource> resolveFailures) {
 			if (DEBUG_PROVIDERS) {
 				Debug.println(new StringBuilder("RESOLVER: Finding capabilities for requirement") //$NON-NLS-1$
 						.append(SEPARATOR).append(TAB) //
@@ -706,8 +898,12 @@ final class ModuleResolver {
 						.append(origReq.getResource()) //
 						.toString());
 			}
+			long start = operationMetrics != null ? System.nanoTime() : 0;
 			List<ModuleCapability> candidates = moduleDatabase.findCapabilities(lookupReq);
-			List<Capability> result = filterProviders(origReq, candidates);
+			List<Capability> result = filterProviders(origReq, candidates, true, resolveFailures);
+			if (operationMetrics != null) {
+				operationMetrics.findProviders(System.nanoTime() - start);
+			}
 			if (DEBUG_PROVIDERS) {
 				StringBuilder builder = new StringBuilder("RESOLVER: Capabilities being returned to the resolver"); //$NON-NLS-1$
 				int i = 0;
@@ -725,12 +921,13 @@ final class ModuleResolver {
 			return result;
 		}
 
-		private List<Capability> filterProviders(Requirement requirement, List<ModuleCapability> candidates) {
-			return filterProviders(requirement, candidates, true);
-		}
-
 		List<Capability> filterProviders(Requirement requirement, List<ModuleCapability> candidates,
 				boolean filterResolvedHosts) {
+			return filterProviders(requirement, candidates, filterResolvedHosts, transitivelyResolveFailures);
+		}
+
+		private List<Capability> filterProviders(Requirement requirement, List<ModuleCapability> candidates,
+				boolean filterResolvedHosts, Set<Resource> resolveFailures) {
 			filterDisabled(candidates);
 			removeNonEffectiveCapabilities(candidates);
 			removeSubstituted(candidates);
@@ -769,7 +966,7 @@ final class ModuleResolver {
 					reportBuilder.addEntry(requirement.getResource(), Entry.Type.MISSING_CAPABILITY, requirement);
 					String resolution = requirement.getDirectives().get(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE);
 					if ((resolution == null || Namespace.RESOLUTION_MANDATORY.equals(resolution))) {
-						transitivelyResolveFailures.add(requirement.getResource());
+						resolveFailures.add(requirement.getResource());
 					}
 				}
 			} else {
@@ -1010,6 +1207,7 @@ final class ModuleResolver {
 				throw new IllegalStateException(Msg.ModuleResolver_RecursiveError);
 			}
 			threadResolving.set(Boolean.TRUE);
+			long startTime = operationMetrics != null ? System.nanoTime() : 0;
 			try {
 				try {
 					hook = adaptor.getResolverHookFactory()
@@ -1019,7 +1217,7 @@ final class ModuleResolver {
 						BundleException be = (BundleException) e.getCause();
 						if (be.getType() == BundleException.REJECTED_BY_HOOK) {
 							return new ModuleResolutionReport(null, Collections.emptyMap(),
-									new ResolutionException(be), -1, -1, -1, -1, -1);
+									new ResolutionException(be), -1, -1, -1, -1, -1, null);
 						}
 					}
 					throw e;
@@ -1039,6 +1237,13 @@ final class ModuleResolver {
 						result = resolveDynamic();
 					} else {
 						result = new HashMap<>();
+						if (previousWirings != null) {
+							Map<Resource, List<Wire>> reboundWirings = rebindWirings();
+							applyInterimResultToWiringCopy(reboundWirings);
+							// only the revisions which cannot be rebound are left to the resolver
+							toResolve.removeAll(reboundWirings.keySet());
+							result.putAll(reboundWirings);
+						}
 						Map<Resource, List<Wire>> dynamicAttachWirings = resolveNonPayLoadFragments();
 						applyInterimResultToWiringCopy(dynamicAttachWirings);
 						if (!dynamicAttachWirings.isEmpty()) {
@@ -1063,7 +1268,14 @@ final class ModuleResolver {
 					if (DEBUG_WIRING) {
 						printWirings(result);
 					}
-					report = reportBuilder.build(result, re, logger);
+					ResolverMetricsDTO metricsDTO = null;
+					if (operationMetrics != null) {
+						operationMetrics.resolved(System.nanoTime() - startTime, logger.totalPerm,
+								logger.processedPerm, logger.usesPerm, logger.importPerm, logger.subPerm);
+						metrics.add(operationMetrics);
+						metricsDTO = operationMetrics.getMetrics();
+					}
+					report = reportBuilder.build(result, re, logger, metricsDTO);
 					if (DEBUG_REPORT) {
 						if (report.getResolutionException() != null) {
 							Debug.printStackTrace(report.getResolutionException());
@@ -1112,6 +1324,29 @@ final class ModuleResolver {
 
 		private void resolveRevisionsInBatch(Collection<ModuleRevision> revisions, boolean isMandatory,
 				ResolveLogger logger, Map<Resource, List<Wire>> result) throws ResolutionException {
+			if (resolverPartition) {
+				List<List<Resource>> partitions = partition(revisions);
+				if (partitions.size() > 1) {
+					// the partitions larger than a batch are resolved in batches afterwards
+					List<ModuleRevision> batched = new ArrayList<>();
+					for (Iterator<List<Resource>> iPartitions = partitions.iterator(); iPartitions.hasNext();) {
+						List<Resource> partition = iPartitions.next();
+						if (partition.size() > resolverRevisionBatchSize) {
+							iPartitions.remove();
+							for (Resource revision : partition) {
+								batched.add((ModuleRevision) revision);
+							}
+						}
+					}
+					if (!partitions.isEmpty()) {
+						resolvePartitions(partitions, isMandatory, logger, result);
+					}
+					if (batched.isEmpty()) {
+						return;
+					}
+					revisions = batched;
+				}
+			}
 			long startTime = System.currentTimeMillis();
 			long initialFreeMemory = Runtime.getRuntime().freeMemory();
 			long maxUsedMemory = 0;
@@ -1161,6 +1396,9 @@ final class ModuleResolver {
 				Map<Resource, List<Wire>> result, Collection<Resource> resources, Collection<ModuleRevision> revisions)
 				throws ResolutionException {
 			scheduleTimeout.set(false);
+			if (operationMetrics != null) {
+				operationMetrics.resolveIndividually();
+			}
 			for (Resource resource : resources) {
 				if (!wirings.containsKey(resource) && !failedToResolve.contains(resource)) {
 					resolveRevisions(Collections.singletonList(resource), isMandatory, logger, result);
@@ -1173,6 +1411,215 @@ final class ModuleResolver {
 			}
 		}
 
+		/*
+		 * Splits the revisions into partitions of revisions which may get wired to each
+		 * other, directly or through other unresolved revisions. Revisions of different
+		 * partitions can only get wired to the same resolved revisions which have a
+		 * fixed class space, so each partition can be resolved independently of the
+		 * others.
+		 */
+		private List<List<Resource>> partition(Collection<ModuleRevision> revisions) {
+			List<ModuleRevision> nodes = new ArrayList<>();
+			Map<ModuleRevision, Integer> indexes = new HashMap<>();
+			Collection<ModuleRevision> candidates = new LinkedHashSet<>(revisions);
+			candidates.addAll(unresolved);
+			for (ModuleRevision revision : candidates) {
+				if (!disabled.contains(revision) && !wirings.containsKey(revision)
+						&& !failedToResolve.contains(revision)) {
+					indexes.put(revision, nodes.size());
+					nodes.add(revision);
+				}
+			}
+			int[] parents = new int[nodes.size()];
+			for (int i = 0; i < parents.length; i++) {
+				parents[i] = i;
+			}
+			for (int i = 0; i < parents.length; i++) {
+				for (ModuleRequirement requirement : nodes.get(i).getModuleRequirements(null)) {
+					if (!isEffective(requirement) || isDynamic(requirement)) {
+						// not used to resolve
+						continue;
+					}
+					// the providers are not filtered; more revisions than needed in a partition
+					// is fine
+					for (ModuleCapability capability : moduleDatabase.findCapabilities(requirement)) {
+						Integer provider = indexes.get(capability.getRevision());
+						if (provider != null) {
+							union(parents, i, provider.intValue());
+						}
+					}
+				}
+			}
+			Map<Integer, List<Resource>> partitions = new LinkedHashMap<>();
+			for (ModuleRevision revision : revisions) {
+				Integer index = indexes.get(revision);
+				if (index != null) {
+					partitions.computeIfAbsent(Integer.valueOf(find(parents, index.intValue())),
+							k -> new ArrayList<>()).add(revision);
+				}
+			}
+			return new ArrayList<>(partitions.values());
+		}
+
+		private void resolvePartitions(List<List<Resource>> partitions, boolean isMandatory, ResolveLogger logger,
+				Map<Resource, List<Wire>> result) throws ResolutionException {
+			long startTime = System.currentTimeMillis();
+			if (DEBUG_ROOTS) {
+				Debug.println("Resolver: resolving " + partitions.size() + " partitions."); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			// one timeout cancels the resolve sessions of all partitions
+			PartitionCanceller canceller = new PartitionCanceller();
+			onCancel(canceller);
+			// the partitions are resolved on the resolver executor; it must run work which
+			// it cannot start right away in the calling thread instead of queuing it,
+			// because the resolve sessions wait for their own work on the same executor
+			List<Partition> sessions = new ArrayList<>(partitions.size());
+			CompletableFuture<?>[] futures = new CompletableFuture<?>[partitions.size()];
+			for (List<Resource> revisions : partitions) {
+				Partition partition = new Partition(revisions, isMandatory, canceller);
+				futures[sessions.size()] = CompletableFuture.runAsync(partition, this);
+				sessions.add(partition);
+			}
+			CompletableFuture.allOf(futures).join();
+			ScheduledFuture<?> f = timoutFuture.getAndSet(null);
+			if (f != null) {
+				f.cancel(true);
+			}
+
+			// merge the results now that the wirings are no longer read by the sessions
+			List<Resource> cancelled = new ArrayList<>();
+			ResolutionException resolutionException = null;
+			for (Partition partition : sessions) {
+				Throwable error = partition.error;
+				if (error instanceof OutOfMemoryError || (error instanceof ResolutionException
+						&& error.getCause() instanceof CancellationException)) {
+					cancelled.addAll(partition.revisions);
+					continue;
+				}
+				if (error instanceof RuntimeException) {
+					throw (RuntimeException) error;
+				}
+				if (error instanceof Error) {
+					throw (Error) error;
+				}
+				logger.merge(partition.logger);
+				partition.failures.addAll(partition.logger.getUsesConstraintViolations().keySet());
+				if (partition.interimResults != null) {
+					applyInterimResultToWiringCopy(partition.interimResults);
+					addInterimResults(partition.interimResults, result);
+					partition.failures.removeAll(partition.interimResults.keySet());
+				}
+				// what is left did not resolve
+				failedToResolve.addAll(partition.failures);
+				if (resolutionException == null && error instanceof ResolutionException) {
+					resolutionException = (ResolutionException) error;
+				}
+			}
+			if (resolutionException != null) {
+				throw resolutionException;
+			}
+			if (!cancelled.isEmpty()) {
+				// revert back to single bundle resolves
+				resolveRevisionsIndividually(isMandatory, logger, result, cancelled, Collections.emptyList());
+			}
+			if (DEBUG_ROOTS) {
+				Debug.println("Resolver: time to resolve:  " + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		/*
+		 * The resolve context of a partition of the revisions which is resolved in its
+		 * own resolve session. The wirings are only read while the partitions are
+		 * resolved; the resolver hook and the resolution report are only used while
+		 * holding the lock of the resolve process.
+		 */
+		class Partition extends ResolveContext implements Runnable {
+			final List<Resource> revisions;
+			final boolean isMandatory;
+			final PartitionCanceller canceller;
+			final ResolveLogger logger = new ResolveLogger();
+			final Set<Resource> failures = new LinkedHashSet<>();
+			volatile Map<Resource, List<Wire>> interimResults;
+			volatile Throwable error;
+
+			Partition(List<Resource> revisions, boolean isMandatory, PartitionCanceller canceller) {
+				this.revisions = revisions;
+				this.isMandatory = isMandatory;
+				this.canceller = canceller;
+				this.failures.addAll(revisions);
+			}
+
+			@Override
+			public void run() {
+				Boolean previous = threadResolving.get();
+				threadResolving.set(Boolean.TRUE);
+				try {
+					interimResults = new ResolverImpl(logger, ResolveProcess.this, packageSpaces,
+							packageSpaceGeneration).resolve(this);
+					if (DEBUG_ROOTS) {
+						Debug.println("Resolver: resolved " + interimResults.size() + " bundles in partition."); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				} catch (Throwable t) {
+					error = t;
+				} finally {
+					threadResolving.set(previous);
+				}
+			}
+
+			@Override
+			public Collection<Resource> getMandatoryResources() {
+				if (isMandatory) {
+					return Collections.unmodifiableList(revisions);
+				}
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Collection<Resource> getOptionalResources() {
+				if (!isMandatory) {
+					return Collections.unmodifiableList(revisions);
+				}
+				return Collections.emptyList();
+			}
+
+			@Override
+			public List<Capability> findProviders(Requirement requirement) {
+				synchronized (ResolveProcess.this) {
+					return findProviders0(requirement, requirement, failures);
+				}
+			}
+
+			@Override
+			public int insertHostedCapability(List<Capability> capabilities, HostedCapability hostedCapability) {
+				return ResolveProcess.this.insertHostedCapability(capabilities, hostedCapability);
+			}
+
+			@Override
+			public boolean isEffective(Requirement requirement) {
+				return ResolveProcess.this.isEffective(requirement);
+			}
+
+			@Override
+			public Map<Resource, Wiring> getWirings() {
+				return ResolveProcess.this.getWirings();
+			}
+
+			@Override
+			public Collection<Resource> findRelatedResources(Resource host) {
+				return ResolveProcess.this.findRelatedResources(host);
+			}
+
+			@Override
+			public void onCancel(Runnable callback) {
+				canceller.add(callback);
+			}
+
+			@Override
+			public List<Wire> getSubstitutionWires(Wiring wiring) {
+				return ResolveProcess.this.getSubstitutionWires(wiring);
+			}
+		}
+
 		private void resolveRevisions(List<Resource> revisions, boolean isMandatory, ResolveLogger logger,
 				Map<Resource, List<Wire>> result) throws ResolutionException {
 			boolean applyTransitiveFailures = true;
@@ -1182,23 +1629,12 @@ final class ModuleResolver {
 			Map<Resource, List<Wire>> interimResults = null;
 			try {
 				transitivelyResolveFailures.addAll(revisions);
-				interimResults = new ResolverImpl(logger, this).resolve(this);
+				interimResults = new ResolverImpl(logger, this, packageSpaces, packageSpaceGeneration).resolve(this);
 				applyInterimResultToWiringCopy(interimResults);
 				if (DEBUG_ROOTS) {
 					Debug.println("Resolver: resolved " + interimResults.size() + " bundles."); //$NON-NLS-1$ //$NON-NLS-2$
 				}
-				// now apply the simple wires to the results
-				for (Map.Entry<Resource, List<Wire>> interimResultEntry : interimResults.entrySet()) {
-					if (DEBUG_ROOTS) {
-						Debug.println("    Resolved bundle: " + interimResultEntry.getKey()); //$NON-NLS-1$
-					}
-					List<Wire> existingWires = result.get(interimResultEntry.getKey());
-					if (existingWires != null) {
-						existingWires.addAll(interimResultEntry.getValue());
-					} else {
-						result.put(interimResultEntry.getKey(), interimResultEntry.getValue());
-					}
-				}
+				addInterimResults(interimResults, result);
 			} catch (ResolutionException resolutionException) {
 				if (resolutionException.getCause() instanceof CancellationException) {
 					applyTransitiveFailures = false;
@@ -1223,12 +1659,34 @@ final class ModuleResolver {
 			}
 		}
 
+		private void addInterimResults(Map<Resource, List<Wire>> interimResults, Map<Resource, List<Wire>> result) {
+			// now apply the simple wires to the results
+			for (Map.Entry<Resource, List<Wire>> interimResultEntry : interimResults.entrySet()) {
+				if (DEBUG_ROOTS) {
+					Debug.println("    Resolved bundle: " + interimResultEntry.getKey()); //$NON-NLS-1$
+				}
+				List<Wire> existingWires = result.get(interimResultEntry.getKey());
+				if (existingWires != null) {
+					existingWires.addAll(interimResultEntry.getValue());
+				} else {
+					result.put(interimResultEntry.getKey(), interimResultEntry.getValue());
+				}
+			}
+		}
+
 		private void applyInterimResultToWiringCopy(Map<Resource, List<Wire>> interimResult) {
 			if (!interimResult.isEmpty()) {
 				// update the copy of wirings to include interim results
 				Map<ModuleRevision, ModuleWiring> updatedWirings = generateDelta(interimResult, wirings);
 				for (Map.Entry<ModuleRevision, ModuleWiring> updatedWiring : updatedWirings.entrySet()) {
-					wirings.put(updatedWiring.getKey(), updatedWiring.getValue());
+					ModuleWiring previous = wirings.put(updatedWiring.getKey(), updatedWiring.getValue());
+					if (previous != null && packageSpaces != null && (previous.getModuleCapabilities(null)
+							.size() != updatedWiring.getValue().getModuleCapabilities(null).size()
+							|| previous.getRequiredModuleWires(null).size() != updatedWiring.getValue()
+									.getRequiredModuleWires(null).size())) {
+						// fragments got attached to a resolved host
+						packageSpaces = null;
+					}
 				}
 			}
 		}
@@ -1419,6 +1877,147 @@ final class ModuleResolver {
 			}
 		}
 
+		/*
+		 * Rebinds the wirings the refreshed modules had before to the current revisions
+		 * of the modules. A wiring is only rebound if the resolver has nothing new to
+		 * decide for it:
+		 * - the revision is resolvable and declares the same capabilities and
+		 * requirements as the previously wired revision
+		 * - each wire is rebound to a provider which is still resolved or which gets
+		 * rebound too and the resolver hook does not filter the match
+		 * - no requirement got a new candidate which it is not wired to yet
+		 * - no unresolved fragment can attach to the revision
+		 * All other revisions are left to the resolver which sees the rebound wirings
+		 * as already resolved. Dynamic wires are not rebound, they are established
+		 * again when needed.
+		 */
+		private Map<Resource, List<Wire>> rebindWirings() {
+			// map the previously wired revisions to the current revisions
+			Map<ModuleRevision, ModuleRevision> current = new HashMap<>();
+			for (Map.Entry<Module, ModuleWiring> previousWiring : previousWirings.entrySet()) {
+				ModuleRevision previous = previousWiring.getValue().getRevision();
+				ModuleRevision revision = previousWiring.getKey().getCurrentRevision();
+				if (revision != null && revision.isCurrent() && !wirings.containsKey(revision)
+						&& !disabled.contains(revision) && isEquivalent(previous, revision)) {
+					current.put(previous, revision);
+				}
+			}
+			// a new fragment must get the chance to attach to its hosts
+			Set<ModuleRevision> rebinding = new HashSet<>(current.values());
+			for (ModuleRevision revision : unresolved) {
+				if ((revision.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0 && !disabled.contains(revision)
+						&& !rebinding.contains(revision)) {
+					for (ModuleRequirement hostRequirement : revision
+							.getModuleRequirements(HostNamespace.HOST_NAMESPACE)) {
+						for (ModuleCapability hostCapability : moduleDatabase.findCapabilities(hostRequirement)) {
+							current.values().remove(hostCapability.getRevision());
+						}
+					}
+				}
+			}
+
+			Map<Resource, List<Wire>> rebound = new HashMap<>();
+			Map<ModuleRevision, Set<ModuleRevision>> dependencies = new HashMap<>();
+			for (ModuleWiring previousWiring : previousWirings.values()) {
+				ModuleRevision revision = current.get(previousWiring.getRevision());
+				if (revision == null) {
+					continue;
+				}
+				Set<ModuleRevision> dependsOn = new HashSet<>();
+				List<Wire> wires = rebindWires(previousWiring, revision, current, dependsOn);
+				if (wires != null) {
+					rebound.put(revision, wires);
+					dependencies.put(revision, dependsOn);
+				}
+			}
+			// remove the revisions which depend on revisions which are not resolved until
+			// only revisions which depend on resolved or rebound revisions are left
+			boolean removed;
+			do {
+				removed = false;
+				for (Iterator<Map.Entry<ModuleRevision, Set<ModuleRevision>>> iDependencies = dependencies.entrySet()
+						.iterator(); iDependencies.hasNext();) {
+					Map.Entry<ModuleRevision, Set<ModuleRevision>> dependency = iDependencies.next();
+					for (ModuleRevision dependsOn : dependency.getValue()) {
+						if (!wirings.containsKey(dependsOn) && !dependencies.containsKey(dependsOn)) {
+							iDependencies.remove();
+							rebound.remove(dependency.getKey());
+							removed = true;
+							break;
+						}
+					}
+				}
+			} while (removed);
+			return rebound;
+		}
+
+		private List<Wire> rebindWires(ModuleWiring previousWiring, ModuleRevision revision,
+				Map<ModuleRevision, ModuleRevision> current, Set<ModuleRevision> dependsOn) {
+			List<Wire> wires = new ArrayList<>();
+			Map<ModuleRequirement, Integer> wireCounts = new HashMap<>();
+			for (ModuleWire previousWire : previousWiring.getRequiredWires().getList(null)) {
+				ModuleRequirement previousRequirement = previousWire.getRequirement();
+				if (isDynamic(previousRequirement)) {
+					continue;
+				}
+				ModuleRequirement requirement = rebind(previousRequirement, current, wirings);
+				ModuleCapability capability = rebind(previousWire.getCapability(), current, wirings);
+				ModuleRevision provider = rebind(previousWire.getProvider(), current, wirings);
+				if (requirement == null || capability == null || provider == null) {
+					return null;
+				}
+				List<ModuleCapability> candidates = new ArrayList<>(1);
+				candidates.add(capability);
+				filterPermissions(requirement, candidates);
+				hook.filterMatches(requirement, InternalUtils.asList(candidates));
+				if (candidates.isEmpty()) {
+					return null;
+				}
+				wires.add(new ModuleWire(capability, provider, requirement, revision));
+				wireCounts.merge(previousRequirement, 1, Integer::sum);
+				dependsOn.add(requirement.getRevision());
+				dependsOn.add(capability.getRevision());
+				dependsOn.add(provider);
+			}
+			// the wiring does not contain the requirements which did not get wired
+			List<ModuleRequirement> previousRequirements = new ArrayList<>();
+			if ((previousWiring.getRevision().getTypes() & BundleRevision.TYPE_FRAGMENT) == 0) {
+				previousRequirements.addAll(previousWiring.getRevision().getModuleRequirements(null));
+				for (ModuleWire hostWire : previousWiring.getProvidedWires().getList(HostNamespace.HOST_NAMESPACE)) {
+					for (ModuleRequirement fragmentRequirement : hostWire.getRequirer().getModuleRequirements(null)) {
+						if (!NON_PAYLOAD_REQUIREMENTS.contains(fragmentRequirement.getNamespace())) {
+							previousRequirements.add(fragmentRequirement);
+						}
+					}
+				}
+			}
+			for (ModuleRequirement previousRequirement : previousRequirements) {
+				String effective = previousRequirement.getDirectives().get(Namespace.REQUIREMENT_EFFECTIVE_DIRECTIVE);
+				if ((effective != null && !Namespace.EFFECTIVE_RESOLVE.equals(effective))
+						|| isDynamic(previousRequirement)) {
+					continue;
+				}
+				int wireCount = wireCounts.getOrDefault(previousRequirement, 0);
+				boolean multiple = Namespace.CARDINALITY_MULTIPLE
+						.equals(previousRequirement.getDirectives().get(Namespace.REQUIREMENT_CARDINALITY_DIRECTIVE));
+				if ((wireCount == 0 || multiple)
+						&& moduleDatabase.findCapabilities(previousRequirement).size() > wireCount) {
+					// the resolver may wire the requirement to a new candidate
+					return null;
+				}
+			}
+			// the attached fragments must be rebound with the host
+			for (ModuleWire hostWire : previousWiring.getProvidedWires().getList(HostNamespace.HOST_NAMESPACE)) {
+				ModuleRevision fragment = rebind(hostWire.getRequirer(), current, wirings);
+				if (fragment == null) {
+					return null;
+				}
+				dependsOn.add(fragment);
+			}
+			dependsOn.remove(revision);
+			return wires;
+		}
+
 		private Map<Resource, List<Wire>> resolveNonPayLoadFragments() {
 			// This is to support dynamic attachment of fragments that do not
 			// add any payload requirements to their host.
@@ -1480,8 +2079,8 @@ final class ModuleResolver {
 		}
 
 		private Map<Resource, List<Wire>> resolveDynamic() throws ResolutionException {
-			return new ResolverImpl(new Logger(0), null).resolveDynamic(this, wirings.get(dynamicReq.getResource()),
-					dynamicReq.getOriginal());
+			return new ResolverImpl(new Logger(0), null, packageSpaces, packageSpaceGeneration).resolveDynamic(this,
+					wirings.get(dynamicReq.getResource()), dynamicReq.getOriginal());
 		}
 
 		private void filterResolvable() {
@@ -1730,9 +2329,13 @@ final class ModuleResolver {
 			if (scheduleTimeout.compareAndSet(true, false)) {
 				ScheduledExecutorService scheduledExecutor = adaptor.getScheduledExecutor();
 				if (scheduledExecutor != null) {
+					Runnable timeout = operationMetrics == null ? callback : () -> {
+						operationMetrics.batchTimeout();
+						callback.run();
+					};
 					try {
 						timoutFuture
-								.set(scheduledExecutor.schedule(callback, resolverBatchTimeout, TimeUnit.MILLISECONDS));
+								.set(scheduledExecutor.schedule(timeout, resolverBatchTimeout, TimeUnit.MILLISECONDS));
 					} catch (RejectedExecutionException e) {
 						// ignore may have been shutdown, it is ok we will not be able to timeout
 					}
@@ -1746,6 +2349,58 @@ final class ModuleResolver {
 		}
 	}
 
+	/*
+	 * Cancels the resolve sessions of all partitions of a resolve process.
+	 */
+	static class PartitionCanceller implements Runnable {
+		private final List<Runnable> callbacks = new ArrayList<>();
+		private boolean cancelled;
+
+		void add(Runnable callback) {
+			synchronized (this) {
+				if (!cancelled) {
+					callbacks.add(callback);
+					return;
+				}
+			}
+			callback.run();
+		}
+
+		@Override
+		public void run() {
+			List<Runnable> toCancel;
+			synchronized (this) {
+				cancelled = true;
+				toCancel = new ArrayList<>(callbacks);
+			}
+			for (Runnable callback : toCancel) {
+				callback.run();
+			}
+		}
+	}
+
+	private static int find(int[] parents, int i) {
+		while (parents[i] != i) {
+			// path halving
+			parents[i] = parents[parents[i]];
+			i = parents[i];
+		}
+		return i;
+	}
+
+	private static void union(int[] parents, int i, int j) {
+		int rootI = find(parents, i);
+		int rootJ = find(parents, j);
+		if (rootI != rootJ) {
+			// keep the lowest index as the root
+			if (rootI < rootJ) {
+				parents[rootJ] = rootI;
+			} else {
+				parents[rootI] = rootJ;
+			}
+		}
+	}
+
 	protected boolean threadResolving() {
 		Boolean resolvingValue = this.threadResolving.get();
 		if (resolvingValue == null) {
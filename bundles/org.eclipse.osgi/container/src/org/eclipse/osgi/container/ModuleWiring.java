@@ -71,6 +71,21 @@ public final class ModuleWiring implements BundleWiring {
 	private volatile NamespaceList<ModuleWire> requiredWires;
 	volatile boolean isValid = true;
 	private final AtomicReference<Set<String>> dynamicMissRef = new AtomicReference<>();
+	private volatile Content pendingContent;
+
+	/**
+	 * The capabilities, requirements and wires of a wiring which are only
+	 * materialized when the wiring content is first accessed.
+	 */
+	interface Content {
+		NamespaceList<ModuleCapability> getCapabilities();
+
+		NamespaceList<ModuleRequirement> getRequirements();
+
+		NamespaceList<ModuleWire> getProvidedWires();
+
+		NamespaceList<ModuleWire> getRequiredWires();
+	}
 
 	ModuleWiring(ModuleRevision revision, NamespaceList<ModuleCapability> capabilities,
 			NamespaceList<ModuleRequirement> requirements, NamespaceList<ModuleWire> providedWires,
@@ -84,6 +99,28 @@ public final class ModuleWiring implements BundleWiring {
 		this.substitutedPkgNames = substitutedPkgNames.isEmpty() ? Collections.emptyList() : substitutedPkgNames;
 	}
 
+	ModuleWiring(ModuleRevision revision, Content content, Collection<String> substitutedPkgNames) {
+		this(revision, null, null, null, null, substitutedPkgNames);
+		this.pendingContent = content;
+	}
+
+	private void materializeContent() {
+		Content content = pendingContent;
+		if (content == null) {
+			return;
+		}
+		synchronized (content) {
+			if (pendingContent == null) {
+				return;
+			}
+			capabilities = content.getCapabilities();
+			requirements = content.getRequirements();
+			providedWires = content.getProvidedWires();
+			requiredWires = content.getRequiredWires();
+			pendingContent = null;
+		}
+	}
+
 	@Override
 	public Bundle getBundle() {
 		return revision.getBundle();
@@ -96,7 +133,7 @@ public final class ModuleWiring implements BundleWiring {
 
 	@Override
 	public boolean isInUse() {
-		return isCurrent() || !providedWires.isEmpty() || isFragmentInUse();
+		return isCurrent() || !getProvidedWires().isEmpty() || isFragmentInUse();
 	}
 
 	private boolean isFragmentInUse() {
@@ -121,7 +158,7 @@ public final class ModuleWiring implements BundleWiring {
 		if (!isValid) {
 			return null;
 		}
-		return capabilities.getList(namespace);
+		return getCapabilities().getList(namespace);
 	}
 
 	/**
@@ -136,14 +173,14 @@ public final class ModuleWiring implements BundleWiring {
 		if (!isValid) {
 			return null;
 		}
-		return requirements.getList(namespace);
+		return getRequirements().getList(namespace);
 	}
 
 	List<ModuleRequirement> getPersistentRequirements() {
 		if (!isValid) {
 			return null;
 		}
-		List<ModuleRequirement> persistentRequriements = new ArrayList<>(requirements.getList(null));
+		List<ModuleRequirement> persistentRequriements = new ArrayList<>(getRequirements().getList(null));
 		for (Iterator<ModuleRequirement> iRequirements = persistentRequriements.iterator(); iRequirements.hasNext();) {
 			ModuleRequirement requirement = iRequirements.next();
 			if (PackageNamespace.PACKAGE_NAMESPACE.equals(requirement.getNamespace())) {
@@ -175,11 +212,11 @@ public final class ModuleWiring implements BundleWiring {
 	 * @see #getProvidedWires(String)
 	 */
 	public List<ModuleWire> getProvidedModuleWires(String namespace) {
-		return getWires(namespace, providedWires);
+		return getWires(namespace, getProvidedWires());
 	}
 
 	List<ModuleWire> getPersistentProvidedWires() {
-		return getPersistentWires(providedWires);
+		return getPersistentWires(getProvidedWires());
 	}
 
 	/**
@@ -191,11 +228,11 @@ public final class ModuleWiring implements BundleWiring {
 	 * @see #getRequiredWires(String)
 	 */
 	public List<ModuleWire> getRequiredModuleWires(String namespace) {
-		return getWires(namespace, requiredWires);
+		return getWires(namespace, getRequiredWires());
 	}
 
 	List<ModuleWire> getPersistentRequiredWires() {
-		return getPersistentWires(requiredWires);
+		return getPersistentWires(getRequiredWires());
 	}
 
 	private List<ModuleWire> getPersistentWires(NamespaceList<ModuleWire> allWires) {
@@ -216,12 +253,12 @@ public final class ModuleWiring implements BundleWiring {
 
 	@Override
 	public List<BundleWire> getProvidedWires(String namespace) {
-		return asCopy(getWires(namespace, providedWires));
+		return asCopy(getWires(namespace, getProvidedWires()));
 	}
 
 	@Override
 	public List<BundleWire> getRequiredWires(String namespace) {
-		return asCopy(getWires(namespace, requiredWires));
+		return asCopy(getWires(namespace, getRequiredWires()));
 	}
 
 	private List<ModuleWire> getWires(String namespace, NamespaceList<ModuleWire> wires) {
@@ -314,12 +351,12 @@ public final class ModuleWiring implements BundleWiring {
 
 	@Override
 	public List<Wire> getProvidedResourceWires(String namespace) {
-		return asCopy(getWires(namespace, providedWires));
+		return asCopy(getWires(namespace, getProvidedWires()));
 	}
 
 	@Override
 	public List<Wire> getRequiredResourceWires(String namespace) {
-		return asCopy(getWires(namespace, requiredWires));
+		return asCopy(getWires(namespace, getRequiredWires()));
 	}
 
 	@Override
@@ -328,18 +365,22 @@ public final class ModuleWiring implements BundleWiring {
 	}
 
 	void setProvidedWires(NamespaceList<ModuleWire> providedWires) {
+		materializeContent();
 		this.providedWires = providedWires;
 	}
 
 	void setRequiredWires(NamespaceList<ModuleWire> requiredWires) {
+		materializeContent();
 		this.requiredWires = requiredWires;
 	}
 
 	void setCapabilities(NamespaceList<ModuleCapability> capabilities) {
+		materializeContent();
 		this.capabilities = capabilities;
 	}
 
 	void setRequirements(NamespaceList<ModuleRequirement> requirements) {
+		materializeContent();
 		this.requirements = requirements;
 	}
 
@@ -433,7 +474,7 @@ public final class ModuleWiring implements BundleWiring {
 		// This is necessary to make sure any in flight resolve operations are using the
 		// latest wiring data and avoids them overwriting the requirements incorrectly.
 		moduleDatabase.writeLockOperation(true, () -> {
-			NamespaceList.Builder<ModuleRequirement> requirmentsBuilder = requirements.createBuilder();
+			NamespaceList.Builder<ModuleRequirement> requirmentsBuilder = getRequirements().createBuilder();
 			requirmentsBuilder.addAll(newRequirements);
 			requirements = requirmentsBuilder.build();
 			// clear out miss cache when adding new dynamic imports.
@@ -480,7 +521,7 @@ public final class ModuleWiring implements BundleWiring {
 		// Could cache this, but seems unnecessary since it will only be used by the
 		// resolver
 		List<Wire> substitutionWires = new ArrayList<>(substitutedPkgNames.size());
-		List<ModuleWire> current = requiredWires.getList(PackageNamespace.PACKAGE_NAMESPACE);
+		List<ModuleWire> current = getRequiredWires().getList(PackageNamespace.PACKAGE_NAMESPACE);
 		for (ModuleWire wire : current) {
 			Capability cap = wire.getCapability();
 			if (substitutedPkgNames.contains(cap.getAttributes().get(PackageNamespace.PACKAGE_NAMESPACE))) {
@@ -491,18 +532,22 @@ public final class ModuleWiring implements BundleWiring {
 	}
 
 	NamespaceList<ModuleCapability> getCapabilities() {
+		materializeContent();
 		return capabilities;
 	}
 
 	NamespaceList<ModuleWire> getProvidedWires() {
+		materializeContent();
 		return providedWires;
 	}
 
 	NamespaceList<ModuleRequirement> getRequirements() {
+		materializeContent();
 		return requirements;
 	}
 
 	NamespaceList<ModuleWire> getRequiredWires() {
+		materializeContent();
 		return requiredWires;
 	}
 }
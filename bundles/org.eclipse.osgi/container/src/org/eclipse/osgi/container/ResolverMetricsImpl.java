@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.container;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.osgi.service.metrics.ResolverMetrics;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
+import org.osgi.resource.Resource;
+
+/**
+ * The metrics of resolve operations. Each resolve operation records its metrics
+ * in its own instance which is added to the metrics of the container when the
+ * operation is done. If the metrics are disabled, the resolver does not call
+ * the methods which record metrics; callers must check {@link #isEnabled()}
+ * first so that no time is measured when the metrics are disabled.
+ *
+ * @ThreadSafe
+ */
+final class ResolverMetricsImpl implements ResolverMetrics {
+	private final boolean enabled;
+	private final LongAdder operations = new LongAdder();
+	private final LongAdder resolveTime = new LongAdder();
+	private final LongAdder findProvidersCalls = new LongAdder();
+	private final LongAdder findProvidersTime = new LongAdder();
+	private final LongAdder candidatesTime = new LongAdder();
+	private final LongAdder packageSpacesTime = new LongAdder();
+	private final LongAdder usesConstraintsTime = new LongAdder();
+	private final LongAdder permutationsTime = new LongAdder();
+	private final LongAdder permutations = new LongAdder();
+	private final LongAdder processedPermutations = new LongAdder();
+	private final LongAdder usesPermutations = new LongAdder();
+	private final LongAdder importPermutations = new LongAdder();
+	private final LongAdder substitutionPermutations = new LongAdder();
+	private final LongAdder batchTimeouts = new LongAdder();
+	private final LongAdder individualResolves = new LongAdder();
+	private final ConcurrentMap<Long, LongAdder> usesConstraintsTimeByBundle = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, LongAdder> permutationsByBundle = new ConcurrentHashMap<>();
+
+	ResolverMetricsImpl(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	void findProviders(long time) {
+		findProvidersCalls.increment();
+		findProvidersTime.add(time);
+	}
+
+	void populateCandidates(long time) {
+		candidatesTime.add(time);
+	}
+
+	void calculatePackageSpaces(long time) {
+		packageSpacesTime.add(time);
+	}
+
+	void checkUsesConstraints(Resource resource, long time, int added) {
+		usesConstraintsTime.add(time);
+		if (resource instanceof ModuleRevision) {
+			Long id = ((ModuleRevision) resource).getRevisions().getModule().getId();
+			add(usesConstraintsTimeByBundle, id, time);
+			if (added > 0) {
+				add(permutationsByBundle, id, added);
+			}
+		}
+	}
+
+	void checkPermutation(boolean initial, long time) {
+		if (!initial) {
+			permutationsTime.add(time);
+		}
+	}
+
+	void batchTimeout() {
+		batchTimeouts.increment();
+	}
+
+	void resolveIndividually() {
+		individualResolves.increment();
+	}
+
+	/**
+	 * Records the end of a resolve operation.
+	 *
+	 * @param time      the time of the resolve operation
+	 * @param total     the number of permutations created
+	 * @param processed the number of permutations processed
+	 * @param uses      the number of permutations created because of a uses
+	 *                  constraint violation
+	 * @param imports   the number of permutations created to select a different
+	 *                  package provider
+	 * @param subst     the number of permutations created because of a package
+	 *                  substitution
+	 */
+	void resolved(long time, int total, int processed, int uses, int imports, int subst) {
+		operations.increment();
+		resolveTime.add(time);
+		permutations.add(total);
+		processedPermutations.add(processed);
+		usesPermutations.add(uses);
+		importPermutations.add(imports);
+		substitutionPermutations.add(subst);
+	}
+
+	/**
+	 * Adds the metrics of a resolve operation to these metrics.
+	 *
+	 * @param other the metrics of a resolve operation
+	 */
+	void add(ResolverMetricsImpl other) {
+		operations.add(other.operations.sum());
+		resolveTime.add(other.resolveTime.sum());
+		findProvidersCalls.add(other.findProvidersCalls.sum());
+		findProvidersTime.add(other.findProvidersTime.sum());
+		candidatesTime.add(other.candidatesTime.sum());
+		packageSpacesTime.add(other.packageSpacesTime.sum());
+		usesConstraintsTime.add(other.usesConstraintsTime.sum());
+		permutationsTime.add(other.permutationsTime.sum());
+		permutations.add(other.permutations.sum());
+		processedPermutations.add(other.processedPermutations.sum());
+		usesPermutations.add(other.usesPermutations.sum());
+		importPermutations.add(other.importPermutations.sum());
+		substitutionPermutations.add(other.substitutionPermutations.sum());
+		batchTimeouts.add(other.batchTimeouts.sum());
+		individualResolves.add(other.individualResolves.sum());
+		for (Map.Entry<Long, LongAdder> entry : other.usesConstraintsTimeByBundle.entrySet()) {
+			add(usesConstraintsTimeByBundle, entry.getKey(), entry.getValue().sum());
+		}
+		for (Map.Entry<Long, LongAdder> entry : other.permutationsByBundle.entrySet()) {
+			add(permutationsByBundle, entry.getKey(), entry.getValue().sum());
+		}
+	}
+
+	private static <K> void add(ConcurrentMap<K, LongAdder> counters, K key, long value) {
+		LongAdder counter = counters.get(key);
+		if (counter == null) {
+			counter = counters.computeIfAbsent(key, k -> new LongAdder());
+		}
+		counter.add(value);
+	}
+
+	@Override
+	public ResolverMetricsDTO getMetrics() {
+		ResolverMetricsDTO dto = new ResolverMetricsDTO();
+		dto.enabled = enabled;
+		dto.timestamp = System.currentTimeMillis();
+		dto.operations = operations.sum();
+		dto.resolveTime = resolveTime.sum();
+		dto.findProvidersCalls = findProvidersCalls.sum();
+		dto.findProvidersTime = findProvidersTime.sum();
+		dto.candidatesTime = candidatesTime.sum();
+		dto.packageSpacesTime = packageSpacesTime.sum();
+		dto.usesConstraintsTime = usesConstraintsTime.sum();
+		dto.permutationsTime = permutationsTime.sum();
+		dto.permutations = permutations.sum();
+		dto.processedPermutations = processedPermutations.sum();
+		dto.usesPermutations = usesPermutations.sum();
+		dto.importPermutations = importPermutations.sum();
+		dto.substitutionPermutations = substitutionPermutations.sum();
+		dto.batchTimeouts = batchTimeouts.sum();
+		dto.individualResolves = individualResolves.sum();
+		dto.usesConstraintsTimeByBundle = toMap(usesConstraintsTimeByBundle);
+		dto.permutationsByBundle = toMap(permutationsByBundle);
+		return dto;
+	}
+
+	private static <K> Map<K, Long> toMap(Map<K, LongAdder> counters) {
+		Map<K, Long> result = new HashMap<>(counters.size());
+		for (Map.Entry<K, LongAdder> entry : counters.entrySet()) {
+			long count = entry.getValue().sum();
+			if (count != 0) {
+				result.put(entry.getKey(), Long.valueOf(count));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		operations.reset();
+		resolveTime.reset();
+		findProvidersCalls.reset();
+		findProvidersTime.reset();
+		candidatesTime.reset();
+		packageSpacesTime.reset();
+		usesConstraintsTime.reset();
+		permutationsTime.reset();
+		permutations.reset();
+		processedPermutations.reset();
+		usesPermutations.reset();
+		importPermutations.reset();
+		substitutionPermutations.reset();
+		batchTimeouts.reset();
+		individualResolves.reset();
+		usesConstraintsTimeByBundle.clear();
+		permutationsByBundle.clear();
+	}
+}
@@ -308,13 +308,26 @@ public class CaseInsensitiveDictionaryMap<K, V> extends Dictionary<K, V> impleme
 		return map.get(keyWrap(key));
 	}
 
+	/**
+	 * Returns a case-insensitive wrapping of the specified key. The returned object
+	 * can be repeatedly passed to {@link #get(Object)} of any
+	 * CaseInsensitiveDictionaryMap to locate the key in a case-insensitive manner
+	 * without wrapping the key on each call.
+	 *
+	 * @param key The key to wrap.
+	 * @return A case-insensitive wrapping of the key.
+	 */
+	public static Object caseInsensitiveKey(String key) {
+		return keyWrap(requireNonNull(key));
+	}
+
 	/**
 	 * Returns the specified key or, if the key is a String, returns a
 	 * case-insensitive wrapping of the key.
 	 *
 	 * @return The specified key or a case-insensitive wrapping of the key.
 	 */
-	private Object keyWrap(Object key) {
+	private static Object keyWrap(Object key) {
 		if (key instanceof String) {
 			CaseInsensitiveKey commonKey = findCommonKeyIndex((String) key);
 			if (commonKey != null) {
@@ -22,6 +22,7 @@
 
 package org.eclipse.osgi.internal.cds;
 
+import java.io.File;
 import java.util.function.Supplier;
 
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
@@ -35,6 +36,8 @@ public class CDSHookConfigurator implements HookConfigurator {
 
 	private static final String REPORT_ERRORS = "j9.cds.reporterrors"; //$NON-NLS-1$
 	private static final String DISABLE_CDS = "j9.cds.disable"; //$NON-NLS-1$
+	private static final String CLASS_LIST = "equinox.cds.classlist"; //$NON-NLS-1$
+	private static final String CLASS_LIST_FIRST_ID = "equinox.cds.classlist.firstid"; //$NON-NLS-1$
 	private static final String OLD_CDS_CONFIGURATOR = "com.ibm.cds.CDSHookConfigurator"; //$NON-NLS-1$
 	private static final String J9_SHARED_CLASS_HELPER_CLASS = "com.ibm.oti.shared.SharedClassHelperFactory"; //$NON-NLS-1$
 
@@ -51,6 +54,24 @@ public class CDSHookConfigurator implements HookConfigurator {
 			print(debug, () -> "Class sharing is disabled by: " + DISABLE_CDS); //$NON-NLS-1$
 			return;
 		}
+		String classList = hookRegistry.getConfiguration().getProperty(CLASS_LIST);
+		if (classList != null) {
+			// write the class list for HotSpot class data sharing; independent of J9
+			print(debug, () -> "Writing class list to: " + classList); //$NON-NLS-1$
+			int firstId = ClassListHook.DEFAULT_FIRST_ID;
+			String firstIdProp = hookRegistry.getConfiguration().getProperty(CLASS_LIST_FIRST_ID);
+			if (firstIdProp != null) {
+				try {
+					firstId = Math.max(0, Integer.parseInt(firstIdProp));
+				} catch (NumberFormatException e) {
+					print(debug, () -> "Invalid first class list id: " + firstIdProp); //$NON-NLS-1$
+				}
+			}
+			ClassListHook classListHook = new ClassListHook(new File(classList), firstId, debug);
+			hookRegistry.addClassLoaderHook(classListHook);
+			// the class list is closed when the framework stops
+			hookRegistry.addActivatorHookFactory(classListHook);
+		}
 		// check for the external com.ibm.cds system.bundle fragment
 		try {
 			Class.forName(OLD_CDS_CONFIGURATOR);
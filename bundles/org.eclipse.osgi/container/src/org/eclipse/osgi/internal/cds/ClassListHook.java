@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.cds;
+
+import static org.eclipse.osgi.internal.cds.CDSHookConfigurator.print;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.internal.hookregistry.ActivatorHookFactory;
+import org.eclipse.osgi.internal.hookregistry.ClassLoaderHook;
+import org.eclipse.osgi.internal.loader.ModuleClassLoader;
+import org.eclipse.osgi.internal.loader.classpath.ClasspathEntry;
+import org.eclipse.osgi.internal.loader.classpath.ClasspathManager;
+import org.eclipse.osgi.storage.bundlefile.BundleEntry;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+import org.eclipse.osgi.storage.bundlefile.BundleFileWrapper;
+import org.eclipse.osgi.storage.bundlefile.DirBundleFile;
+import org.eclipse.osgi.storage.bundlefile.ZipBundleFile;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+
+/**
+ * A class loader hook which writes the classes defined by bundle class loaders
+ * to a class list which can be used to create a HotSpot class data sharing
+ * archive.
+ * <p>
+ * HotSpot only writes the classes of the built-in class loaders with
+ * {@code -XX:DumpLoadedClassList}. This hook writes the bundle classes in the
+ * class list format HotSpot uses for classes of other class loaders; each class
+ * is listed with an id, the ids of its super class and interfaces and the jar
+ * file or directory the class is read from when the archive is created. At
+ * runtime HotSpot uses the archived class when a bundle class loader defines a
+ * class with the same name and the same bytes.
+ * <p>
+ * The archive is created with a training run followed by a dump:
+ *
+ * <pre>
+ * java -XX:DumpLoadedClassList=jvm.classlist -Dequinox.cds.classlist=bundles.classlist -cp ...
+ * cat jvm.classlist bundles.classlist &gt; app.classlist
+ * java -Xshare:dump -XX:SharedClassListFile=app.classlist -XX:SharedArchiveFile=app.jsa -cp ...
+ * java -XX:SharedArchiveFile=app.jsa -cp ...
+ * </pre>
+ *
+ * The framework must be launched from a jar on the class path with the same
+ * class path for all three runs. The class list is complete once the framework
+ * of the training run is stopped.
+ * <p>
+ * Newer Java versions number the classes of their own list from zero, so the
+ * ids of this list start at {@link #DEFAULT_FIRST_ID} to keep the ids of the
+ * concatenated list unique; a different first id can be configured with
+ * {@code equinox.cds.classlist.firstid}. The classes of the built-in class
+ * loaders which are also in the list of the Java runtime are listed again with
+ * the ids of this list.
+ * <p>
+ * Classes are not listed if their bytes were changed by a weaving hook, if
+ * they are not read from a jar file or directory of the bundle, if another
+ * class with the same name is already listed or if their super class or one of
+ * their interfaces is not listed.
+ */
+public class ClassListHook extends ClassLoaderHook implements ActivatorHookFactory {
+	/**
+	 * The default id of the first listed class, above the ids of the class list
+	 * of the Java runtime.
+	 */
+	public static final int DEFAULT_FIRST_ID = 1000000;
+	private static final int MIN_CLASS_VERSION = 50;
+	private static final String CLASS_EXTENSION = ".class"; //$NON-NLS-1$
+
+	private final Debug debug;
+	private final File classList;
+	// the ids of the listed classes
+	private final Map<Class<?>, Integer> ids = new WeakHashMap<>();
+	// the names of the listed classes of other than the built-in class loaders
+	private final Set<String> names = new HashSet<>();
+	private final Set<ClassLoader> builtinLoaders = new HashSet<>();
+	private Writer writer;
+	private int nextId;
+	private boolean failed;
+	private boolean stopped;
+	private boolean opened;
+
+	public ClassListHook(File classList, int firstId, Debug debug) {
+		this.classList = classList;
+		this.nextId = firstId;
+		this.debug = debug;
+		ClassLoader builtin = ClassLoader.getSystemClassLoader();
+		while (builtin != null) {
+			builtinLoaders.add(builtin);
+			builtin = builtin.getParent();
+		}
+	}
+
+	@Override
+	public BundleActivator createActivator() {
+		return new BundleActivator() {
+			@Override
+			public void start(BundleContext context) {
+				synchronized (ClassListHook.this) {
+					stopped = false;
+				}
+			}
+
+			@Override
+			public void stop(BundleContext context) {
+				close();
+			}
+		};
+	}
+
+	/*
+	 * Closes the class list; the classes defined until the framework is started
+	 * again are not listed.
+	 */
+	private synchronized void close() {
+		stopped = true;
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			print(debug, () -> "Failed to write class list " + classList + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		writer = null;
+	}
+
+	@Override
+	public void recordClassDefine(String name, Class<?> clazz, byte[] classbytes, ClasspathEntry classpathEntry,
+			BundleEntry entry, ClasspathManager manager) {
+		if (clazz == null || classbytes == null || classbytes.length < 8) {
+			return;
+		}
+		// HotSpot does not archive classes older than Java 6
+		int major = ((classbytes[6] & 0xff) << 8) | (classbytes[7] & 0xff);
+		if (major < MIN_CLASS_VERSION) {
+			print(debug, () -> "Class version not supported for class list: " + name); //$NON-NLS-1$
+			return;
+		}
+		File source = getSource(classpathEntry.getBundleFile(), entry, name);
+		if (source == null) {
+			print(debug, () -> "No class list source for class: " + name); //$NON-NLS-1$
+			return;
+		}
+		try {
+			byte[] originalClassBytes = entry.getBytes();
+			if (originalClassBytes != classbytes && !Arrays.equals(originalClassBytes, classbytes)) {
+				print(debug, () -> "Class bytes have changed, cannot list class: " + name); //$NON-NLS-1$
+				return;
+			}
+		} catch (IOException e) {
+			return;
+		}
+		synchronized (this) {
+			if (list(clazz, source) == null) {
+				print(debug, () -> "Failed to list class: " + name); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/*
+	 * Returns the jar file or directory the class can be read from with the class
+	 * file name as the path, or null if there is no such file.
+	 */
+	private static File getSource(BundleFile bundleFile, BundleEntry entry, String name) {
+		while (bundleFile instanceof BundleFileWrapper) {
+			bundleFile = ((BundleFileWrapper) bundleFile).getBundleFile();
+		}
+		if (!(bundleFile instanceof ZipBundleFile) && !(bundleFile instanceof DirBundleFile)) {
+			// nested directories and connect content cannot be read by HotSpot
+			return null;
+		}
+		String path = name.replace('.', '/') + CLASS_EXTENSION;
+		String entryName = entry.getName();
+		if (entryName.length() > 0 && entryName.charAt(0) == '/') {
+			entryName = entryName.substring(1);
+		}
+		return path.equals(entryName) ? bundleFile.getBaseFile() : null;
+	}
+
+	// must be called while synchronizing "this"
+	private Integer list(Class<?> clazz, File source) {
+		Integer id = ids.get(clazz);
+		if (id != null) {
+			return id;
+		}
+		String name = clazz.getName().replace('.', '/');
+		if (builtinLoaders.contains(clazz.getClassLoader()) || clazz.getClassLoader() == null) {
+			return write(clazz, name + " id: " + nextId); //$NON-NLS-1$
+		}
+		if (source == null) {
+			if (clazz.getClassLoader() instanceof ModuleClassLoader) {
+				// bundle classes are only listed when they are defined
+				return null;
+			}
+			// a class of another class loader, for example the loader of the framework
+			source = getSource(clazz);
+			if (source == null) {
+				return null;
+			}
+		}
+		if (names.contains(name)) {
+			// only one class of a name can be listed for other class loaders
+			return null;
+		}
+		Class<?> superClass = clazz.getSuperclass();
+		Integer superId = list(superClass == null ? Object.class : superClass, null);
+		if (superId == null) {
+			return null;
+		}
+		Class<?>[] interfaces = clazz.getInterfaces();
+		Integer[] interfaceIds = new Integer[interfaces.length];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaceIds[i] = list(interfaces[i], null);
+			if (interfaceIds[i] == null) {
+				return null;
+			}
+		}
+		// the id must be taken after the super types got their ids
+		StringBuilder line = new StringBuilder(name);
+		line.append(" id: ").append(nextId).append(" super: ").append(superId); //$NON-NLS-1$//$NON-NLS-2$
+		if (interfaceIds.length > 0) {
+			line.append(" interfaces:"); //$NON-NLS-1$
+			for (Integer interfaceId : interfaceIds) {
+				line.append(' ').append(interfaceId);
+			}
+		}
+		line.append(" source: ").append(source.getAbsolutePath()); //$NON-NLS-1$
+		names.add(name);
+		return write(clazz, line.toString());
+	}
+
+	private static File getSource(Class<?> clazz) {
+		ProtectionDomain domain = clazz.getProtectionDomain();
+		CodeSource codeSource = domain == null ? null : domain.getCodeSource();
+		URL location = codeSource == null ? null : codeSource.getLocation();
+		if (location == null || !"file".equals(location.getProtocol())) { //$NON-NLS-1$
+			return null;
+		}
+		try {
+			return new File(location.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	// must be called while synchronizing "this"
+	private Integer write(Class<?> clazz, String line) {
+		if (failed || stopped) {
+			return null;
+		}
+		Integer id = Integer.valueOf(nextId);
+		try {
+			if (writer == null) {
+				// append to the list written before the framework was restarted
+				writer = new BufferedWriter(
+						new OutputStreamWriter(new FileOutputStream(classList, opened), StandardCharsets.UTF_8));
+				opened = true;
+			}
+			// the buffered lines are written in batches and when the framework stops
+			writer.write(line);
+			writer.write('\n');
+		} catch (IOException e) {
+			failed = true;
+			print(debug, () -> "Failed to write class list " + classList + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+		nextId++;
+		ids.put(clazz, id);
+		return id;
+	}
+}
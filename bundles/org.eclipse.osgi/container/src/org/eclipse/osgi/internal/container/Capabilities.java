@@ -21,7 +21,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.eclipse.osgi.container.ModuleCapability;
@@ -30,6 +32,8 @@ import org.eclipse.osgi.internal.framework.FilterImpl;
 import org.eclipse.osgi.util.ManifestElement;
 import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Version;
+import org.osgi.framework.VersionRange;
 import org.osgi.framework.namespace.AbstractWiringNamespace;
 import org.osgi.framework.namespace.BundleNamespace;
 import org.osgi.framework.namespace.HostNamespace;
@@ -41,13 +45,15 @@ import org.osgi.resource.Requirement;
 public class Capabilities {
 	static class NamespaceSet {
 		private final String name;
-		private final Map<String, Set<ModuleCapability>> indexes = new HashMap<>();
+		private final String versionAttr;
+		private final Map<String, Index> indexes = new HashMap<>();
 		private final Set<ModuleCapability> all = new HashSet<>();
 		private final Set<ModuleCapability> nonStringIndexes = new HashSet<>(0);
 		private final boolean matchMandatory;
 
 		NamespaceSet(String name) {
 			this.name = name;
+			this.versionAttr = getVersionAttribute(name);
 			this.matchMandatory = PackageNamespace.PACKAGE_NAMESPACE.equals(name)
 					|| BundleNamespace.BUNDLE_NAMESPACE.equals(name) || HostNamespace.HOST_NAMESPACE.equals(name);
 		}
@@ -82,12 +88,12 @@ public class Capabilities {
 			if (!(indexKey instanceof String)) {
 				nonStringIndexes.add(capability);
 			} else {
-				Set<ModuleCapability> capabilities = indexes.get(indexKey);
+				Index capabilities = indexes.get(indexKey);
 				if (capabilities == null) {
-					capabilities = new HashSet<>(1);
+					capabilities = new Index(versionAttr != null);
 					indexes.put((String) indexKey, capabilities);
 				}
-				capabilities.add(capability);
+				capabilities.add(capability, versionAttr);
 			}
 		}
 
@@ -121,46 +127,43 @@ public class Capabilities {
 			if (!(indexKey instanceof String)) {
 				nonStringIndexes.remove(capability);
 			} else {
-				Set<ModuleCapability> capabilities = indexes.get(indexKey);
+				Index capabilities = indexes.get(indexKey);
 				if (capabilities != null) {
-					capabilities.remove(capability);
+					capabilities.remove(capability, versionAttr);
+					if (capabilities.all.isEmpty()) {
+						indexes.remove(indexKey);
+					}
 				}
 			}
 		}
 
-		List<ModuleCapability> findCapabilities(Requirement requirement) {
+		List<ModuleCapability> findCapabilities(Requirement requirement, RequirementFilter requirementFilter) {
 			if (!name.equals(requirement.getNamespace())) {
 				throw new IllegalArgumentException(
 						"Invalid namespace: " + requirement.getNamespace() + ": expecting: " + name); //$NON-NLS-1$//$NON-NLS-2$
 			}
-			FilterImpl f = null;
-			String filterSpec = requirement.getDirectives().get(Namespace.REQUIREMENT_FILTER_DIRECTIVE);
-			if (filterSpec != null) {
-				try {
-					f = FilterImpl.newInstance(filterSpec);
-				} catch (InvalidSyntaxException e) {
-					return Collections.emptyList();
-				}
+			if (requirementFilter.invalid) {
+				return Collections.emptyList();
 			}
+			FilterImpl f = requirementFilter.filter;
 			Object syntheticAttr = requirement.getAttributes().get(SYNTHETIC_REQUIREMENT);
 			boolean synthetic = syntheticAttr instanceof Boolean ? ((Boolean) syntheticAttr).booleanValue() : false;
 
-			List<ModuleCapability> result;
-			if (filterSpec == null) {
-				result = match(null, all, synthetic);
+			List<ModuleCapability> result = new ArrayList<>(1);
+			if (f == null) {
+				match(null, all, synthetic, result);
 			} else {
-				String indexKey = f.getPrimaryKeyValue(name);
+				String indexKey = requirementFilter.primaryKey;
 				if (indexKey == null) {
-					result = match(f, all, synthetic);
+					match(f, all, synthetic, result);
 				} else {
-					Set<ModuleCapability> indexed = indexes.get(indexKey);
-					if (indexed == null) {
-						result = new ArrayList<>(0);
-					} else {
-						result = match(f, indexed, synthetic);
+					Index indexed = indexes.get(indexKey);
+					if (indexed != null) {
+						indexed.match(f, requirementFilter.versionRange, synthetic, result);
 					}
 					if (!nonStringIndexes.isEmpty()) {
-						List<ModuleCapability> nonStringResult = match(f, nonStringIndexes, synthetic);
+						List<ModuleCapability> nonStringResult = new ArrayList<>(1);
+						match(f, nonStringIndexes, synthetic, nonStringResult);
 						for (ModuleCapability capability : nonStringResult) {
 							if (!result.contains(capability)) {
 								result.add(capability);
@@ -172,17 +175,150 @@ public class Capabilities {
 			return result;
 		}
 
-		private List<ModuleCapability> match(Filter f, Set<ModuleCapability> candidates, boolean synthetic) {
-			List<ModuleCapability> result = new ArrayList<>(1);
+		void match(Filter f, Collection<ModuleCapability> candidates, boolean synthetic,
+				List<ModuleCapability> result) {
 			for (ModuleCapability candidate : candidates) {
 				if (matches(f, candidate, !synthetic && matchMandatory)) {
 					result.add(candidate);
 				}
 			}
-			return result;
+		}
+
+		/**
+		 * The capabilities with the same value of the namespace attribute. For
+		 * versioned namespaces the capabilities are also sorted by version so that
+		 * only the capabilities in the version range of a requirement are matched
+		 * against its filter.
+		 */
+		class Index {
+			final Set<ModuleCapability> all = new HashSet<>(1);
+			// null if the namespace is not versioned
+			private final NavigableMap<Version, Set<ModuleCapability>> versions;
+			// the capabilities which do not have a Version value for the version
+			// attribute; these are always matched
+			private final Set<ModuleCapability> unversioned;
+
+			Index(boolean versioned) {
+				this.versions = versioned ? new TreeMap<>() : null;
+				this.unversioned = versioned ? new HashSet<>(0) : null;
+			}
+
+			void add(ModuleCapability capability, String versionAttribute) {
+				all.add(capability);
+				if (versions != null) {
+					Object version = capability.getAttributes().get(versionAttribute);
+					if (version instanceof Version) {
+						versions.computeIfAbsent((Version) version, v -> new HashSet<>(1)).add(capability);
+					} else {
+						unversioned.add(capability);
+					}
+				}
+			}
+
+			void remove(ModuleCapability capability, String versionAttribute) {
+				all.remove(capability);
+				if (versions != null) {
+					Object version = capability.getAttributes().get(versionAttribute);
+					if (version instanceof Version) {
+						Set<ModuleCapability> capabilities = versions.get(version);
+						if (capabilities != null && capabilities.remove(capability) && capabilities.isEmpty()) {
+							versions.remove(version);
+						}
+					} else {
+						unversioned.remove(capability);
+					}
+				}
+			}
+
+			void match(FilterImpl f, VersionRange range, boolean synthetic, List<ModuleCapability> result) {
+				if (versions == null || range == null) {
+					NamespaceSet.this.match(f, all, synthetic, result);
+					return;
+				}
+				if (!range.isEmpty()) {
+					NavigableMap<Version, Set<ModuleCapability>> inRange = versions.tailMap(range.getLeft(),
+							range.getLeftType() == VersionRange.LEFT_CLOSED);
+					Version right = range.getRight();
+					if (right != null) {
+						inRange = inRange.headMap(right, range.getRightType() == VersionRange.RIGHT_CLOSED);
+					}
+					for (Set<ModuleCapability> capabilities : inRange.values()) {
+						NamespaceSet.this.match(f, capabilities, synthetic, result);
+					}
+				}
+				NamespaceSet.this.match(f, unversioned, synthetic, result);
+			}
 		}
 	}
 
+	/**
+	 * A parsed requirement filter. A requirement can keep its parsed filter so
+	 * that the filter is not parsed and analyzed again each time the capabilities
+	 * for the requirement are found.
+	 */
+	public static final class RequirementFilter {
+		static final RequirementFilter INVALID = new RequirementFilter(null, null, null, true);
+		static final RequirementFilter NO_FILTER = new RequirementFilter(null, null, null, false);
+
+		final FilterImpl filter;
+		final String primaryKey;
+		final VersionRange versionRange;
+		final boolean invalid;
+
+		private RequirementFilter(FilterImpl filter, String primaryKey, VersionRange versionRange, boolean invalid) {
+			this.filter = filter;
+			this.primaryKey = primaryKey;
+			this.versionRange = versionRange;
+			this.invalid = invalid;
+		}
+
+		/**
+		 * Returns true if the specified capability matches this filter.
+		 * 
+		 * @param candidate      the capability
+		 * @param matchMandatory true if the mandatory directive of the capability
+		 *                       must be checked
+		 * @return true if the capability matches
+		 * @see Capabilities#matches(Filter, Capability, boolean)
+		 */
+		public boolean matches(Capability candidate, boolean matchMandatory) {
+			return !invalid && Capabilities.matches(filter, candidate, matchMandatory);
+		}
+	}
+
+	/**
+	 * Parses the filter directive of the specified requirement.
+	 * 
+	 * @param requirement the requirement
+	 * @return the parsed filter of the requirement
+	 */
+	public static RequirementFilter parseFilter(Requirement requirement) {
+		String filterSpec = requirement.getDirectives().get(Namespace.REQUIREMENT_FILTER_DIRECTIVE);
+		if (filterSpec == null) {
+			return RequirementFilter.NO_FILTER;
+		}
+		FilterImpl f;
+		try {
+			f = FilterImpl.newInstance(filterSpec);
+		} catch (InvalidSyntaxException e) {
+			return RequirementFilter.INVALID;
+		}
+		String namespace = requirement.getNamespace();
+		String versionAttr = getVersionAttribute(namespace);
+		return new RequirementFilter(f, f.getPrimaryKeyValue(namespace),
+				versionAttr == null ? null : f.getVersionRange(versionAttr), false);
+	}
+
+	static String getVersionAttribute(String namespace) {
+		if (PackageNamespace.PACKAGE_NAMESPACE.equals(namespace)) {
+			return PackageNamespace.CAPABILITY_VERSION_ATTRIBUTE;
+		}
+		if (BundleNamespace.BUNDLE_NAMESPACE.equals(namespace) || HostNamespace.HOST_NAMESPACE.equals(namespace)) {
+			return AbstractWiringNamespace.CAPABILITY_BUNDLE_VERSION_ATTRIBUTE;
+		}
+		return null;
+	}
+
 	public static final Pattern MANDATORY_ATTR = Pattern.compile("\\(([^(=<>]+)\\s*[=<>]\\s*[^)]+\\)"); //$NON-NLS-1$
 	public static final String SYNTHETIC_REQUIREMENT = "org.eclipse.osgi.container.synthetic"; //$NON-NLS-1$
 
@@ -279,10 +415,24 @@ public class Capabilities {
 	 * @return the candidates for the requirement
 	 */
 	public List<ModuleCapability> findCapabilities(Requirement requirement) {
+		return findCapabilities(requirement, parseFilter(requirement));
+	}
+
+	/**
+	 * Returns a mutable snapshot of capabilities that are candidates for satisfying
+	 * the specified requirement using the already parsed filter of the
+	 * requirement.
+	 * 
+	 * @param requirement       the requirement
+	 * @param requirementFilter the {@link #parseFilter(Requirement) parsed} filter
+	 *                          of the requirement
+	 * @return the candidates for the requirement
+	 */
+	public List<ModuleCapability> findCapabilities(Requirement requirement, RequirementFilter requirementFilter) {
 		NamespaceSet namespaceSet = namespaceSets.get(requirement.getNamespace());
 		if (namespaceSet == null) {
 			return Collections.emptyList();
 		}
-		return namespaceSet.findCapabilities(requirement);
+		return namespaceSet.findCapabilities(requirement, requirementFilter);
 	}
 }
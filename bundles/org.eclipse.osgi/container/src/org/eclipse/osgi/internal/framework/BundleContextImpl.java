@@ -1035,7 +1035,8 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 	 */
 	@Override
 	public Filter createFilter(String filter) throws InvalidSyntaxException {
-		return FilterImpl.newInstance(filter, container.getConfiguration().getDebug().DEBUG_FILTER);
+		return FilterImpl.newInstance(filter, container.getFilterCache(),
+				container.getConfiguration().getDebug().DEBUG_FILTER);
 	}
 
 	/**
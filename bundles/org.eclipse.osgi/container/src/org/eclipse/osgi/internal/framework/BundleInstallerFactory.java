@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.framework;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.osgi.container.Module;
+import org.eclipse.osgi.service.install.BundleInstaller;
+import org.eclipse.osgi.storage.Storage;
+import org.eclipse.osgi.storage.Storage.InstallRequest;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Creates a bundle installer for each bundle using the service. The bundles are
+ * installed on behalf of the using bundle, the same as installing them with its
+ * bundle context.
+ */
+class BundleInstallerFactory implements ServiceFactory<BundleInstaller> {
+	private final Storage storage;
+
+	BundleInstallerFactory(Storage storage) {
+		this.storage = storage;
+	}
+
+	@Override
+	public BundleInstaller getService(Bundle bundle, ServiceRegistration<BundleInstaller> registration) {
+		return new BundleInstallerImpl(((EquinoxBundle) bundle).getModule());
+	}
+
+	@Override
+	public void ungetService(Bundle bundle, ServiceRegistration<BundleInstaller> registration,
+			BundleInstaller service) {
+		// nothing
+	}
+
+	private class BundleInstallerImpl implements BundleInstaller {
+		private final Module origin;
+
+		BundleInstallerImpl(Module origin) {
+			this.origin = origin;
+		}
+
+		@Override
+		public List<InstallResult> installBundles(Map<String, InputStream> bundles) {
+			List<InstallRequest> requests = new ArrayList<>(bundles.size());
+			for (Map.Entry<String, InputStream> bundle : bundles.entrySet()) {
+				requests.add(new InstallRequest(bundle.getKey(), bundle.getValue()));
+			}
+			storage.install(origin, requests);
+			return new ArrayList<>(requests);
+		}
+	}
+}
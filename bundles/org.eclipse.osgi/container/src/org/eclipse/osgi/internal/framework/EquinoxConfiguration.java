@@ -140,6 +140,12 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 
 	public final boolean CLASS_CERTIFICATE;
 	public final boolean PARALLEL_CAPABLE;
+	public final int CLASS_LOADER_MISS_CACHE_SIZE;
+	public final boolean CLASSPATH_INDEX;
+	public final boolean CLASS_LOCATION_INDEX;
+	public final boolean STORAGE_JOURNAL;
+	public final boolean STORAGE_LAZY_LOAD;
+	public final boolean BUNDLE_FILE_MAPPED;
 
 	private final Map<Throwable, Integer> exceptions = new LinkedHashMap<>(0);
 
@@ -216,6 +222,13 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public final static String PROP_CLASS_CERTIFICATE_SUPPORT = "osgi.support.class.certificate"; //$NON-NLS-1$
 	public final static String PROP_CLASS_LOADER_TYPE = "osgi.classloader.type"; //$NON-NLS-1$
 	public final static String CLASS_LOADER_TYPE_PARALLEL = "parallel"; //$NON-NLS-1$
+	public final static String PROP_CLASS_LOADER_MISS_CACHE_SIZE = "equinox.classloader.miss.cache.size"; //$NON-NLS-1$
+	public final static int CLASS_LOADER_MISS_CACHE_SIZE_DEFAULT = 0;
+	public final static String PROP_CLASSPATH_INDEX = "equinox.classloader.classpath.index"; //$NON-NLS-1$
+	public final static String PROP_CLASS_LOCATION_INDEX = "equinox.classloader.location.index"; //$NON-NLS-1$
+	public final static String PROP_STORAGE_JOURNAL = "equinox.storage.journal"; //$NON-NLS-1$
+	public final static String PROP_STORAGE_LAZY_LOAD = "equinox.storage.lazy.load"; //$NON-NLS-1$
+	public final static String PROP_BUNDLE_FILE_MAPPED = "equinox.bundlefile.mapped"; //$NON-NLS-1$
 
 	public static final String PROP_FORCED_RESTART = "osgi.forcedRestart"; //$NON-NLS-1$
 	public static final String PROP_IGNORE_USER_CONFIGURATION = "eclipse.ignoreUserConfiguration"; //$NON-NLS-1$
@@ -238,9 +251,19 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public static final String PROP_RESOLVER_THREAD_COUNT = "equinox.resolver.thead.count"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_RESOLVER_THREAD_COUNT = "equinox.resolver.thread.count"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_START_LEVEL_THREAD_COUNT = "equinox.start.level.thread.count"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_INSTALL_THREAD_COUNT = "equinox.install.thread.count"; //$NON-NLS-1$
 	public static final String PROP_EQUINOX_START_LEVEL_RESTRICT_PARALLEL = "equinox.start.level.restrict.parallel"; //$NON-NLS-1$
+	public static final String PROP_EQUINOX_EVENT_DISPATCH_THREAD_COUNT = "equinox.event.dispatch.thread.count"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_REVISION_BATCH_SIZE = "equinox.resolver.revision.batch.size"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_BATCH_TIMEOUT = "equinox.resolver.batch.timeout"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_PARTITION = "equinox.resolver.partition"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_INCREMENTAL = "equinox.resolver.incremental"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_PACKAGE_SPACE_CACHE = "equinox.resolver.package.space.cache"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_METRICS = "equinox.resolver.metrics"; //$NON-NLS-1$
+
+	public static final String PROP_SERVICE_REGISTRY_INDEXED_PROPERTIES = "equinox.serviceregistry.indexed.properties"; //$NON-NLS-1$
+	public static final String SERVICE_REGISTRY_INDEXED_PROPERTIES_DEFAULT = "service.pid,component.name"; //$NON-NLS-1$
+	public static final String PROP_SERVICE_REGISTRY_METRICS = "equinox.serviceregistry.metrics"; //$NON-NLS-1$
 
 	public static final String PROP_SYSTEM_PROVIDE_HEADER = "equinox.system.provide.header"; //$NON-NLS-1$
 	public static final String SYSTEM_PROVIDE_HEADER_ORIGINAL = "original"; //$NON-NLS-1$
@@ -660,6 +683,19 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 		throwErrorOnFailedStart = "true".equals(getConfiguration(PROP_COMPATIBILITY_ERROR_FAILED_START, "true")); //$NON-NLS-1$//$NON-NLS-2$
 
 		PARALLEL_CAPABLE = CLASS_LOADER_TYPE_PARALLEL.equals(getConfiguration(PROP_CLASS_LOADER_TYPE));
+		int missCacheSize = CLASS_LOADER_MISS_CACHE_SIZE_DEFAULT;
+		try {
+			missCacheSize = Integer.parseInt(getConfiguration(PROP_CLASS_LOADER_MISS_CACHE_SIZE,
+					Integer.toString(CLASS_LOADER_MISS_CACHE_SIZE_DEFAULT)));
+		} catch (NumberFormatException e) {
+			// use the default
+		}
+		CLASS_LOADER_MISS_CACHE_SIZE = Math.max(0, missCacheSize);
+		CLASSPATH_INDEX = "true".equals(getConfiguration(PROP_CLASSPATH_INDEX, "true")); //$NON-NLS-1$ //$NON-NLS-2$
+		CLASS_LOCATION_INDEX = "true".equals(getConfiguration(PROP_CLASS_LOCATION_INDEX)); //$NON-NLS-1$
+		STORAGE_JOURNAL = "true".equals(getConfiguration(PROP_STORAGE_JOURNAL)); //$NON-NLS-1$
+		STORAGE_LAZY_LOAD = "true".equals(getConfiguration(PROP_STORAGE_LAZY_LOAD)); //$NON-NLS-1$
+		BUNDLE_FILE_MAPPED = "true".equals(getConfiguration(PROP_BUNDLE_FILE_MAPPED)); //$NON-NLS-1$
 
 		// A specified osgi.dev property but unspecified osgi.checkConfiguration
 		// property implies osgi.checkConfiguration = true.
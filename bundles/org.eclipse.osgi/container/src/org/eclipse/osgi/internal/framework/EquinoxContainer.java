@@ -32,6 +32,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.osgi.framework.eventmgr.ListenerQueue;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.SecureAction;
@@ -77,6 +78,9 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 	private final Object monitor = new Object();
 
 	private final ClassLoader bootLoader;
+	/* incremented each time the module database is updated */
+	private final AtomicLong moduleDatabaseUpdates = new AtomicLong();
+	private final FilterCache filterCache = new FilterCache(FilterCache.DEFAULT_MAX_SIZE);
 	private ServiceRegistry serviceRegistry;
 	private ContextFinder contextFinder;
 
@@ -210,6 +214,32 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 		return false;
 	}
 
+	/**
+	 * Returns the number of times the module database has been updated, for
+	 * example because modules were installed, resolved or refreshed. This allows
+	 * cached lookup results which depend on the wiring to be validated without
+	 * locking the module database.
+	 *
+	 * @return the number of module database updates.
+	 */
+	public long getModuleDatabaseUpdates() {
+		return moduleDatabaseUpdates.get();
+	}
+
+	void updatedModuleDatabase() {
+		moduleDatabaseUpdates.incrementAndGet();
+	}
+
+	/**
+	 * Returns the cache of the filters created by the bundle contexts and service
+	 * listeners of this framework.
+	 *
+	 * @return the filter cache.
+	 */
+	public FilterCache getFilterCache() {
+		return filterCache;
+	}
+
 	public boolean isProcessClassRecursionSupportedByAll() {
 		return isProcessClassRecursionSupportedByAll;
 	}
@@ -68,6 +68,8 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 	final Callable<Executor> lazyResolverExecutorCreator;
 	final AtomicLazyInitializer<Executor> startLevelExecutor;
 	final Callable<Executor> lazyStartLevelExecutorCreator;
+	final AtomicLazyInitializer<Executor> installExecutor;
+	final Callable<Executor> lazyInstallExecutorCreator;
 
 	public EquinoxContainerAdaptor(EquinoxContainer container, Storage storage, Map<Long, Generation> initial) {
 		this.container = container;
@@ -126,6 +128,21 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 				"Equinox start level thread - " + EquinoxContainerAdaptor.this.toString(), //$NON-NLS-1$
 				startLevelThreadCnt, new LinkedBlockingQueue<>(1000));
 
+		String installThreadCntProp = config.getConfiguration(EquinoxConfiguration.PROP_EQUINOX_INSTALL_THREAD_COUNT);
+		int installThreadCnt;
+		try {
+			// Note that install thread count defaults to -1 (compute based on processor
+			// number)
+			installThreadCnt = installThreadCntProp == null ? -1 : Integer.parseInt(installThreadCntProp);
+		} catch (NumberFormatException e) {
+			installThreadCnt = -1;
+		}
+		// For batch installs use a SynchronousQueue for the same reason as the resolver;
+		// concurrent batch installs each wait for their own work to finish.
+		this.installExecutor = new AtomicLazyInitializer<>();
+		this.lazyInstallExecutorCreator = createLazyExecutorCreator(//
+				"Equinox install thread - " + EquinoxContainerAdaptor.this.toString(), //$NON-NLS-1$
+				installThreadCnt, new SynchronousQueue<>());
 	}
 
 	private Callable<Executor> createLazyExecutorCreator(final String threadName, int threadCnt,
@@ -378,6 +395,8 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 
 	@Override
 	public void updatedDatabase() {
+		container.updatedModuleDatabase();
+		storage.checkClassLocationIndex();
 		StorageSaver saver = container.getStorageSaver();
 		if (saver == null)
 			return;
@@ -409,6 +428,16 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		return startLevelExecutor.getInitialized(lazyStartLevelExecutorCreator);
 	}
 
+	/**
+	 * Returns the executor used to stage the content of bundles installed with a
+	 * batch install.
+	 * 
+	 * @return the install executor
+	 */
+	public Executor getInstallExecutor() {
+		return installExecutor.getInitialized(lazyInstallExecutorCreator);
+	}
+
 	@Override
 	public ScheduledExecutorService getScheduledExecutor() {
 		return container.getScheduledExecutor();
@@ -423,6 +452,10 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		if (current instanceof ExecutorService) {
 			((ExecutorService) current).shutdown();
 		}
+		current = installExecutor.getAndClear();
+		if (current instanceof ExecutorService) {
+			((ExecutorService) current).shutdown();
+		}
 	}
 
 	@Override
@@ -76,7 +76,19 @@ public class EquinoxEventPublisher {
 
 	void init() {
 		// create our event manager on init()
-		resetEventManager(new EventManager("Framework Event Dispatcher: " + container.toString())); //$NON-NLS-1$
+		resetEventManager(new EventManager("Framework Event Dispatcher: " + container.toString(), null, //$NON-NLS-1$
+				getDispatchThreadCount()));
+	}
+
+	private int getDispatchThreadCount() {
+		String threadCountProp = container.getConfiguration()
+				.getConfiguration(EquinoxConfiguration.PROP_EQUINOX_EVENT_DISPATCH_THREAD_COUNT);
+		try {
+			// Note that the dispatch thread count defaults to 1 (a single event thread)
+			return threadCountProp == null ? 1 : Integer.parseInt(threadCountProp);
+		} catch (NumberFormatException e) {
+			return 1;
+		}
 	}
 
 	void close() {
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.framework;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.osgi.framework.InvalidSyntaxException;
+
+/**
+ * A bounded cache of parsed filters. The same filter strings are parsed over
+ * and over again, for example by service trackers and service listeners. Since
+ * a parsed filter is immutable the same instance can be shared by all users of
+ * a filter string.
+ * <p>
+ * Filters are cached by the filter string they are created with and by their
+ * normalized filter string so that filter strings which only differ in
+ * insignificant white space share the same instance. The cache only holds weak
+ * references to the filters; a filter is dropped from the cache once it is no
+ * longer used. The number of entries is bounded; when the bound is exceeded
+ * arbitrary entries are evicted.
+ * <p>
+ * Each framework has its own cache, see {@link EquinoxContainer#getFilterCache()}.
+ *
+ * @ThreadSafe
+ */
+public final class FilterCache {
+	/** the default maximum number of cached filter strings */
+	static final int DEFAULT_MAX_SIZE = 4096;
+
+	private final int maxSize;
+	private final ConcurrentMap<String, FilterReference> filters;
+	private final ReferenceQueue<FilterImpl> queue = new ReferenceQueue<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a filter cache.
+	 *
+	 * @param maxSize The maximum number of cached filter strings.
+	 */
+	public FilterCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.filters = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the parsed filter for the specified filter string. The filter is
+	 * returned from the cache if it is present otherwise the filter string is
+	 * parsed and the result is added to the cache.
+	 *
+	 * @param filterString The filter string.
+	 * @return The parsed filter.
+	 * @throws InvalidSyntaxException If the filter string is invalid.
+	 */
+	FilterImpl getFilter(String filterString) throws InvalidSyntaxException {
+		FilterImpl filter = get(filterString);
+		if (filter != null) {
+			hits.increment();
+			return filter;
+		}
+		misses.increment();
+		filter = FilterImpl.parse(filterString, false);
+		purge();
+		String normalized = filter.toString();
+		if (!normalized.equals(filterString)) {
+			// share the instance with equivalent filter strings
+			filter = putIfAbsent(normalized, filter);
+		}
+		return putIfAbsent(filterString, filter);
+	}
+
+	private FilterImpl get(String filterString) {
+		FilterReference ref = filters.get(filterString);
+		return (ref == null) ? null : ref.get();
+	}
+
+	private FilterImpl putIfAbsent(String filterString, FilterImpl filter) {
+		FilterReference newRef = new FilterReference(filterString, filter, queue);
+		while (true) {
+			FilterReference existingRef = filters.putIfAbsent(filterString, newRef);
+			if (existingRef == null) {
+				return filter;
+			}
+			FilterImpl existing = existingRef.get();
+			if (existing != null) {
+				return existing;
+			}
+			// replace the cleared reference
+			if (filters.replace(filterString, existingRef, newRef)) {
+				return filter;
+			}
+		}
+	}
+
+	/**
+	 * Remove the entries of filters which have been garbage collected and evict
+	 * entries if the cache is larger than its maximum size.
+	 */
+	private void purge() {
+		FilterReference ref;
+		while ((ref = (FilterReference) queue.poll()) != null) {
+			filters.remove(ref.key, ref);
+		}
+		if (filters.size() >= maxSize) {
+			// evict down to three quarters of the maximum size
+			int toEvict = filters.size() - (maxSize * 3 / 4);
+			for (Iterator<FilterReference> iEntries = filters.values().iterator(); toEvict > 0
+					&& iEntries.hasNext(); toEvict--) {
+				iEntries.next();
+				iEntries.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of filters which were found in the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of filters which had to be parsed because they were not
+	 * found in the cache.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of filter strings currently in the cache. This may
+	 * include entries of filters which have been garbage collected but not yet
+	 * purged.
+	 *
+	 * @return The size of the cache.
+	 */
+	public int size() {
+		return filters.size();
+	}
+
+	/**
+	 * Removes all entries from the cache. The statistics are not reset.
+	 */
+	public void clear() {
+		filters.clear();
+	}
+
+	/**
+	 * Resets the hit and miss counts.
+	 */
+	public void resetStatistics() {
+		hits.reset();
+		misses.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "FilterCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	private static final class FilterReference extends WeakReference<FilterImpl> {
+		final String key;
+
+		FilterReference(String key, FilterImpl filter, ReferenceQueue<FilterImpl> queue) {
+			super(filter, queue);
+			this.key = key;
+		}
+	}
+}
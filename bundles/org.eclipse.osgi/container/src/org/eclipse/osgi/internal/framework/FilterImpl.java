@@ -31,6 +31,7 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.Function;
 import org.eclipse.osgi.framework.util.CaseInsensitiveDictionaryMap;
@@ -43,6 +44,7 @@ import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.Version;
+import org.osgi.framework.VersionRange;
 
 /**
  * RFC 1960-based Filter. Filter objects can be created by calling the
@@ -176,6 +178,30 @@ public abstract class FilterImpl implements Filter {
 	}
 
 	public static FilterImpl newInstance(String filterString, boolean debug) throws InvalidSyntaxException {
+		return parse(filterString, debug);
+	}
+
+	/**
+	 * Creates a {@link FilterImpl} object using the filter cache of a framework.
+	 * Filters are immutable and the returned filter may be shared with other
+	 * callers which created a filter from an equivalent filter string.
+	 *
+	 * @param filterString the filter string.
+	 * @param cache        the filter cache or {@code null}.
+	 * @param debug        whether to debug the filter; debug filters are not
+	 *                     cached.
+	 * @throws InvalidSyntaxException If the filter parameter contains an invalid
+	 *                                filter string that cannot be parsed.
+	 */
+	public static FilterImpl newInstance(String filterString, FilterCache cache, boolean debug)
+			throws InvalidSyntaxException {
+		if (debug || cache == null) {
+			return parse(filterString, debug);
+		}
+		return cache.getFilter(filterString);
+	}
+
+	static FilterImpl parse(String filterString, boolean debug) throws InvalidSyntaxException {
 		return new Parser(filterString, debug).parse();
 	}
 
@@ -196,7 +222,10 @@ public abstract class FilterImpl implements Filter {
 	 */
 	@Override
 	public boolean match(ServiceReference<?> reference) {
-		return matches0((reference != null) ? ServiceReferenceMap.asMap(reference) : Collections.emptyMap());
+		if (reference instanceof ServiceReferenceImpl) {
+			return matches0(((ServiceReferenceImpl<?>) reference).getRegistration().getProperties(), true);
+		}
+		return matches0((reference != null) ? ServiceReferenceMap.asMap(reference) : Collections.emptyMap(), false);
 	}
 
 	/**
@@ -213,7 +242,8 @@ public abstract class FilterImpl implements Filter {
 	 */
 	@Override
 	public boolean match(Dictionary<String, ?> dictionary) {
-		return matches0((dictionary != null) ? new CaseInsensitiveDictionaryMap<>(dictionary) : Collections.emptyMap());
+		return matches0((dictionary != null) ? new CaseInsensitiveDictionaryMap<>(dictionary) : Collections.emptyMap(),
+				true);
 	}
 
 	/**
@@ -229,7 +259,7 @@ public abstract class FilterImpl implements Filter {
 	 */
 	@Override
 	public boolean matchCase(Dictionary<String, ?> dictionary) {
-		return matches0((dictionary != null) ? DictionaryMap.asMap(dictionary) : Collections.emptyMap());
+		return matches0((dictionary != null) ? DictionaryMap.asMap(dictionary) : Collections.emptyMap(), false);
 	}
 
 	/**
@@ -246,10 +276,21 @@ public abstract class FilterImpl implements Filter {
 	 */
 	@Override
 	public boolean matches(Map<String, ?> map) {
-		return matches0((map != null) ? map : Collections.emptyMap());
+		return matches0((map != null) ? map : Collections.emptyMap(), false);
 	}
 
-	abstract boolean matches0(Map<String, ?> map);
+	/**
+	 * Evaluate this filter against the specified map.
+	 *
+	 * @param map             The map to evaluate the filter against.
+	 * @param caseInsensitive {@code true} if the map is a
+	 *                        {@link CaseInsensitiveDictionaryMap} or an unmodifiable
+	 *                        view of one. The attribute keys of the filter are then
+	 *                        looked up using their precomputed case-insensitive
+	 *                        wrapping.
+	 * @return {@code true} if the map matches this filter.
+	 */
+	abstract boolean matches0(Map<String, ?> map, boolean caseInsensitive);
 
 	/**
 	 * Returns this {@code Filter}'s filter string.
@@ -323,9 +364,9 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		@Override
-		boolean matches0(Map<String, ?> map) {
+		boolean matches0(Map<String, ?> map, boolean caseInsensitive) {
 			for (FilterImpl operand : operands) {
-				if (!operand.matches0(map)) {
+				if (!operand.matches0(map, caseInsensitive)) {
 					return false;
 				}
 			}
@@ -381,6 +422,22 @@ public abstract class FilterImpl implements Filter {
 				operand.addAttributes(attributes, versionAttrs, false);
 			}
 		}
+
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			if (not) {
+				// a negated '&' clause is an '|' clause
+				return null;
+			}
+			VersionRange result = null;
+			for (FilterImpl operand : operands) {
+				VersionRange range = operand.versionRange(versionAttr, false);
+				if (range != null) {
+					result = (result == null) ? range : result.intersection(range);
+				}
+			}
+			return result;
+		}
 	}
 
 	static final class Or extends FilterImpl {
@@ -391,9 +448,9 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		@Override
-		boolean matches0(Map<String, ?> map) {
+		boolean matches0(Map<String, ?> map, boolean caseInsensitive) {
 			for (FilterImpl operand : operands) {
-				if (operand.matches0(map)) {
+				if (operand.matches0(map, caseInsensitive)) {
 					return true;
 				}
 			}
@@ -440,8 +497,8 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		@Override
-		boolean matches0(Map<String, ?> map) {
-			return !operand.matches0(map);
+		boolean matches0(Map<String, ?> map, boolean caseInsensitive) {
+			return !operand.matches0(map, caseInsensitive);
 		}
 
 		@Override
@@ -465,21 +522,33 @@ public abstract class FilterImpl implements Filter {
 		void addAttributes(Map<String, String> attributes, Map<String, Range> versionAttrs, boolean not) {
 			operand.addAttributes(attributes, versionAttrs, true);
 		}
+
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			return operand.versionRange(versionAttr, !not);
+		}
 	}
 
 	static abstract class Item extends FilterImpl {
 		/** debug mode */
 		final boolean debug;
 		final String attr;
+		/** case-insensitive key of attr */
+		private final Object key;
 
 		Item(String attr, boolean debug) {
 			this.attr = attr;
+			this.key = CaseInsensitiveDictionaryMap.caseInsensitiveKey(attr);
 			this.debug = debug;
 		}
 
 		@Override
-		boolean matches0(Map<String, ?> map) {
-			return compare(map.get(attr));
+		boolean matches0(Map<String, ?> map, boolean caseInsensitive) {
+			return compare(get(map, caseInsensitive));
+		}
+
+		final Object get(Map<String, ?> map, boolean caseInsensitive) {
+			return map.get(caseInsensitive ? key : attr);
 		}
 
 		abstract String operation();
@@ -497,12 +566,19 @@ public abstract class FilterImpl implements Filter {
 			if (value1 == null) {
 				return false;
 			}
+			// check the most common value types first
 			if (value1 instanceof String) {
 				return compare_String((String) value1);
 			}
+			if (value1 instanceof Long || value1 instanceof Integer) {
+				return compare_Long(((Number) value1).longValue());
+			}
 			if (value1 instanceof Version) {
 				return compare_Version((Version) value1);
 			}
+			if (value1 instanceof Collection<?>) {
+				return compare_Collection((Collection<?>) value1);
+			}
 
 			Class<?> clazz = value1.getClass();
 			if (clazz.isArray()) {
@@ -512,11 +588,7 @@ public abstract class FilterImpl implements Filter {
 				}
 				return compare_ObjectArray((Object[]) value1);
 			}
-			if (value1 instanceof Collection<?>) {
-				return compare_Collection((Collection<?>) value1);
-			}
-			if (value1 instanceof Integer || value1 instanceof Long || value1 instanceof Byte
-					|| value1 instanceof Short) {
+			if (value1 instanceof Byte || value1 instanceof Short) {
 				return compare_Long(((Number) value1).longValue());
 			}
 			if (value1 instanceof Character) {
@@ -540,6 +612,16 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		private boolean compare_Collection(Collection<?> collection) {
+			if (collection instanceof List<?> && collection instanceof RandomAccess) {
+				// avoid allocating an iterator
+				List<?> list = (List<?>) collection;
+				for (int i = 0, size = list.size(); i < size; i++) {
+					if (compare(list.get(i))) {
+						return true;
+					}
+				}
+				return false;
+			}
 			for (Object value1 : collection) {
 				if (compare(value1)) {
 					return true;
@@ -733,11 +815,11 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		@Override
-		boolean matches0(Map<String, ?> map) {
+		boolean matches0(Map<String, ?> map, boolean caseInsensitive) {
 			if (debug) {
 				Debug.println("PRESENT(" + attr + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			return map.get(attr) != null;
+			return get(map, caseInsensitive) != null;
 		}
 
 		@Override
@@ -844,24 +926,74 @@ public abstract class FilterImpl implements Filter {
 	}
 
 	static class Equal extends Item {
+		/** maximum number of converted values kept per item */
+		private static final int MAX_CONVERSIONS = 8;
+		/** marker for a value which cannot be converted to a type */
+		private static final Object NOT_CONVERTIBLE = new Object();
+		/** function which converts a string to a value of a type by reflection */
+		private static final ClassValue<Function<String, Object>> VALUE_OF = new ClassValue<Function<String, Object>>() {
+			@Override
+			protected Function<String, Object> computeValue(Class<?> type) {
+				return valueOfFunction(type);
+			}
+		};
+
 		final String value;
-		private Object cached;
+		/** the value converted to the types it has been compared against */
+		private volatile Conversion conversions;
 
 		Equal(String attr, String value, boolean debug) {
 			super(attr, debug);
 			this.value = value;
 		}
 
+		/**
+		 * Returns the value converted to the specified type. The converted value is
+		 * cached for the type so the conversion is only done once per type.
+		 *
+		 * @param type      The type to convert the value to.
+		 * @param converter The function used to convert the trimmed value.
+		 * @return The converted value or {@code null} if the value cannot be
+		 *         converted to the type.
+		 */
 		private <T> T convert(Class<T> type, Function<String, ? extends T> converter) {
-			@SuppressWarnings("unchecked")
-			T converted = (T) cached;
-			if ((converted != null) && type.isInstance(converted)) {
-				return converted;
+			Conversion head = conversions;
+			int count = 0;
+			for (Conversion c = head; c != null; c = c.next) {
+				if (c.type == type) {
+					return (c.converted == NOT_CONVERTIBLE) ? null : type.cast(c.converted);
+				}
+				count++;
 			}
-			cached = converted = converter.apply(value.trim());
+			T converted;
+			try {
+				converted = converter.apply(value.trim());
+			} catch (IllegalArgumentException e) {
+				// includes NumberFormatException
+				converted = null;
+			}
+			// racing threads compute the same conversion; losing an entry just costs
+			// another conversion
+			conversions = new Conversion(type, (converted == null) ? NOT_CONVERTIBLE : converted,
+					(count < MAX_CONVERSIONS) ? head : null);
 			return converted;
 		}
 
+		/**
+		 * An immutable entry in the list of converted values of an item.
+		 */
+		private static final class Conversion {
+			final Class<?> type;
+			final Object converted;
+			final Conversion next;
+
+			Conversion(Class<?> type, Object converted, Conversion next) {
+				this.type = type;
+				this.converted = converted;
+				this.next = next;
+			}
+		}
+
 		@Override
 		String operation() {
 			return "EQUAL"; //$NON-NLS-1$
@@ -876,6 +1008,21 @@ public abstract class FilterImpl implements Filter {
 			return compare == 0;
 		}
 
+		/**
+		 * Returns the value converted to a version if this item compares the specified
+		 * version attribute.
+		 */
+		Version version(String versionAttr) {
+			return attr.equals(versionAttr) ? convert(Version.class, Version::valueOf) : null;
+		}
+
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			Version version = not ? null : version(versionAttr);
+			return (version == null) ? null
+					: new VersionRange(VersionRange.LEFT_CLOSED, version, version, VersionRange.RIGHT_CLOSED);
+		}
+
 		@Override
 		boolean compare_String(String string) {
 			return comparison((string == value) ? 0 : string.compareTo(value));
@@ -883,11 +1030,14 @@ public abstract class FilterImpl implements Filter {
 
 		@Override
 		boolean compare_Version(Version value1) {
+			Version version2 = convert(Version.class, Version::valueOf);
+			if (version2 == null) {
+				return false;
+			}
 			try {
-				Version version2 = convert(Version.class, Version::valueOf);
 				return comparison(value1.compareTo(version2));
 			} catch (Exception e) {
-				// if the valueOf or compareTo method throws an exception
+				// if the compareTo method throws an exception
 				return false;
 			}
 		}
@@ -911,35 +1061,29 @@ public abstract class FilterImpl implements Filter {
 
 		@Override
 		boolean compare_Double(double doubleval) {
-			double doubleval2;
-			try {
-				doubleval2 = convert(Double.class, Double::valueOf).doubleValue();
-			} catch (IllegalArgumentException e) {
+			Double doubleval2 = convert(Double.class, Double::valueOf);
+			if (doubleval2 == null) {
 				return false;
 			}
-			return comparison(Double.compare(doubleval, doubleval2));
+			return comparison(Double.compare(doubleval, doubleval2.doubleValue()));
 		}
 
 		@Override
 		boolean compare_Float(float floatval) {
-			float floatval2;
-			try {
-				floatval2 = convert(Float.class, Float::valueOf).floatValue();
-			} catch (IllegalArgumentException e) {
+			Float floatval2 = convert(Float.class, Float::valueOf);
+			if (floatval2 == null) {
 				return false;
 			}
-			return comparison(Float.compare(floatval, floatval2));
+			return comparison(Float.compare(floatval, floatval2.floatValue()));
 		}
 
 		@Override
 		boolean compare_Long(long longval) {
-			long longval2;
-			try {
-				longval2 = convert(Long.class, Long::valueOf).longValue();
-			} catch (IllegalArgumentException e) {
+			Long longval2 = convert(Long.class, Long::valueOf);
+			if (longval2 == null) {
 				return false;
 			}
-			return comparison(Long.compare(longval, longval2));
+			return comparison(Long.compare(longval, longval2.longValue()));
 		}
 
 		@Override
@@ -977,6 +1121,27 @@ public abstract class FilterImpl implements Filter {
 		}
 
 		Object valueOf(Class<?> target) {
+			Function<String, Object> valueOf = VALUE_OF.get(target);
+			if (target.getClassLoader() != null) {
+				// filters are shared; do not keep classes of bundles reachable
+				return valueOf.apply(value.trim());
+			}
+			@SuppressWarnings("unchecked")
+			Class<Object> type = (Class<Object>) target;
+			return convert(type, valueOf);
+		}
+
+		/**
+		 * Returns a function which converts a string to a value of the specified type
+		 * using the public static {@code valueOf(String)} method or the public
+		 * {@code String} constructor of the type. The reflective lookup is only done
+		 * once per type.
+		 *
+		 * @param target The type to convert to.
+		 * @return A function returning the converted value or {@code null} if the
+		 *         string cannot be converted.
+		 */
+		static Function<String, Object> valueOfFunction(Class<?> target) {
 			do {
 				Method method;
 				try {
@@ -986,13 +1151,15 @@ public abstract class FilterImpl implements Filter {
 				}
 				if (Modifier.isStatic(method.getModifiers()) && target.isAssignableFrom(method.getReturnType())) {
 					setAccessible(method);
-					try {
-						return method.invoke(null, value.trim());
-					} catch (Error e) {
-						throw e;
-					} catch (Throwable e) {
-						return null;
-					}
+					return s -> {
+						try {
+							return method.invoke(null, s);
+						} catch (Error e) {
+							throw e;
+						} catch (Throwable e) {
+							return null;
+						}
+					};
 				}
 			} while (false);
 
@@ -1004,16 +1171,18 @@ public abstract class FilterImpl implements Filter {
 					break;
 				}
 				setAccessible(constructor);
-				try {
-					return constructor.newInstance(value.trim());
-				} catch (Error e) {
-					throw e;
-				} catch (Throwable e) {
-					return null;
-				}
+				return s -> {
+					try {
+						return constructor.newInstance(s);
+					} catch (Error e) {
+						throw e;
+					} catch (Throwable e) {
+						return null;
+					}
+				};
 			} while (false);
 
-			return null;
+			return s -> null;
 		}
 
 		private static void setAccessible(final AccessibleObject accessible) {
@@ -1080,6 +1249,18 @@ public abstract class FilterImpl implements Filter {
 			return encodeValue(sb, value).append(')');
 		}
 
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			Version version = version(versionAttr);
+			if (version == null) {
+				return null;
+			}
+			// (!(attr<=value)) is the range start "(value"
+			return not ? new VersionRange(VersionRange.LEFT_OPEN, version, null, VersionRange.RIGHT_OPEN)
+					: new VersionRange(VersionRange.LEFT_CLOSED, Version.emptyVersion, version,
+							VersionRange.RIGHT_CLOSED);
+		}
+
 		@Override
 		public String getPrimaryKeyValue(String primaryKey) {
 			return null;
@@ -1135,6 +1316,19 @@ public abstract class FilterImpl implements Filter {
 			return encodeValue(sb, value).append(')');
 		}
 
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			Version version = version(versionAttr);
+			if (version == null) {
+				return null;
+			}
+			// (!(attr>=value)) is the range end "value)"
+			return not
+					? new VersionRange(VersionRange.LEFT_CLOSED, Version.emptyVersion, version,
+							VersionRange.RIGHT_OPEN)
+					: new VersionRange(VersionRange.LEFT_CLOSED, version, null, VersionRange.RIGHT_OPEN);
+		}
+
 		@Override
 		public String getPrimaryKeyValue(String primaryKey) {
 			return null;
@@ -1211,6 +1405,12 @@ public abstract class FilterImpl implements Filter {
 			return encodeValue(sb, approx).append(')');
 		}
 
+		@Override
+		VersionRange versionRange(String versionAttr, boolean not) {
+			// approximate matching does not compare versions
+			return null;
+		}
+
 		/**
 		 * Map a string for an APPROX (~=) comparison. This implementation removes white
 		 * spaces. This is the minimum implementation allowed by the OSGi spec.
@@ -1316,6 +1516,29 @@ public abstract class FilterImpl implements Filter {
 
 	abstract void addAttributes(Map<String, String> attributes, Map<String, Range> versionAttrs, boolean not);
 
+	/**
+	 * Returns a range of versions of the specified version attribute which
+	 * contains all the {@link Version} values of the attribute this filter can
+	 * match. Only the attribute items of the filter and of base '&amp;' and '!'
+	 * clauses are considered, so the range may contain versions this filter does
+	 * not match. Values of the attribute which are not a {@code Version} are not
+	 * constrained by the range.
+	 * <p>
+	 * (&amp;(version&gt;=1.0)(!(version&gt;=2.0))) returns [1.0,2.0)<br>
+	 * (|(version=1.0)(version=2.0)) returns null
+	 *
+	 * @param versionAttr the version attribute
+	 * @return the range of versions or {@code null} if the filter does not
+	 *         constrain the versions of the attribute
+	 */
+	public VersionRange getVersionRange(String versionAttr) {
+		return versionRange(versionAttr, false);
+	}
+
+	VersionRange versionRange(String versionAttr, boolean not) {
+		return null;
+	}
+
 	/**
 	 * Parser class for OSGi filter strings. This class parses the complete filter
 	 * string and builds a tree of FilterImpl objects rooted at the parent.
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.framework;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.osgi.service.metrics.HistogramDTO;
+
+/**
+ * A low overhead histogram of non-negative values such as durations in
+ * nanoseconds or counts. Values are counted in buckets whose upper bounds are
+ * powers of two minus one; bucket {@code i} counts the values which need
+ * {@code i} bits.
+ *
+ * @ThreadSafe
+ */
+public final class Histogram {
+	private static final int BUCKETS = Long.SIZE;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public Histogram() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a value. Negative values are recorded as 0.
+	 *
+	 * @param value the value to record
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		buckets[BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Resets the histogram. Values recorded concurrently may be lost.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * Returns a snapshot of the histogram.
+	 *
+	 * @return A new HistogramDTO.
+	 */
+	public HistogramDTO toDTO() {
+		HistogramDTO dto = new HistogramDTO();
+		dto.count = count.sum();
+		dto.sum = sum.sum();
+		dto.max = max.get();
+		long[] counts = new long[BUCKETS];
+		int length = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			if (counts[i] != 0) {
+				length = i + 1;
+			}
+		}
+		dto.counts = new long[length];
+		dto.upperBounds = new long[length];
+		for (int i = 0; i < length; i++) {
+			dto.counts[i] = counts[i];
+			dto.upperBounds[i] = (1L << i) - 1; // Long.MAX_VALUE for the last bucket
+		}
+		return dto;
+	}
+}
@@ -33,7 +33,10 @@ import org.eclipse.osgi.internal.url.EquinoxFactoryManager;
 import org.eclipse.osgi.service.debug.DebugOptions;
 import org.eclipse.osgi.service.debug.DebugOptionsListener;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
+import org.eclipse.osgi.service.install.BundleInstaller;
 import org.eclipse.osgi.service.localization.BundleLocalization;
+import org.eclipse.osgi.service.metrics.ResolverMetrics;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetrics;
 import org.eclipse.osgi.service.urlconversion.URLConverter;
 import org.eclipse.osgi.storage.BundleLocalizationImpl;
 import org.eclipse.osgi.storage.url.BundleResourceHandler;
@@ -116,6 +119,13 @@ public class SystemBundleActivator implements BundleActivator {
 
 		register(bc, BundleLocalization.class, new BundleLocalizationImpl(), null);
 
+		register(bc, ServiceRegistryMetrics.class, equinoxContainer.getServiceRegistry().getMetrics(), null);
+
+		register(bc, ResolverMetrics.class, equinoxContainer.getStorage().getModuleContainer().getResolverMetrics(),
+				null);
+
+		register(bc, BundleInstaller.class, new BundleInstallerFactory(equinoxContainer.getStorage()), null);
+
 		boolean setTccl = "true".equals( //$NON-NLS-1$
 				bundle.getEquinoxContainer().getConfiguration().getConfiguration("eclipse.parsers.setTCCL", "true")); //$NON-NLS-1$ //$NON-NLS-2$
 		try {
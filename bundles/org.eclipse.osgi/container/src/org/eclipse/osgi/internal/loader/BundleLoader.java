@@ -29,6 +29,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -98,28 +100,29 @@ public class BundleLoader extends ModuleLoader {
 	private final Debug debug;
 	private final PolicyHandler policy;
 
-	/* List of package names that are exported by this BundleLoader */
-	private final Collection<String> exportedPackages;
+	/*
+	 * List of package names that are exported by this BundleLoader. The collection
+	 * is never modified; it is replaced when fragment exports are added.
+	 */
+	/* @GuardedBy("exportsMonitor") for writes */
+	private volatile Collection<String> exportedPackages;
+	private final Object exportsMonitor = new Object();
 	private final BundleLoaderSources exportSources;
 
 	/*
 	 * cache of required package sources. Key is packagename, value is PackageSource
 	 */
-	private final Map<String, PackageSource> requiredSources = new HashMap<>();
+	private final ConcurrentMap<String, PackageSource> requiredSources = new ConcurrentHashMap<>();
 	/* cache of imported packages. Key is packagename, Value is PackageSource */
-	private final Map<String, PackageSource> importedSources = new HashMap<>();
+	private final ConcurrentMap<String, PackageSource> importedSources = new ConcurrentHashMap<>();
 	private final List<ModuleWire> requiredBundleWires;
 
-	/* @GuardedBy("importedSources") */
-	private boolean importsInitialized = false;
-	/* @GuardedBy("importedSources") */
-	private boolean dynamicAllPackages;
-	/* If not null, list of package stems to import dynamically. */
-	/* @GuardedBy("importedSources") */
-	private String[] dynamicImportPackageStems;
-	/* @GuardedBy("importedSources") */
-	/* If not null, list of package names to import dynamically. */
-	private String[] dynamicImportPackages;
+	private final Object importsMonitor = new Object();
+	/* @GuardedBy("importsMonitor") for writes */
+	private volatile boolean importsInitialized = false;
+	/* The DynamicImport-Package patterns; null if there are none */
+	/* @GuardedBy("importsMonitor") for writes */
+	private volatile DynamicImports dynamicImports;
 
 	private final Object classLoaderCreatedMonitor = new Object();
 	/* @GuardedBy("classLoaderCreatedMonitor") */
@@ -128,6 +131,8 @@ public class BundleLoader extends ModuleLoader {
 	private final ClassLoader parent;
 	private final AtomicBoolean triggerClassLoaded = new AtomicBoolean(false);
 	private final AtomicBoolean firstUseOfInvalidLoader = new AtomicBoolean(false);
+	/* the names of classes and resources which could not be found, may be null */
+	private final LoaderMissCache missCache;
 
 	/**
 	 * Returns the package name from the specified class name. The returned package
@@ -169,14 +174,17 @@ public class BundleLoader extends ModuleLoader {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
 		this.parent = parent;
+		int missCacheSize = container.getConfiguration().CLASS_LOADER_MISS_CACHE_SIZE;
+		this.missCache = missCacheSize > 0 ? new LoaderMissCache(missCacheSize, container) : null;
 
 		// init the provided packages set
 		exportSources = new BundleLoaderSources(this);
 		List<ModuleCapability> exports = wiring.getModuleCapabilities(PackageNamespace.PACKAGE_NAMESPACE);
 		exports = exports == null ? Collections.emptyList() : exports;
-		exportedPackages = Collections.synchronizedCollection(
-				exports.size() > 10 ? new HashSet<String>(exports.size()) : new ArrayList<String>(exports.size()));
-		initializeExports(exports, exportSources, exportedPackages);
+		Collection<String> exportNames = exports.size() > 10 ? new HashSet<String>(exports.size())
+				: new ArrayList<String>(exports.size());
+		initializeExports(exports, exportSources, exportNames);
+		exportedPackages = exportNames;
 
 		// init the dynamic imports tables
 		addDynamicImportPackage(wiring.getModuleRequirements(PackageNamespace.PACKAGE_NAMESPACE));
@@ -209,7 +217,14 @@ public class BundleLoader extends ModuleLoader {
 	}
 
 	public void addFragmentExports(List<ModuleCapability> exports) {
-		initializeExports(exports, exportSources, exportedPackages);
+		synchronized (exportsMonitor) {
+			Collection<String> current = exportedPackages;
+			int size = current.size() + (exports == null ? 0 : exports.size());
+			Collection<String> exportNames = size > 10 ? new HashSet<String>(size) : new ArrayList<String>(size);
+			exportNames.addAll(current);
+			initializeExports(exports, exportSources, exportNames);
+			exportedPackages = exportNames;
+		}
 	}
 
 	private static void initializeExports(List<ModuleCapability> exports, BundleLoaderSources sources,
@@ -326,6 +341,8 @@ public class BundleLoader extends ModuleLoader {
 		addFragmentExports(wiring.getModuleCapabilities(PackageNamespace.PACKAGE_NAMESPACE));
 		loadClassLoaderFragments(fragments);
 		clearManifestLocalizationCache();
+		// the fragments may provide classes and resources which were not found before
+		invalidateMissCache();
 	}
 
 	protected void clearManifestLocalizationCache() {
@@ -481,6 +498,7 @@ public class BundleLoader extends ModuleLoader {
 				bootDelegation = true;
 			}
 		}
+		long missStamp = missCache != null ? missCache.stamp() : 0;
 		Class<?> result = null;
 		try {
 			result = (Class<?>) searchHooks(name, PRE_CLASS);
@@ -489,6 +507,10 @@ public class BundleLoader extends ModuleLoader {
 		}
 		if (result != null)
 			return result;
+		// the hooks are always asked first since they may find names which are missing
+		if (missCache != null && missCache.isMissingClass(name, missStamp)) {
+			return findMissingClass(name, pkgName, parentDelegation, bootDelegation, generateException);
+		}
 		// 3) search the imported packages
 		PackageSource source = findImportedSource(pkgName, null);
 		if (source != null) {
@@ -504,6 +526,7 @@ public class BundleLoader extends ModuleLoader {
 			}
 			if (result != null)
 				return result;
+			addMissingClass(name, missStamp);
 			return generateException(name, generateException);
 		}
 		// 4) search the required bundles
@@ -528,21 +551,61 @@ public class BundleLoader extends ModuleLoader {
 				result = source.loadClass(name);
 				if (result != null)
 					return result;
+				addMissingClass(name, missStamp);
 				return generateException(name, generateException);
 			}
 		}
 
-		if (result == null)
+		if (result == null) {
+			LoaderMissCache.beginDelegation();
 			try {
-				result = (Class<?>) searchHooks(name, POST_CLASS);
-			} catch (FileNotFoundException e) {
-				// will not happen
+				try {
+					result = (Class<?>) searchHooks(name, POST_CLASS);
+				} catch (FileNotFoundException e) {
+					// will not happen
+				}
+				// do buddy policy loading
+				if (result == null && policy != null)
+					result = policy.doBuddyClassLoading(name);
+			} finally {
+				LoaderMissCache.endDelegation();
 			}
-		// do buddy policy loading
-		if (result == null && policy != null)
-			result = policy.doBuddyClassLoading(name);
+		}
 		if (result != null)
 			return result;
+		addMissingClass(name, missStamp);
+		return findParentClass(name, parentDelegation, bootDelegation, generateException);
+	}
+
+	/**
+	 * Handles a class which is known to be missing from the miss cache. The search
+	 * ends the same way it ended when the class was not found.
+	 */
+	private Class<?> findMissingClass(String name, String pkgName, boolean parentDelegation, boolean bootDelegation,
+			boolean generateException) throws ClassNotFoundException {
+		if (debug.DEBUG_LOADER) {
+			Debug.println("BundleLoader[" + this + "] class is known to be missing: " + name + " " + missCache); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		// in case something is reflectively calling defineClass on our loader.
+		Class<?> result = getModuleClassLoader().publicFindLoaded(name);
+		if (result != null) {
+			return result;
+		}
+		if (findImportedSource(pkgName, null) != null) {
+			// the search terminates at an import source
+			return generateException(name, generateException);
+		}
+		return findParentClass(name, parentDelegation, bootDelegation, generateException);
+	}
+
+	private void addMissingClass(String name, long missStamp) {
+		if (missCache != null) {
+			missCache.addMissingClass(name, missStamp);
+		}
+	}
+
+	private Class<?> findParentClass(String name, boolean parentDelegation, boolean bootDelegation,
+			boolean generateException) throws ClassNotFoundException {
 		// hack to support backwards compatibility for bootdelegation
 		// or last resort; do class context trick to work around VM bugs
 		if (parentDelegation && parent != null && !bootDelegation
@@ -689,7 +752,7 @@ public class BundleLoader extends ModuleLoader {
 				bootDelegation = true;
 			}
 		}
-
+		long missStamp = missCache != null ? missCache.stamp() : 0;
 		URL result = null;
 		try {
 			result = (URL) searchHooks(name, PRE_RESOURCE);
@@ -700,6 +763,10 @@ public class BundleLoader extends ModuleLoader {
 		}
 		if (result != null)
 			return result;
+		// the hooks are always asked first since they may find names which are missing
+		if (missCache != null && missCache.isMissingResource(name, missStamp)) {
+			return findMissingResource(name, pkgName, bootDelegation);
+		}
 		// 3) search the imported packages
 		PackageSource source = findImportedSource(pkgName, null);
 		if (source != null) {
@@ -707,7 +774,11 @@ public class BundleLoader extends ModuleLoader {
 				Debug.println("BundleLoader[" + this + "] loading from import package: " + source); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 			// 3) found import source terminate search at the source
-			return source.getResource(name);
+			result = source.getResource(name);
+			if (result == null) {
+				addMissingResource(name, missStamp);
+			}
+			return result;
 		}
 		// 4) search the required bundles
 		source = findRequiredSource(pkgName, null);
@@ -727,31 +798,100 @@ public class BundleLoader extends ModuleLoader {
 		// was not found
 		if (source == null) {
 			source = findDynamicSource(pkgName);
-			if (source != null)
+			if (source != null) {
 				// must return the result of the dynamic import and do not continue
-				return source.getResource(name);
+				result = source.getResource(name);
+				if (result == null) {
+					addMissingResource(name, missStamp);
+				}
+				return result;
+			}
 		}
 
-		if (result == null)
+		if (result == null) {
+			LoaderMissCache.beginDelegation();
 			try {
-				result = (URL) searchHooks(name, POST_RESOURCE);
-			} catch (FileNotFoundException e) {
-				return null;
-			} catch (ClassNotFoundException e) {
-				// will not happen
+				try {
+					result = (URL) searchHooks(name, POST_RESOURCE);
+				} catch (FileNotFoundException e) {
+					return null;
+				} catch (ClassNotFoundException e) {
+					// will not happen
+				}
+				// do buddy policy loading
+				if (result == null && policy != null)
+					result = policy.doBuddyResourceLoading(name);
+			} finally {
+				LoaderMissCache.endDelegation();
 			}
-		// do buddy policy loading
-		if (result == null && policy != null)
-			result = policy.doBuddyResourceLoading(name);
+		}
 		if (result != null)
 			return result;
+		addMissingResource(name, missStamp);
+		return findParentResource(name, bootDelegation);
+	}
+
+	/**
+	 * Handles a resource which is known to be missing from the miss cache. The
+	 * search ends the same way it ended when the resource was not found.
+	 */
+	private URL findMissingResource(String name, String pkgName, boolean bootDelegation) {
+		if (debug.DEBUG_LOADER) {
+			Debug.println("BundleLoader[" + this + "] resource is known to be missing: " + name + " " + missCache); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		if (findImportedSource(pkgName, null) != null) {
+			// the search terminates at an import source
+			return null;
+		}
+		return findParentResource(name, bootDelegation);
+	}
+
+	private void addMissingResource(String name, long missStamp) {
+		if (missCache != null) {
+			missCache.addMissingResource(name, missStamp);
+		}
+	}
+
+	private URL findParentResource(String name, boolean bootDelegation) {
 		// hack to support backwards compatibility for bootdelegation
 		// or last resort; do class context trick to work around VM bugs
 		if (parent != null && !bootDelegation
 				&& (container.getConfiguration().compatibilityBootDelegation || isRequestFromVM()))
 			// we don't need to continue if the resource is not found here
 			return parent.getResource(name);
-		return result;
+		return null;
+	}
+
+	/**
+	 * Returns the number of class and resource lookups which found the name in the
+	 * miss cache of this loader.
+	 * 
+	 * @return the number of miss cache hits or {@code -1} if the miss cache is
+	 *         disabled
+	 */
+	public long getMissCacheHitCount() {
+		return missCache == null ? -1 : missCache.getHitCount();
+	}
+
+	/**
+	 * Returns the number of class and resource lookups which did not find the name
+	 * in the miss cache of this loader.
+	 * 
+	 * @return the number of miss cache misses or {@code -1} if the miss cache is
+	 *         disabled
+	 */
+	public long getMissCacheMissCount() {
+		return missCache == null ? -1 : missCache.getMissCount();
+	}
+
+	/**
+	 * Invalidates the cached names of classes and resources which could not be
+	 * found by this loader.
+	 */
+	void invalidateMissCache() {
+		if (missCache != null) {
+			missCache.invalidate();
+		}
 	}
 
 	/**
@@ -861,11 +1001,7 @@ public class BundleLoader extends ModuleLoader {
 		List<String> packages = new ArrayList<>();
 		// search imported package names
 		Map<String, PackageSource> importSources = getImportedSources(null);
-		Collection<PackageSource> imports;
-		synchronized (importSources) {
-			imports = new ArrayList<>(importSources.values());
-		}
-		for (PackageSource source : imports) {
+		for (PackageSource source : importSources.values()) {
 			String id = source.getId();
 			if (id.equals(pkgName) || (subPackages && isSubPackage(pkgName, id)))
 				packages.add(id);
@@ -991,28 +1127,8 @@ public class BundleLoader extends ModuleLoader {
 		if (pkgname.startsWith("java.")) //$NON-NLS-1$
 			return true;
 
-		synchronized (importedSources) {
-			/* "*" shortcut */
-			if (dynamicAllPackages)
-				return true;
-
-			/* match against specific names */
-			if (dynamicImportPackages != null)
-				for (String dynamicImportPackage : dynamicImportPackages) {
-					if (pkgname.equals(dynamicImportPackage)) {
-						return true;
-					}
-				}
-
-			/* match against names with trailing wildcards */
-			if (dynamicImportPackageStems != null)
-				for (String dynamicImportPackageStem : dynamicImportPackageStems) {
-					if (pkgname.startsWith(dynamicImportPackageStem)) {
-						return true;
-					}
-				}
-		}
-		return false;
+		DynamicImports current = dynamicImports;
+		return current != null && current.matches(pkgname);
 	}
 
 	final void addExportedProvidersFor(String packageName, List<PackageSource> result,
@@ -1066,12 +1182,10 @@ public class BundleLoader extends ModuleLoader {
 		if (visited.contains(this))
 			return;
 		visited.add(this);
-		synchronized (exportedPackages) {
-			for (String exported : exportedPackages) {
-				if (exported.equals(packageName) || (subPackages && isSubPackage(packageName, exported))) {
-					if (!result.contains(exported))
-						result.add(exported);
-				}
+		for (String exported : exportedPackages) {
+			if (exported.equals(packageName) || (subPackages && isSubPackage(packageName, exported))) {
+				if (!result.contains(exported))
+					result.add(exported);
 			}
 		}
 		for (String substituted : wiring.getSubstitutedNames()) {
@@ -1133,26 +1247,23 @@ public class BundleLoader extends ModuleLoader {
 		if (packages == null)
 			return;
 
-		synchronized (importedSources) {
+		synchronized (importsMonitor) {
+			DynamicImports current = dynamicImports;
+			if (current != null && current.all) {
+				// everything is already imported
+				return;
+			}
 			int size = packages.length;
 			List<String> stems;
-			if (dynamicImportPackageStems == null) {
-				stems = new ArrayList<>(size);
-			} else {
-				stems = new ArrayList<>(size + dynamicImportPackageStems.length);
-				for (String dynamicImportPackageStem : dynamicImportPackageStems) {
-					stems.add(dynamicImportPackageStem);
-				}
-			}
-
 			List<String> names;
-			if (dynamicImportPackages == null) {
+			if (current == null) {
+				stems = new ArrayList<>(size);
 				names = new ArrayList<>(size);
 			} else {
-				names = new ArrayList<>(size + dynamicImportPackages.length);
-				for (String dynamicImportPackage : dynamicImportPackages) {
-					names.add(dynamicImportPackage);
-				}
+				stems = new ArrayList<>(size + current.stems.length);
+				Collections.addAll(stems, current.stems);
+				names = new ArrayList<>(size + current.names.length);
+				Collections.addAll(names, current.names);
 			}
 
 			for (int i = 0; i < size; i++) {
@@ -1161,7 +1272,7 @@ public class BundleLoader extends ModuleLoader {
 					continue;
 				if (name.equals("*")) { //$NON-NLS-1$
 					// shortcut
-					dynamicAllPackages = true;
+					dynamicImports = DynamicImports.ALL;
 					return;
 				}
 
@@ -1171,13 +1282,9 @@ public class BundleLoader extends ModuleLoader {
 					names.add(name);
 			}
 
-			size = stems.size();
-			if (size > 0)
-				dynamicImportPackageStems = stems.toArray(new String[size]);
-
-			size = names.size();
-			if (size > 0)
-				dynamicImportPackages = names.toArray(new String[size]);
+			// publish the new patterns with a single write
+			dynamicImports = new DynamicImports(false, names.toArray(new String[names.size()]),
+					stems.toArray(new String[stems.size()]));
 		}
 	}
 
@@ -1216,6 +1323,8 @@ public class BundleLoader extends ModuleLoader {
 			// gets added to the wiring first. This avoids issues if another
 			// thread tries to dynamic resolve before all is done here.
 			addDynamicImportPackage(dynamicImports.toArray(new String[dynamicImports.size()]));
+			// classes and resources of the new packages may now be found
+			invalidateMissCache();
 		}
 	}
 
@@ -1235,14 +1344,14 @@ public class BundleLoader extends ModuleLoader {
 	}
 
 	private PackageSource findImportedSource(String pkgName, Collection<BundleLoader> visited) {
-		Map<String, PackageSource> imports = getImportedSources(visited);
-		synchronized (imports) {
-			return imports.get(pkgName);
-		}
+		return getImportedSources(visited).get(pkgName);
 	}
 
 	private Map<String, PackageSource> getImportedSources(Collection<BundleLoader> visited) {
-		synchronized (importedSources) {
+		if (importsInitialized) {
+			return importedSources;
+		}
+		synchronized (importsMonitor) {
 			if (importsInitialized) {
 				return importedSources;
 			}
@@ -1273,9 +1382,7 @@ public class BundleLoader extends ModuleLoader {
 				if (debug.DEBUG_LOADER) {
 					Debug.println("BundleLoader[" + this + "] using dynamic import source: " + source); //$NON-NLS-1$ //$NON-NLS-2$
 				}
-				synchronized (importedSources) {
-					importedSources.put(source.getId(), source);
-				}
+				importedSources.put(source.getId(), source);
 				return source;
 			}
 		}
@@ -1286,11 +1393,9 @@ public class BundleLoader extends ModuleLoader {
 		if (requiredBundleWires.isEmpty()) {
 			return null;
 		}
-		synchronized (requiredSources) {
-			PackageSource result = requiredSources.get(pkgName);
-			if (result != null)
-				return result.isNullSource() ? null : result;
-		}
+		PackageSource cached = requiredSources.get(pkgName);
+		if (cached != null)
+			return cached.isNullSource() ? null : cached;
 		if (visited == null)
 			visited = new ArrayList<>();
 		if (!visited.contains(this))
@@ -1316,8 +1421,10 @@ public class BundleLoader extends ModuleLoader {
 			PackageSource[] srcs = result.toArray(new PackageSource[result.size()]);
 			source = createMultiSource(pkgName, srcs);
 		}
-		synchronized (requiredSources) {
-			requiredSources.put(source.getId(), source);
+		PackageSource existing = requiredSources.putIfAbsent(source.getId(), source);
+		if (existing != null) {
+			// another thread found the sources first
+			source = existing;
 		}
 		return source.isNullSource() ? null : source;
 	}
@@ -1340,6 +1447,48 @@ public class BundleLoader extends ModuleLoader {
 		return createMultiSource(pkgName, new PackageSource[] { result, localSource });
 	}
 
+	/**
+	 * The immutable DynamicImport-Package patterns of a bundle loader. New
+	 * patterns are added by replacing the instance so that the patterns can be
+	 * matched without locking.
+	 */
+	private static final class DynamicImports {
+		static final DynamicImports ALL = new DynamicImports(true, new String[0], new String[0]);
+
+		/* "*" shortcut */
+		final boolean all;
+		/* package names to import dynamically */
+		final String[] names;
+		/* package stems to import dynamically */
+		final String[] stems;
+
+		DynamicImports(boolean all, String[] names, String[] stems) {
+			this.all = all;
+			this.names = names;
+			this.stems = stems;
+		}
+
+		boolean matches(String pkgname) {
+			if (all)
+				return true;
+
+			/* match against specific names */
+			for (String name : names) {
+				if (pkgname.equals(name)) {
+					return true;
+				}
+			}
+
+			/* match against names with trailing wildcards */
+			for (String stem : stems) {
+				if (pkgname.startsWith(stem)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
 	static final class ClassContext extends SecurityManager {
 		// need to make this method public
 		@Override
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.loader;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.osgi.internal.framework.EquinoxContainer;
+
+/**
+ * A bounded cache of the class and resource names which could not be found by a
+ * bundle loader. Some libraries probe for many classes which do not exist and
+ * each probe would otherwise search the imports, the required bundles, the
+ * local class path, the dynamic imports and the buddies of the loader.
+ * <p>
+ * Whether a name can be found depends on the wiring of the loader and of the
+ * bundles it is wired to. Each entry records the stamp which was current when
+ * the search for the name began; an entry is only used while the stamp has not
+ * changed. The stamp changes each time the module database is updated and each
+ * time the loader invalidates the cache, for example when fragments are attached
+ * or dynamic imports are added.
+ * <p>
+ * Buddy policies and class loader hooks may delegate a search to other bundle
+ * loaders, which guard against recursion by failing nested searches for the
+ * same name. A nested search may therefore miss names which exist, so no
+ * missing names are recorded while a search is delegated on the current thread.
+ *
+ * @ThreadSafe
+ */
+final class LoaderMissCache {
+	/* the number of searches delegated to buddies or hooks on the current thread */
+	private static final ThreadLocal<int[]> delegations = ThreadLocal.withInitial(() -> new int[1]);
+
+	private final int maxSize;
+	private final EquinoxContainer container;
+	private final AtomicLong invalidations = new AtomicLong();
+	private final ConcurrentMap<String, Long> classes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Long> resources = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	LoaderMissCache(int maxSize, EquinoxContainer container) {
+		this.maxSize = maxSize;
+		this.container = container;
+	}
+
+	/**
+	 * Returns the current stamp. The stamp must be obtained before searching for a
+	 * name and passed to the methods which check and record missing names.
+	 *
+	 * @return the current stamp
+	 */
+	long stamp() {
+		// both values only increase, so does their sum
+		return container.getModuleDatabaseUpdates() + invalidations.get();
+	}
+
+	boolean isMissingClass(String name, long stamp) {
+		return isMissing(classes, name, stamp);
+	}
+
+	void addMissingClass(String name, long stamp) {
+		add(classes, name, stamp);
+	}
+
+	boolean isMissingResource(String name, long stamp) {
+		return isMissing(resources, name, stamp);
+	}
+
+	void addMissingResource(String name, long stamp) {
+		add(resources, name, stamp);
+	}
+
+	/**
+	 * Invalidates all entries of the cache.
+	 */
+	void invalidate() {
+		invalidations.incrementAndGet();
+		classes.clear();
+		resources.clear();
+	}
+
+	private boolean isMissing(ConcurrentMap<String, Long> names, String name, long stamp) {
+		Long recorded = names.get(name);
+		if (recorded != null && recorded.longValue() == stamp) {
+			hits.increment();
+			return true;
+		}
+		misses.increment();
+		return false;
+	}
+
+	private void add(ConcurrentMap<String, Long> names, String name, long stamp) {
+		if (delegations.get()[0] > 0) {
+			// the result of a nested search may be incomplete
+			return;
+		}
+		if (names.size() >= maxSize) {
+			evict(names, stamp);
+		}
+		names.put(name, Long.valueOf(stamp));
+	}
+
+	/**
+	 * Marks the beginning of a search which is delegated to buddies or class
+	 * loader hooks. Each call must be followed by a call to
+	 * {@link #endDelegation()}.
+	 */
+	static void beginDelegation() {
+		delegations.get()[0]++;
+	}
+
+	static void endDelegation() {
+		delegations.get()[0]--;
+	}
+
+	/**
+	 * Removes the outdated entries, then arbitrary entries until the size is down
+	 * to three quarters of the maximum size.
+	 */
+	private void evict(ConcurrentMap<String, Long> names, long stamp) {
+		names.values().removeIf(recorded -> recorded.longValue() != stamp);
+		int toEvict = names.size() - (maxSize * 3 / 4);
+		for (Iterator<Map.Entry<String, Long>> entries = names.entrySet().iterator(); toEvict > 0
+				&& entries.hasNext(); toEvict--) {
+			entries.next();
+			entries.remove();
+		}
+	}
+
+	/**
+	 * Returns the number of lookups which found a missing name in the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+	long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of lookups which did not find a missing name in the
+	 * cache.
+	 *
+	 * @return the number of cache misses
+	 */
+	long getMissCount() {
+		return misses.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "LoaderMissCache[classes=" + classes.size() + ", resources=" + resources.size() + ", hits=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ getHitCount() + ", misses=" + getMissCount() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
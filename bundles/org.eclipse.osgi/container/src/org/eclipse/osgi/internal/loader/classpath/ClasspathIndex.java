@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.loader.classpath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+
+/**
+ * An index of the directories which contain the entries of the host and
+ * fragment classpath entries of a {@link ClasspathManager}. Local class and
+ * resource lookups use the index to only search the classpath entries which
+ * contain the directory of the requested path instead of searching all the
+ * classpath entries.
+ * <p>
+ * The index is built from the entry paths of the classpath entries on first
+ * use. Classpath entries which cannot be listed reliably are searched for every
+ * path. This includes entries backed by directories since their content may
+ * change, for example while developing in a workspace. A new index is created
+ * when fragments are attached to the host.
+ *
+ * @ThreadSafe
+ */
+final class ClasspathIndex {
+	private final FragmentClasspath[] fragments;
+	// the host and fragment classpath entries in search order
+	private final ClasspathEntry[] entries;
+	// identifies the generations providing the classpath entries
+	private final String layout;
+	// false if the classpath entries are not indexed
+	private final boolean indexed;
+	/* the directories of the classpath entries; null until first use */
+	private volatile Directories directories;
+	/* true for the classpath entries which can be indexed; null until first use */
+	private volatile boolean[] indexable;
+
+	private ClasspathIndex(FragmentClasspath[] fragments, ClasspathEntry[] entries, String layout,
+			boolean indexed) {
+		this.fragments = fragments;
+		this.entries = entries;
+		this.layout = layout;
+		this.indexed = indexed;
+	}
+
+	/**
+	 * Creates the index for the specified host classpath entries and fragment
+	 * classpaths. The classpath entries are only indexed if there is more than one
+	 * entry to search.
+	 *
+	 * @param host        the host generation
+	 * @param hostEntries the classpath entries of the host
+	 * @param fragments   the classpaths of the attached fragments
+	 * @param indexed     false if the classpath entries must not be indexed
+	 * @return the index of the classpath entries
+	 */
+	static ClasspathIndex create(Generation host, ClasspathEntry[] hostEntries, FragmentClasspath[] fragments,
+			boolean indexed) {
+		List<ClasspathEntry> all = new ArrayList<>(Arrays.asList(hostEntries));
+		StringBuilder layout = new StringBuilder().append(host.getBundleInfo().getBundleId()).append('.')
+				.append(host.getGenerationId());
+		for (FragmentClasspath fragment : fragments) {
+			all.addAll(Arrays.asList(fragment.getEntries()));
+			Generation fragmentGeneration = fragment.getGeneration();
+			layout.append('+').append(fragmentGeneration.getBundleInfo().getBundleId()).append('.')
+					.append(fragmentGeneration.getGenerationId());
+		}
+		ClasspathEntry[] entries = all.toArray(new ClasspathEntry[all.size()]);
+		// nothing to gain from an index for a single entry
+		return new ClasspathIndex(fragments, entries, layout.toString(), indexed && entries.length > 1);
+	}
+
+	private Directories getDirectories() {
+		Directories current = directories;
+		if (current == null) {
+			// concurrent threads may build the same directories
+			current = new Directories(entries);
+			directories = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Returns true if the specified classpath entry can be listed reliably.
+	 *
+	 * @param entry a classpath entry
+	 * @return true if the content of the classpath entry can be indexed
+	 */
+	static boolean isIndexable(ClasspathEntry entry) {
+		if (entry.getClass() != ClasspathEntry.class) {
+			// subclasses may find entries which are not listed
+			return false;
+		}
+		List<BundleFile> bundleFiles = new ArrayList<>(1);
+		entry.addBundleFiles(bundleFiles);
+		for (BundleFile bundleFile : bundleFiles) {
+			File baseFile = bundleFile.getBaseFile();
+			if (baseFile == null || baseFile.isDirectory()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the classpath entry with the specified index can be listed
+	 * reliably.
+	 *
+	 * @param position the index of a classpath entry
+	 * @return true if the content of the classpath entry can be indexed
+	 */
+	boolean isIndexable(int position) {
+		boolean[] current = indexable;
+		if (current == null) {
+			current = new boolean[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				current[i] = entries[i] != null && isIndexable(entries[i]);
+			}
+			indexable = current;
+		}
+		return current[position];
+	}
+
+	private static String getDirectory(String path) {
+		return path.substring(0, path.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * Returns the fragment classpaths this index was created for.
+	 *
+	 * @return the fragment classpaths
+	 */
+	FragmentClasspath[] getFragments() {
+		return fragments;
+	}
+
+	/**
+	 * Returns the host and fragment classpath entries in the order they are
+	 * searched.
+	 *
+	 * @return the classpath entries
+	 */
+	ClasspathEntry[] getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Returns a key which identifies the host and fragment generations providing
+	 * the classpath entries.
+	 *
+	 * @return the layout of the classpath entries
+	 */
+	String getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Returns the indexes of the classpath entries, in search order, which may
+	 * contain the specified path.
+	 *
+	 * @param path the path of an entry
+	 * @return the indexes of the classpath entries to search, or {@code null} if
+	 *         all classpath entries must be searched
+	 */
+	int[] getEntryIndexes(String path) {
+		if (!indexed || path.isEmpty() || path.charAt(0) == '/' || path.endsWith("/")) { //$NON-NLS-1$
+			return null;
+		}
+		return getDirectories().get(getDirectory(path));
+	}
+
+	/**
+	 * Returns the indexes of the classpath entries, in search order, which may
+	 * contain the specified class.
+	 *
+	 * @param classname the name of a class
+	 * @return the indexes of the classpath entries to search, or {@code null} if
+	 *         all classpath entries must be searched
+	 */
+	int[] getClassEntryIndexes(String classname) {
+		if (!indexed) {
+			return null;
+		}
+		int lastDot = classname.lastIndexOf('.');
+		String directory = lastDot < 0 ? "" : classname.substring(0, lastDot + 1).replace('.', '/'); //$NON-NLS-1$
+		return getDirectories().get(directory);
+	}
+
+	private static final class Directories {
+		// the indexes of the classpath entries which contain a directory
+		private final Map<String, int[]> entriesByDirectory;
+		// the indexes of the classpath entries which could not be indexed
+		private final int[] unindexed;
+
+		Directories(ClasspathEntry[] entries) {
+			Map<String, BitSet> candidatesByDirectory = new HashMap<>();
+			BitSet unindexedEntries = new BitSet();
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i] != null && !indexEntry(entries[i], i, candidatesByDirectory)) {
+					unindexedEntries.set(i);
+				}
+			}
+
+			entriesByDirectory = new HashMap<>(candidatesByDirectory.size() * 4 / 3 + 1);
+			for (Map.Entry<String, BitSet> directory : candidatesByDirectory.entrySet()) {
+				BitSet candidates = directory.getValue();
+				candidates.or(unindexedEntries);
+				entriesByDirectory.put(directory.getKey(), candidates.stream().toArray());
+			}
+			unindexed = unindexedEntries.stream().toArray();
+		}
+
+		private static boolean indexEntry(ClasspathEntry entry, int index, Map<String, BitSet> candidatesByDirectory) {
+			if (!isIndexable(entry)) {
+				return false;
+			}
+			List<BundleFile> bundleFiles = new ArrayList<>(1);
+			entry.addBundleFiles(bundleFiles);
+			for (BundleFile bundleFile : bundleFiles) {
+				Enumeration<String> paths = bundleFile.getEntryPaths("", true); //$NON-NLS-1$
+				if (paths == null) {
+					// empty or could not be opened
+					return false;
+				}
+				while (paths.hasMoreElements()) {
+					String path = paths.nextElement();
+					if (path.endsWith("/")) { //$NON-NLS-1$
+						path = path.substring(0, path.length() - 1);
+					}
+					// a path may also be used to find its parent directories
+					String directory = getDirectory(path);
+					BitSet candidates;
+					while (!(candidates = candidatesByDirectory.computeIfAbsent(directory, d -> new BitSet()))
+							.get(index)) {
+						candidates.set(index);
+						if (directory.isEmpty()) {
+							break;
+						}
+						directory = getDirectory(directory.substring(0, directory.length() - 1));
+					}
+				}
+			}
+			return true;
+		}
+
+		int[] get(String directory) {
+			int[] result = entriesByDirectory.get(directory);
+			return result == null ? unindexed : result;
+		}
+	}
+}
@@ -42,6 +42,7 @@ import org.eclipse.osgi.internal.loader.ModuleClassLoader.DefineClassResult;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.internal.weaving.WeavingHookConfigurator;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.eclipse.osgi.storage.ClassLocationIndex;
 import org.eclipse.osgi.storage.NativeCodeFinder;
 import org.eclipse.osgi.storage.Storage;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
@@ -77,6 +78,11 @@ public class ClasspathManager {
 	// TODO Note that PDE has internal dependency on this field type/name (bug
 	// 267238)
 	private volatile FragmentClasspath[] fragments;
+	// the directory index of the classpath entries; null if not yet created
+	private volatile ClasspathIndex classpathIndex;
+	private final boolean useClasspathIndex;
+	// the class locations recorded by earlier runs; null if not enabled
+	private final ClassLocationIndex classLocations;
 	// a Map<String,String> where "libname" is the key and libpath" is the value
 	private ArrayMap<String, String> loadedLibraries = null;
 	// used to detect recusive defineClass calls for the same class on the same
@@ -96,6 +102,8 @@ public class ClasspathManager {
 		this.hookRegistry = configuration.getHookRegistry();
 		this.generation = generation;
 		this.classloader = classloader;
+		this.useClasspathIndex = configuration.CLASSPATH_INDEX;
+		this.classLocations = generation.getBundleInfo().getStorage().getClassLocationIndex();
 		String[] cp = getClassPath(generation.getRevision());
 		this.fragments = buildFragmentClasspaths(this.classloader, this);
 		this.entries = buildClasspath(cp, this, this.generation);
@@ -358,6 +366,8 @@ public class ClasspathManager {
 		}
 
 		fragments = result.toArray(new FragmentClasspath[result.size()]);
+		// the index is rebuilt for the new fragments on next use
+		classpathIndex = null;
 	}
 
 	private static BundleFile createBundleFile(File content, Generation generation) {
@@ -382,6 +392,45 @@ public class ClasspathManager {
 		return entry;
 	}
 
+	/**
+	 * Returns the directory index of the host and fragment classpath entries. The
+	 * index is created on first use and recreated after fragments are attached.
+	 *
+	 * @return the classpath index
+	 */
+	private ClasspathIndex getClasspathIndex() {
+		FragmentClasspath[] currentFragments = getFragmentClasspaths();
+		ClasspathIndex index = classpathIndex;
+		if (index == null || index.getFragments() != currentFragments) {
+			index = ClasspathIndex.create(generation, entries, currentFragments, useClasspathIndex);
+			classpathIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the classpath entry which provided the specified class
+	 * or resource in an earlier run.
+	 *
+	 * @param index the classpath index
+	 * @param name  the name of a class or resource
+	 * @return the index of the classpath entry or -1 if it is not known
+	 */
+	private int getRecordedLocation(ClasspathIndex index, String name) {
+		if (classLocations == null) {
+			return -1;
+		}
+		int location = classLocations.getLocation(index.getLayout(), name);
+		ClasspathEntry[] all = index.getEntries();
+		return location >= 0 && location < all.length && all[location] != null ? location : -1;
+	}
+
+	private void recordLocation(ClasspathIndex index, String name, int location) {
+		if (classLocations != null && index.isIndexable(location)) {
+			classLocations.putLocation(index.getLayout(), name, location);
+		}
+	}
+
 	/**
 	 * Finds a local resource by searching the ClasspathEntry objects of the
 	 * classpath manager. This method will first call all the configured class
@@ -436,18 +485,45 @@ public class ClasspathManager {
 			}
 		}
 
-		curIndex[0] = 0;
-		// look in classpath entries
-		result = findLocalResourceImpl(resource, entries, m, classPathIndex, curIndex);
-		if (result != null) {
-			return result;
+		ClasspathIndex index = getClasspathIndex();
+		ClasspathEntry[] all = index.getEntries();
+		// the classpath entry which has already been searched; -1 if none
+		int tried = -1;
+		if (classPathIndex == -1) {
+			int location = getRecordedLocation(index, resource);
+			if (location >= 0) {
+				// look in the classpath entry which provided the resource before
+				result = all[location].findResource(resource, m, location);
+				if (result != null) {
+					return result;
+				}
+				tried = location;
+			}
 		}
 
-		// look in fragment entries
-		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
-			result = findLocalResourceImpl(resource, fragCP.getEntries(), m, classPathIndex, curIndex);
-			if (result != null) {
-				return result;
+		int[] candidates = index.getEntryIndexes(resource);
+		if (candidates != null) {
+			// only look in the classpath entries which may contain the resource
+			for (int candidate : candidates) {
+				if (candidate != tried && (classPathIndex == -1 || classPathIndex == candidate)) {
+					result = all[candidate].findResource(resource, m, candidate);
+					if (result != null) {
+						recordLocation(index, resource, candidate);
+						return result;
+					}
+				}
+			}
+			return null;
+		}
+
+		// look in the host and fragment classpath entries
+		for (int i = 0; i < all.length; i++) {
+			if (all[i] != null && i != tried && (classPathIndex == -1 || classPathIndex == i)) {
+				result = all[i].findResource(resource, m, i);
+				if (result != null) {
+					recordLocation(index, resource, i);
+					return result;
+				}
 			}
 		}
 
@@ -490,12 +566,25 @@ public class ClasspathManager {
 			}
 		}
 
-		classPathIndex[0] = 0;
-		// look in host classpath entries
-		findLocalResources(resource, entries, m, classPathIndex, resources);
-		// look in fragment entries
-		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
-			findLocalResources(resource, fragCP.getEntries(), m, classPathIndex, resources);
+		ClasspathIndex index = getClasspathIndex();
+		int[] candidates = index.getEntryIndexes(resource);
+		if (candidates != null) {
+			// only look in the classpath entries which may contain the resource
+			ClasspathEntry[] indexed = index.getEntries();
+			for (int candidate : candidates) {
+				URL url = indexed[candidate].findResource(resource, m, candidate);
+				if (url != null) {
+					resources.add(url);
+				}
+			}
+		} else {
+			classPathIndex[0] = 0;
+			// look in host classpath entries
+			findLocalResources(resource, entries, m, classPathIndex, resources);
+			// look in fragment entries
+			for (FragmentClasspath fragCP : getFragmentClasspaths()) {
+				findLocalResources(resource, fragCP.getEntries(), m, classPathIndex, resources);
+			}
 		}
 
 		if (resources.size() > 0)
@@ -547,6 +636,22 @@ public class ClasspathManager {
 			}
 		}
 
+		ClasspathIndex index = getClasspathIndex();
+		int[] candidates = index.getEntryIndexes(path);
+		if (candidates != null) {
+			// only look in the classpath entries which may contain the entry
+			ClasspathEntry[] indexed = index.getEntries();
+			for (int candidate : candidates) {
+				if (classPathIndex == -1 || classPathIndex == candidate) {
+					result = indexed[candidate].findEntry(path);
+					if (result != null) {
+						return result;
+					}
+				}
+			}
+			return null;
+		}
+
 		curIndex[0] = 0;
 		// look in classpath entries
 		result = findLocalEntry(path, entries, classPathIndex, curIndex);
@@ -633,20 +738,44 @@ public class ClasspathManager {
 			}
 		}
 
-		// look in classpath entries
-		result = findLocalClassImpl(classname, entries, hooks);
-		if (result != null) {
-			return result;
-		}
-
-		// look in fragment entries
-		for (FragmentClasspath fragCP : getFragmentClasspaths()) {
-			result = findLocalClassImpl(classname, fragCP.getEntries(), hooks);
+		ClasspathIndex index = getClasspathIndex();
+		ClasspathEntry[] all = index.getEntries();
+		int location = getRecordedLocation(index, classname);
+		if (location >= 0) {
+			// look in the classpath entry which provided the class before
+			result = findClassImpl(classname, all[location], hooks);
 			if (result != null) {
 				return result;
 			}
 		}
 
+		int[] candidates = index.getClassEntryIndexes(classname);
+		if (candidates != null) {
+			// only look in the classpath entries which may contain the class
+			for (int candidate : candidates) {
+				if (candidate == location) {
+					continue; // already searched
+				}
+				result = findClassImpl(classname, all[candidate], hooks);
+				if (result != null) {
+					recordLocation(index, classname, candidate);
+					return result;
+				}
+			}
+			return null;
+		}
+
+		// look in the host and fragment classpath entries
+		for (int i = 0; i < all.length; i++) {
+			if (all[i] != null && i != location) {
+				result = findClassImpl(classname, all[i], hooks);
+				if (result != null) {
+					recordLocation(index, classname, i);
+					return result;
+				}
+			}
+		}
+
 		return null;
 	}
 
@@ -45,6 +45,9 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	private final String objectClass;
 	/** indicates whether the listener has been removed */
 	private volatile boolean removed;
+	/** the order in which the listener was added; set by the service registry */
+	/* @GuardedBy("ServiceRegistry.serviceEventListeners") */
+	long sequence;
 	private final Debug debug;
 
 	/**
@@ -65,7 +68,7 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 			this.filter = null;
 			this.objectClass = null;
 		} else {
-			FilterImpl filterImpl = FilterImpl.newInstance(filterstring,
+			FilterImpl filterImpl = FilterImpl.newInstance(filterstring, context.getContainer().getFilterCache(),
 					context.getContainer().getConfiguration().getDebug().DEBUG_FILTER);
 			String clazz = filterImpl.getRequiredObjectClass();
 			if (unfiltered || (clazz == null)) {
@@ -218,6 +221,16 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 		return removed;
 	}
 
+	/**
+	 * Returns the objectClass required by the filter of this listener.
+	 *
+	 * @return The objectClass required by the filter or <code>null</code> if the
+	 *         listener may receive events for services of any class.
+	 */
+	String getObjectClass() {
+		return objectClass;
+	}
+
 	/**
 	 * Mark the service listener registration as removed.
 	 */
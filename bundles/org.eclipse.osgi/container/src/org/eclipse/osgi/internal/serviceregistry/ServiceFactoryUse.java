@@ -219,6 +219,8 @@ public class ServiceFactoryUse<S> extends ServiceUse<S> {
 	/* @GuardedBy("getLock()") */
 	S factoryGetService() {
 		final S service;
+		final ServiceRegistryMetricsImpl metrics = registration.getMetrics();
+		final long start = metrics.isEnabled() ? System.nanoTime() : 0;
 		try {
 			service = AccessController.doPrivileged(new PrivilegedAction<S>() {
 				@Override
@@ -239,6 +241,10 @@ public class ServiceFactoryUse<S> extends ServiceUse<S> {
 			context.getContainer().getEventPublisher().publishFrameworkEvent(FrameworkEvent.ERROR,
 					registration.getBundle(), se);
 			return null;
+		} finally {
+			if (metrics.isEnabled()) {
+				metrics.factoryGetServiceTime.record(System.nanoTime() - start);
+			}
 		}
 
 		if (service == null) {
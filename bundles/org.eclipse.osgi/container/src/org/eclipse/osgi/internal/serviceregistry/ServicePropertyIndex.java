@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.serviceregistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A secondary index of published services by the value of a single service
+ * property. The index is used to narrow the candidate registrations for filters
+ * which require an equal match of the indexed property, for example
+ * {@code (service.pid=org.acme.Foo)} or
+ * {@code (&(objectClass=org.acme.Foo)(service.pid=org.acme.Foo))}.
+ * <p>
+ * Only {@code String} and {@code String[]} values are indexed by value because
+ * those are compared exactly against the filter value and cannot be changed
+ * once the properties are copied into the registration. Registrations which
+ * have the property with any other type of value (including collections) are
+ * kept in a separate list which is always included in the candidates for a
+ * lookup. Registrations which do not have the property
+ * can never match an equal filter on the property and are not kept in the index
+ * at all.
+ * <p>
+ * All the lists maintained by this index are immutable, sorted in the natural
+ * order of ServiceRegistrationImpl and are sets in that there must be no two
+ * entries in a list which are equal. Like the other published services data
+ * structures of the registry, the index is read without holding a lock and is
+ * modified while holding the monitor of the registry.
+ *
+ * @ThreadSafe
+ */
+final class ServicePropertyIndex {
+	/** the service property key this index is for. */
+	private final String key;
+
+	/** Published services by String value of the indexed property. */
+	/* @GuardedBy("registry") for writes */
+	private final ConcurrentMap<String, List<ServiceRegistrationImpl<?>>> servicesByValue = new ConcurrentHashMap<>();
+
+	/**
+	 * Published services which have a value for the indexed property that cannot
+	 * be indexed.
+	 */
+	/* @GuardedBy("registry") for writes */
+	private volatile List<ServiceRegistrationImpl<?>> unindexedServices = Collections.emptyList();
+
+	ServicePropertyIndex(String key) {
+		this.key = key;
+	}
+
+	/**
+	 * Returns the service property key of this index.
+	 *
+	 * @return the service property key of this index.
+	 */
+	String getKey() {
+		return key;
+	}
+
+	/**
+	 * Add the registration to the index using the current value of the indexed
+	 * property from the specified properties.
+	 *
+	 * @param registration The registration to add.
+	 * @param properties   The properties of the registration.
+	 */
+	void add(ServiceRegistrationImpl<?> registration, Map<String, ?> properties) {
+		for (String bucket : getBuckets(properties)) {
+			updateBucket(bucket, ServiceRegistry.addSorted(getBucket(bucket), registration));
+		}
+	}
+
+	/**
+	 * Remove the registration from the index using the value of the indexed
+	 * property from the specified properties.
+	 *
+	 * @param registration The registration to remove.
+	 * @param properties   The properties the registration was added with.
+	 */
+	void remove(ServiceRegistrationImpl<?> registration, Map<String, ?> properties) {
+		for (String bucket : getBuckets(properties)) {
+			updateBucket(bucket, ServiceRegistry.remove(getBucket(bucket), registration));
+		}
+	}
+
+	/**
+	 * Update the index for a registration whose properties have been modified. The
+	 * registration is added to its new lists before it is removed from the lists
+	 * it is no longer part of so that concurrent readers always find it.
+	 *
+	 * @param registration       The modified registration.
+	 * @param previousProperties The properties the registration was added with.
+	 * @param rankingChanged     true if the sort order of the registration has
+	 *                           changed.
+	 */
+	void modify(ServiceRegistrationImpl<?> registration, Map<String, ?> previousProperties, boolean rankingChanged) {
+		Map<String, ?> properties = registration.getProperties();
+		if (!rankingChanged && valueEquals(previousProperties.get(key), properties.get(key))) {
+			return;
+		}
+		Collection<String> previousBuckets = getBuckets(previousProperties);
+		Collection<String> currentBuckets = getBuckets(properties);
+		for (String bucket : currentBuckets) {
+			if (!previousBuckets.contains(bucket)) {
+				updateBucket(bucket, ServiceRegistry.addSorted(getBucket(bucket), registration));
+			} else if (rankingChanged) {
+				updateBucket(bucket, ServiceRegistry.resort(getBucket(bucket), registration));
+			}
+		}
+		for (String bucket : previousBuckets) {
+			if (!currentBuckets.contains(bucket)) {
+				updateBucket(bucket, ServiceRegistry.remove(getBucket(bucket), registration));
+			}
+		}
+	}
+
+	/**
+	 * Returns the registrations which may have the specified value for the indexed
+	 * property. The returned list is sorted in the natural order of
+	 * ServiceRegistrationImpl and must not be modified by the caller.
+	 *
+	 * @param value The value of the indexed property.
+	 * @return The candidate registrations for the value.
+	 */
+	List<ServiceRegistrationImpl<?>> lookup(String value) {
+		List<ServiceRegistrationImpl<?>> services = servicesByValue.get(value);
+		if (services == null) {
+			services = Collections.emptyList();
+		}
+		List<ServiceRegistrationImpl<?>> unindexedServices = this.unindexedServices;
+		if (unindexedServices.isEmpty()) {
+			return services;
+		}
+		if (services.isEmpty()) {
+			return unindexedServices;
+		}
+		// merge the two sorted lists
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + unindexedServices.size());
+		int i = 0, j = 0;
+		while (i < services.size() && j < unindexedServices.size()) {
+			ServiceRegistrationImpl<?> left = services.get(i);
+			ServiceRegistrationImpl<?> right = unindexedServices.get(j);
+			if (left.compareTo(right) <= 0) {
+				result.add(left);
+				i++;
+			} else {
+				result.add(right);
+				j++;
+			}
+		}
+		result.addAll(services.subList(i, services.size()));
+		result.addAll(unindexedServices.subList(j, unindexedServices.size()));
+		return result;
+	}
+
+	/**
+	 * Returns the buckets of this index a registration with the specified
+	 * properties belongs to. A {@code null} bucket stands for the list of
+	 * registrations with a value which cannot be indexed.
+	 *
+	 * @param properties The properties of the registration.
+	 * @return The buckets of the registration.
+	 */
+	private Collection<String> getBuckets(Map<String, ?> properties) {
+		Object value = properties.get(key);
+		if (value == null) {
+			return Collections.emptySet();
+		}
+		if (value instanceof String) {
+			return Collections.singleton((String) value);
+		}
+		if (value instanceof String[]) {
+			Set<String> buckets = new HashSet<>();
+			for (String v : (String[]) value) {
+				if (v != null) {
+					buckets.add(v);
+				}
+			}
+			return buckets;
+		}
+		return Collections.singleton(null);
+	}
+
+	private List<ServiceRegistrationImpl<?>> getBucket(String bucket) {
+		return bucket == null ? unindexedServices : servicesByValue.get(bucket);
+	}
+
+	/* @GuardedBy("registry") */
+	private void updateBucket(String bucket, List<ServiceRegistrationImpl<?>> services) {
+		if (bucket == null) {
+			unindexedServices = services;
+		} else if (services.isEmpty()) { // remove empty list
+			servicesByValue.remove(bucket);
+		} else {
+			servicesByValue.put(bucket, services);
+		}
+	}
+
+	private static boolean valueEquals(Object value1, Object value2) {
+		if (value1 == value2) {
+			return true;
+		}
+		if (value1 == null || value2 == null) {
+			return false;
+		}
+		if (value1 instanceof Object[] && value2 instanceof Object[]) {
+			return Arrays.equals((Object[]) value1, (Object[]) value2);
+		}
+		return value1.equals(value2);
+	}
+}
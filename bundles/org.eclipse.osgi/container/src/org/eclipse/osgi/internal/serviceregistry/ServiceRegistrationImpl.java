@@ -186,7 +186,7 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 				previousRanking = serviceranking;
 				this.properties = createProperties(props);
 			}
-			registry.modifyServiceRegistration(context, this, previousRanking);
+			registry.modifyServiceRegistration(context, this, previousRanking, previousProperties);
 		}
 		/* must not hold the registrationLock when this event is published */
 		registry.publishServiceEvent(new ModifiedServiceEvent(ref, previousProperties));
@@ -869,4 +869,8 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	ConcurrentMap<Thread, ServiceUseLock> getAwaitedUseLocks() {
 		return registry.getAwaitedUseLocks();
 	}
+
+	ServiceRegistryMetricsImpl getMetrics() {
+		return registry.getMetrics();
+	}
 }
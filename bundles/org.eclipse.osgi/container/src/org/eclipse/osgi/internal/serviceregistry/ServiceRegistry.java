@@ -20,16 +20,17 @@ import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleRevision;
 import org.eclipse.osgi.framework.eventmgr.CopyOnWriteIdentityMap;
@@ -37,11 +38,13 @@ import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
 import org.eclipse.osgi.framework.eventmgr.ListenerQueue;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.eclipse.osgi.internal.framework.FilterImpl;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.internal.serviceregistry.ServiceUse.ServiceUseLock;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.eclipse.osgi.util.ManifestElement;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -73,34 +76,59 @@ public class ServiceRegistry {
 
 	static final String listenerHookName = ListenerHook.class.getName();
 
+	/*
+	 * The published services data structures below are read without holding any
+	 * lock. All the lists they contain are immutable snapshots. Modifications are
+	 * done while holding the monitor of this registry by creating a new list and
+	 * publishing it with a single write to the map or field holding the list.
+	 * Readers therefore always see a consistent list without having to copy it.
+	 */
+
 	/**
-	 * Published services by class name. The
+	 * Published services by class name. The immutable
 	 * {@literal List<ServiceRegistrationImpl<?>>}s are both sorted in the natural
 	 * order of ServiceRegistrationImpl and also are sets in that there must be no
 	 * two entries in a List which are equal.
 	 */
-	/* @GuardedBy("this") */
-	private final Map<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
+	/* @GuardedBy("this") for writes */
+	private final ConcurrentMap<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
 
 	/**
-	 * All published services. The List is both sorted in the natural order of
-	 * ServiceRegistrationImpl and also is a set in that there must be no two
-	 * entries in the List which are equal.
+	 * All published services sorted by their ranking and service id. The map is
+	 * updated in place so that a change does not copy all published services.
 	 */
 	/* @GuardedBy("this") */
-	private final List<ServiceRegistrationImpl<?>> allPublishedServices;
+	private final TreeMap<ServiceOrder, ServiceRegistrationImpl<?>> allPublishedServicesByOrder;
+
+	/**
+	 * Snapshot of all published services. The immutable List is both sorted in the
+	 * natural order of ServiceRegistrationImpl and also is a set in that there must
+	 * be no two entries in the List which are equal. It is <code>null</code> when
+	 * {@link #allPublishedServicesByOrder} has changed since the snapshot was taken
+	 * and it is only created again when all services are looked up, so that any
+	 * number of changes in between cost a single copy.
+	 */
+	/* @GuardedBy("this") for writes */
+	private volatile List<ServiceRegistrationImpl<?>> allPublishedServices;
 
 	/**
-	 * Published services by BundleContextImpl. The
+	 * Published services by BundleContextImpl. The immutable
 	 * {@literal List<ServiceRegistrationImpl<?>>}s are NOT sorted and also are sets
 	 * in that there must be no two entries in a List which are equal.
 	 */
-	/* @GuardedBy("this") */
-	private final Map<BundleContextImpl, List<ServiceRegistrationImpl<?>>> publishedServicesByContext;
+	/* @GuardedBy("this") for writes */
+	private final ConcurrentMap<BundleContextImpl, List<ServiceRegistrationImpl<?>>> publishedServicesByContext;
+
+	/**
+	 * Secondary indexes of published services by the value of the service
+	 * properties configured with
+	 * {@link EquinoxConfiguration#PROP_SERVICE_REGISTRY_INDEXED_PROPERTIES}.
+	 */
+	/* @GuardedBy("this") for writes */
+	private final ServicePropertyIndex[] propertyIndexes;
 
 	/** next free service id. */
-	/* @GuardedBy("this") */
-	private long serviceid;
+	private final AtomicLong serviceid;
 
 	/**
 	 * Active Service Listeners.
@@ -109,10 +137,29 @@ public class ServiceRegistry {
 	/* @GuardedBy("serviceEventListeners") */
 	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> serviceEventListeners;
 
+	/**
+	 * Active Service Listeners indexed by the objectClass required by their
+	 * filter. The listeners which may receive events for services of any class are
+	 * kept with the <code>null</code> key. Each listener in
+	 * {@link #serviceEventListeners} is in exactly one of the buckets.
+	 * {@literal Map<String,Map<BundleContextImpl,CopyOnWriteIdentityMap<ServiceListener,FilteredServiceListener>>>}.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private final Map<String, Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>>> serviceEventListenersByClass;
+
+	/**
+	 * The sequence numbers of the bundle contexts in
+	 * {@link #serviceEventListeners}. Events are delivered to the bundle contexts
+	 * and to their listeners in the order of their sequence numbers, which is the
+	 * order of {@link #serviceEventListeners}.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private final Map<BundleContextImpl, Long> serviceEventListenerContexts;
+	/* @GuardedBy("serviceEventListeners") */
+	private long serviceEventListenerSequence;
+
 	/** initial capacity of the main data structure */
 	private static final int initialCapacity = 50;
-	/** initial capacity of the nested data structure */
-	private static final int initialSubCapacity = 10;
 	/** container which created this service registry */
 	private final EquinoxContainer container;
 	private final BundleContextImpl systemBundleContext;
@@ -123,22 +170,52 @@ public class ServiceRegistry {
 	 */
 	private final ConcurrentMap<Thread, ServiceUseLock> awaitedUseLocks = new ConcurrentHashMap<>();
 
+	/** The metrics of this service registry. */
+	private final ServiceRegistryMetricsImpl metrics;
+
 	/**
 	 * Initializes the internal data structures of this ServiceRegistry.
 	 */
 	public ServiceRegistry(EquinoxContainer container) {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
-		serviceid = 1;
-		publishedServicesByClass = new HashMap<>(initialCapacity);
-		publishedServicesByContext = new HashMap<>(initialCapacity);
-		allPublishedServices = new ArrayList<>(initialCapacity);
+		serviceid = new AtomicLong(1);
+		publishedServicesByClass = new ConcurrentHashMap<>(initialCapacity);
+		publishedServicesByContext = new ConcurrentHashMap<>(initialCapacity);
+		allPublishedServicesByOrder = new TreeMap<>();
+		allPublishedServices = Collections.emptyList();
 		serviceEventListeners = new LinkedHashMap<>(initialCapacity);
+		serviceEventListenersByClass = new HashMap<>(initialCapacity);
+		serviceEventListenerContexts = new HashMap<>(initialCapacity);
+		propertyIndexes = createPropertyIndexes(
+				container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_SERVICE_REGISTRY_INDEXED_PROPERTIES,
+						EquinoxConfiguration.SERVICE_REGISTRY_INDEXED_PROPERTIES_DEFAULT));
+		metrics = new ServiceRegistryMetricsImpl(
+				Boolean.parseBoolean(container.getConfiguration()
+						.getConfiguration(EquinoxConfiguration.PROP_SERVICE_REGISTRY_METRICS)),
+				container.getFilterCache());
 		Module systemModule = container.getStorage().getModuleContainer().getModule(0);
 		systemBundleContext = (BundleContextImpl) systemModule.getBundle().getBundleContext();
 		systemBundleContext.provisionServicesInUseMap();
 	}
 
+	private static ServicePropertyIndex[] createPropertyIndexes(String indexedProperties) {
+		List<ServicePropertyIndex> indexes = new ArrayList<>();
+		keys: for (String key : ManifestElement.getArrayFromList(indexedProperties, ",")) { //$NON-NLS-1$
+			if (Constants.OBJECTCLASS.equalsIgnoreCase(key)) {
+				// already indexed by publishedServicesByClass
+				continue;
+			}
+			for (ServicePropertyIndex index : indexes) {
+				if (index.getKey().equalsIgnoreCase(key)) {
+					continue keys;
+				}
+			}
+			indexes.add(new ServicePropertyIndex(key));
+		}
+		return indexes.toArray(new ServicePropertyIndex[0]);
+	}
+
 	/**
 	 * Registers the specified service object with the specified properties under
 	 * the specified class names into the Framework. A
@@ -393,6 +470,13 @@ public class ServiceRegistry {
 					+ filterstring + "\")"); //$NON-NLS-1$
 		}
 		Filter filter = (filterstring == null) ? null : context.createFilter(filterstring);
+		if (metrics.isEnabled()) {
+			String lookupClazz = clazz;
+			if (lookupClazz == null && filter instanceof FilterImpl) {
+				lookupClazz = ((FilterImpl) filter).getRequiredObjectClass();
+			}
+			metrics.lookup(context, lookupClazz);
+		}
 		List<ServiceRegistrationImpl<?>> registrations = lookupServiceRegistrations(clazz, filter);
 		List<ServiceReferenceImpl<?>> references = new ArrayList<>(registrations.size());
 		for (ServiceRegistrationImpl<?> registration : registrations) {
@@ -545,7 +629,15 @@ public class ServiceRegistry {
 	public <S> S getService(BundleContextImpl context, ServiceReferenceImpl<S> reference) {
 		/* test for permission to get the service */
 		checkGetServicePermission(reference);
-		return reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		if (!metrics.isEnabled()) {
+			return reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		}
+		long start = System.nanoTime();
+		try {
+			return reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		} finally {
+			metrics.getServiceTime.record(System.nanoTime() - start);
+		}
 	}
 
 	/**
@@ -804,8 +896,16 @@ public class ServiceRegistry {
 			if (listeners == null) {
 				listeners = new CopyOnWriteIdentityMap<>();
 				serviceEventListeners.put(context, listeners);
+				serviceEventListenerContexts.put(context, Long.valueOf(serviceEventListenerSequence++));
 			}
+			FilteredServiceListener existing = listeners.get(listener);
+			// a listener which is added again keeps its position
+			filteredListener.sequence = existing == null ? serviceEventListenerSequence++ : existing.sequence;
 			oldFilteredListener = listeners.put(listener, filteredListener);
+			if (oldFilteredListener != null) {
+				unindexServiceListener(context, listener, oldFilteredListener);
+			}
+			indexServiceListener(context, listener, filteredListener);
 		}
 
 		if (oldFilteredListener != null) {
@@ -838,6 +938,9 @@ public class ServiceRegistry {
 				return; // this context has no listeners to begin with
 			}
 			oldFilteredListener = listeners.remove(listener);
+			if (oldFilteredListener != null) {
+				unindexServiceListener(context, listener, oldFilteredListener);
+			}
 		}
 
 		if (oldFilteredListener == null) {
@@ -857,6 +960,16 @@ public class ServiceRegistry {
 		Map<ServiceListener, FilteredServiceListener> removedListenersMap;
 		synchronized (serviceEventListeners) {
 			removedListenersMap = serviceEventListeners.remove(context);
+			if (removedListenersMap != null) {
+				serviceEventListenerContexts.remove(context);
+				for (FilteredServiceListener oldFilteredListener : removedListenersMap.values()) {
+					Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> bucket = serviceEventListenersByClass
+							.get(oldFilteredListener.getObjectClass());
+					if (bucket != null && bucket.remove(context) != null && bucket.isEmpty()) {
+						serviceEventListenersByClass.remove(oldFilteredListener.getObjectClass());
+					}
+				}
+			}
 		}
 		if ((removedListenersMap == null) || removedListenersMap.isEmpty()) {
 			return;
@@ -868,6 +981,69 @@ public class ServiceRegistry {
 		notifyListenerHooks(asListenerInfos(removedListeners), false);
 	}
 
+	/**
+	 * Add the listener to the bucket of the objectClass required by its filter.
+	 * The listeners of a bundle context in a bucket are kept in the order of their
+	 * sequence numbers.
+	 *
+	 * @param context          Context of bundle adding listener.
+	 * @param listener         Service Listener added.
+	 * @param filteredListener The filtered listener for the service listener.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void indexServiceListener(BundleContextImpl context, ServiceListener listener,
+			FilteredServiceListener filteredListener) {
+		Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> bucket = serviceEventListenersByClass
+				.computeIfAbsent(filteredListener.getObjectClass(), c -> new LinkedHashMap<>());
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> listeners = bucket.get(context);
+		if (listeners == null) {
+			listeners = new CopyOnWriteIdentityMap<>();
+			bucket.put(context, listeners);
+		}
+		long last = -1;
+		for (FilteredServiceListener current : listeners.values()) {
+			last = current.sequence;
+		}
+		if (filteredListener.sequence > last) {
+			listeners.put(listener, filteredListener);
+			return;
+		}
+		// a listener added again with a different filter moves between buckets
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> added = new CopyOnWriteIdentityMap<>();
+		added.put(listener, filteredListener);
+		bucket.put(context, mergeListeners(listeners, added));
+	}
+
+	/**
+	 * Remove the listener from the bucket of the objectClass required by its
+	 * filter.
+	 *
+	 * @param context          Context of bundle removing listener.
+	 * @param listener         Service Listener removed.
+	 * @param filteredListener The filtered listener for the service listener.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void unindexServiceListener(BundleContextImpl context, ServiceListener listener,
+			FilteredServiceListener filteredListener) {
+		String objectClass = filteredListener.getObjectClass();
+		Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> bucket = serviceEventListenersByClass
+				.get(objectClass);
+		if (bucket == null) {
+			return;
+		}
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> listeners = bucket.get(context);
+		if (listeners == null || listeners.get(listener) != filteredListener) {
+			return;
+		}
+		listeners.remove(listener);
+		if (listeners.isEmpty()) {
+			bucket.remove(context);
+			if (bucket.isEmpty()) {
+				serviceEventListenersByClass.remove(objectClass);
+			}
+		}
+	}
+
 	/**
 	 * Coerce the generic type of a collection from
 	 * Collection<FilteredServiceListener> to Collection<ListenerInfo>
@@ -900,23 +1076,35 @@ public class ServiceRegistry {
 	}
 
 	void publishServiceEventPrivileged(final ServiceEvent event) {
-		/* Build the listener snapshot */
+		/*
+		 * Build the listener snapshot. Only the listeners which do not require an
+		 * objectClass and the listeners which require one of the classes of the
+		 * service can match the event.
+		 */
+		String[] classes = ((ServiceReferenceImpl<?>) event.getServiceReference()).getClasses();
 		Map<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> listenerSnapshot;
 		Set<Map.Entry<ServiceListener, FilteredServiceListener>> systemServiceListenersOrig = null;
 		BundleContextImpl systemContext = null;
 		synchronized (serviceEventListeners) {
-			listenerSnapshot = new LinkedHashMap<>(serviceEventListeners.size());
-			for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : serviceEventListeners
-					.entrySet()) {
-				Map<ServiceListener, FilteredServiceListener> listeners = entry.getValue();
-				if (!listeners.isEmpty()) {
-					if (entry.getKey().getBundleImpl().getBundleId() == 0) {
-						systemContext = entry.getKey();
-						// make a copy that we can use to discard hook removals later
-						systemServiceListenersOrig = listeners.entrySet();
-					}
-					listenerSnapshot.put(entry.getKey(), listeners.entrySet());
+			Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> candidates = new LinkedHashMap<>();
+			addListenerCandidates(candidates, serviceEventListenersByClass.get(null));
+			for (String clazz : classes) {
+				addListenerCandidates(candidates, serviceEventListenersByClass.get(clazz));
+			}
+			// deliver to the bundle contexts in the order they first added a listener
+			List<BundleContextImpl> contexts = new ArrayList<>(candidates.keySet());
+			if (contexts.size() > 1) {
+				contexts.sort(Comparator.comparing(serviceEventListenerContexts::get));
+			}
+			listenerSnapshot = new LinkedHashMap<>(candidates.size());
+			for (BundleContextImpl context : contexts) {
+				Map<ServiceListener, FilteredServiceListener> listeners = candidates.get(context);
+				if (context.getBundleImpl().getBundleId() == 0) {
+					systemContext = context;
+					// make a copy that we can use to discard hook removals later
+					systemServiceListenersOrig = listeners.entrySet();
 				}
+				listenerSnapshot.put(context, listeners.entrySet());
 			}
 		}
 
@@ -939,6 +1127,13 @@ public class ServiceRegistry {
 			// It is more simple to just replace with the original snapshot.
 			listenerSnapshot.put(systemContext, systemServiceListenersOrig);
 		}
+		if (metrics.isEnabled()) {
+			int fanOut = 0;
+			for (Set<Map.Entry<ServiceListener, FilteredServiceListener>> listenerSet : listenerSnapshot.values()) {
+				fanOut += listenerSet.size();
+			}
+			metrics.listenerFanOut.record(fanOut);
+		}
 		if (listenerSnapshot.isEmpty()) {
 			return;
 		}
@@ -956,6 +1151,57 @@ public class ServiceRegistry {
 		queue.dispatchEventSynchronous(SERVICEEVENT, event);
 	}
 
+	/**
+	 * Add the listeners of a bucket of the listener index to the candidate
+	 * listeners of an event.
+	 *
+	 * @param candidates The candidate listeners by bundle context.
+	 * @param bucket     The bucket of the listener index. May be
+	 *                   <code>null</code>.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private static void addListenerCandidates(
+			Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> candidates,
+			Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> bucket) {
+		if (bucket == null) {
+			return;
+		}
+		for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : bucket
+				.entrySet()) {
+			CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> existing = candidates.get(entry.getKey());
+			if (existing == null) {
+				candidates.put(entry.getKey(), entry.getValue());
+			} else {
+				// the buckets are disjoint; merge the listeners into a new map
+				candidates.put(entry.getKey(), mergeListeners(existing, entry.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Merge the listeners of two disjoint maps which are each in the order of the
+	 * sequence numbers of their listeners.
+	 *
+	 * @param first  The first listeners.
+	 * @param second The second listeners.
+	 * @return A new map with the listeners of both maps in the order of their
+	 *         sequence numbers.
+	 */
+	private static CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> mergeListeners(
+			CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> first,
+			CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> second) {
+		List<Map.Entry<ServiceListener, FilteredServiceListener>> entries = new ArrayList<>(
+				first.size() + second.size());
+		entries.addAll(first.entrySet());
+		entries.addAll(second.entrySet());
+		entries.sort(Comparator.comparingLong(e -> e.getValue().sequence));
+		CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener> merged = new CopyOnWriteIdentityMap<>();
+		for (Map.Entry<ServiceListener, FilteredServiceListener> entry : entries) {
+			merged.put(entry.getKey(), entry.getValue());
+		}
+		return merged;
+	}
+
 	/**
 	 * Coerce the generic type of a collection from Collection<BundleContextImpl> to
 	 * Collection<BundleContext>
@@ -973,10 +1219,8 @@ public class ServiceRegistry {
 	 *
 	 * @return next service id.
 	 */
-	synchronized long getNextServiceId() {
-		long id = serviceid;
-		serviceid = id + 1;
-		return id;
+	long getNextServiceId() {
+		return serviceid.getAndIncrement();
 	}
 
 	/**
@@ -991,68 +1235,66 @@ public class ServiceRegistry {
 		// Add the ServiceRegistrationImpl to the list of Services published by
 		// BundleContextImpl.
 		List<ServiceRegistrationImpl<?>> contextServices = publishedServicesByContext.get(context);
-		if (contextServices == null) {
-			contextServices = new ArrayList<>(initialSubCapacity);
-			publishedServicesByContext.put(context, contextServices);
-		}
 		// The list is NOT sorted, so we just add
-		contextServices.add(registration);
+		publishedServicesByContext.put(context, addUnsorted(contextServices, registration));
 
 		// Add the ServiceRegistrationImpl to the list of Services published by Class
 		// Name.
-		int insertIndex;
 		for (String clazz : registration.getClasses()) {
 			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
+			publishedServicesByClass.put(clazz, addSorted(services, registration));
+		}
 
-			if (services == null) {
-				services = new ArrayList<>(initialSubCapacity);
-				publishedServicesByClass.put(clazz, services);
-			}
+		// Add the ServiceRegistrationImpl to the map of all published Services.
+		allPublishedServicesByOrder.put(new ServiceOrder(registration.getRanking(), registration.getId()),
+				registration);
+		allPublishedServices = null;
 
-			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -Collections.binarySearch(services, registration) - 1;
-			services.add(insertIndex, registration);
+		// Add the ServiceRegistrationImpl to the indexes of Services by property value.
+		Map<String, Object> properties = registration.getProperties();
+		for (ServicePropertyIndex index : propertyIndexes) {
+			index.add(registration, properties);
 		}
-
-		// Add the ServiceRegistrationImpl to the list of all published Services.
-		// The list is sorted, so we must find the proper location to insert
-		insertIndex = -Collections.binarySearch(allPublishedServices, registration) - 1;
-		allPublishedServices.add(insertIndex, registration);
 	}
 
 	/**
 	 * Modify the ServiceRegistrationImpl in the data structure.
 	 *
-	 * @param context      The BundleContext of the bundle registering the service.
-	 * @param registration The modified ServiceRegistration.
+	 * @param context            The BundleContext of the bundle registering the
+	 *                           service.
+	 * @param registration       The modified ServiceRegistration.
+	 * @param previousRanking    The ranking of the registration before the
+	 *                           modification.
+	 * @param previousProperties The properties of the registration before the
+	 *                           modification.
 	 */
 	/* @GuardedBy("this") */
 	void modifyServiceRegistration(BundleContextImpl context, ServiceRegistrationImpl<?> registration,
-			int previousRanking) {
+			int previousRanking, Map<String, Object> previousProperties) {
 		assert Thread.holdsLock(this);
 		// The list of Services published by BundleContextImpl is not sorted, so
 		// we do not need to modify it.
 
+		boolean rankingChanged = registration.compareTo(previousRanking, registration.getId()) != 0;
+		for (ServicePropertyIndex index : propertyIndexes) {
+			index.modify(registration, previousProperties, rankingChanged);
+		}
+
 		// If the insert location has changed
-		if (registration.compareTo(previousRanking, registration.getId()) != 0) {
-			// Remove the ServiceRegistrationImpl from the list of Services published by
-			// Class Name
-			// and then add at the correct index.
-			int insertIndex;
+		if (rankingChanged) {
+			// Move the ServiceRegistrationImpl to the correct index in the lists of
+			// Services published by Class Name.
 			for (String clazz : registration.getClasses()) {
 				List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-				services.remove(registration);
-				// The list is sorted, so we must find the proper location to insert
-				insertIndex = -1 - Collections.binarySearch(services, registration);
-				services.add(insertIndex, registration);
+				publishedServicesByClass.put(clazz, resort(services, registration));
 			}
 
-			// Remove the ServiceRegistrationImpl from the list of all published Services
-			// and then add at the correct index.
-			allPublishedServices.remove(registration);
-			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -1 - Collections.binarySearch(allPublishedServices, registration);
-			allPublishedServices.add(insertIndex, registration);
+			// Move the ServiceRegistrationImpl to the correct key in the map of all
+			// published Services.
+			allPublishedServicesByOrder.remove(new ServiceOrder(previousRanking, registration.getId()));
+			allPublishedServicesByOrder.put(new ServiceOrder(registration.getRanking(), registration.getId()),
+					registration);
+			allPublishedServices = null;
 		}
 	}
 
@@ -1069,21 +1311,148 @@ public class ServiceRegistry {
 		// BundleContextImpl.
 		List<ServiceRegistrationImpl<?>> contextServices = publishedServicesByContext.get(context);
 		if (contextServices != null) {
-			contextServices.remove(registration);
+			// an empty list is kept until removeServiceRegistrations is called
+			publishedServicesByContext.put(context, remove(contextServices, registration));
 		}
 
 		// Remove the ServiceRegistrationImpl from the list of Services published by
 		// Class Name.
 		for (String clazz : registration.getClasses()) {
-			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-			services.remove(registration);
+			List<ServiceRegistrationImpl<?>> services = remove(publishedServicesByClass.get(clazz), registration);
 			if (services.isEmpty()) { // remove empty list
 				publishedServicesByClass.remove(clazz);
+			} else {
+				publishedServicesByClass.put(clazz, services);
 			}
 		}
 
-		// Remove the ServiceRegistrationImpl from the list of all published Services.
-		allPublishedServices.remove(registration);
+		// Remove the ServiceRegistrationImpl from the map of all published Services.
+		if (allPublishedServicesByOrder
+				.remove(new ServiceOrder(registration.getRanking(), registration.getId())) != null) {
+			allPublishedServices = null;
+		}
+
+		// Remove the ServiceRegistrationImpl from the indexes of Services by property
+		// value.
+		Map<String, Object> properties = registration.getProperties();
+		for (ServicePropertyIndex index : propertyIndexes) {
+			index.remove(registration, properties);
+		}
+	}
+
+	/**
+	 * Returns a new immutable list containing the registrations of the specified
+	 * sorted list and the specified registration inserted at its sorted location.
+	 *
+	 * @param services     The sorted list or <code>null</code>.
+	 * @param registration The registration to add.
+	 * @return A new immutable sorted list.
+	 */
+	static List<ServiceRegistrationImpl<?>> addSorted(List<ServiceRegistrationImpl<?>> services,
+			ServiceRegistrationImpl<?> registration) {
+		if (services == null) {
+			return Collections.singletonList(registration);
+		}
+		// The list is sorted, so we must find the proper location to insert
+		int insertIndex = Collections.binarySearch(services, registration);
+		if (insertIndex >= 0) {
+			return services; // already present
+		}
+		insertIndex = -insertIndex - 1;
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + 1);
+		result.addAll(services.subList(0, insertIndex));
+		result.add(registration);
+		result.addAll(services.subList(insertIndex, services.size()));
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns a new immutable list containing the registrations of the specified
+	 * list and the specified registration appended at the end.
+	 *
+	 * @param services     The list or <code>null</code>.
+	 * @param registration The registration to add.
+	 * @return A new immutable list.
+	 */
+	private static List<ServiceRegistrationImpl<?>> addUnsorted(List<ServiceRegistrationImpl<?>> services,
+			ServiceRegistrationImpl<?> registration) {
+		if (services == null || services.isEmpty()) {
+			return Collections.singletonList(registration);
+		}
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + 1);
+		result.addAll(services);
+		result.add(registration);
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns a new immutable list containing the registrations of the specified
+	 * list without the specified registration. The order of the remaining
+	 * registrations is kept.
+	 *
+	 * @param services     The list or <code>null</code>.
+	 * @param registration The registration to remove.
+	 * @return A new immutable list, which may be empty.
+	 */
+	static List<ServiceRegistrationImpl<?>> remove(List<ServiceRegistrationImpl<?>> services,
+			ServiceRegistrationImpl<?> registration) {
+		if (services == null) {
+			return Collections.emptyList();
+		}
+		int index = services.indexOf(registration);
+		if (index < 0) {
+			return services;
+		}
+		int size = services.size();
+		if (size == 1) {
+			return Collections.emptyList();
+		}
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(size - 1);
+		result.addAll(services.subList(0, index));
+		result.addAll(services.subList(index + 1, size));
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns a new immutable list containing the registrations of the specified
+	 * list with the specified registration moved to its sorted location. This is
+	 * used after the ranking of the registration has changed.
+	 *
+	 * @param services     The list which was sorted before the ranking of the
+	 *                     registration changed.
+	 * @param registration The registration to move.
+	 * @return A new immutable sorted list.
+	 */
+	static List<ServiceRegistrationImpl<?>> resort(List<ServiceRegistrationImpl<?>> services,
+			ServiceRegistrationImpl<?> registration) {
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services);
+		result.remove(registration);
+		// The list is sorted, so we must find the proper location to insert
+		int insertIndex = -1 - Collections.binarySearch(result, registration);
+		result.add(insertIndex, registration);
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns all published services. The snapshot of all published services is
+	 * created again if the published services have changed since it was taken.
+	 *
+	 * @return An immutable list of all published services sorted in the natural
+	 *         order of ServiceRegistrationImpl.
+	 */
+	private List<ServiceRegistrationImpl<?>> getAllPublishedServices() {
+		List<ServiceRegistrationImpl<?>> result = allPublishedServices;
+		if (result == null) {
+			synchronized (this) {
+				result = allPublishedServices;
+				if (result == null) {
+					result = allPublishedServicesByOrder.isEmpty() ? Collections.emptyList()
+							: Collections.unmodifiableList(new ArrayList<>(allPublishedServicesByOrder.values()));
+					allPublishedServices = result;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -1096,55 +1465,81 @@ public class ServiceRegistry {
 	 */
 	private List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(String clazz, Filter filter) {
 		List<ServiceRegistrationImpl<?>> result;
-		synchronized (this) {
-			if (clazz == null) {
-				if (filter instanceof FilterImpl) {
-					// check if we can determine the clazz from the filter
-					String filterObjectClazz = ((FilterImpl) filter).getRequiredObjectClass();
-					if (filterObjectClazz != null) {
-						result = publishedServicesByClass.get(filterObjectClazz);
-						if (((FilterImpl) filter).getChildren().isEmpty()) {
-							// this is a simple (objectClass=serviceClass) filter;
-							// no need to evaluate the filter
-							filter = null;
-						}
-					} else {
-						result = allPublishedServices;
+		boolean checkClazz = false;
+		if (clazz == null) {
+			if (filter instanceof FilterImpl) {
+				// check if we can determine the clazz from the filter
+				String filterObjectClazz = ((FilterImpl) filter).getRequiredObjectClass();
+				if (filterObjectClazz != null) {
+					result = publishedServicesByClass.get(filterObjectClazz);
+					if (((FilterImpl) filter).getChildren().isEmpty()) {
+						// this is a simple (objectClass=serviceClass) filter;
+						// no need to evaluate the filter
+						filter = null;
 					}
 				} else {
-					// have to check all services
-					result = allPublishedServices;
+					result = getAllPublishedServices();
 				}
 			} else {
-				/* services registered under the class name */
-				result = publishedServicesByClass.get(clazz);
+				// have to check all services
+				result = getAllPublishedServices();
 			}
+		} else {
+			/* services registered under the class name */
+			result = publishedServicesByClass.get(clazz);
+		}
 
-			if ((result == null) || result.isEmpty()) {
-				return Collections.emptyList();
-			}
+		if ((result == null) || result.isEmpty()) {
+			return Collections.emptyList();
+		}
 
-			result = new LinkedList<>(result); /* make a new list since we don't want to change the real list */
+		if (filter instanceof FilterImpl) {
+			// check if an indexed property value narrows the candidates any further
+			for (ServicePropertyIndex index : propertyIndexes) {
+				String value = ((FilterImpl) filter).getPrimaryKeyValue(index.getKey());
+				if (value != null) {
+					List<ServiceRegistrationImpl<?>> indexed = index.lookup(value);
+					if (indexed.size() < result.size()) {
+						result = indexed;
+						// the indexed services are not necessarily registered under clazz
+						checkClazz = clazz != null;
+						if (result.isEmpty()) {
+							return Collections.emptyList();
+						}
+					}
+				}
+			}
 		}
 
 		if (filter == null) {
-			return result;
+			return result; /* the list is immutable so no copy is needed */
 		}
 
-		for (Iterator<ServiceRegistrationImpl<?>> iter = result.iterator(); iter.hasNext();) {
-			ServiceRegistrationImpl<?> registration = iter.next();
+		if (metrics.isEnabled()) {
+			metrics.filterEvaluations.record(result.size());
+		}
+		List<ServiceRegistrationImpl<?>> matches = new ArrayList<>();
+		for (ServiceRegistrationImpl<?> registration : result) {
 			ServiceReferenceImpl<?> reference;
 			try {
 				reference = registration.getReferenceImpl();
 			} catch (IllegalStateException e) {
-				iter.remove(); /* service was unregistered after we left the synchronized block above */
-				continue;
+				continue; /* service was unregistered after the snapshot was taken */
 			}
-			if (!filter.match(reference)) {
-				iter.remove();
+			if ((!checkClazz || isRegisteredUnder(registration, clazz)) && filter.match(reference)) {
+				matches.add(registration);
 			}
 		}
-		return result;
+		return matches;
+	}
+
+	private static boolean isRegisteredUnder(ServiceRegistrationImpl<?> registration, String clazz) {
+		for (String registered : registration.getClasses()) {
+			if (registered.equals(clazz)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -1153,14 +1548,14 @@ public class ServiceRegistry {
 	 * @param context The BundleContext for which to return Service Registrations.
 	 * @return List<ServiceRegistrationImpl>
 	 */
-	private synchronized List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(BundleContextImpl context) {
+	private List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(BundleContextImpl context) {
 		List<ServiceRegistrationImpl<?>> result = publishedServicesByContext.get(context);
 
 		if ((result == null) || result.isEmpty()) {
 			return Collections.emptyList();
 		}
 
-		return new ArrayList<>(result); /* make a new list since we don't want to change the real list */
+		return result; /* the list is immutable so no copy is needed */
 	}
 
 	/**
@@ -1383,6 +1778,7 @@ public class ServiceRegistry {
 			// This means we could miss calls to a hook during the registered event.
 			return;
 		}
+		long start = metrics.isEnabled() ? System.nanoTime() : 0;
 		try {
 			hookContext.call(hook, registration);
 		} catch (Throwable t) {
@@ -1395,6 +1791,10 @@ public class ServiceRegistry {
 			ServiceException se = new ServiceException(
 					NLS.bind(Msg.SERVICE_FACTORY_EXCEPTION, hook.getClass().getName(), serviceMethod), t);
 			container.getEventPublisher().publishFrameworkEvent(FrameworkEvent.ERROR, registration.getBundle(), se);
+		} finally {
+			if (metrics.isEnabled()) {
+				metrics.hookTime.record(System.nanoTime() - start);
+			}
 		}
 	}
 
@@ -1492,4 +1892,52 @@ public class ServiceRegistry {
 	ConcurrentMap<Thread, ServiceUseLock> getAwaitedUseLocks() {
 		return awaitedUseLocks;
 	}
+
+	/**
+	 * Returns the metrics of this service registry.
+	 *
+	 * @return The metrics of this service registry.
+	 */
+	public ServiceRegistryMetricsImpl getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * The key of a registration in {@link #allPublishedServicesByOrder}. Keys are
+	 * ordered like the natural order of ServiceRegistrationImpl, but the ranking
+	 * is captured so that a registration can still be found after its ranking has
+	 * changed.
+	 */
+	private static final class ServiceOrder implements Comparable<ServiceOrder> {
+		private final int ranking;
+		private final long id;
+
+		ServiceOrder(int ranking, long id) {
+			this.ranking = ranking;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(ServiceOrder other) {
+			int compared = Integer.compare(other.ranking, ranking);
+			if (compared != 0) {
+				return compared;
+			}
+			return Long.compare(id, other.id);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ServiceOrder)) {
+				return false;
+			}
+			ServiceOrder other = (ServiceOrder) obj;
+			return ranking == other.ranking && id == other.id;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(id) * 31 + ranking;
+		}
+	}
 }
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.serviceregistry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.osgi.internal.framework.BundleContextImpl;
+import org.eclipse.osgi.internal.framework.FilterCache;
+import org.eclipse.osgi.internal.framework.Histogram;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetrics;
+import org.eclipse.osgi.service.metrics.ServiceRegistryMetricsDTO;
+
+/**
+ * The metrics of a service registry. If the metrics are disabled, the service
+ * registry does not call the methods which record metrics; callers must check
+ * {@link #isEnabled()} first so that no time is measured when the metrics are
+ * disabled.
+ *
+ * @ThreadSafe
+ */
+public final class ServiceRegistryMetricsImpl implements ServiceRegistryMetrics {
+	/** the class name used for lookups without a class name */
+	private static final String ANY_CLASS = "*"; //$NON-NLS-1$
+
+	private final boolean enabled;
+	private final FilterCache filterCache;
+	private final LongAdder lookups = new LongAdder();
+	private final ConcurrentMap<String, LongAdder> lookupsByClass = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, LongAdder> lookupsByBundle = new ConcurrentHashMap<>();
+	final Histogram filterEvaluations = new Histogram();
+	final Histogram listenerFanOut = new Histogram();
+	final Histogram getServiceTime = new Histogram();
+	final Histogram factoryGetServiceTime = new Histogram();
+	final Histogram hookTime = new Histogram();
+	final Histogram useLockWaitTime = new Histogram();
+
+	ServiceRegistryMetricsImpl(boolean enabled, FilterCache filterCache) {
+		this.enabled = enabled;
+		this.filterCache = filterCache;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Records a service lookup.
+	 *
+	 * @param context The BundleContext of the bundle making the lookup.
+	 * @param clazz   The class name of the lookup or null.
+	 */
+	void lookup(BundleContextImpl context, String clazz) {
+		lookups.increment();
+		increment(lookupsByClass, clazz == null ? ANY_CLASS : clazz);
+		increment(lookupsByBundle, Long.valueOf(context.getBundleImpl().getBundleId()));
+	}
+
+	private static <K> void increment(ConcurrentMap<K, LongAdder> counters, K key) {
+		LongAdder counter = counters.get(key);
+		if (counter == null) {
+			counter = counters.computeIfAbsent(key, k -> new LongAdder());
+		}
+		counter.increment();
+	}
+
+	@Override
+	public ServiceRegistryMetricsDTO getMetrics() {
+		ServiceRegistryMetricsDTO dto = new ServiceRegistryMetricsDTO();
+		dto.enabled = enabled;
+		dto.timestamp = System.currentTimeMillis();
+		dto.lookups = lookups.sum();
+		dto.lookupsByClass = toMap(lookupsByClass);
+		dto.lookupsByBundle = toMap(lookupsByBundle);
+		dto.filterEvaluationsPerLookup = filterEvaluations.toDTO();
+		dto.listenerFanOut = listenerFanOut.toDTO();
+		dto.getServiceTime = getServiceTime.toDTO();
+		dto.factoryGetServiceTime = factoryGetServiceTime.toDTO();
+		dto.hookTime = hookTime.toDTO();
+		dto.useLockWaitTime = useLockWaitTime.toDTO();
+		if (enabled) {
+			dto.filterCacheSize = filterCache.size();
+			dto.filterCacheHits = filterCache.getHitCount();
+			dto.filterCacheMisses = filterCache.getMissCount();
+		}
+		return dto;
+	}
+
+	private static <K> Map<K, Long> toMap(Map<K, LongAdder> counters) {
+		Map<K, Long> result = new HashMap<>(counters.size());
+		for (Map.Entry<K, LongAdder> entry : counters.entrySet()) {
+			long count = entry.getValue().sum();
+			if (count != 0) {
+				result.put(entry.getKey(), Long.valueOf(count));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		lookups.reset();
+		lookupsByClass.clear();
+		lookupsByBundle.clear();
+		filterEvaluations.reset();
+		listenerFanOut.reset();
+		getServiceTime.reset();
+		factoryGetServiceTime.reset();
+		hookTime.reset();
+		useLockWaitTime.reset();
+		filterCache.resetStatistics();
+	}
+}
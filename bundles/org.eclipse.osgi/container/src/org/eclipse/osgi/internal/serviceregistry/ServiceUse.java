@@ -248,11 +248,19 @@ public class ServiceUse<S> {
 	ServiceUseLock lock() {
 		Thread awaitingThread = null;
 		boolean interrupted = false;
+		final ServiceUseLock useLock = getLock(); // local var to avoid multiple getfields
+		final ServiceRegistryMetricsImpl metrics = registration.getMetrics();
+		if (metrics.isEnabled() && useLock.tryLock()) {
+			return useLock; // not contended; nothing to measure
+		}
+		final long start = metrics.isEnabled() ? System.nanoTime() : 0;
 		try {
-			final ServiceUseLock useLock = getLock(); // local var to avoid multiple getfields
 			while (true) {
 				try {
 					if (useLock.tryLock(100_000_000L, TimeUnit.NANOSECONDS)) { // 100ms (but prevent conversion)
+						if (metrics.isEnabled()) {
+							metrics.useLockWaitTime.record(System.nanoTime() - start);
+						}
 						return useLock;
 					}
 					awaitingThread = Thread.currentThread();
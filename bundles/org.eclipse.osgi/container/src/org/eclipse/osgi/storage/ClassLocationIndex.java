@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A persistent index of the classpath entries which provide the classes and
+ * resources loaded by bundle class loaders. The index records, for each class
+ * or resource name found locally by a bundle class loader, the index of the
+ * first classpath entry which provided it. On a warm start the recorded
+ * classpath entry is searched first instead of probing all the classpath
+ * entries of the bundle.
+ * <p>
+ * The locations are recorded per classpath layout, a key which identifies the
+ * host generation and the generations of the attached fragments, so locations
+ * are only used with the classpath they were recorded for. The index is only
+ * valid for the revisions timestamp of the module database it was recorded
+ * with; it is discarded when a revision or wiring changes and when it is loaded
+ * for a different module database.
+ *
+ * @ThreadSafe
+ */
+public final class ClassLocationIndex {
+	/** the name of the file the index is stored in */
+	public static final String CLASS_LOCATION_INDEX = "classlocation.index"; //$NON-NLS-1$
+	private static final int VERSION = 1;
+	/** the maximum number of recorded locations */
+	static final int MAX_LOCATIONS = 100000;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, Integer>> locations = new ConcurrentHashMap<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private volatile long revisionsTimestamp;
+	private volatile boolean modified;
+
+	ClassLocationIndex(long revisionsTimestamp) {
+		this.revisionsTimestamp = revisionsTimestamp;
+	}
+
+	/**
+	 * Returns the index of the classpath entry which provided the specified class
+	 * or resource for the specified classpath layout.
+	 *
+	 * @param layout the classpath layout
+	 * @param name   the name of a class or resource
+	 * @return the index of the classpath entry or -1 if no location is recorded
+	 */
+	public int getLocation(String layout, String name) {
+		Map<String, Integer> names = locations.get(layout);
+		if (names == null) {
+			return -1;
+		}
+		Integer location = names.get(name);
+		return location == null ? -1 : location.intValue();
+	}
+
+	/**
+	 * Records the index of the classpath entry which provided the specified class
+	 * or resource for the specified classpath layout.
+	 *
+	 * @param layout         the classpath layout
+	 * @param name           the name of a class or resource
+	 * @param classpathIndex the index of the classpath entry
+	 */
+	public void putLocation(String layout, String name, int classpathIndex) {
+		if (size.get() >= MAX_LOCATIONS) {
+			return;
+		}
+		Integer previous = locations.computeIfAbsent(layout, l -> new ConcurrentHashMap<>()).put(name,
+				Integer.valueOf(classpathIndex));
+		if (previous == null) {
+			size.incrementAndGet();
+		}
+		if (previous == null || previous.intValue() != classpathIndex) {
+			modified = true;
+		}
+	}
+
+	/**
+	 * Discards all recorded locations if the revisions timestamp of the module
+	 * database has changed.
+	 *
+	 * @param currentRevisionsTimestamp the current revisions timestamp
+	 */
+	public void checkRevisionsTimestamp(long currentRevisionsTimestamp) {
+		if (revisionsTimestamp != currentRevisionsTimestamp) {
+			synchronized (this) {
+				if (revisionsTimestamp != currentRevisionsTimestamp) {
+					locations.clear();
+					size.set(0);
+					revisionsTimestamp = currentRevisionsTimestamp;
+					modified = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of recorded locations.
+	 *
+	 * @return the number of recorded locations
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Loads the index from the specified file. An empty index is returned if the
+	 * file does not exist, cannot be read or was stored for a different revisions
+	 * timestamp.
+	 *
+	 * @param file               the file to load the index from
+	 * @param revisionsTimestamp the revisions timestamp of the loaded module
+	 *                           database
+	 * @return the loaded index
+	 */
+	static ClassLocationIndex load(File file, long revisionsTimestamp) {
+		ClassLocationIndex index = new ClassLocationIndex(revisionsTimestamp);
+		if (!file.isFile()) {
+			return index;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION || in.readLong() != revisionsTimestamp) {
+				return index;
+			}
+			int numLayouts = in.readInt();
+			for (int i = 0; i < numLayouts; i++) {
+				String layout = in.readUTF();
+				int numNames = in.readInt();
+				ConcurrentMap<String, Integer> names = new ConcurrentHashMap<>(numNames * 4 / 3 + 1);
+				for (int j = 0; j < numNames; j++) {
+					String name = in.readUTF();
+					names.put(name, Integer.valueOf(in.readInt()));
+				}
+				index.locations.put(layout, names);
+				index.size.addAndGet(numNames);
+			}
+			return index;
+		} catch (IOException e) {
+			// start over with an empty index
+			return new ClassLocationIndex(revisionsTimestamp);
+		}
+	}
+
+	/**
+	 * Stores the index to the specified file if locations were recorded or
+	 * discarded since the index was loaded.
+	 *
+	 * @param file the file to store the index in
+	 * @throws IOException if an error occurs writing the file
+	 */
+	synchronized void save(File file) throws IOException {
+		if (!modified) {
+			return;
+		}
+		// locations recorded while saving mark the index as modified again
+		modified = false;
+		try {
+			write(file);
+		} catch (IOException e) {
+			modified = true;
+			throw e;
+		}
+	}
+
+	private void write(File file) throws IOException {
+		File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(VERSION);
+			out.writeLong(revisionsTimestamp);
+			// the maps may change while writing
+			Map<String, Map<String, Integer>> snapshot = new HashMap<>(locations);
+			out.writeInt(snapshot.size());
+			for (Map.Entry<String, Map<String, Integer>> layout : snapshot.entrySet()) {
+				Map<String, Integer> names = new HashMap<>(layout.getValue());
+				out.writeUTF(layout.getKey());
+				out.writeInt(names.size());
+				for (Map.Entry<String, Integer> name : names.entrySet()) {
+					out.writeUTF(name.getKey());
+					out.writeInt(name.getValue().intValue());
+				}
+			}
+		}
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ClassLocationIndex[layouts=" + locations.size() + ", locations=" + size() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
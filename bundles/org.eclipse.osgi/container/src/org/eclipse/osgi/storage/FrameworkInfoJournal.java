@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.SyncFailedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append only journal of the changes saved since the framework info was last
+ * written. Each save appends a single record containing all the changes since
+ * the previous save instead of rewriting the complete framework info. A record
+ * is written with its length and checksum and is synced to disk before the save
+ * completes; a record which was not completely written, for example because
+ * the process crashed, is ignored along with anything following it.
+ * <p>
+ * The journal starts with the timestamps of the framework info it applies to.
+ * When the journal grows too large it is compacted by writing the complete
+ * framework info and starting a new journal for it. A journal which does not
+ * match the loaded framework info, for example because the process crashed
+ * after writing a new framework info but before the journal was started again,
+ * is ignored since the framework info already contains its changes.
+ */
+final class FrameworkInfoJournal {
+	/**
+	 * The name of the file the journal is stored in. Note that the name must not
+	 * start with the name of the framework info since the storage manager deletes
+	 * such files as stale copies.
+	 */
+	static final String FRAMEWORK_INFO_JOURNAL = "framework.journal"; //$NON-NLS-1$
+	private static final int VERSION = 1;
+	/** the minimum length of the journal before it is compacted */
+	private static final long MIN_COMPACT_LENGTH = 64 * 1024;
+	private static final int HEADER_LENGTH = 4 + 8 + 8 + 8;
+	private static final int RECORD_HEADER_LENGTH = 4 + 8;
+
+	private final File file;
+	/* @GuardedBy Storage.saveMonitor */
+	private long length = -1;
+	/* @GuardedBy Storage.saveMonitor */
+	private long compactLength = MIN_COMPACT_LENGTH;
+
+	FrameworkInfoJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the records of the journal which apply to the framework info with the
+	 * specified timestamps.
+	 *
+	 * @param revisionsTimestamp the revisions timestamp of the framework info
+	 * @param timestamp          the timestamp of the framework info
+	 * @return the records of the journal, empty if the journal does not apply
+	 */
+	List<byte[]> read(long revisionsTimestamp, long timestamp) {
+		length = -1;
+		if (!file.isFile()) {
+			return Collections.emptyList();
+		}
+		List<byte[]> records = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION || in.readLong() != revisionsTimestamp || in.readLong() != timestamp) {
+				return Collections.emptyList();
+			}
+			long snapshotLength = in.readLong();
+			long validLength = HEADER_LENGTH;
+			CRC32 crc = new CRC32();
+			while (true) {
+				int recordLength;
+				try {
+					recordLength = in.readInt();
+				} catch (EOFException e) {
+					// all records are complete; continue to append to this journal
+					length = validLength;
+					compactLength = getCompactLength(snapshotLength);
+					break;
+				}
+				long checksum = in.readLong();
+				if (recordLength < 0 || recordLength > file.length()) {
+					break;
+				}
+				byte[] record = new byte[recordLength];
+				in.readFully(record);
+				crc.reset();
+				crc.update(record, 0, recordLength);
+				if (crc.getValue() != checksum) {
+					break;
+				}
+				records.add(record);
+				validLength += RECORD_HEADER_LENGTH + recordLength;
+			}
+		} catch (IOException e) {
+			// the last record is incomplete; use the complete records
+		}
+		return records;
+	}
+
+	/**
+	 * Appends a record to the journal.
+	 *
+	 * @param record the record to append
+	 * @throws IOException if an error occurs writing the record. The journal must
+	 *                     be started again with {@link #reset(long, long, long)}
+	 */
+	void append(byte[] record) throws IOException {
+		if (length < 0) {
+			throw new IOException("The journal must be reset: " + file); //$NON-NLS-1$
+		}
+		CRC32 crc = new CRC32();
+		crc.update(record, 0, record.length);
+		long appendLength = length;
+		length = -1;
+		try (FileOutputStream fileOut = new FileOutputStream(file, true)) {
+			if (fileOut.getChannel().size() != appendLength) {
+				throw new IOException("The journal has been modified: " + file); //$NON-NLS-1$
+			}
+			DataOutputStream out = new DataOutputStream(fileOut);
+			out.writeInt(record.length);
+			out.writeLong(crc.getValue());
+			out.write(record);
+			out.flush();
+			sync(fileOut);
+		}
+		length = appendLength + RECORD_HEADER_LENGTH + record.length;
+	}
+
+	/**
+	 * Starts a new empty journal for the framework info with the specified
+	 * timestamps.
+	 *
+	 * @param revisionsTimestamp the revisions timestamp of the framework info
+	 * @param timestamp          the timestamp of the framework info
+	 * @param snapshotLength     the length of the framework info
+	 * @throws IOException if an error occurs writing the journal
+	 */
+	void reset(long revisionsTimestamp, long timestamp, long snapshotLength) throws IOException {
+		length = -1;
+		File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+			DataOutputStream out = new DataOutputStream(fileOut);
+			out.writeInt(VERSION);
+			out.writeLong(revisionsTimestamp);
+			out.writeLong(timestamp);
+			out.writeLong(snapshotLength);
+			out.flush();
+			sync(fileOut);
+		}
+		try {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		length = HEADER_LENGTH;
+		compactLength = getCompactLength(snapshotLength);
+	}
+
+	/**
+	 * Deletes the journal.
+	 */
+	void delete() {
+		length = -1;
+		if (file.exists()) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Returns true if the journal must be compacted by writing the complete
+	 * framework info before changes can be appended. This is the case if the
+	 * journal has grown larger than half of the framework info or if the journal
+	 * could not be read or written completely.
+	 *
+	 * @return true if the journal must be compacted
+	 */
+	boolean needsCompaction() {
+		return length < 0 || length >= compactLength;
+	}
+
+	/**
+	 * Returns true if records have been appended to the journal since it was
+	 * started or if the journal could not be read or written completely.
+	 *
+	 * @return true if the journal contains changes which are not in the framework
+	 *         info
+	 */
+	boolean hasRecords() {
+		return length != HEADER_LENGTH && file.exists();
+	}
+
+	private static long getCompactLength(long snapshotLength) {
+		return Math.max(MIN_COMPACT_LENGTH, snapshotLength / 2);
+	}
+
+	private static void sync(FileOutputStream out) throws IOException {
+		try {
+			out.getFD().sync();
+		} catch (SyncFailedException e) {
+			// ignore like the storage manager does
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FrameworkInfoJournal[length=" + length + ", compactLength=" + compactLength + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An input stream over the complete content of a file which is mapped into
+ * memory. Unlike a buffered file input stream the content is not copied into
+ * an intermediate buffer and reads are not synchronized, which makes the many
+ * small reads done while loading the framework info considerably cheaper.
+ */
+final class MappedInputStream extends InputStream {
+	private final ByteBuffer buffer;
+
+	private MappedInputStream(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Opens a stream over the content of the given file. The file is mapped into
+	 * memory unless the mapping is requested to be avoided, in which case the
+	 * content is read into memory with a single read instead. This is used on
+	 * platforms where a mapped file cannot be deleted until the mapping is
+	 * garbage collected.
+	 *
+	 * @param file the file to open
+	 * @param map  whether the file should be mapped
+	 * @return a stream over the content of the file
+	 * @throws IOException if the file could not be read
+	 */
+	static MappedInputStream open(File file, boolean map) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File is too large to be mapped: " + file); //$NON-NLS-1$
+			}
+			if (map) {
+				return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+			}
+			ByteBuffer content = ByteBuffer.allocate((int) size);
+			while (content.hasRemaining()) {
+				if (channel.read(content) < 0) {
+					throw new IOException("Unexpected end of file: " + file); //$NON-NLS-1$
+				}
+			}
+			content.flip();
+			return new MappedInputStream(content);
+		}
+	}
+
+	@Override
+	public int read() {
+		return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int remaining = buffer.remaining();
+		if (remaining == 0) {
+			return -1;
+		}
+		int n = Math.min(len, remaining);
+		buffer.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+}
@@ -119,7 +119,7 @@ public class PermissionData {
 		return dirty;
 	}
 
-	private void setDirty(boolean dirty) {
+	void setDirty(boolean dirty) {
 		this.dirty = dirty;
 	}
 
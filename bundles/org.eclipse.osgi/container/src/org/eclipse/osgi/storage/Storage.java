@@ -52,12 +52,15 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleCapability;
 import org.eclipse.osgi.container.ModuleContainer;
+import org.eclipse.osgi.container.ModuleContainer.InstallEntry;
 import org.eclipse.osgi.container.ModuleContainerAdaptor;
 import org.eclipse.osgi.container.ModuleDatabase;
 import org.eclipse.osgi.container.ModuleRevision;
@@ -87,6 +90,7 @@ import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.internal.permadmin.SecurityAdmin;
 import org.eclipse.osgi.internal.url.URLStreamHandlerFactoryImpl;
 import org.eclipse.osgi.service.datalocation.Location;
+import org.eclipse.osgi.service.install.BundleInstaller.InstallResult;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
 import org.eclipse.osgi.storage.ContentProvider.Type;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
@@ -95,6 +99,7 @@ import org.eclipse.osgi.storage.bundlefile.BundleFileWrapper;
 import org.eclipse.osgi.storage.bundlefile.BundleFileWrapperChain;
 import org.eclipse.osgi.storage.bundlefile.DirBundleFile;
 import org.eclipse.osgi.storage.bundlefile.MRUBundleFileList;
+import org.eclipse.osgi.storage.bundlefile.MappedZipBundleFile;
 import org.eclipse.osgi.storage.bundlefile.NestedDirBundleFile;
 import org.eclipse.osgi.storage.bundlefile.ZipBundleFile;
 import org.eclipse.osgi.storage.url.reference.Handler;
@@ -120,6 +125,18 @@ import org.osgi.resource.Namespace;
 import org.osgi.resource.Requirement;
 
 public class Storage {
+	/**
+	 * Thrown while the storage is created if the journal of the framework info
+	 * cannot be applied to the framework info.
+	 */
+	private static class InvalidJournalException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		InvalidJournalException(Throwable cause) {
+			super(cause);
+		}
+	}
+
 	public static class StorageException extends RuntimeException {
 		private static final long serialVersionUID = 1L;
 
@@ -152,6 +169,7 @@ public class Storage {
 	public static final String ECLIPSE_SYSTEMBUNDLE = "Eclipse-SystemBundle"; //$NON-NLS-1$
 	public static final String DELETE_FLAG = ".delete"; //$NON-NLS-1$
 	public static final String LIB_TEMP = "libtemp"; //$NON-NLS-1$
+	private static final String ZIP_INDEX = BUNDLE_FILE_NAME + ".index"; //$NON-NLS-1$
 
 	private static final String JAVASE = "JavaSE"; //$NON-NLS-1$
 	private static final String PROFILE_EXT = ".profile"; //$NON-NLS-1$
@@ -178,12 +196,29 @@ public class Storage {
 			Constants.BUNDLE_ACTIVATIONPOLICY, "Service-Component"); //$NON-NLS-1$
 	private final boolean allowRestrictedProvides;
 	private final AtomicBoolean refreshMRBundles = new AtomicBoolean(false);
+	/* the class locations recorded by bundle class loaders; null if not enabled */
+	private final ClassLocationIndex classLocationIndex;
+	/* the journal of the changes saved since framework.info was written */
+	private final FrameworkInfoJournal journal;
+	private final boolean journalEnabled;
+	/* the revisions of the modules as they have been saved; @GuardedBy saveMonitor */
+	private Map<Long, ModuleRevision> savedRevisions = Collections.emptyMap();
 	private final Version runtimeVersion;
 	private final String javaSpecVersion;
 
 	public static Storage createStorage(EquinoxContainer container) throws IOException, BundleException {
 		String[] cachedInfo = new String[3];
-		Storage storage = new Storage(container, cachedInfo);
+		Storage storage;
+		try {
+			storage = new Storage(container, cachedInfo, true);
+		} catch (InvalidJournalException e) {
+			container.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING,
+					"The framework info journal cannot be applied. Loading the framework info without it.", //$NON-NLS-1$
+					e.getCause());
+			// the changes may have been applied partly; load the framework info again
+			cachedInfo = new String[3];
+			storage = new Storage(container, cachedInfo, false);
+		}
 		// Do some operations that need to happen on the fully constructed Storage
 		// before returning it
 		storage.checkSystemBundle(cachedInfo);
@@ -195,7 +230,7 @@ public class Storage {
 		return storage;
 	}
 
-	private Storage(EquinoxContainer container, String[] cachedInfo) throws IOException {
+	private Storage(EquinoxContainer container, String[] cachedInfo, boolean replayJournal) throws IOException {
 		// default to Java 8 since that is our min
 		Version defaultVersion = Version.valueOf("1.8"); //$NON-NLS-1$
 		Version javaVersion = defaultVersion;
@@ -264,8 +299,12 @@ public class Storage {
 					childRoot.getParentFile().getAbsolutePath());
 		}
 
+		this.journal = new FrameworkInfoJournal(new File(childRoot, FrameworkInfoJournal.FRAMEWORK_INFO_JOURNAL));
+		this.journalEnabled = container.getConfiguration().STORAGE_JOURNAL;
+
 		InputStream info = getInfoInputStream();
-		DataInputStream data = info == null ? null : new DataInputStream(new BufferedInputStream(info));
+		DataInputStream data = info == null ? null
+				: new DataInputStream(info instanceof MappedInputStream ? info : new BufferedInputStream(info));
 		try {
 			Map<Long, Generation> generations;
 			try {
@@ -287,7 +326,19 @@ public class Storage {
 			if (data != null) {
 				try {
 					moduleDatabase.load(data);
-					lastSavedTimestamp = moduleDatabase.getTimestamp();
+					if (replayJournal) {
+						// the journal is replayed even if it is not enabled to not lose saved changes
+						try {
+							loadJournal(generations);
+						} catch (IOException | RuntimeException e) {
+							throw new InvalidJournalException(e);
+						}
+						lastSavedTimestamp = moduleDatabase.getTimestamp();
+					} else {
+						// the next save writes the complete framework info
+						journal.delete();
+					}
+					savedRevisions = getCurrentRevisions();
 				} catch (IllegalArgumentException e) {
 					equinoxContainer.getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING,
 							"Incompatible version.  Starting with empty framework.", e); //$NON-NLS-1$
@@ -307,6 +358,30 @@ public class Storage {
 				}
 			}
 		}
+		classLocationIndex = container.getConfiguration().CLASS_LOCATION_INDEX
+				? ClassLocationIndex.load(new File(childRoot, ClassLocationIndex.CLASS_LOCATION_INDEX),
+						moduleDatabase.getRevisionsTimestamp())
+				: null;
+	}
+
+	/**
+	 * Returns the persistent index of the classpath entries providing the classes
+	 * and resources loaded by bundle class loaders.
+	 *
+	 * @return the class location index or {@code null} if it is not enabled
+	 */
+	public ClassLocationIndex getClassLocationIndex() {
+		return classLocationIndex;
+	}
+
+	/**
+	 * Discards the recorded class locations if a revision or wiring of the module
+	 * database has changed.
+	 */
+	public void checkClassLocationIndex() {
+		if (classLocationIndex != null) {
+			classLocationIndex.checkRevisionsTimestamp(moduleDatabase.getRevisionsTimestamp());
+		}
 	}
 
 	public Version getRuntimeVersion() {
@@ -525,10 +600,19 @@ public class Storage {
 
 	public void close() {
 		try {
-			save();
+			// compact the journal so that the wirings are saved
+			save(true);
 		} catch (IOException e) {
 			getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, "Error saving on shutdown", e); //$NON-NLS-1$
 		}
+		if (classLocationIndex != null && !isReadOnly()) {
+			try {
+				classLocationIndex.save(new File(childRoot, ClassLocationIndex.CLASS_LOCATION_INDEX));
+			} catch (IOException e) {
+				getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.ERROR,
+						"Error saving the class location index on shutdown", e); //$NON-NLS-1$
+			}
+		}
 
 		// close all the generations
 		List<Module> modules = moduleContainer.getModules();
@@ -717,18 +801,7 @@ public class Storage {
 			} catch (IOException e) {
 				// ignore
 			}
-			if (origin != null) {
-				// Check that the existing location is visible from the origin module
-				Bundle bundle = origin.getBundle();
-				BundleContext context = bundle == null ? null : bundle.getBundleContext();
-				if (context != null && context.getBundle(existingLocation.getId()) == null) {
-					Bundle b = existingLocation.getBundle();
-					throw new BundleException(
-							NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation,
-									new Object[] { b.getSymbolicName(), b.getVersion(), bundleLocation }),
-							BundleException.REJECTED_BY_HOOK);
-				}
-			}
+			checkExistingLocation(origin, existingLocation, bundleLocation);
 			return (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
 		}
 
@@ -789,6 +862,205 @@ public class Storage {
 		}
 	}
 
+	private void checkExistingLocation(Module origin, Module existingLocation, String bundleLocation)
+			throws BundleException {
+		if (origin != null) {
+			// Check that the existing location is visible from the origin module
+			Bundle bundle = origin.getBundle();
+			BundleContext context = bundle == null ? null : bundle.getBundleContext();
+			if (context != null && context.getBundle(existingLocation.getId()) == null) {
+				Bundle b = existingLocation.getBundle();
+				throw new BundleException(
+						NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation,
+								new Object[] { b.getSymbolicName(), b.getVersion(), bundleLocation }),
+						BundleException.REJECTED_BY_HOOK);
+			}
+		}
+	}
+
+	/**
+	 * A bundle to install with a {@link Storage#install(Module, List) batch
+	 * install}. After the batch install the request holds either the generation of
+	 * the installed bundle or the exception which prevented the bundle from being
+	 * installed.
+	 */
+	public static final class InstallRequest implements InstallResult {
+		final String location;
+		final InputStream content;
+		Generation generation;
+		BundleException exception;
+		// the staged content of a new bundle
+		Long id;
+		Type contentType;
+		File staged;
+		ModuleRevisionBuilder builder;
+
+		/**
+		 * Creates a new request to install a bundle.
+		 * 
+		 * @param location the location identifier of the bundle to install
+		 * @param content  the content of the bundle, may be {@code null} to read the
+		 *                 content from the location
+		 */
+		public InstallRequest(String location, InputStream content) {
+			this.location = location;
+			this.content = content;
+		}
+
+		@Override
+		public String getLocation() {
+			return location;
+		}
+
+		@Override
+		public Bundle getBundle() {
+			Generation result = getGeneration();
+			return result == null ? null : result.getRevision().getBundle();
+		}
+
+		/**
+		 * Returns the generation of the installed bundle, or of the existing bundle if
+		 * one already existed at the location of this request.
+		 * 
+		 * @return the generation, or {@code null} if the bundle could not be installed
+		 */
+		public Generation getGeneration() {
+			return exception == null ? generation : null;
+		}
+
+		@Override
+		public BundleException getException() {
+			return exception;
+		}
+	}
+
+	/**
+	 * Installs a batch of bundles. The content of the bundles is staged and their
+	 * manifests are parsed in parallel, then all the new bundles are installed into
+	 * the module container with a single {@link ModuleContainer#install(Module, List)
+	 * batch install}. A failure to install one bundle does not prevent the other
+	 * bundles from being installed; the result of each bundle is available from its
+	 * request.
+	 *
+	 * @param origin   the module performing the install
+	 * @param requests the bundles to install
+	 */
+	public void install(Module origin, List<InstallRequest> requests) {
+		// stage in the calling thread when there is a security manager to keep the
+		// access control context of the caller
+		Executor executor = System.getSecurityManager() == null ? adaptor.getInstallExecutor() : Runnable::run;
+		List<CompletableFuture<Void>> staging = new ArrayList<>(requests.size());
+		for (InstallRequest request : requests) {
+			staging.add(CompletableFuture.runAsync(() -> stage(origin, request), executor));
+		}
+		for (CompletableFuture<Void> staged : staging) {
+			staged.join();
+		}
+
+		List<InstallRequest> installing = new ArrayList<>(requests.size());
+		List<InstallEntry> entries = new ArrayList<>(requests.size());
+		for (InstallRequest request : requests) {
+			if (request.builder != null) {
+				installing.add(request);
+				entries.add(new InstallEntry(request.location, request.builder, request.generation));
+			}
+		}
+		moduleContainer.install(origin, entries);
+		for (int i = 0; i < entries.size(); i++) {
+			InstallRequest request = installing.get(i);
+			Module m = entries.get(i).getModule();
+			if (m == null) {
+				installFailed(request, entries.get(i).getException());
+			} else if (!request.id.equals(m.getId())) {
+				// this revision is already installed. delete the generation
+				request.generation.delete();
+				request.generation = (Generation) m.getCurrentRevision().getRevisionInfo();
+			}
+		}
+	}
+
+	private void stage(Module origin, InstallRequest request) {
+		try {
+			URLConnection content = getContentConnection(null, request.location, request.content);
+			if (osgiLocation.isReadOnly()) {
+				throw new BundleException("The framework storage area is read only.", //$NON-NLS-1$
+						BundleException.INVALID_OPERATION);
+			}
+			URL sourceURL = content.getURL();
+			InputStream in;
+			try {
+				in = content.getInputStream();
+			} catch (Throwable e) {
+				throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
+			}
+
+			// Check if the bundle already exists at this location before staging,
+			// the container checks again while holding the location lock
+			Module existingLocation = moduleContainer.getModule(request.location);
+			if (existingLocation != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// ignore
+				}
+				checkExistingLocation(origin, existingLocation, request.location);
+				request.generation = (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
+				return;
+			}
+
+			ContentProvider contentProvider = getContentProvider(in, sourceURL);
+			request.contentType = contentProvider.getType();
+			request.staged = contentProvider.getContent();
+
+			request.id = moduleDatabase.getAndIncrementNextId();
+			BundleInfo info = new BundleInfo(this, request.id, request.location, 0);
+			request.generation = info.createGeneration();
+			try {
+				File contentFile = getContentFile(request.staged, request.contentType, request.id,
+						request.generation.getGenerationId());
+				request.generation.setContent(contentFile, request.contentType);
+				// Check that we can open the bundle file
+				request.generation.getBundleFile().open();
+				setStorageHooks(request.generation);
+
+				ModuleRevisionBuilder builder = getBuilder(request.generation);
+				builder.setId(request.id);
+				request.builder = builder;
+			} finally {
+				// the generation is not visible to anyone else until it is installed;
+				// release it from the thread that locked it
+				info.unlockGeneration(request.generation);
+			}
+		} catch (Throwable t) {
+			installFailed(request, t);
+		}
+	}
+
+	private void installFailed(InstallRequest request, Throwable t) {
+		if (request.contentType == Type.DEFAULT && request.staged != null) {
+			try {
+				delete(request.staged);
+			} catch (IOException e) {
+				// tried our best
+			}
+		}
+		if (request.generation != null) {
+			request.generation.delete();
+			request.generation.getBundleInfo().delete();
+		}
+		request.builder = null;
+		if (t instanceof SecurityException && t.getCause() instanceof BundleException) {
+			t = t.getCause();
+		}
+		if (t instanceof BundleException) {
+			request.exception = (BundleException) t;
+		} else if (t instanceof SecurityException) {
+			request.exception = new BundleException(t.getMessage(), BundleException.SECURITY_ERROR, t);
+		} else {
+			request.exception = new BundleException("Error occurred installing a bundle.", t); //$NON-NLS-1$
+		}
+	}
+
 	ContentProvider getContentProvider(final InputStream in, final URL sourceURL) {
 		if (in instanceof ContentProvider) {
 			return (ContentProvider) in;
@@ -1226,6 +1498,14 @@ public class Storage {
 				boolean strictPath = Boolean.parseBoolean(getConfiguration().getConfiguration(
 						EquinoxConfiguration.PROPERTY_STRICT_BUNDLE_ENTRY_PATH, Boolean.FALSE.toString()));
 				result = new DirBundleFile(content, strictPath);
+			} else if (getConfiguration().BUNDLE_FILE_MAPPED && !getConfiguration().runtimeVerifySignedBundles) {
+				// only the index of the base bundle file is stored; the generation storage of
+				// nested bundle files is used for extracted content
+				File indexFile = isBase ? generation.getExtractFile(ZIP_INDEX) : null;
+				// a mapped file cannot be deleted on windows until the mapping is collected
+				boolean map = !org.eclipse.osgi.service.environment.Constants.OS_WIN32.equals(getConfiguration().getOS());
+				result = new MappedZipBundleFile(content, generation, mruList, getConfiguration().getDebug(), indexFile,
+						map);
 			} else {
 				result = new ZipBundleFile(content, generation, mruList, getConfiguration().getDebug(),
 						getConfiguration().runtimeVerifySignedBundles);
@@ -1323,15 +1603,19 @@ public class Storage {
 	}
 
 	public void save() throws IOException {
+		save(false);
+	}
+
+	private void save(boolean compact) throws IOException {
 		if (isReadOnly()) {
 			return;
 		}
 		if (System.getSecurityManager() == null) {
-			save0();
+			save0(compact);
 		} else {
 			try {
 				AccessController.doPrivileged((PrivilegedExceptionAction<Void>) () -> {
-					save0();
+					save0(compact);
 					return null;
 				});
 			} catch (PrivilegedActionException e) {
@@ -1342,27 +1626,55 @@ public class Storage {
 		}
 	}
 
-	void save0() throws IOException {
+	void save0(boolean compact) throws IOException {
 		StorageManager childStorageManager = null;
 		ManagedOutputStream mos = null;
 		DataOutputStream out = null;
 		boolean success = false;
+		boolean permissionsDirty = false;
 		moduleDatabase.readLock();
 		synchronized (this.saveMonitor) {
 			try {
-				if (lastSavedTimestamp == moduleDatabase.getTimestamp())
+				if (lastSavedTimestamp == moduleDatabase.getTimestamp() && !(compact && journal.hasRecords()))
+					return;
+				// permission data is only saved with the complete framework info
+				permissionsDirty = permissionData.isDirty();
+				if (journalEnabled && !compact && !permissionsDirty && !journal.needsCompaction()
+						&& saveJournal()) {
+					lastSavedTimestamp = moduleDatabase.getTimestamp();
+					success = true;
 					return;
+				}
+				permissionData.setDirty(false);
 				childStorageManager = getChildStorageManager();
 				mos = childStorageManager.getOutputStream(FRAMEWORK_INFO);
 				out = new DataOutputStream(new BufferedOutputStream(mos));
 				saveGenerations(out);
 				savePermissionData(out);
 				moduleDatabase.store(out, true);
+				if (journalEnabled) {
+					// the framework info must be committed before its journal is started
+					out.close();
+					try {
+						journal.reset(moduleDatabase.getRevisionsTimestamp(), moduleDatabase.getTimestamp(),
+								out.size());
+					} catch (IOException e) {
+						// the next save writes the complete framework info again
+						getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING,
+								"Error starting the framework info journal", e); //$NON-NLS-1$
+					}
+				} else {
+					journal.delete();
+				}
 				lastSavedTimestamp = moduleDatabase.getTimestamp();
+				savedRevisions = getCurrentRevisions();
 				success = true;
 			} finally {
 				moduleDatabase.readUnlock();
 				if (!success) {
+					if (permissionsDirty) {
+						permissionData.setDirty(true);
+					}
 					if (mos != null) {
 						mos.abort();
 					}
@@ -1381,6 +1693,77 @@ public class Storage {
 		}
 	}
 
+	/**
+	 * Appends the changes since the last save to the journal.
+	 *
+	 * @return true if the changes were appended to the journal
+	 */
+	private boolean saveJournal() {
+		Map<Long, ModuleRevision> currentRevisions = getCurrentRevisions();
+		List<Generation> changed = new ArrayList<>();
+		for (Map.Entry<Long, ModuleRevision> entry : currentRevisions.entrySet()) {
+			ModuleRevision revision = entry.getValue();
+			if (savedRevisions.get(entry.getKey()) != revision) {
+				Generation generation = (Generation) revision.getRevisionInfo();
+				if (generation != null) {
+					changed.add(generation);
+				}
+			}
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				out.writeInt(cachedHeaderKeys.size());
+				for (String headerKey : cachedHeaderKeys) {
+					out.writeUTF(headerKey);
+				}
+				saveGenerationInfos(out, changed);
+				moduleDatabase.storeChanges(out);
+			}
+			journal.append(bytes.toByteArray());
+		} catch (IOException e) {
+			getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.WARNING,
+					"Error saving the framework info journal", e); //$NON-NLS-1$
+			return false;
+		}
+		savedRevisions = currentRevisions;
+		return true;
+	}
+
+	/**
+	 * Applies the changes saved in the journal to the loaded framework info.
+	 *
+	 * @param generations the generations which are not yet used by a module
+	 * @throws IOException if an error occurs loading the changes
+	 */
+	private void loadJournal(Map<Long, Generation> generations) throws IOException {
+		for (byte[] record : journal.read(moduleDatabase.getRevisionsTimestamp(), moduleDatabase.getTimestamp())) {
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+				int numCachedHeaders = in.readInt();
+				List<String> storedCachedHeaderKeys = new ArrayList<>(numCachedHeaders);
+				for (int i = 0; i < numCachedHeaders; i++) {
+					storedCachedHeaderKeys.add(ObjectPool.intern(in.readUTF()));
+				}
+				// the generations are used by the modules loaded with the changes
+				for (Generation generation : loadGenerationInfos(in, VERSION, storedCachedHeaderKeys)) {
+					generations.put(generation.getBundleInfo().getBundleId(), generation);
+				}
+				moduleDatabase.loadChanges(in);
+			}
+		}
+	}
+
+	private Map<Long, ModuleRevision> getCurrentRevisions() {
+		Map<Long, ModuleRevision> result = new HashMap<>();
+		for (Module module : moduleContainer.getModules()) {
+			ModuleRevision revision = module.getCurrentRevision();
+			if (revision != null) {
+				result.put(module.getId(), revision);
+			}
+		}
+		return result;
+	}
+
 	private void savePermissionData(DataOutputStream out) throws IOException {
 		permissionData.savePermissionData(out);
 	}
@@ -1412,6 +1795,10 @@ public class Storage {
 			out.writeUTF(headerKey);
 		}
 
+		saveGenerationInfos(out, generations);
+	}
+
+	private void saveGenerationInfos(DataOutputStream out, List<Generation> generations) throws IOException {
 		out.writeInt(generations.size());
 		for (Generation generation : generations) {
 			BundleInfo bundleInfo = generation.getBundleInfo();
@@ -1524,8 +1911,17 @@ public class Storage {
 			storedCachedHeaderKeys.add(ObjectPool.intern(in.readUTF()));
 		}
 
+		List<Generation> generations = loadGenerationInfos(in, version, storedCachedHeaderKeys);
+		Map<Long, Generation> result = new HashMap<>(generations.size());
+		for (Generation generation : generations) {
+			result.put(generation.getBundleInfo().getBundleId(), generation);
+		}
+		return result;
+	}
+
+	private List<Generation> loadGenerationInfos(DataInputStream in, int version,
+			List<String> storedCachedHeaderKeys) throws IOException {
 		int numInfos = in.readInt();
-		Map<Long, Generation> result = new HashMap<>(numInfos);
 		List<Generation> generations = new ArrayList<>(numInfos);
 		Type[] contentTypes = Type.values();
 		for (int i = 0; i < numInfos; i++) {
@@ -1590,13 +1986,12 @@ public class Storage {
 			BundleInfo info = new BundleInfo(this, infoId, infoLocation, nextGenId);
 			Generation generation = info.restoreGeneration(generationId, content, isDirectory, contentType,
 					hasPackageInfo, cachedHeaders, lastModified, isMRJar);
-			result.put(infoId, generation);
 			generations.add(generation);
 		}
 
 		connectPersistentBundles(generations);
 		loadStorageHookData(generations, in);
-		return result;
+		return generations;
 	}
 
 	private void connectPersistentBundles(List<Generation> generations) {
@@ -2308,7 +2703,8 @@ public class Storage {
 		StorageManager storageManager = getChildStorageManager();
 		InputStream storageStream = null;
 		try {
-			storageStream = storageManager.getInputStream(FRAMEWORK_INFO);
+			storageStream = getConfiguration().STORAGE_LAZY_LOAD ? getMappedInputStream(storageManager)
+					: storageManager.getInputStream(FRAMEWORK_INFO);
 		} catch (IOException ex) {
 			if (getConfiguration().getDebug().DEBUG_STORAGE) {
 				Debug.println("Error reading framework.info: " + ex.getMessage()); //$NON-NLS-1$
@@ -2334,6 +2730,21 @@ public class Storage {
 		return storageStream;
 	}
 
+	private InputStream getMappedInputStream(StorageManager storageManager) throws IOException {
+		// reliable files verify their content while being read; use the storage manager for those
+		if (Boolean.getBoolean("osgi.useReliableFiles")) { //$NON-NLS-1$
+			return storageManager.getInputStream(FRAMEWORK_INFO);
+		}
+		File infoFile = storageManager.lookup(FRAMEWORK_INFO, false);
+		if (infoFile == null) {
+			return null;
+		}
+		// a mapped file cannot be deleted on windows until the mapping is collected;
+		// old copies of the framework info get deleted on the next save
+		boolean map = !org.eclipse.osgi.service.environment.Constants.OS_WIN32.equals(getConfiguration().getOS());
+		return MappedInputStream.open(infoFile, map);
+	}
+
 	EquinoxContainer getEquinoxContainer() {
 		return equinoxContainer;
 	}
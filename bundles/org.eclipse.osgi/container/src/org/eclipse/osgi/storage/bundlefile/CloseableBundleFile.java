@@ -306,36 +306,48 @@ public abstract class CloseableBundleFile<E> extends BundleFile {
 			return null;
 		}
 		try {
-			if (path == null)
-				throw new NullPointerException();
-
-			// Strip any leading '/' off of path.
-			if (path.length() > 0 && path.charAt(0) == '/')
-				path = path.substring(1);
-			// Append a '/', if not already there, to path if not an empty string.
-			if (path.length() > 0 && path.charAt(path.length() - 1) != '/')
-				path = new StringBuilder(path).append("/").toString(); //$NON-NLS-1$
-
-			LinkedHashSet<String> result = new LinkedHashSet<>();
-			// Get all entries and add the ones of interest.
-			for (String entryPath : getPaths()) {
-				// Is the entry of possible interest? Note that
-				// string.startsWith("") == true.
-				if (entryPath.startsWith(path)) {
-					// If we get here, we know that the entry is either (1) equal to
-					// path, (2) a file under path, or (3) a subdirectory of path.
-					if (path.length() < entryPath.length()) {
-						// If we get here, we know that entry is not equal to path.
-						getEntryPaths(path, entryPath.substring(path.length()), recurse, result);
-					}
-				}
-			}
-			return result.size() == 0 ? null : Collections.enumeration(result);
+			return findEntryPaths(path, recurse);
 		} finally {
 			releaseOpen();
 		}
 	}
 
+	/**
+	 * Finds the entry paths of the specified path from the {@link #getPaths()
+	 * paths} of this bundle file. The caller must ensure the paths are available.
+	 * 
+	 * @param path    the path to find the entry paths of
+	 * @param recurse whether to find the entry paths recursively
+	 * @return the entry paths or {@code null} if none exist
+	 */
+	Enumeration<String> findEntryPaths(String path, boolean recurse) {
+		if (path == null)
+			throw new NullPointerException();
+
+		// Strip any leading '/' off of path.
+		if (path.length() > 0 && path.charAt(0) == '/')
+			path = path.substring(1);
+		// Append a '/', if not already there, to path if not an empty string.
+		if (path.length() > 0 && path.charAt(path.length() - 1) != '/')
+			path = new StringBuilder(path).append("/").toString(); //$NON-NLS-1$
+
+		LinkedHashSet<String> result = new LinkedHashSet<>();
+		// Get all entries and add the ones of interest.
+		for (String entryPath : getPaths()) {
+			// Is the entry of possible interest? Note that
+			// string.startsWith("") == true.
+			if (entryPath.startsWith(path)) {
+				// If we get here, we know that the entry is either (1) equal to
+				// path, (2) a file under path, or (3) a subdirectory of path.
+				if (path.length() < entryPath.length()) {
+					// If we get here, we know that entry is not equal to path.
+					getEntryPaths(path, entryPath.substring(path.length()), recurse, result);
+				}
+			}
+		}
+		return result.size() == 0 ? null : Collections.enumeration(result);
+	}
+
 	private void getEntryPaths(String path, String entry, boolean recurse, LinkedHashSet<String> entries) {
 		if (entry.length() == 0)
 			return;
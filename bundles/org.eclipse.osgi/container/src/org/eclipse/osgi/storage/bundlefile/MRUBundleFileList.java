@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
@@ -31,6 +32,14 @@ import org.eclipse.osgi.internal.debug.Debug;
  * keep track of open BundleFiles. The MRU will use the file limit specified by
  * the property &quot;osgi.bundlefile.limit&quot; by default unless the MRU is
  * constructed with a specific file limit.
+ * <p>
+ * The least recently used bundle file is approximated with the CLOCK algorithm.
+ * Each slot of the list has a referenced bit which is set without locking each
+ * time the bundle file in the slot is used. When a slot is needed for a new
+ * bundle file the clock hand sweeps over the slots, clearing the referenced
+ * bits, until it finds a slot which was not used since the last sweep. A new
+ * bundle file is not marked as used; its slot is the last one the clock hand
+ * reaches.
  */
 public class MRUBundleFileList implements EventDispatcher<Object, Object, BundleFile> {
 	private static final int MIN = 10;
@@ -38,16 +47,19 @@ public class MRUBundleFileList implements EventDispatcher<Object, Object, Bundle
 
 	// list of open bundle files
 	final private BundleFile[] bundleFileList;
-	// list of open bundle files use stamps
-	final private long[] useStampList;
+	// list of referenced bits of the open bundle files; set when a bundle file is
+	// used and cleared by the clock hand
+	final private AtomicIntegerArray referencedList;
+	// stack of the free slots
+	final private int[] freeList;
 	// the limit of open files to allow before least used bundle file is closed
 	final private int fileLimit; // value < MIN will disable MRU
 	private EventManager bundleFileCloserManager = null;
 	final private Map<Object, Object> bundleFileCloser;
 	// the current number of open bundle files
 	private int numOpen = 0;
-	// the current use stamp
-	private long curUseStamp = 0;
+	// the slot the clock hand points to
+	private int clockHand = 0;
 	// used to work around bug 275166
 	private boolean firstDispatch = true;
 
@@ -62,11 +74,16 @@ public class MRUBundleFileList implements EventDispatcher<Object, Object, Bundle
 		this.debug = debug;
 		if (fileLimit >= MIN) {
 			this.bundleFileList = new BundleFile[fileLimit];
-			this.useStampList = new long[fileLimit];
+			this.referencedList = new AtomicIntegerArray(fileLimit);
+			this.freeList = new int[fileLimit];
+			// use the lowest slots first
+			for (int i = 0; i < fileLimit; i++)
+				freeList[i] = fileLimit - 1 - i;
 			this.bundleFileCloser = Collections.singletonMap(this, this);
 		} else {
 			this.bundleFileList = null;
-			this.useStampList = null;
+			this.referencedList = null;
+			this.freeList = null;
 			this.bundleFileCloser = null;
 		}
 	}
@@ -88,23 +105,21 @@ public class MRUBundleFileList implements EventDispatcher<Object, Object, Bundle
 		synchronized (this) {
 			if (bundleFile.getMruIndex() >= 0)
 				return false; // do nothing; someone is trying add a bundleFile that is already in an MRU list
-			int index = 0; // default to the first slot
+			int index;
 			if (numOpen < fileLimit) {
 				// numOpen does not exceed the fileLimit
-				// find the first null slot to use in the MRU
-				for (int i = 0; i < fileLimit; i++)
-					if (bundleFileList[i] == null) {
-						index = i;
-						break;
-					}
+				// use a free slot in the MRU
+				index = freeList[fileLimit - 1 - numOpen];
 			} else {
 				// numOpen has reached the fileLimit
-				// find the least recently used bundleFile and close it
-				// and use its slot for the new bundleFile to be opened.
-				index = 0;
-				for (int i = 1; i < fileLimit; i++)
-					if (useStampList[i] < useStampList[index])
-						index = i;
+				// find a bundleFile which was not used since the last sweep of the clock
+				// hand and close it and use its slot for the new bundleFile to be opened.
+				// The sweep clears the referenced bits; stop after one full sweep in case
+				// other threads keep setting them again.
+				for (int i = 0; i < fileLimit && referencedList.getAndSet(clockHand, 0) != 0; i++)
+					clockHand = (clockHand + 1) % fileLimit;
+				index = clockHand;
+				clockHand = (clockHand + 1) % fileLimit;
 				toRemove = bundleFileList[index];
 				if (toRemove.getMruIndex() != index)
 					throw new IllegalStateException(
@@ -113,9 +128,10 @@ public class MRUBundleFileList implements EventDispatcher<Object, Object, Bundle
 				backpressureNeeded = isBackPressureNeeded();
 			}
 			// found an index to place to bundleFile to be opened
+			// the slot is not marked as used; otherwise bundle files which are only
+			// opened once keep the bundle files which are used again from being preferred
 			bundleFileList[index] = bundleFile;
 			bundleFile.setMruIndex(index);
-			incUseStamp(index);
 			numOpen++;
 			if (toRemove != null) {
 				if (bundleFileCloserManager == null)
@@ -156,34 +172,26 @@ public class MRUBundleFileList implements EventDispatcher<Object, Object, Bundle
 		int index = bundleFile.getMruIndex();
 		bundleFile.setMruIndex(-1);
 		bundleFileList[index] = null;
-		useStampList[index] = -1;
+		referencedList.set(index, 0);
 		numOpen--;
+		freeList[fileLimit - 1 - numOpen] = index;
 	}
 
 	/**
-	 * Increments the use stamp of a bundle file
+	 * Marks a bundle file as recently used. This does not lock the MRU list; a
+	 * use which races with the bundle file being removed from the list is
+	 * harmless.
 	 * 
-	 * @param bundleFile the bundle file to increment the use stamp for
+	 * @param bundleFile the bundle file which is used
 	 */
 	public void use(BundleFile bundleFile) {
 		if (fileLimit < MIN)
 			return; // MRU is disabled
-		synchronized (this) {
-			int index = bundleFile.getMruIndex();
-			if ((index >= 0 && index < fileLimit) && bundleFileList[index] == bundleFile)
-				incUseStamp(index);
-		}
-	}
-
-	// must be called while synchronizing "this"
-	private void incUseStamp(int index) {
-		if (curUseStamp == Long.MAX_VALUE) {
-			// we hit the curUseStamp max better reset all the stamps
-			for (int i = 0; i < fileLimit; i++)
-				useStampList[i] = 0;
-			curUseStamp = 0;
-		}
-		useStampList[index] = ++curUseStamp;
+		int index = bundleFile.getMruIndex();
+		// avoid writing a bit which is already set to keep the slots from bouncing
+		// between processor caches
+		if ((index >= 0 && index < fileLimit) && referencedList.get(index) == 0)
+			referencedList.lazySet(index, 1);
 	}
 
 	@Override
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.storage.BundleInfo;
+import org.eclipse.osgi.storage.bundlefile.ZipIndex.IndexedEntry;
+
+/**
+ * A ZipBundleFile which reads the zip file with the help of a {@link ZipIndex
+ * central directory index} instead of a {@link java.util.zip.ZipFile}.
+ * <p>
+ * Entry lookups, {@link #containsDir(String)} and
+ * {@link #getEntryPaths(String, boolean)} are answered from the index and do not
+ * need to open the zip file. The index is stored in an index file so that it
+ * does not need to be read from the zip file again on the next launch.
+ * <p>
+ * Opening the bundle file maps the zip file into memory; the file descriptor is
+ * only held while the file is being mapped. The data of stored entries is
+ * served directly from the mapping. If mapping is not enabled the data of an
+ * entry is read from the zip file when the entry is opened, holding a file
+ * descriptor only while the data is read.
+ * <p>
+ * Zip files which cannot be indexed are read with a {@link java.util.zip.ZipFile}
+ * the same as {@link ZipBundleFile} does.
+ */
+public class MappedZipBundleFile extends ZipBundleFile {
+	private final File indexFile;
+	private final boolean map;
+	private final Object indexMonitor = new Object();
+	private volatile ZipIndex index;
+	// true once the index was read or failed to be read
+	private volatile boolean indexed;
+	/**
+	 * The mapped content of the zip file while this bundle file is open
+	 */
+	private volatile ByteBuffer content;
+
+	/**
+	 * Creates a new mapped zip bundle file.
+	 *
+	 * @param basefile   the zip file
+	 * @param generation the generation of the bundle file
+	 * @param mruList    the MRU list used to limit the number of open bundle files
+	 * @param debug      the debug options
+	 * @param indexFile  the file to store the central directory index in, may be
+	 *                   {@code null} if the index is not stored
+	 * @param map        whether the zip file is mapped into memory
+	 * @throws IOException if the zip file does not exist
+	 */
+	public MappedZipBundleFile(File basefile, BundleInfo.Generation generation, MRUBundleFileList mruList,
+			Debug debug, File indexFile, boolean map) throws IOException {
+		super(basefile, generation, mruList, debug, false);
+		this.indexFile = indexFile;
+		this.map = map;
+	}
+
+	private ZipIndex getIndex() {
+		if (indexed) {
+			return index;
+		}
+		synchronized (indexMonitor) {
+			if (!indexed) {
+				try {
+					index = ZipIndex.get(basefile, indexFile);
+				} catch (IOException e) {
+					// let the zip file report the error
+					if (debug.DEBUG_BUNDLE_FILE) {
+						Debug.printStackTrace(e);
+					}
+				}
+				indexed = true;
+			}
+			return index;
+		}
+	}
+
+	@Override
+	protected void doOpen() throws IOException {
+		if (getIndex() == null) {
+			super.doOpen();
+		} else if (map) {
+			try (FileChannel channel = FileChannel.open(basefile.toPath(), StandardOpenOption.READ)) {
+				content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		}
+	}
+
+	@Override
+	protected void doClose() throws IOException {
+		if (zipFile != null) {
+			super.doClose();
+		}
+	}
+
+	@Override
+	protected void postClose() {
+		super.postClose();
+		// the mapping is released when it is collected
+		content = null;
+	}
+
+	@Override
+	public BundleEntry getEntry(String path) {
+		if (getIndex() == null) {
+			return super.getEntry(path);
+		}
+		return findEntry(path);
+	}
+
+	@Override
+	protected BundleEntry findEntry(String path) {
+		ZipIndex current = getIndex();
+		if (current == null) {
+			return super.findEntry(path);
+		}
+		String name = path;
+		if (name.length() > 0 && name.charAt(0) == '/')
+			name = name.substring(1);
+		int i = current.find(name);
+		if (i >= 0 && current.getSize(i) == 0 && !name.endsWith("/")) { //$NON-NLS-1$
+			// work around the directory bug see bug 83542
+			int dir = current.find(name + '/');
+			if (dir >= 0)
+				i = dir;
+		}
+		if (i < 0) {
+			if (path.length() == 0 || path.charAt(path.length() - 1) == '/') {
+				// this is a directory request lets see if any entries exist in this directory
+				if (containsDir(path))
+					return new DirZipBundleEntry(this, path);
+			}
+			return null;
+		}
+		return new ZipBundleEntry(current.getEntry(i), this);
+	}
+
+	@Override
+	public boolean containsDir(String dir) {
+		ZipIndex current = getIndex();
+		if (current == null) {
+			return super.containsDir(dir);
+		}
+		if (dir == null)
+			return false;
+
+		if (dir.length() == 0)
+			return true;
+
+		if (dir.charAt(0) == '/') {
+			if (dir.length() == 1)
+				return true;
+			dir = dir.substring(1);
+		}
+
+		if (dir.length() > 0 && dir.charAt(dir.length() - 1) != '/')
+			dir = dir + '/';
+
+		return current.containsPrefix(dir);
+	}
+
+	@Override
+	public Enumeration<String> getEntryPaths(String path, boolean recurse) {
+		if (getIndex() == null) {
+			return super.getEntryPaths(path, recurse);
+		}
+		return findEntryPaths(path, recurse);
+	}
+
+	@Override
+	protected Iterable<String> getPaths() {
+		ZipIndex current = getIndex();
+		if (current == null) {
+			return super.getPaths();
+		}
+		return current.getNames();
+	}
+
+	@Override
+	protected InputStream doGetInputStream(ZipEntry entry) throws IOException {
+		ZipIndex current = getIndex();
+		if (current == null || !(entry instanceof IndexedEntry)) {
+			return super.doGetInputStream(entry);
+		}
+		int i = ((IndexedEntry) entry).position;
+		ByteBuffer mapped = content;
+		ByteBuffer data = mapped != null ? current.getData(mapped, i) : current.getData(basefile, i);
+		InputStream in = new ByteBufferInputStream(data);
+		if (current.getMethod(i) == ZipEntry.DEFLATED) {
+			in = new EntryInflaterInputStream(in, current.getSize(i));
+		}
+		return in;
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			int remaining = buffer.remaining();
+			if (remaining == 0) {
+				return -1;
+			}
+			int n = Math.min(len, remaining);
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+
+	private static final class EntryInflaterInputStream extends InflaterInputStream {
+		private final long size;
+		private boolean eof;
+		private boolean closed;
+
+		EntryInflaterInputStream(InputStream in, long size) {
+			super(in, new Inflater(true), (int) Math.max(64, Math.min(size, 8192)));
+			this.size = size;
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof) {
+				throw new EOFException("Unexpected end of zip entry."); //$NON-NLS-1$
+			}
+			len = in.read(buf, 0, buf.length);
+			if (len == -1) {
+				// the inflater needs an extra dummy byte when using the nowrap option
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+			inf.setInput(buf, 0, len);
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (closed) {
+				return 0;
+			}
+			long avail = size - inf.getBytesWritten();
+			return avail > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(0, avail);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				super.close();
+				// the inflater is not owned by the super class
+				inf.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,470 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.zip.ZipEntry;
+
+/**
+ * A compact index of the central directory of a zip file. The index maps each
+ * entry name to the offset of its local header, its sizes, its compression
+ * method and its modification time. This is enough to answer existence checks
+ * and list entry paths without opening the zip file, and to read the data of an
+ * entry directly from the zip file content.
+ * <p>
+ * Only zip files which can be read without the help of a {@link java.util.zip.ZipFile}
+ * are indexed; zip64 files, files larger than 2GB and files with encrypted
+ * entries or with entries which are neither stored nor deflated are not.
+ */
+final class ZipIndex {
+	private static final int VERSION = 1;
+
+	private static final int LOCSIG = 0x04034b50;
+	private static final int CENSIG = 0x02014b50;
+	private static final int ENDSIG = 0x06054b50;
+	private static final int LOCHDR = 30;
+	private static final int CENHDR = 46;
+	private static final int ENDHDR = 22;
+	private static final int EXTID_NTFS = 0x000a;
+	private static final int EXTID_EXTT = 0x5455;
+	private static final long WINDOWS_EPOCH_IN_MICROSECONDS = -11644473600000000L;
+	private static final long NO_TIME = Long.MIN_VALUE;
+
+	private final long fileLength;
+	private final long lastModified;
+	// entry data in central directory order
+	private final String[] names;
+	private final int[] methods;
+	private final int[] dosTimes;
+	private final int[] offsets;
+	private final int[] compressedSizes;
+	private final long[] sizes;
+	// modification times from the extra fields, NO_TIME if none
+	private final long[] extendedTimes;
+	// modification times converted on first use
+	private final long[] times;
+	// entry positions sorted by name
+	private final int[] sorted;
+
+	private ZipIndex(long fileLength, long lastModified, String[] names, int[] methods, int[] dosTimes,
+			long[] extendedTimes, int[] offsets, int[] compressedSizes, long[] sizes) {
+		this.fileLength = fileLength;
+		this.lastModified = lastModified;
+		this.names = names;
+		this.methods = methods;
+		this.dosTimes = dosTimes;
+		this.extendedTimes = extendedTimes;
+		this.offsets = offsets;
+		this.compressedSizes = compressedSizes;
+		this.sizes = sizes;
+		this.times = new long[names.length];
+		Arrays.fill(times, NO_TIME);
+		Integer[] order = new Integer[names.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = Integer.valueOf(i);
+		}
+		Arrays.sort(order, Comparator.comparing((Integer i) -> names[i.intValue()]));
+		this.sorted = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = order[i].intValue();
+		}
+	}
+
+	/**
+	 * Returns the index of the specified zip file. The index is loaded from the
+	 * index file if it is still valid for the zip file, otherwise the central
+	 * directory of the zip file is read and the index is stored in the index file.
+	 *
+	 * @param zipFile   the zip file
+	 * @param indexFile the file storing the index, may be {@code null}
+	 * @return the index or {@code null} if the zip file cannot be indexed
+	 * @throws IOException if an error occurs reading the zip file
+	 */
+	static ZipIndex get(File zipFile, File indexFile) throws IOException {
+		long fileLength = zipFile.length();
+		long lastModified = zipFile.lastModified();
+		if (indexFile != null) {
+			ZipIndex index = load(indexFile, fileLength, lastModified);
+			if (index != null) {
+				return index;
+			}
+		}
+		ZipIndex index = read(zipFile, fileLength, lastModified);
+		if (index != null && indexFile != null) {
+			try {
+				index.save(indexFile);
+			} catch (IOException e) {
+				// the index is read again next time
+			}
+		}
+		return index;
+	}
+
+	private static ZipIndex load(File indexFile, long fileLength, long lastModified) {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != VERSION || in.readLong() != fileLength || in.readLong() != lastModified) {
+				return null;
+			}
+			int count = in.readInt();
+			String[] names = new String[count];
+			int[] methods = new int[count];
+			int[] dosTimes = new int[count];
+			long[] extendedTimes = new long[count];
+			int[] offsets = new int[count];
+			int[] compressedSizes = new int[count];
+			long[] sizes = new long[count];
+			for (int i = 0; i < count; i++) {
+				names[i] = in.readUTF();
+				methods[i] = in.readUnsignedShort();
+				dosTimes[i] = in.readInt();
+				extendedTimes[i] = in.readLong();
+				offsets[i] = in.readInt();
+				compressedSizes[i] = in.readInt();
+				sizes[i] = in.readLong();
+			}
+			return new ZipIndex(fileLength, lastModified, names, methods, dosTimes, extendedTimes, offsets,
+					compressedSizes, sizes);
+		} catch (IOException | RuntimeException e) {
+			// read the index again from the zip file
+			return null;
+		}
+	}
+
+	private void save(File indexFile) throws IOException {
+		File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(VERSION);
+			out.writeLong(fileLength);
+			out.writeLong(lastModified);
+			out.writeInt(names.length);
+			for (int i = 0; i < names.length; i++) {
+				out.writeUTF(names[i]);
+				out.writeShort(methods[i]);
+				out.writeInt(dosTimes[i]);
+				out.writeLong(extendedTimes[i]);
+				out.writeInt(offsets[i]);
+				out.writeInt(compressedSizes[i]);
+				out.writeLong(sizes[i]);
+			}
+		}
+		try {
+			Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static ZipIndex read(File zipFile, long fileLength, long lastModified) throws IOException {
+		if (fileLength < ENDHDR || fileLength > Integer.MAX_VALUE) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+			// find the end of central directory record; it is followed by a comment of up
+			// to 64k
+			int tailLength = (int) Math.min(fileLength, ENDHDR + 0xFFFF);
+			ByteBuffer tail = read(channel, fileLength - tailLength, tailLength);
+			int end = -1;
+			for (int i = tailLength - ENDHDR; i >= 0; i--) {
+				if (tail.getInt(i) == ENDSIG) {
+					end = i;
+					break;
+				}
+			}
+			if (end < 0) {
+				throw new IOException("Zip end header not found: " + zipFile); //$NON-NLS-1$
+			}
+			int total = tail.getShort(end + 10) & 0xFFFF;
+			long cenLength = tail.getInt(end + 12) & 0xFFFFFFFFL;
+			long cenOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+			if (total == 0xFFFF || cenLength == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+				// zip64
+				return null;
+			}
+			long endPosition = fileLength - tailLength + end;
+			long cenPosition = endPosition - cenLength;
+			// content prepended to the zip file shifts all the offsets
+			long base = cenPosition - cenOffset;
+			if (cenPosition < 0 || base < 0) {
+				throw new IOException("Invalid zip central directory: " + zipFile); //$NON-NLS-1$
+			}
+			ByteBuffer cen = read(channel, cenPosition, (int) cenLength);
+			CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT);
+
+			String[] names = new String[total];
+			int[] methods = new int[total];
+			int[] dosTimes = new int[total];
+			long[] extendedTimes = new long[total];
+			int[] offsets = new int[total];
+			int[] compressedSizes = new int[total];
+			long[] sizes = new long[total];
+			int pos = 0;
+			for (int i = 0; i < total; i++) {
+				if (pos + CENHDR > cenLength || cen.getInt(pos) != CENSIG) {
+					throw new IOException("Invalid zip central directory: " + zipFile); //$NON-NLS-1$
+				}
+				int flags = cen.getShort(pos + 8) & 0xFFFF;
+				int method = cen.getShort(pos + 10) & 0xFFFF;
+				long compressedSize = cen.getInt(pos + 20) & 0xFFFFFFFFL;
+				long size = cen.getInt(pos + 24) & 0xFFFFFFFFL;
+				int nameLength = cen.getShort(pos + 28) & 0xFFFF;
+				int extraLength = cen.getShort(pos + 30) & 0xFFFF;
+				int commentLength = cen.getShort(pos + 32) & 0xFFFF;
+				long offset = cen.getInt(pos + 42) & 0xFFFFFFFFL;
+				if ((flags & 1) != 0 || (method != ZipEntry.STORED && method != ZipEntry.DEFLATED)
+						|| compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL
+						|| base + offset + compressedSize > fileLength) {
+					// encrypted, unsupported compression or zip64 entry
+					return null;
+				}
+				ByteBuffer name = cen.duplicate();
+				name.position(pos + CENHDR).limit(pos + CENHDR + nameLength);
+				try {
+					CharBuffer chars = decoder.reset().decode(name);
+					names[i] = chars.toString();
+				} catch (CharacterCodingException e) {
+					return null;
+				}
+				methods[i] = method;
+				dosTimes[i] = cen.getInt(pos + 12);
+				extendedTimes[i] = getExtendedTime(cen, pos + CENHDR + nameLength, extraLength);
+				offsets[i] = (int) (base + offset);
+				compressedSizes[i] = (int) compressedSize;
+				sizes[i] = size;
+				pos += CENHDR + nameLength + extraLength + commentLength;
+			}
+			return new ZipIndex(fileLength, lastModified, names, methods, dosTimes, extendedTimes, offsets,
+					compressedSizes, sizes);
+		}
+	}
+
+	/*
+	 * Gets the modification time from the NTFS or extended timestamp extra fields
+	 * the same way a ZipEntry of a ZipFile does.
+	 */
+	private static long getExtendedTime(ByteBuffer cen, int offset, int length) {
+		long time = NO_TIME;
+		int end = Math.min(offset + length, cen.limit());
+		int pos = offset;
+		while (pos + 4 <= end) {
+			int tag = cen.getShort(pos) & 0xFFFF;
+			int size = cen.getShort(pos + 2) & 0xFFFF;
+			pos += 4;
+			if (pos + size > end) {
+				break;
+			}
+			if (tag == EXTID_NTFS && size >= 32) {
+				// skip the reserved bytes; the first attribute must be the times
+				if ((cen.getShort(pos + 4) & 0xFFFF) == 0x0001 && (cen.getShort(pos + 6) & 0xFFFF) == 24) {
+					long windowsTime = cen.getLong(pos + 8);
+					time = Math.floorDiv(windowsTime / 10 + WINDOWS_EPOCH_IN_MICROSECONDS, 1000L);
+				}
+			} else if (tag == EXTID_EXTT && size >= 5) {
+				// the central directory only has the modification time
+				if ((cen.get(pos) & 0x1) != 0) {
+					time = cen.getInt(pos + 1) * 1000L;
+				}
+			}
+			pos += size;
+		}
+		return time;
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of zip file."); //$NON-NLS-1$
+			}
+		}
+		buffer.flip();
+		return buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Returns the position of the entry with the specified name.
+	 *
+	 * @param name the entry name
+	 * @return the position of the entry or {@code -1} if the entry does not exist
+	 */
+	int find(String name) {
+		int low = 0;
+		int high = sorted.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = names[sorted[mid]].compareTo(name);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return sorted[mid];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns whether any entry name starts with the specified prefix.
+	 *
+	 * @param prefix the prefix
+	 * @return {@code true} if an entry starts with the prefix
+	 */
+	boolean containsPrefix(String prefix) {
+		int low = 0;
+		int high = sorted.length;
+		// find the first name which is not less than the prefix
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (names[sorted[mid]].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low < sorted.length && names[sorted[low]].startsWith(prefix);
+	}
+
+	/**
+	 * Returns the names of all the entries in central directory order.
+	 *
+	 * @return the names of all the entries
+	 */
+	Iterable<String> getNames() {
+		return Arrays.asList(names);
+	}
+
+	/**
+	 * Creates a zip entry for the entry at the specified position.
+	 *
+	 * @param i the position of the entry
+	 * @return a new zip entry
+	 */
+	IndexedEntry getEntry(int i) {
+		IndexedEntry entry = new IndexedEntry(names[i], i);
+		entry.setMethod(methods[i]);
+		entry.setCompressedSize(compressedSizes[i] & 0xFFFFFFFFL);
+		entry.setSize(sizes[i]);
+		if (extendedTimes[i] != NO_TIME) {
+			entry.setLastModifiedTime(FileTime.fromMillis(extendedTimes[i]));
+		} else {
+			long time = times[i];
+			if (time == NO_TIME) {
+				times[i] = time = dosToJavaTime(dosTimes[i]);
+			}
+			entry.setTime(time);
+		}
+		return entry;
+	}
+
+	/**
+	 * Reads the compressed data of the entry at the specified position from the
+	 * zip file content.
+	 *
+	 * @param content the zip file content
+	 * @param i       the position of the entry
+	 * @return the compressed data of the entry
+	 * @throws IOException if the local header of the entry is invalid
+	 */
+	ByteBuffer getData(ByteBuffer content, int i) throws IOException {
+		ByteBuffer data = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int offset = offsets[i];
+		if (offset + LOCHDR > data.limit() || data.getInt(offset) != LOCSIG) {
+			throw new IOException("Invalid zip local header: " + names[i]); //$NON-NLS-1$
+		}
+		int start = offset + LOCHDR + (data.getShort(offset + 26) & 0xFFFF) + (data.getShort(offset + 28) & 0xFFFF);
+		if (start + (long) compressedSizes[i] > data.limit()) {
+			throw new IOException("Invalid zip local header: " + names[i]); //$NON-NLS-1$
+		}
+		data.position(start).limit(start + compressedSizes[i]);
+		return data.slice();
+	}
+
+	/**
+	 * Reads the compressed data of the entry at the specified position from the
+	 * zip file. The file is only open while the data is read.
+	 *
+	 * @param zipFile the zip file
+	 * @param i       the position of the entry
+	 * @return the compressed data of the entry
+	 * @throws IOException if an error occurs reading the zip file
+	 */
+	ByteBuffer getData(File zipFile, int i) throws IOException {
+		try (FileChannel channel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ)) {
+			int offset = offsets[i];
+			ByteBuffer header = read(channel, offset, LOCHDR);
+			if (header.getInt(0) != LOCSIG) {
+				throw new IOException("Invalid zip local header: " + names[i]); //$NON-NLS-1$
+			}
+			int start = offset + LOCHDR + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+			return read(channel, start, compressedSizes[i]);
+		}
+	}
+
+	long getSize(int i) {
+		return sizes[i];
+	}
+
+	int getMethod(int i) {
+		return methods[i];
+	}
+
+	private static long dosToJavaTime(int dosTime) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(((dosTime >> 25) & 0x7f) + 1980, ((dosTime >> 21) & 0x0f) - 1, (dosTime >> 16) & 0x1f,
+				(dosTime >> 11) & 0x1f, (dosTime >> 5) & 0x3f, (dosTime << 1) & 0x3e);
+		return calendar.getTimeInMillis();
+	}
+
+	/**
+	 * A zip entry created from the index.
+	 */
+	static final class IndexedEntry extends ZipEntry {
+		final int position;
+
+		IndexedEntry(String name, int position) {
+			super(name);
+			this.position = position;
+		}
+	}
+}
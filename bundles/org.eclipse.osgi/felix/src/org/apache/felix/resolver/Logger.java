@@ -185,4 +185,65 @@ public class Logger
     {
         // do nothing by default
     }
+
+    /**
+     * Returns whether the resolver measures the time of the phases of a resolve
+     * operation. The methods which log the time of the phases are only called if
+     * the time is measured.
+     *
+     * @return {@code true} if the time of the phases is measured
+     */
+    public boolean isMetricsEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * Called after the resolver has populated the candidates of the resources
+     * to resolve.
+     *
+     * @param time the time spent populating the candidates, in nanoseconds
+     */
+    public void logPopulateCandidates(long time)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called after the resolver has calculated the package spaces of a
+     * permutation.
+     *
+     * @param time the time spent calculating the package spaces, in nanoseconds
+     */
+    public void logCalculatePackageSpaces(long time)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called after the resolver has checked the uses constraints of a resource
+     * in a permutation.
+     *
+     * @param resource     the resource whose uses constraints were checked
+     * @param time         the time spent checking the uses constraints, in
+     *                     nanoseconds
+     * @param permutations the number of permutations added because of the
+     *                     conflicts found for the resource
+     */
+    public void logCheckUsesConstraints(Resource resource, long time, int permutations)
+    {
+        // do nothing by default
+    }
+
+    /**
+     * Called after the resolver has checked the consistency of a permutation.
+     *
+     * @param initial {@code true} if the permutation is the initial permutation
+     *                of a resolve session
+     * @param time    the time spent checking the permutation, in nanoseconds
+     */
+    public void logCheckPermutation(boolean initial, long time)
+    {
+        // do nothing by default
+    }
 }
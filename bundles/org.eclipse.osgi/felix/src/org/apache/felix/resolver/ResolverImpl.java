@@ -76,6 +76,9 @@ public class ResolverImpl implements Resolver
 
     private final Executor m_executor;
 
+    private final PackageSpaceCache m_packageSpaceCache;
+    private final long m_packageSpaceGeneration;
+
     // Note this class is not thread safe.
     // Only use in the context of a single thread.
     static class ResolveSession implements Runnable
@@ -399,13 +402,35 @@ public class ResolverImpl implements Resolver
         this.m_logger = logger;
         this.m_parallelism = parallelism;
         this.m_executor = null;
+        this.m_packageSpaceCache = null;
+        this.m_packageSpaceGeneration = 0;
     }
 
     public ResolverImpl(Logger logger, Executor executor)
+    {
+        this(logger, executor, null, 0);
+    }
+
+    /**
+     * Creates a resolver which reuses the package spaces of resolved resources
+     * kept in the specified cache and adds the package spaces it computes for
+     * resolved resources to the cache.
+     *
+     * @param logger the logger
+     * @param executor the executor, may be {@code null}
+     * @param packageSpaceCache the cache of package spaces, may be {@code null}
+     * @param packageSpaceGeneration the {@link PackageSpaceCache#getGeneration()
+     *        generation} of the cache taken together with the snapshot of the
+     *        wirings the resolve context provides
+     */
+    public ResolverImpl(Logger logger, Executor executor, PackageSpaceCache packageSpaceCache,
+        long packageSpaceGeneration)
     {
         this.m_logger = logger;
         this.m_parallelism = -1;
         this.m_executor = executor;
+        this.m_packageSpaceCache = packageSpaceCache;
+        this.m_packageSpaceGeneration = packageSpaceGeneration;
     }
 
     public Map<Resource, List<Wire>> resolve(ResolveContext rc) throws ResolutionException
@@ -469,7 +494,12 @@ public class ResolverImpl implements Resolver
             retry = false;
             try
             {
+                long start = m_logger.isMetricsEnabled() ? System.nanoTime() : 0;
                 getInitialCandidates(session);
+                if (m_logger.isMetricsEnabled())
+                {
+                    m_logger.logPopulateCandidates(System.nanoTime() - start);
+                }
                 if (session.getCurrentError() != null) {
                     throw session.getCurrentError().toException();
                 }
@@ -599,6 +629,7 @@ public class ResolverImpl implements Resolver
     private Candidates findValidCandidates(ResolveSession session, Map<Resource, ResolutionError> faultyResources) {
         Candidates allCandidates = null;
         boolean foundFaultyResources = false;
+        boolean initial = true;
         do
         {
             allCandidates = session.getNextPermutation();
@@ -611,6 +642,7 @@ public class ResolverImpl implements Resolver
 
             Map<Resource, ResolutionError> currentFaultyResources = new HashMap<Resource, ResolutionError>();
 
+            long start = m_logger.isMetricsEnabled() ? System.nanoTime() : 0;
             session.setCurrentError(
                     checkConsistency(
                             session,
@@ -618,6 +650,11 @@ public class ResolverImpl implements Resolver
                             currentFaultyResources
                     )
             );
+            if (m_logger.isMetricsEnabled())
+            {
+                m_logger.logCheckPermutation(initial, System.nanoTime() - start);
+            }
+            initial = false;
 
             if (!currentFaultyResources.isEmpty())
             {
@@ -650,18 +687,31 @@ public class ResolverImpl implements Resolver
             return rethrow;
         }
         Map<Resource, Resource> allhosts = allCandidates.getRootHosts();
+        boolean metrics = m_logger.isMetricsEnabled();
+        long start = metrics ? System.nanoTime() : 0;
         // Calculate package spaces
         Map<Resource, Packages> resourcePkgMap =
             calculatePackageSpaces(session, allCandidates, allhosts.values());
+        if (metrics)
+        {
+            m_logger.logCalculatePackageSpaces(System.nanoTime() - start);
+        }
         ResolutionError error = null;
         // Check package consistency
         Map<Resource, Object> resultCache =
                 new OpenHashMap<Resource, Object>(resourcePkgMap.size());
         for (Entry<Resource, Resource> entry : allhosts.entrySet())
         {
+            long permutations = metrics ? session.getPermutationCount() : 0;
+            start = metrics ? System.nanoTime() : 0;
             rethrow = checkPackageSpaceConsistency(
                     session, entry.getValue(),
                     allCandidates, session.isDynamic(), resourcePkgMap, resultCache);
+            if (metrics)
+            {
+                m_logger.logCheckUsesConstraints(entry.getKey(), System.nanoTime() - start,
+                    (int) (session.getPermutationCount() - permutations));
+            }
             if (session.isCancelled()) {
                 return null;
             }
@@ -1171,6 +1221,10 @@ public class ResolverImpl implements Resolver
     {
         final EnhancedExecutor executor = new EnhancedExecutor(session.getExecutor());
 
+        // The cached package spaces of resolved resources; these are shared
+        // and must not be modified
+        final Map<Resource, Packages> cachedPackages = new ConcurrentHashMap<Resource, Packages>();
+
         // Parallel compute wire candidates
         final Map<Resource, List<WireCandidate>> allWireCandidates = new ConcurrentHashMap<Resource, List<WireCandidate>>();
         {
@@ -1184,7 +1238,17 @@ public class ResolverImpl implements Resolver
                 }
                 public void run()
                 {
-                    List<WireCandidate> wireCandidates = getWireCandidates(session, allCandidates, resource);
+                    List<WireCandidate> wireCandidates;
+                    CachedPackageSpace cached = getCachedPackageSpace(session, resource);
+                    if (cached != null)
+                    {
+                        cachedPackages.put(resource, cached.m_packages);
+                        wireCandidates = cached.m_wireCandidates;
+                    }
+                    else
+                    {
+                        wireCandidates = getWireCandidates(session, allCandidates, resource);
+                    }
                     allWireCandidates.put(resource, wireCandidates);
                     for (WireCandidate w : wireCandidates)
                     {
@@ -1211,6 +1275,12 @@ public class ResolverImpl implements Resolver
         final OpenHashMap<Resource, Packages> allPackages = new OpenHashMap<Resource, Packages>(allCandidates.getNbResources());
         for (final Resource resource : allWireCandidates.keySet())
         {
+            Packages cached = cachedPackages.get(resource);
+            if (cached != null)
+            {
+                allPackages.put(resource, cached);
+                continue;
+            }
             final Packages packages = new Packages(resource);
             allPackages.put(resource, packages);
             executor.execute(new Runnable()
@@ -1227,6 +1297,10 @@ public class ResolverImpl implements Resolver
         // Parallel compute package lists
         for (final Resource resource : allWireCandidates.keySet())
         {
+            if (cachedPackages.containsKey(resource))
+            {
+                continue;
+            }
             executor.execute(new Runnable()
             {
                 public void run()
@@ -1245,7 +1319,7 @@ public class ResolverImpl implements Resolver
         {
             final Resource resource = entry.getKey();
             final Packages packages = entry.getValue();
-            if (!packages.m_requiredPkgs.isEmpty())
+            if (!packages.m_requiredPkgs.isEmpty() && !cachedPackages.containsKey(resource))
             {
                 getPackageSourcesInternal(session, allPackages, resource, packages);
             }
@@ -1256,7 +1330,7 @@ public class ResolverImpl implements Resolver
         {
             final Resource resource = entry.getKey();
             final Packages packages = entry.getValue();
-            if (packages.m_sources.isEmpty())
+            if (packages.m_sources.isEmpty() && !cachedPackages.containsKey(resource))
             {
                 executor.execute(new Runnable()
                 {
@@ -1272,6 +1346,10 @@ public class ResolverImpl implements Resolver
         // Parallel compute uses
         for (final Resource resource : allWireCandidates.keySet())
         {
+            if (cachedPackages.containsKey(resource))
+            {
+                continue;
+            }
             executor.execute(new Runnable()
             {
                 public void run()
@@ -1282,9 +1360,54 @@ public class ResolverImpl implements Resolver
         }
         executor.await();
 
+        if (m_packageSpaceCache != null)
+        {
+            cachePackageSpaces(session, allWireCandidates, allPackages, cachedPackages);
+        }
+
         return allPackages;
     }
 
+    private CachedPackageSpace getCachedPackageSpace(ResolveSession session, Resource resource)
+    {
+        if (m_packageSpaceCache == null || resource.equals(session.getDynamicHost()))
+        {
+            return null;
+        }
+        // only resolved resources have a cached package space
+        return session.getContext().getWirings().containsKey(resource)
+            ? m_packageSpaceCache.get(resource, m_packageSpaceGeneration) : null;
+    }
+
+    private void cachePackageSpaces(
+        ResolveSession session,
+        Map<Resource, List<WireCandidate>> allWireCandidates,
+        Map<Resource, Packages> allPackages,
+        Map<Resource, Packages> cachedPackages)
+    {
+        // The package space of a resolved resource only depends on its wiring
+        // and the wirings it is wired to. The dynamically importing host is
+        // the exception since its package space includes the dynamic import.
+        Map<Resource, CachedPackageSpace> computed = new HashMap<Resource, CachedPackageSpace>();
+        for (Map.Entry<Resource, List<WireCandidate>> entry : allWireCandidates.entrySet())
+        {
+            Resource resource = entry.getKey();
+            if (cachedPackages.containsKey(resource) || resource.equals(session.getDynamicHost()))
+            {
+                continue;
+            }
+            if (session.getContext().getWirings().containsKey(resource))
+            {
+                computed.put(resource, new CachedPackageSpace(entry.getValue(), allPackages.get(resource)));
+            }
+        }
+        if (!computed.isEmpty())
+        {
+            // only cached if no wiring changed since the wirings were taken
+            m_packageSpaceCache.putAll(m_packageSpaceGeneration, computed);
+        }
+    }
+
     private static List<String> parseUses(String s) {
         int nb = 1;
         int l = s.length();
@@ -2143,6 +2266,113 @@ public class ResolverImpl implements Resolver
         }
     }
 
+    /**
+     * A cache of the package spaces of resolved resources which is shared by
+     * resolve operations. The package space of a resolved resource only depends
+     * on its wiring and the wirings it is wired to, so it can be reused by each
+     * resolve operation the resource takes part in for as long as its wiring
+     * does not change.
+     * <p>
+     * The owner of the cache must {@link #remove(Collection) remove} resources
+     * which are unresolved or whose required wires change, and must
+     * {@link #clear() clear} the cache when the capabilities of a wiring change
+     * since the package spaces of the resources requiring it include its
+     * exported packages. The owner must take the {@link #getGeneration()
+     * generation} of the cache together with the snapshot of the wirings used
+     * by a resolve operation; the cache is not used by resolve operations whose
+     * wirings are older than the last invalidation.
+     */
+    public static class PackageSpaceCache
+    {
+        private final Map<Resource, CachedPackageSpace> m_packageSpaces =
+            new HashMap<Resource, CachedPackageSpace>();
+        // Incremented each time resources are invalidated; package spaces which
+        // were computed while the wirings changed are not cached
+        private long m_generation;
+
+        /**
+         * Returns the generation of the cache which is incremented each time
+         * package spaces are invalidated.
+         *
+         * @return the generation of the cache
+         */
+        public synchronized long getGeneration()
+        {
+            return m_generation;
+        }
+
+        synchronized CachedPackageSpace get(Resource resource, long generation)
+        {
+            return generation == m_generation ? m_packageSpaces.get(resource) : null;
+        }
+
+        synchronized void putAll(long generation, Map<Resource, CachedPackageSpace> packageSpaces)
+        {
+            if (generation == m_generation)
+            {
+                m_packageSpaces.putAll(packageSpaces);
+            }
+        }
+
+        /**
+         * Removes the package spaces of the specified resources.
+         *
+         * @param resources the resources which were unresolved or whose
+         *        wirings changed
+         */
+        public synchronized void remove(Collection<? extends Resource> resources)
+        {
+            m_generation++;
+            for (Resource resource : resources)
+            {
+                m_packageSpaces.remove(resource);
+            }
+        }
+
+        /**
+         * Removes the package spaces of all resources which are not contained
+         * in the specified resources. This does not invalidate package spaces
+         * which are currently computed.
+         *
+         * @param resolved the resolved resources
+         */
+        public synchronized void retainAll(Collection<? extends Resource> resolved)
+        {
+            m_packageSpaces.keySet().retainAll(resolved);
+        }
+
+        /**
+         * Removes all package spaces.
+         */
+        public synchronized void clear()
+        {
+            m_generation++;
+            m_packageSpaces.clear();
+        }
+
+        /**
+         * Returns the number of cached package spaces.
+         *
+         * @return the number of cached package spaces
+         */
+        public synchronized int size()
+        {
+            return m_packageSpaces.size();
+        }
+    }
+
+    private static final class CachedPackageSpace
+    {
+        final List<WireCandidate> m_wireCandidates;
+        final Packages m_packages;
+
+        CachedPackageSpace(List<WireCandidate> wireCandidates, Packages packages)
+        {
+            m_wireCandidates = wireCandidates;
+            m_packages = packages;
+        }
+    }
+
     private static final class WireCandidate
     {
         public final Requirement requirement;
@@ -16,8 +16,8 @@ package org.eclipse.osgi.framework.eventmgr;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * This class is the central class for the Event Manager. Each
@@ -97,6 +97,14 @@ import java.util.Set;
  *
  * <p> The highly dynamic nature of the OSGi framework had necessitated these features for
  * proper and efficient event delivery.
+ *
+ * <p>By default an EventManager uses a single event thread for asynchronous
+ * delivery so that one slow listener delays the asynchronous events of all other listeners.
+ * An EventManager can be constructed with a number of dispatch threads
+ * (see {@link #EventManager(String, ThreadGroup, int)}). Each listener is then assigned
+ * to one of the threads by its identity hash code. Asynchronous events are still delivered
+ * in order to each listener but events to listeners assigned to different threads are
+ * delivered concurrently.
  * @since 3.1
  * @noextend This class is not intended to be subclassed by clients.
  */
@@ -105,10 +113,10 @@ public class EventManager {
 	static final boolean DEBUG = false;
 
 	/**
-	 * EventThread for asynchronous dispatch of events.
+	 * EventThreads for asynchronous dispatch of events, one for each dispatch lane.
 	 * Access to this field must be protected by a synchronized region.
 	 */
-	private EventThread<?, ?, ?> thread;
+	private final EventThread<?, ?, ?>[] threads;
 
 	/**
 	 * Once closed, an attempt to create a new EventThread will result in an
@@ -156,7 +164,28 @@ public class EventManager {
 	 * @since 3.4
 	 */
 	public EventManager(String threadName, ThreadGroup threadGroup) {
-		thread = null;
+		this(threadName, threadGroup, 1);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 * <p>
+	 * If the specified number of threads is greater than one, asynchronous
+	 * events are delivered by that many event threads. Each listener is
+	 * always called on the same event thread so that asynchronous events
+	 * are delivered in order to each listener.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param threadCount The maximum number of threads to use for asynchronous
+	 * event delivery. A value less than one is treated as one.
+	 * @since 3.23
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int threadCount) {
+		threads = new EventThread<?, ?, ?>[Math.max(1, threadCount)];
 		closed = false;
 		this.threadName = threadName;
 		this.threadGroup = threadGroup;
@@ -174,13 +203,36 @@ public class EventManager {
 		if (closed) {
 			return;
 		}
-		if (thread != null) {
-			thread.close();
-			thread = null;
+		for (int i = 0; i < threads.length; i++) {
+			if (threads[i] != null) {
+				threads[i].close();
+				threads[i] = null;
+			}
 		}
 		closed = true;
 	}
 
+	/**
+	 * Returns the number of lanes used for dispatching events asynchronously.
+	 * Each lane is served by its own EventThread.
+	 *
+	 * @return The number of lanes of this EventManager.
+	 */
+	int getLaneCount() {
+		return threads.length;
+	}
+
+	/**
+	 * Returns the lane on which events are asynchronously dispatched to the
+	 * specified listener.
+	 *
+	 * @param listener The listener.
+	 * @return The lane of the listener.
+	 */
+	int getLane(Object listener) {
+		return (System.identityHashCode(listener) & Integer.MAX_VALUE) % threads.length;
+	}
+
 	/**
 	 * Returns the EventThread to use for dispatching events asynchronously for
 	 * this EventManager.
@@ -188,22 +240,35 @@ public class EventManager {
 	 * @return EventThread to use for dispatching events asynchronously for
 	 * this EventManager.
 	 */
-	synchronized <K, V, E> EventThread<K, V, E> getEventThread() {
+	<K, V, E> EventThread<K, V, E> getEventThread() {
+		return getEventThread(0);
+	}
+
+	/**
+	 * Returns the EventThread to use for dispatching events asynchronously on
+	 * the specified lane of this EventManager.
+	 *
+	 * @param lane The lane.
+	 * @return EventThread to use for dispatching events asynchronously on the lane.
+	 */
+	synchronized <K, V, E> EventThread<K, V, E> getEventThread(int lane) {
 		if (closed) {
 			throw new IllegalStateException();
 		}
-		if (thread == null) {
+		if (threads[lane] == null) {
 			/* if there is no thread, then create a new one */
-			thread = AccessController.doPrivileged((PrivilegedAction<EventThread<K, V, E>>) () -> {
-				EventThread<K, V, E> t = new EventThread<>(threadGroup, threadName);
+			final String name = (threadName == null || threads.length == 1) ? threadName : threadName + " #" + lane; //$NON-NLS-1$
+			EventThread<K, V, E> thread = AccessController.doPrivileged((PrivilegedAction<EventThread<K, V, E>>) () -> {
+				EventThread<K, V, E> t = new EventThread<>(threadGroup, name);
 				return t;
 			});
 			/* start the new thread */
 			thread.start();
+			threads[lane] = thread;
 		}
 
 		@SuppressWarnings("unchecked")
-		EventThread<K, V, E> result = (EventThread<K, V, E>) thread;
+		EventThread<K, V, E> result = (EventThread<K, V, E>) threads[lane];
 		return result;
 	}
 
@@ -213,7 +278,7 @@ public class EventManager {
 	 * on the next item on the list.
 	 * This method is package private.
 	 *
-	 * @param listeners A Set of entries from a CopyOnWriteIdentityMap map.
+	 * @param listeners A collection of entries from a CopyOnWriteIdentityMap map.
 	 * @param dispatcher Call back object which is called to complete the delivery of
 	 * the event.
 	 * @param eventAction This value was passed by the event source and
@@ -221,7 +286,7 @@ public class EventManager {
 	 * @param eventObject This object was created by the event source and
 	 * is passed to this method. This is passed on to the call back object.
 	 */
-	static <K, V, E> void dispatchEvent(Set<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
+	static <K, V, E> void dispatchEvent(Collection<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
 		for (Map.Entry<K, V> listener : listeners) { /* iterate over the list of listeners */
 			final K eventListener = listener.getKey();
 			final V listenerObject = listener.getValue();
@@ -252,7 +317,7 @@ public class EventManager {
 		 */
 		private static class Queued<K, V, E> {
 			/** listener list for this event */
-			final Set<Map.Entry<K, V>> listeners;
+			final Collection<Map.Entry<K, V>> listeners;
 			/** dispatcher of this event */
 			final EventDispatcher<K, V, E> dispatcher;
 			/** action for this event */
@@ -270,7 +335,7 @@ public class EventManager {
 			 * @param a Action for this event
 			 * @param o Object for this event
 			 */
-			Queued(Set<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
+			Queued(Collection<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
 				listeners = l;
 				dispatcher = d;
 				action = a;
@@ -362,7 +427,7 @@ public class EventManager {
 		 * @param a Action for this event
 		 * @param o Object for this event
 		 */
-		synchronized void postEvent(Set<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
+		synchronized void postEvent(Collection<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
 			if (!isAlive()) { /* If the thread is not alive, throw an exception */
 				throw new IllegalStateException();
 			}
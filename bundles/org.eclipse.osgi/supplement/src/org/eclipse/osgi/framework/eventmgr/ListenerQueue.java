@@ -14,6 +14,10 @@
 
 package org.eclipse.osgi.framework.eventmgr;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.eclipse.osgi.framework.eventmgr.EventManager.EventThread;
@@ -23,7 +27,7 @@ import org.eclipse.osgi.framework.eventmgr.EventManager.EventThread;
  * is fired. The snapshot list is then used to dispatch
  * events to those listeners. A ListenerQueue object is associated with a
  * specific EventManager object. ListenerQueue objects constructed with the same
- * EventManager object will get in-order delivery of events when
+ * EventManager object will get in-order delivery of events to each listener when
  * using asynchronous delivery. No delivery order is guaranteed for synchronous
  * delivery to avoid any potential deadly embraces.
  *
@@ -123,6 +127,11 @@ public class ListenerQueue<K, V, E> {
 		synchronized (this) {
 			readOnly = true;
 		}
+		int laneCount = manager.getLaneCount();
+		if (laneCount > 1) {
+			dispatchEventAsynchronous(laneCount, eventAction, eventObject);
+			return;
+		}
 		EventThread<K, V, E> eventThread = manager.getEventThread();
 		synchronized (eventThread) { /* synchronize on the EventThread to ensure no interleaving of posting to the event thread */
 			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
@@ -131,6 +140,33 @@ public class ListenerQueue<K, V, E> {
 		}
 	}
 
+	/**
+	 * Asynchronously dispatch an event to the snapshot list using the lanes of
+	 * the associated EventManager. Each listener list is split by the lanes of
+	 * its listeners and each part is posted to the EventThread of its lane.
+	 */
+	private void dispatchEventAsynchronous(int laneCount, int eventAction, E eventObject) {
+		synchronized (manager) { /* synchronize on the EventManager to ensure no interleaving of posting to the event threads */
+			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
+				List<List<Map.Entry<K, V>>> lanes = new ArrayList<>(Collections.nCopies(laneCount, null));
+				for (Map.Entry<K, V> listener : entry.getKey()) {
+					int lane = manager.getLane(listener.getKey());
+					if (lanes.get(lane) == null) {
+						lanes.set(lane, new ArrayList<>());
+					}
+					lanes.get(lane).add(listener);
+				}
+				for (int lane = 0; lane < laneCount; lane++) {
+					Collection<Map.Entry<K, V>> listeners = lanes.get(lane);
+					if (listeners != null) {
+						EventThread<K, V, E> eventThread = manager.getEventThread(lane);
+						eventThread.postEvent(listeners, entry.getValue(), eventAction, eventObject);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Synchronously dispatch an event to the snapshot list. The event may
 	 * be dispatched on the current thread or an event dispatch thread
@@ -15,6 +15,7 @@ package org.eclipse.osgi.report.resolution;
 
 import java.util.List;
 import java.util.Map;
+import org.eclipse.osgi.service.metrics.ResolverMetricsDTO;
 import org.eclipse.pde.api.tools.annotations.NoImplement;
 import org.osgi.annotation.versioning.ProviderType;
 import org.osgi.framework.hooks.resolver.ResolverHook;
@@ -231,4 +232,16 @@ public interface ResolutionReport {
 	 * @since 3.20
 	 */
 	int getImportPermutations();
+
+	/**
+	 * Returns the metrics of the resolve operation which created this report.
+	 * The metrics are only collected if the framework is launched with the
+	 * {@code equinox.resolver.metrics} configuration property set to
+	 * {@code true}.
+	 * 
+	 * @return the metrics of the resolve operation or {@code null} if the
+	 *         metrics are not collected
+	 * @since 3.23
+	 */
+	ResolverMetricsDTO getMetrics();
 }
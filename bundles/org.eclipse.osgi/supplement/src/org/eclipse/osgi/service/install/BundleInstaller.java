@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.install;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.pde.api.tools.annotations.NoImplement;
+import org.osgi.annotation.versioning.ProviderType;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+
+/**
+ * The bundle installer service. The framework registers this service to
+ * install a batch of bundles with a single operation. Installing a batch has the
+ * same result as calling {@link BundleContext#installBundle(String, InputStream)}
+ * with the bundle context of the bundle using this service for each bundle of
+ * the batch, but it is considerably cheaper for large batches:
+ * <ul>
+ * <li>the content of the bundles is staged and their manifests are parsed in
+ * parallel,</li>
+ * <li>all the bundles are added to the framework with a single write to the
+ * framework state, which is persisted once,</li>
+ * <li>the {@code INSTALLED} bundle events are delivered after all the bundles of
+ * the batch are installed.</li>
+ * </ul>
+ *
+ * @since 3.23
+ */
+@ProviderType
+@NoImplement
+public interface BundleInstaller {
+	/**
+	 * Installs the specified bundles. A failure to install one bundle does not
+	 * prevent the other bundles from being installed.
+	 *
+	 * @param bundles the location identifiers of the bundles to install mapped to
+	 *                their content. A {@code null} content means the content is
+	 *                read from the location, like
+	 *                {@link BundleContext#installBundle(String)} does.
+	 * @return the result of installing each bundle, in the iteration order of the
+	 *         specified map.
+	 */
+	List<InstallResult> installBundles(Map<String, InputStream> bundles);
+
+	/**
+	 * The result of installing a bundle with a batch install.
+	 */
+	@ProviderType
+	@NoImplement
+	interface InstallResult {
+		/**
+		 * Returns the location identifier of the bundle.
+		 *
+		 * @return the location identifier
+		 */
+		String getLocation();
+
+		/**
+		 * Returns the installed bundle, or the existing bundle if one was already
+		 * installed at the location.
+		 *
+		 * @return the bundle, or {@code null} if the bundle could not be installed
+		 */
+		Bundle getBundle();
+
+		/**
+		 * Returns the exception which prevented the bundle from being installed.
+		 *
+		 * @return the exception, or {@code null} if the bundle was installed
+		 */
+		BundleException getException();
+	}
+}
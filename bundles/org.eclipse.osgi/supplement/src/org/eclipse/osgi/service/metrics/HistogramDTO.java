@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.metrics;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for a histogram of non-negative values. The values are
+ * counted in buckets whose upper bounds are powers of two minus one.
+ *
+ * @since 3.23
+ * @NotThreadSafe
+ */
+public class HistogramDTO extends DTO {
+	/**
+	 * The number of values.
+	 */
+	public long count;
+
+	/**
+	 * The sum of the values.
+	 */
+	public long sum;
+
+	/**
+	 * The largest value.
+	 */
+	public long max;
+
+	/**
+	 * The inclusive upper bound of the values counted in each bucket. The lower
+	 * bound of a bucket is the upper bound of the previous bucket plus one. Empty
+	 * buckets after the last non-empty bucket are omitted.
+	 */
+	public long[] upperBounds;
+
+	/**
+	 * The number of values in each bucket.
+	 */
+	public long[] counts;
+}
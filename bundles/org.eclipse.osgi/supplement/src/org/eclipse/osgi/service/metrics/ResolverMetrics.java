@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.metrics;
+
+import org.eclipse.pde.api.tools.annotations.NoImplement;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The resolver metrics service. The framework registers this service to
+ * provide the time it spends in the phases of resolve operations and the
+ * permutations the resolver tries, for example to find the bundles whose uses
+ * constraints are expensive to check.
+ * <p>
+ * The metrics are only collected if the framework is launched with the
+ * {@code equinox.resolver.metrics} configuration property set to {@code true}.
+ * The metrics of a single resolve operation are also available from its
+ * {@link org.eclipse.osgi.report.resolution.ResolutionReport#getMetrics()
+ * resolution report}.
+ *
+ * @since 3.23
+ */
+@ProviderType
+@NoImplement
+public interface ResolverMetrics {
+	/**
+	 * Returns whether the framework collects resolver metrics.
+	 *
+	 * @return {@code true} if the metrics are collected.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Returns a snapshot of the resolver metrics of the resolve operations
+	 * completed since the framework was started or the metrics were last reset.
+	 *
+	 * @return A new snapshot of the metrics.
+	 */
+	ResolverMetricsDTO getMetrics();
+
+	/**
+	 * Resets all the metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.metrics;
+
+import java.util.Map;
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for the resolver metrics of one or more resolve
+ * operations. All times are in nanoseconds. The times of the phases are summed
+ * over all resolve sessions of an operation; sessions which run concurrently
+ * may add up to more than the time of the operation.
+ *
+ * @since 3.23
+ * @NotThreadSafe
+ */
+public class ResolverMetricsDTO extends DTO {
+	/**
+	 * Whether the metrics are collected. If {@code false} all the other metrics are
+	 * empty.
+	 */
+	public boolean enabled;
+
+	/**
+	 * The time the snapshot was taken, in milliseconds since the epoch.
+	 */
+	public long timestamp;
+
+	/**
+	 * The number of resolve operations.
+	 */
+	public long operations;
+
+	/**
+	 * The time of the resolve operations, including the calls to resolver hooks.
+	 */
+	public long resolveTime;
+
+	/**
+	 * The number of requirements the resolver looked up providers for.
+	 */
+	public long findProvidersCalls;
+
+	/**
+	 * The time spent looking up and filtering the providers of requirements.
+	 */
+	public long findProvidersTime;
+
+	/**
+	 * The time spent populating the candidates of the resources to resolve. This
+	 * includes the provider lookups made while populating the candidates.
+	 */
+	public long candidatesTime;
+
+	/**
+	 * The time spent calculating package spaces.
+	 */
+	public long packageSpacesTime;
+
+	/**
+	 * The time spent checking uses constraints.
+	 */
+	public long usesConstraintsTime;
+
+	/**
+	 * The time spent checking the permutations created to solve conflicts, that
+	 * is all permutations except the initial permutation of each resolve session.
+	 * This includes the package space calculations and uses constraint checks of
+	 * those permutations.
+	 */
+	public long permutationsTime;
+
+	/**
+	 * The number of permutations created to solve conflicts.
+	 */
+	public long permutations;
+
+	/**
+	 * The number of permutations processed.
+	 */
+	public long processedPermutations;
+
+	/**
+	 * The number of permutations created because of a uses constraint violation.
+	 */
+	public long usesPermutations;
+
+	/**
+	 * The number of permutations created to select a different package provider.
+	 */
+	public long importPermutations;
+
+	/**
+	 * The number of permutations created because of a package substitution.
+	 */
+	public long substitutionPermutations;
+
+	/**
+	 * The number of batch resolves cancelled because they took longer than the
+	 * batch timeout.
+	 */
+	public long batchTimeouts;
+
+	/**
+	 * The number of times the resolver fell back to resolving the bundles of a
+	 * batch one by one, after a batch timeout or when running out of memory.
+	 */
+	public long individualResolves;
+
+	/**
+	 * The time spent checking the uses constraints of a bundle, by the id of the
+	 * bundle.
+	 */
+	public Map<Long, Long> usesConstraintsTimeByBundle;
+
+	/**
+	 * The number of permutations created because of conflicts found while
+	 * checking the uses constraints of a bundle, by the id of the bundle.
+	 */
+	public Map<Long, Long> permutationsByBundle;
+}
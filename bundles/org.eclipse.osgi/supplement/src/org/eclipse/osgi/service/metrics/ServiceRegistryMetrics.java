@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.metrics;
+
+import org.eclipse.pde.api.tools.annotations.NoImplement;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The service registry metrics service. The framework registers this service to
+ * provide the counters and histograms it collects about the use of the service
+ * registry, for example to find the bundles which make the most service
+ * lookups.
+ * <p>
+ * The metrics are only collected if the framework is launched with the
+ * {@code equinox.serviceregistry.metrics} configuration property set to
+ * {@code true}. Collecting the metrics adds a small overhead to service lookups,
+ * getService calls, service events and hook calls.
+ *
+ * @since 3.23
+ */
+@ProviderType
+@NoImplement
+public interface ServiceRegistryMetrics {
+	/**
+	 * Returns whether the framework collects service registry metrics.
+	 *
+	 * @return {@code true} if the metrics are collected.
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Returns a snapshot of the service registry metrics collected since the
+	 * framework was started or the metrics were last reset. The snapshot is not
+	 * atomic; metrics which are updated concurrently may be slightly inconsistent
+	 * with each other.
+	 *
+	 * @return A new snapshot of the metrics.
+	 */
+	ServiceRegistryMetricsDTO getMetrics();
+
+	/**
+	 * Resets all the metrics.
+	 */
+	void reset();
+}
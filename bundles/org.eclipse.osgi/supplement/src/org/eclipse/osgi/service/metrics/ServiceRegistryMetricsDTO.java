@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2026 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.service.metrics;
+
+import java.util.Map;
+import org.osgi.dto.DTO;
+
+/**
+ * Data Transfer Object for a snapshot of the service registry metrics. All
+ * times are in nanoseconds.
+ *
+ * @since 3.23
+ * @NotThreadSafe
+ */
+public class ServiceRegistryMetricsDTO extends DTO {
+	/**
+	 * Whether the metrics are collected. If {@code false} all the other metrics are
+	 * empty.
+	 */
+	public boolean enabled;
+
+	/**
+	 * The time the snapshot was taken, in milliseconds since the epoch.
+	 */
+	public long timestamp;
+
+	/**
+	 * The number of service lookups.
+	 */
+	public long lookups;
+
+	/**
+	 * The number of service lookups by the class name used for the lookup. Lookups
+	 * without a class name are counted with the class name required by the filter
+	 * or with {@code "*"} if the filter does not require a class name.
+	 */
+	public Map<String, Long> lookupsByClass;
+
+	/**
+	 * The number of service lookups by the id of the bundle making the lookup.
+	 */
+	public Map<Long, Long> lookupsByBundle;
+
+	/**
+	 * The number of filter evaluations per service lookup.
+	 */
+	public HistogramDTO filterEvaluationsPerLookup;
+
+	/**
+	 * The number of service listeners an event is delivered to.
+	 */
+	public HistogramDTO listenerFanOut;
+
+	/**
+	 * The time to get a service object.
+	 */
+	public HistogramDTO getServiceTime;
+
+	/**
+	 * The time spent in the getService method of service factories.
+	 */
+	public HistogramDTO factoryGetServiceTime;
+
+	/**
+	 * The time spent in calls to service registry hooks.
+	 */
+	public HistogramDTO hookTime;
+
+	/**
+	 * The time spent waiting for a service use lock held by another thread.
+	 */
+	public HistogramDTO useLockWaitTime;
+
+	/**
+	 * The number of filter strings in the filter cache of the framework.
+	 */
+	public int filterCacheSize;
+
+	/**
+	 * The number of filters created by bundle contexts and service listeners
+	 * which were found in the filter cache.
+	 */
+	public long filterCacheHits;
+
+	/**
+	 * The number of filters created by bundle contexts and service listeners
+	 * which had to be parsed because they were not found in the filter cache.
+	 */
+	public long filterCacheMisses;
+}